@@ -0,0 +1,52 @@
+package com.example.airtimebackend.ai;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+
+/**
+ * Recorded payloads (src/test/resources/fixtures) and a provider wired for offline benchmarking.
+ */
+final class Fixtures {
+
+    static final String BRAIN_DUMP = "Fluid Mechanics p-set due Thursday 11:59 PM, need to debug the CAD file for "
+            + "the robot arm before the Wednesday meeting. Soccer practice at 6 PM today, bring cleats. Pick up Leo "
+            + "at 3. Internship interview Wednesday 10 AM - iron shirt. Email Professor Chen about the lab extension. ";
+
+    private Fixtures() {
+    }
+
+    static String load(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Missing fixture " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Repeats the sample dump until it is at least the given number of characters
+    static String brainDumpOfSize(int chars) {
+        StringBuilder sb = new StringBuilder(chars + BRAIN_DUMP.length());
+        while (sb.length() < chars) {
+            sb.append(BRAIN_DUMP);
+        }
+        return sb.substring(0, chars);
+    }
+
+    // No HTTP client: only the prompt/parse/fallback code paths are exercised
+    static OpenAIProvider offlineProvider() {
+        return offlineProvider(PromptProfile.COMPACT);
+    }
+
+    static OpenAIProvider offlineProvider(PromptProfile profile) {
+        return new OpenAIProvider(null, new AnalysisMetrics(new SimpleMeterRegistry()), profile,
+                new LocalAIProvider(Clock.systemDefaultZone()), null);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * parseAIResponse over recorded model outputs; "garbage" ends in getFallbackResponse.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+
+    @Param({"model-output-clean.json", "model-output-fenced.txt", "model-output-trailing-commas.json",
+            "model-output-garbage.txt"})
+    public String fixture;
+
+    private OpenAIProvider provider;
+    private String content;
+
+    @Setup
+    public void setUp() {
+        provider = Fixtures.offlineProvider();
+        content = Fixtures.load(fixture);
+    }
+
+    @Benchmark
+    public BrainDumpResponse parse() {
+        return provider.parseAIResponse(content, Fixtures.BRAIN_DUMP);
+    }
+}
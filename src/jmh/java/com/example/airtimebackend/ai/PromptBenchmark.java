@@ -0,0 +1,34 @@
+package com.example.airtimebackend.ai;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PromptBenchmark {
+
+    @Param({"80", "1000", "8000"})
+    public int inputChars;
+
+    @Param({"FULL", "COMPACT"})
+    public PromptProfile profile;
+
+    private OpenAIProvider provider;
+    private String text;
+
+    @Setup
+    public void setUp() {
+        provider = Fixtures.offlineProvider(profile);
+        text = Fixtures.brainDumpOfSize(inputChars);
+    }
+
+    @Benchmark
+    public String buildPrompt() {
+        return provider.buildADHDPrompt(text);
+    }
+}
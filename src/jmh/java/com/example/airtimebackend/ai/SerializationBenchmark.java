@@ -0,0 +1,33 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writing a full BrainDumpResponse the way the controller does (Jackson, JSON bytes).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private BrainDumpResponse response;
+
+    @Setup
+    public void setUp() {
+        response = new BrainDumpResponseParser().parse(Fixtures.load("model-output-clean.json"), Fixtures.BRAIN_DUMP);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
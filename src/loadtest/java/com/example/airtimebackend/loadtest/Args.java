@@ -0,0 +1,25 @@
+package com.example.airtimebackend.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Parses --key=value command line options; the leading dashes are optional (XML comments can't hold them)
+final class Args {
+
+    private Args() {
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int eq = option.indexOf('=');
+            if (eq == -1) {
+                options.put(option, "true");
+            } else {
+                options.put(option.substring(0, eq), option.substring(eq + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.airtimebackend.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Response-time model for the mock upstream: fixed:MS, uniform:MIN-MAX or lognormal:MEDIAN,SIGMA.
+ * Lognormal is the realistic one for LLM calls - most answers cluster around the median
+ * with a long slow tail.
+ */
+interface LatencyDistribution {
+
+    long sampleMillis();
+
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.split(":", 2);
+        String kind = parts[0];
+        String params = parts.length > 1 ? parts[1] : "";
+        switch (kind) {
+            case "fixed" -> {
+                long ms = Long.parseLong(params);
+                return () -> ms;
+            }
+            case "uniform" -> {
+                String[] range = params.split("-");
+                long min = Long.parseLong(range[0]);
+                long max = Long.parseLong(range[1]);
+                return () -> ThreadLocalRandom.current().nextLong(min, max + 1);
+            }
+            case "lognormal" -> {
+                String[] p = params.split(",");
+                double mu = Math.log(Double.parseDouble(p[0]));
+                double sigma = Double.parseDouble(p[1]);
+                return () -> Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+            }
+            default -> throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.airtimebackend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load driver for a running AirTime backend. For each concurrency level it keeps
+ * that many requests in flight for the configured duration and reports throughput,
+ * p50/p95/p99 latency, error rate and fallback rate.
+ *
+ * <pre>
+ * mvn -P loadtest test-compile exec:java@load-driver -Dexec.args="--url=http://localhost:8080 --levels=1,8,32,128"
+ * </pre>
+ *
+ * Options (all optional):
+ * <ul>
+ *   <li>--url=http://localhost:8080 application base URL</li>
+ *   <li>--path=/api/brain-dump endpoint to POST to (the stream endpoint works too; the full body is read)</li>
+ *   <li>--levels=1,8,32 concurrency levels, --duration=30s per level, --warmup=5s per level</li>
+ *   <li>--timeout=130s per-request client timeout</li>
+ *   <li>--clients=1000 distinct X-API-Key values to spread requests over, so per-client rate limits
+ *   don't cap the run (use --clients=1 to load-test the limiter itself)</li>
+ * </ul>
+ * Every request carries a unique brain dump so the analysis cache can't flatter the numbers.
+ * Fallback rate comes from the app's own airtime_fallbacks_total counter, scraped from
+ * /actuator/prometheus before and after each level.
+ */
+public class LoadDriver {
+
+    private static final Pattern FALLBACKS = Pattern.compile("^airtime_fallbacks_total\\{[^}]*} ([0-9.eE+-]+)$",
+            Pattern.MULTILINE);
+
+    private static final String[] TEXTS = {
+            "need to call the dentist tomorrow, finish the quarterly report by friday and buy groceries",
+            "gym at 7am, email Sarah about the budget, pick up the kids at 3 and prep dinner",
+            "so much to do: taxes, laundry, fix the leaking tap, book flights for the wedding next month",
+            "meeting with the team at 10, review pull requests, renew passport, water the plants",
+    };
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    private final AtomicLong sequence = new AtomicLong();
+    private final String baseUrl;
+    private final String path;
+    private final Duration timeout;
+    private final int clients;
+
+    LoadDriver(String baseUrl, String path, Duration timeout, int clients) {
+        this.baseUrl = baseUrl;
+        this.path = path;
+        this.timeout = timeout;
+        this.clients = clients;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Args.parse(args);
+        LoadDriver driver = new LoadDriver(
+                options.getOrDefault("url", "http://localhost:8080"),
+                options.getOrDefault("path", "/api/brain-dump"),
+                parseDuration(options.getOrDefault("timeout", "130s")),
+                Integer.parseInt(options.getOrDefault("clients", "1000")));
+        Duration duration = parseDuration(options.getOrDefault("duration", "30s"));
+        Duration warmup = parseDuration(options.getOrDefault("warmup", "5s"));
+        int[] levels = Arrays.stream(options.getOrDefault("levels", "1,8,32").split(","))
+                .mapToInt(s -> Integer.parseInt(s.trim()))
+                .toArray();
+
+        System.out.printf("Target %s%s, %s per level after %s warmup%n",
+                driver.baseUrl, driver.path, duration, warmup);
+        System.out.printf("%6s %9s %8s %9s %9s %9s %8s %9s%n",
+                "conc", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "errors", "fallback");
+        for (int level : levels) {
+            driver.run(level, warmup, false);
+            double fallbacksBefore = driver.scrapeFallbacks();
+            Result result = driver.run(level, duration, true);
+            double fallbacksAfter = driver.scrapeFallbacks();
+            result.print(level, fallbacksBefore, fallbacksAfter);
+        }
+    }
+
+    Result run(int concurrency, Duration duration, boolean record) throws InterruptedException {
+        Recorder recorder = new Recorder();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch done = new CountDownLatch(concurrency);
+        long start = System.nanoTime();
+
+        // Each worker is an async loop: the next request is sent when the previous one completes
+        for (int i = 0; i < concurrency; i++) {
+            sendNext(running, recorder, done);
+        }
+        Thread.sleep(duration.toMillis());
+        running.set(false);
+        done.await();
+        long elapsed = System.nanoTime() - start;
+
+        return record ? recorder.result(elapsed) : null;
+    }
+
+    private void sendNext(AtomicBoolean running, Recorder recorder, CountDownLatch done) {
+        if (!running.get()) {
+            done.countDown();
+            return;
+        }
+        long started = System.nanoTime();
+        client.sendAsync(request(), HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    recorder.record(System.nanoTime() - started, error == null && response.statusCode() == 200);
+                    sendNext(running, recorder, done);
+                });
+    }
+
+    private HttpRequest request() {
+        long n = sequence.incrementAndGet();
+        String text = TEXTS[(int) (n % TEXTS.length)] + " (load test item " + n + ")";
+        String body;
+        try {
+            body = objectMapper.writeValueAsString(Map.of("text", text));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(timeout)
+                .header("Content-Type", "application/json")
+                .header("X-API-Key", "load-test-" + (n % clients))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    // Sum of airtime_fallbacks_total across causes, or NaN if the metrics endpoint isn't reachable
+    double scrapeFallbacks() {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/prometheus"))
+                    .timeout(Duration.ofSeconds(5))
+                    .GET()
+                    .build();
+            String body = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+            double total = 0;
+            Matcher matcher = FALLBACKS.matcher(body);
+            while (matcher.find()) {
+                total += Double.parseDouble(matcher.group(1));
+            }
+            return total;
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+    }
+
+    static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    private static final class Recorder {
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        synchronized void record(long nanos, boolean ok) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+            if (!ok) {
+                errors++;
+            }
+        }
+
+        synchronized Result result(long elapsedNanos) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new Result(sorted, errors, elapsedNanos);
+        }
+    }
+
+    record Result(long[] sortedLatencies, long errors, long elapsedNanos) {
+
+        long percentileMillis(double p) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)] / 1_000_000;
+        }
+
+        void print(int concurrency, double fallbacksBefore, double fallbacksAfter) {
+            int requests = sortedLatencies.length;
+            double throughput = requests / (elapsedNanos / 1e9);
+            String fallbackRate = Double.isNaN(fallbacksBefore) || Double.isNaN(fallbacksAfter) || requests == 0
+                    ? "n/a"
+                    : String.format("%.1f%%", 100.0 * (fallbacksAfter - fallbacksBefore) / requests);
+            System.out.printf("%6d %9d %8.1f %9d %9d %9d %8d %9s%n",
+                    concurrency, requests, throughput,
+                    percentileMillis(0.50), percentileMillis(0.95), percentileMillis(0.99),
+                    errors, fallbackRate);
+        }
+    }
+}
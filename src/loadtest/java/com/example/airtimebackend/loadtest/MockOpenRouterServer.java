@@ -0,0 +1,219 @@
+package com.example.airtimebackend.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local stand-in for OpenRouter's chat-completions API, so load tests don't burn credits
+ * or depend on the provider's latency that day.
+ *
+ * <pre>
+ * mvn -P loadtest test-compile exec:java@mock-openrouter -Dexec.args="--port=8089 --latency=lognormal:1500,0.4"
+ * OPENROUTER_BASE_URL=http://localhost:8089/api/v1 java -jar target/AirTimeBackEnd-0.0.1-SNAPSHOT.jar
+ * </pre>
+ *
+ * Options (all optional):
+ * <ul>
+ *   <li>--port=8089</li>
+ *   <li>--latency=fixed:MS | uniform:MIN-MAX | lognormal:MEDIAN,SIGMA (full response time)</li>
+ *   <li>--error-rate=0.0 (HTTP 500), --rate-limit-rate=0.0 (HTTP 429 + Retry-After)</li>
+ *   <li>--timeout-rate=0.0 (hang for --hang-ms before answering), --garbage-rate=0.0 (non-JSON content)</li>
+ *   <li>--body=FILE model output template; {{today}}, {{tomorrow}} and {{model}} are substituted.
+ *       Defaults to the recorded fixture model-output-clean.json</li>
+ *   <li>--stream-chunk-chars=24 size of each streamed content delta</li>
+ * </ul>
+ * Requests with "stream": true get OpenAI-style SSE, with the latency spread over the chunks.
+ */
+public class MockOpenRouterServer {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicLong ids = new AtomicLong();
+    private final Map<String, String> options;
+    private final LatencyDistribution latency;
+    private final String bodyTemplate;
+
+    MockOpenRouterServer(Map<String, String> options) throws IOException {
+        this.options = options;
+        this.latency = LatencyDistribution.parse(options.getOrDefault("latency", "lognormal:1500,0.4"));
+        this.bodyTemplate = options.containsKey("body")
+                ? Files.readString(Path.of(options.get("body")))
+                : readFixture("model-output-clean.json");
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = Args.parse(args);
+        MockOpenRouterServer mock = new MockOpenRouterServer(options);
+        int port = Integer.parseInt(options.getOrDefault("port", "8089"));
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        // Latency is simulated by sleeping, so each in-flight request needs its own thread
+        ExecutorService executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext("/api/v1/chat/completions", mock::handleCompletion);
+        server.createContext("/api/v1/models", mock::handleModels);
+        server.start();
+        System.out.println("Mock OpenRouter listening on http://localhost:" + port + "/api/v1 " + options);
+    }
+
+    private void handleModels(HttpExchange exchange) throws IOException {
+        byte[] body = "{\"data\":[]}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, "HEAD".equals(exchange.getRequestMethod()) ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            if (!"HEAD".equals(exchange.getRequestMethod())) {
+                out.write(body);
+            }
+        }
+    }
+
+    private void handleCompletion(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            byte[] requestBytes = exchange.getRequestBody().readAllBytes();
+            JsonNode request = objectMapper.readTree(requestBytes);
+            String model = request.path("model").asText("mock/model");
+            boolean stream = request.path("stream").asBoolean(false);
+            long totalMs = latency.sampleMillis();
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            if (random.nextDouble() < rate("timeout-rate")) {
+                sleep(Long.parseLong(options.getOrDefault("hang-ms", "120000")));
+            }
+            if (random.nextDouble() < rate("error-rate")) {
+                sleep(totalMs / 4);
+                sendJson(exchange, 500, "{\"error\":{\"code\":500,\"message\":\"Injected upstream error\"}}");
+                return;
+            }
+            if (random.nextDouble() < rate("rate-limit-rate")) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                sendJson(exchange, 429, "{\"error\":{\"code\":429,\"message\":\"Rate limit exceeded\"}}");
+                return;
+            }
+
+            String content = random.nextDouble() < rate("garbage-rate")
+                    ? "Sorry, I can't help with that right now."
+                    : render(model);
+            long promptTokens = requestBytes.length / 4;
+            long completionTokens = content.length() / 4;
+
+            if (stream) {
+                streamCompletion(exchange, model, content, totalMs, promptTokens, completionTokens);
+            } else {
+                sleep(totalMs);
+                ObjectNode response = objectMapper.createObjectNode();
+                response.put("id", "mock-" + ids.incrementAndGet());
+                response.put("object", "chat.completion");
+                response.put("model", model);
+                ObjectNode choice = response.putArray("choices").addObject();
+                choice.put("index", 0);
+                choice.putObject("message").put("role", "assistant").put("content", content);
+                choice.put("finish_reason", "stop");
+                usage(response, promptTokens, completionTokens);
+                sendJson(exchange, 200, objectMapper.writeValueAsString(response));
+            }
+        } catch (Exception e) {
+            // Client gave up (timeout/cancel) - nothing else to do
+        }
+    }
+
+    private void streamCompletion(HttpExchange exchange, String model, String content, long totalMs,
+                                  long promptTokens, long completionTokens) throws IOException {
+        int chunkChars = Integer.parseInt(options.getOrDefault("stream-chunk-chars", "24"));
+        int chunks = Math.max(1, (content.length() + chunkChars - 1) / chunkChars);
+        long firstTokenMs = totalMs / 5;
+        long perChunkMs = (totalMs - firstTokenMs) / chunks;
+
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        String id = "mock-" + ids.incrementAndGet();
+        out.write(": OPENROUTER PROCESSING\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        sleep(firstTokenMs);
+
+        for (int i = 0; i < content.length(); i += chunkChars) {
+            ObjectNode chunk = objectMapper.createObjectNode();
+            chunk.put("id", id);
+            chunk.put("model", model);
+            chunk.putArray("choices").addObject().put("index", 0)
+                    .putObject("delta").put("content", content.substring(i, Math.min(content.length(), i + chunkChars)));
+            writeEvent(out, objectMapper.writeValueAsString(chunk));
+            sleep(perChunkMs);
+        }
+
+        ObjectNode last = objectMapper.createObjectNode();
+        last.put("id", id);
+        last.put("model", model);
+        last.putArray("choices").addObject().put("index", 0).put("finish_reason", "stop").putObject("delta");
+        usage(last, promptTokens, completionTokens);
+        writeEvent(out, objectMapper.writeValueAsString(last));
+        writeEvent(out, "[DONE]");
+    }
+
+    private static void writeEvent(OutputStream out, String data) throws IOException {
+        out.write(("data: " + data + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static void usage(ObjectNode node, long promptTokens, long completionTokens) {
+        node.putObject("usage")
+                .put("prompt_tokens", promptTokens)
+                .put("completion_tokens", completionTokens)
+                .put("total_tokens", promptTokens + completionTokens);
+    }
+
+    private String render(String model) {
+        LocalDate today = LocalDate.now();
+        return bodyTemplate
+                .replace("{{today}}", today.toString())
+                .replace("{{tomorrow}}", today.plusDays(1).toString())
+                .replace("{{model}}", model);
+    }
+
+    private double rate(String option) {
+        return Double.parseDouble(options.getOrDefault(option, "0"));
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String readFixture(String name) throws IOException {
+        try (InputStream in = MockOpenRouterServer.class.getResourceAsStream("/fixtures/" + name)) {
+            if (in == null) {
+                throw new IOException("Missing fixture " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
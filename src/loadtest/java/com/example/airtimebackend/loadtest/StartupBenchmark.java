@@ -0,0 +1,176 @@
+package com.example.airtimebackend.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cold-start benchmark: starts the app from scratch several times and measures how long it takes
+ * until {@code /api/ping} answers, and then how long the first {@code /api/brain-dump} call takes on
+ * the fresh JVM. Used to compare the plain image against the AOT + class-data-sharing one
+ * ({@code Dockerfile.fast}).
+ *
+ * <pre>
+ * docker build -t airtime:plain .
+ * docker build -f Dockerfile.fast -t airtime:fast .
+ * mvn -P loadtest test-compile exec:java@mock-openrouter -Dexec.args="latency=fixed:200"
+ * mvn -P loadtest test-compile exec:java@startup-benchmark -Dexec.args="images=airtime:plain,airtime:fast"
+ * </pre>
+ *
+ * Options (all optional):
+ * <ul>
+ *   <li>--images=a,b Docker images to compare; each run is {@code docker run --rm -p PORT:10000 ...}</li>
+ *   <li>--docker-args=... extra {@code docker run} arguments; by default points the app at the mock
+ *   OpenRouter on the host</li>
+ *   <li>--commands=name=command;name@dir=command local commands to compare instead of images, with
+ *   {@code {port}} replaced by the port to listen on and {@code @dir} the working directory to start
+ *   in (a CDS archive is only used when the jar is on the relative path it was recorded with)</li>
+ *   <li>--runs=5 starts per variant, --port=18090, --timeout=60s for readiness</li>
+ * </ul>
+ * The first analysis goes through the whole stack (admission, cache miss, HTTP client, JSON parsing),
+ * so it shows how much class loading and JIT warm-up is left after the app reports itself ready.
+ */
+public class StartupBenchmark {
+
+    private static final String DEFAULT_DOCKER_ARGS = "--add-host=host.docker.internal:host-gateway"
+            + " -e OPENROUTER_BASE_URL=http://host.docker.internal:8089/api/v1 -e OPENROUTER_API_KEY=mock";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofMillis(200))
+            .version(HttpClient.Version.HTTP_1_1)
+            .build();
+    private final int port;
+    private final Duration timeout;
+    private int sequence;
+
+    StartupBenchmark(int port, Duration timeout) {
+        this.port = port;
+        this.timeout = timeout;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = Args.parse(args);
+        int port = Integer.parseInt(options.getOrDefault("port", "18090"));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        StartupBenchmark benchmark = new StartupBenchmark(port,
+                LoadDriver.parseDuration(options.getOrDefault("timeout", "60s")));
+
+        Map<String, List<String>> variants = new LinkedHashMap<>();
+        Map<String, File> directories = new LinkedHashMap<>();
+        if (options.containsKey("commands")) {
+            for (String variant : options.get("commands").split(";")) {
+                int eq = variant.indexOf('=');
+                String name = variant.substring(0, eq).trim();
+                int at = name.indexOf('@');
+                if (at != -1) {
+                    directories.put(name.substring(0, at), new File(name.substring(at + 1)));
+                    name = name.substring(0, at);
+                }
+                variants.put(name, split(variant.substring(eq + 1).replace("{port}", Integer.toString(port))));
+            }
+        } else {
+            String dockerArgs = options.getOrDefault("docker-args", DEFAULT_DOCKER_ARGS);
+            for (String image : options.getOrDefault("images", "airtime:plain,airtime:fast").split(",")) {
+                List<String> command = new ArrayList<>(List.of("docker", "run", "--rm", "-p", port + ":10000"));
+                command.addAll(split(dockerArgs));
+                command.add(image.trim());
+                variants.put(image.trim(), command);
+            }
+        }
+
+        System.out.printf("%d cold starts per variant%n", runs);
+        System.out.printf("%-24s %11s %11s %11s %13s %13s%n",
+                "variant", "ready p50", "ready min", "ready max", "1st req p50", "1st req max");
+        for (Map.Entry<String, List<String>> variant : variants.entrySet()) {
+            long[] ready = new long[runs];
+            long[] firstRequest = new long[runs];
+            for (int i = 0; i < runs; i++) {
+                long[] sample = benchmark.coldStart(variant.getValue(), directories.get(variant.getKey()));
+                ready[i] = sample[0];
+                firstRequest[i] = sample[1];
+            }
+            Arrays.sort(ready);
+            Arrays.sort(firstRequest);
+            System.out.printf("%-24s %9d ms %9d ms %9d ms %11d ms %11d ms%n", variant.getKey(),
+                    ready[runs / 2], ready[0], ready[runs - 1], firstRequest[runs / 2], firstRequest[runs - 1]);
+        }
+    }
+
+    // {milliseconds until /api/ping answered, milliseconds for the first analysis}
+    long[] coldStart(List<String> command, File directory) throws Exception {
+        File log = new File("target/startup-benchmark.log").getAbsoluteFile();
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .directory(directory)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(log))
+                .start();
+        try {
+            long deadline = started + timeout.toNanos();
+            while (!ping()) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Exited with " + process.exitValue() + " before it was ready: "
+                            + command + " (see target/startup-benchmark.log)");
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException("Not ready after " + timeout + ": " + command);
+                }
+                Thread.sleep(10);
+            }
+            long ready = System.nanoTime();
+            HttpResponse<Void> response = client.send(analysis(), HttpResponse.BodyHandlers.discarding());
+            long analyzed = System.nanoTime();
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("First analysis returned HTTP " + response.statusCode());
+            }
+            return new long[]{
+                    TimeUnit.NANOSECONDS.toMillis(ready - started),
+                    TimeUnit.NANOSECONDS.toMillis(analyzed - ready)};
+        } finally {
+            process.descendants().forEach(ProcessHandle::destroy);
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private boolean ping() {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/ping"))
+                .timeout(Duration.ofSeconds(1))
+                .GET()
+                .build();
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    // Unique text per run, so nothing can come out of a cache or a result store left from an earlier run
+    private HttpRequest analysis() throws Exception {
+        String text = "call the dentist tomorrow and finish the report by friday (startup run "
+                + System.nanoTime() + "-" + sequence++ + ")";
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/brain-dump"))
+                .timeout(Duration.ofSeconds(130))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(Map.of("text", text))))
+                .build();
+    }
+
+    private static List<String> split(String command) {
+        return Arrays.stream(command.trim().split("\\s+")).filter(s -> !s.isEmpty()).toList();
+    }
+}
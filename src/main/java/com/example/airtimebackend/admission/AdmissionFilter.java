@@ -0,0 +1,241 @@
+package com.example.airtimebackend.admission;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.ErrorResponseException;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control in front of the analysis endpoints: a per-client token bucket first, then the
+ * global in-flight cap. Rejected calls get {@code 429} (rate) or {@code 503} (overload) with
+ * {@code Retry-After} before any work is done; nothing waits on a servlet thread.
+ * <p>
+ * Every call is admitted as one analysis. Endpoints that do more (a batch) {@link #charge} the rest
+ * once they know how much. The concurrency permits are held until the response is finished, including
+ * the async and streaming endpoints, whose servlet thread returns long before the analysis does.
+ */
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private static final String API_KEY_HEADER = "X-API-Key";
+    private static final String BEARER = "Bearer ";
+    private static final String ADMISSION_ATTRIBUTE = AdmissionFilter.class.getName() + ".admission";
+
+    private final ClientRateLimiter rateLimiter;
+    private final ConcurrencyLimiter concurrencyLimiter;
+    private final boolean trustForwardedFor;
+    // Keys issued to known clients; only these get a bucket of their own
+    private final Set<String> apiKeys;
+    private final long shedRetryAfterSeconds;
+
+    private final AtomicLong rateLimited = new AtomicLong();
+
+    /**
+     * @param rateLimiter        per-client buckets, or null to skip rate limiting
+     * @param concurrencyLimiter global cap, or null to skip it
+     * @param apiKeys            keys that identify a client; any other key is ignored
+     */
+    public AdmissionFilter(ClientRateLimiter rateLimiter, ConcurrencyLimiter concurrencyLimiter,
+                           boolean trustForwardedFor, Set<String> apiKeys, Duration shedRetryAfter) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.trustForwardedFor = trustForwardedFor;
+        this.apiKeys = apiKeys;
+        this.shedRetryAfterSeconds = Math.max(1, shedRetryAfter.toSeconds());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // CORS preflights are free, and GETs are served from the local result store, never upstream
+        return "OPTIONS".equals(request.getMethod()) || "GET".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Admission admission = new Admission(clientId(request));
+        if (rateLimiter != null) {
+            long waitNanos = rateLimiter.tryAcquire(admission.clientId);
+            if (waitNanos > 0) {
+                rateLimited.incrementAndGet();
+                reject(response, HttpStatus.TOO_MANY_REQUESTS, "rate_limited", retryAfterSeconds(waitNanos));
+                return;
+            }
+            admission.tokens = 1;
+        }
+        if (concurrencyLimiter != null && !admission.acquire(1)) {
+            reject(response, HttpStatus.SERVICE_UNAVAILABLE, "overloaded", shedRetryAfterSeconds);
+            return;
+        }
+
+        request.setAttribute(ADMISSION_ATTRIBUTE, admission);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(admission);
+            } else {
+                admission.release();
+            }
+        }
+    }
+
+    /**
+     * Charges the current call for work beyond the one analysis it was admitted for: {@code tokens} more
+     * from the client's bucket (it may go into debt, so a batch bigger than the burst is still possible
+     * but then has to be paid off) and {@code permits} more in-flight slots, held until the response ends.
+     * A no-op for calls the filter didn't see.
+     *
+     * @throws ErrorResponseException 429 or 503 with {@code Retry-After} when it can't be admitted
+     */
+    public void charge(HttpServletRequest request, int tokens, int permits) {
+        if (!(request.getAttribute(ADMISSION_ATTRIBUTE) instanceof Admission admission)) {
+            return;
+        }
+        if (rateLimiter != null && tokens > 0) {
+            long waitNanos = rateLimiter.tryAcquire(admission.clientId, tokens, admission.tokens);
+            if (waitNanos > 0) {
+                rateLimited.incrementAndGet();
+                throw rejection(HttpStatus.TOO_MANY_REQUESTS, retryAfterSeconds(waitNanos));
+            }
+            admission.tokens += tokens;
+        }
+        if (concurrencyLimiter != null && permits > 0 && !admission.acquire(permits)) {
+            throw rejection(HttpStatus.SERVICE_UNAVAILABLE, shedRetryAfterSeconds);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("rateLimited", rateLimited.get());
+        if (rateLimiter != null) {
+            stats.put("trackedClients", rateLimiter.trackedClients());
+            stats.put("evictedClients", rateLimiter.evicted());
+        }
+        if (concurrencyLimiter != null) {
+            stats.put("limit", concurrencyLimiter.limit());
+            stats.put("inFlight", concurrencyLimiter.inFlight());
+            stats.put("shed", concurrencyLimiter.shed());
+        }
+        return stats;
+    }
+
+    public long rateLimited() {
+        return rateLimited.get();
+    }
+
+    public ClientRateLimiter rateLimiter() {
+        return rateLimiter;
+    }
+
+    public ConcurrencyLimiter concurrencyLimiter() {
+        return concurrencyLimiter;
+    }
+
+    // A configured API key when the client sends one, else its address; the raw value is hashed, never stored.
+    // Unknown keys are ignored: otherwise a client could mint a fresh bucket with every request
+    String clientId(HttpServletRequest request) {
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        if (apiKey != null && apiKeys.contains(apiKey.trim())) {
+            return "key:" + apiKey.trim();
+        }
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            String token = authorization.substring(BEARER.length()).trim();
+            if (apiKeys.contains(token)) {
+                return "key:" + token;
+            }
+        }
+        if (trustForwardedFor) {
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isBlank()) {
+                int comma = forwarded.indexOf(',');
+                return "ip:" + (comma < 0 ? forwarded : forwarded.substring(0, comma)).trim();
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private static long retryAfterSeconds(long waitNanos) {
+        return TimeUnit.NANOSECONDS.toSeconds(waitNanos - 1) + 1;
+    }
+
+    private static void reject(HttpServletResponse response, HttpStatus status, String reason,
+                               long retryAfterSeconds) throws IOException {
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        // The controllers' @CrossOrigin never runs for a rejected call, so browsers need this to read the 429
+        response.setHeader(HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN, "*");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"" + reason + "\",\"retryAfterSeconds\":" + retryAfterSeconds + "}");
+    }
+
+    // Thrown from a handler, so the controller's CORS headers still apply
+    private static ErrorResponseException rejection(HttpStatus status, long retryAfterSeconds) {
+        ErrorResponseException rejection = new ErrorResponseException(status);
+        rejection.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return rejection;
+    }
+
+    // Who the call is charged to and the permits it holds; released exactly once, whichever way the response ends
+    private final class Admission implements AsyncListener {
+        private final String clientId;
+        private final AtomicBoolean released = new AtomicBoolean();
+        // Only the request's own thread charges, and only before the response can end
+        private volatile int tokens;
+        private volatile int permits;
+
+        Admission(String clientId) {
+            this.clientId = clientId;
+        }
+
+        boolean acquire(int count) {
+            if (!concurrencyLimiter.tryAcquire(count)) {
+                return false;
+            }
+            permits += count;
+            return true;
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true) && permits > 0) {
+                concurrencyLimiter.release(permits);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
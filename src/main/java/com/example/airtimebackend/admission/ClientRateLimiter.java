@@ -0,0 +1,231 @@
+package com.example.airtimebackend.admission;
+
+import com.example.airtimebackend.ai.TextKey;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-client token buckets: {@code burst} tokens, refilled at {@code ratePerSecond}.
+ * <p>
+ * Built to stay cheap with millions of clients: buckets live in lock-striped, open-addressed tables of
+ * primitive arrays keyed by a 64-bit hash of the client id (the id string itself is never retained),
+ * so a tracked client costs 24 bytes and no objects. Contention is limited to clients that share a stripe.
+ * <p>
+ * A bucket that has refilled to full behaves exactly like a missing one, so idle buckets are dropped
+ * whenever a stripe is swept, either on growth or from {@link #evictIdle()}. When a stripe is at its cap
+ * with every bucket still active, the least recently used eighth of it makes room in the same sweep: a
+ * flood of new client ids costs the evicted clients a refill, but never lets anyone through unmetered,
+ * and costs one sweep per eighth of a stripe rather than one per new id.
+ */
+public class ClientRateLimiter {
+
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+    private final double ratePerNano;
+    private final double burst;
+    private final long idleNanos;
+    private final int maxKeysPerStripe;
+    private final int evictBatch;
+    private final Stripe[] stripes;
+    private final LongSupplier clock;
+
+    private final AtomicLong evicted = new AtomicLong();
+    private final AtomicLong sweeps = new AtomicLong();
+
+    public ClientRateLimiter(double ratePerSecond, int burst, Duration idleTimeout, int maxClients, int stripes) {
+        this(ratePerSecond, burst, idleTimeout, maxClients, stripes, System::nanoTime);
+    }
+
+    ClientRateLimiter(double ratePerSecond, int burst, Duration idleTimeout, int maxClients, int stripes,
+                      LongSupplier clock) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("rate and burst must be positive");
+        }
+        int stripeCount = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.ratePerNano = ratePerSecond / 1e9;
+        this.burst = burst;
+        this.idleNanos = idleTimeout.toNanos();
+        this.maxKeysPerStripe = Math.max(INITIAL_STRIPE_CAPACITY / 2, maxClients / stripeCount);
+        this.evictBatch = Math.max(1, maxKeysPerStripe / 8);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.clock = clock;
+    }
+
+    /**
+     * Takes one token for {@code clientId}.
+     *
+     * @return 0 if admitted, otherwise the nanoseconds until a token will be available
+     */
+    public long tryAcquire(String clientId) {
+        return tryAcquire(clientId, 1, 0);
+    }
+
+    /**
+     * Takes {@code count} tokens for {@code clientId}, for a call that has already taken {@code paid}.
+     * A call costing more than the burst is admitted from a full bucket and leaves it in debt, so the
+     * client waits the whole cost off before its next call.
+     *
+     * @return 0 if admitted, otherwise the nanoseconds until enough tokens will be available
+     */
+    public long tryAcquire(String clientId, int count, int paid) {
+        double needed = Math.min(count, burst - paid);
+        long hash = hash(clientId);
+        Stripe stripe = stripes[(int) (hash >>> 32) & (stripes.length - 1)];
+        long now = clock.getAsLong();
+        synchronized (stripe) {
+            int slot = stripe.find(hash);
+            if (slot < 0) {
+                slot = stripe.insert(hash, now);
+            }
+            double tokens = Math.min(burst, stripe.tokens[slot] + (now - stripe.stamps[slot]) * ratePerNano);
+            stripe.stamps[slot] = now;
+            if (tokens >= needed) {
+                stripe.tokens[slot] = tokens - count;
+                return 0;
+            }
+            stripe.tokens[slot] = tokens;
+            return (long) Math.ceil((needed - tokens) / ratePerNano);
+        }
+    }
+
+    /** Drops every bucket that has refilled or has been idle past the idle timeout. */
+    public void evictIdle() {
+        long now = clock.getAsLong();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.sweep(now, 0, 0);
+            }
+        }
+    }
+
+    public long trackedClients() {
+        long total = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                total += stripe.size;
+            }
+        }
+        return total;
+    }
+
+    // Active buckets dropped to make room for a new client
+    public long evicted() {
+        return evicted.get();
+    }
+
+    // Table rebuilds, for checking that eviction stays amortized
+    long sweeps() {
+        return sweeps.get();
+    }
+
+    // 0 marks an empty slot
+    static long hash(String key) {
+        long h = TextKey.hash(key);
+        return h == 0 ? 1 : h;
+    }
+
+    private final class Stripe {
+        long[] hashes = new long[INITIAL_STRIPE_CAPACITY];
+        double[] tokens = new double[INITIAL_STRIPE_CAPACITY];
+        long[] stamps = new long[INITIAL_STRIPE_CAPACITY];
+        int size;
+
+        int find(long hash) {
+            int mask = hashes.length - 1;
+            for (int i = (int) hash & mask; ; i = (i + 1) & mask) {
+                if (hashes[i] == hash) {
+                    return i;
+                }
+                if (hashes[i] == 0) {
+                    return -1;
+                }
+            }
+        }
+
+        int insert(long hash, long now) {
+            if (size + 1 > maxKeysPerStripe) {
+                // Leaves at least evictBatch free slots, so the next sweep is that many new ids away
+                sweep(now, hashes.length, evictBatch);
+            }
+            // Keep the load factor at or below 1/2 so probe chains stay short
+            if ((size + 1) * 2 > hashes.length) {
+                sweep(now, hashes.length * 2, 0);
+            }
+            int mask = hashes.length - 1;
+            int i = (int) hash & mask;
+            while (hashes[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            hashes[i] = hash;
+            tokens[i] = burst;
+            stamps[i] = now;
+            size++;
+            return i;
+        }
+
+        /**
+         * Rehashes into a table of at least minCapacity (shrinking when 0), leaving out buckets that are full
+         * or idle, and then the least recently used ones until {@code room} slots are free below the cap.
+         */
+        void sweep(long now, int minCapacity, int room) {
+            sweeps.incrementAndGet();
+            long[] oldHashes = hashes;
+            double[] oldTokens = tokens;
+            long[] oldStamps = stamps;
+            int live = 0;
+            for (int j = 0; j < oldHashes.length; j++) {
+                if (oldHashes[j] != 0 && !expired(oldTokens[j], now - oldStamps[j])) {
+                    live++;
+                }
+            }
+            // Buckets idle at least this long go too; ties may free a few more than asked
+            long evictAge = Long.MAX_VALUE;
+            int excess = live - (maxKeysPerStripe - room);
+            if (room > 0 && excess > 0) {
+                long[] ages = new long[live];
+                int n = 0;
+                for (int j = 0; j < oldHashes.length; j++) {
+                    if (oldHashes[j] != 0 && !expired(oldTokens[j], now - oldStamps[j])) {
+                        ages[n++] = now - oldStamps[j];
+                    }
+                }
+                Arrays.sort(ages);
+                evictAge = ages[live - excess];
+            }
+            int capacity = Math.max(Math.max(minCapacity, INITIAL_STRIPE_CAPACITY),
+                    Integer.highestOneBit(Math.max(1, live * 4 - 1)) << 1);
+            hashes = new long[capacity];
+            tokens = new double[capacity];
+            stamps = new long[capacity];
+            size = 0;
+            int mask = capacity - 1;
+            for (int j = 0; j < oldHashes.length; j++) {
+                if (oldHashes[j] == 0 || expired(oldTokens[j], now - oldStamps[j])) {
+                    continue;
+                }
+                if (now - oldStamps[j] >= evictAge) {
+                    evicted.incrementAndGet();
+                    continue;
+                }
+                int i = (int) oldHashes[j] & mask;
+                while (hashes[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                hashes[i] = oldHashes[j];
+                tokens[i] = oldTokens[j];
+                stamps[i] = oldStamps[j];
+                size++;
+            }
+        }
+
+        private boolean expired(double tokens, long idle) {
+            return idle >= idleNanos || tokens + idle * ratePerNano >= burst;
+        }
+    }
+}
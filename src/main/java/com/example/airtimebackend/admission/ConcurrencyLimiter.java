@@ -0,0 +1,61 @@
+package com.example.airtimebackend.admission;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Global cap on analyses in flight. Requests beyond the cap are shed immediately rather than parked:
+ * waiting would pin a servlet thread per queued request, which is what the async endpoints exist to
+ * avoid. Under overload clients get a fast 503 and retry after {@code Retry-After}. A request may hold
+ * several slots, e.g. a batch holds one per item it analyzes in parallel.
+ */
+public class ConcurrencyLimiter {
+
+    private final int limit;
+    private final Semaphore permits;
+
+    private final AtomicLong shed = new AtomicLong();
+
+    public ConcurrencyLimiter(int limit) {
+        this.limit = limit;
+        this.permits = new Semaphore(limit);
+    }
+
+    /**
+     * @return true if the caller now holds a permit and must {@link #release()} it
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * @return true if the caller now holds {@code count} permits and must {@link #release(int)} them
+     */
+    public boolean tryAcquire(int count) {
+        if (permits.tryAcquire(count)) {
+            return true;
+        }
+        shed.incrementAndGet();
+        return false;
+    }
+
+    public void release() {
+        release(1);
+    }
+
+    public void release(int count) {
+        permits.release(count);
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public int inFlight() {
+        return limit - permits.availablePermits();
+    }
+
+    public long shed() {
+        return shed.get();
+    }
+}
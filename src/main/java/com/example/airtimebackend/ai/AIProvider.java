@@ -2,6 +2,24 @@ package com.example.airtimebackend.ai;
 
 import com.example.airtimebackend.model.BrainDumpResponse;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface AIProvider {
     BrainDumpResponse analyzeBrainDump(String text);
+
+    // Non-blocking providers override this; the default just runs the blocking call off-thread
+    default CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text) {
+        return CompletableFuture.supplyAsync(() -> analyzeBrainDump(text));
+    }
+
+    // Providers that can stream override this; the default emits the finished result in one go
+    default void streamBrainDump(String text, AnalysisStreamListener listener) {
+        analyzeBrainDumpAsync(text).thenAccept(response -> AnalysisStreamListener.replay(response, listener));
+    }
+
+    // Identifies the model + prompt version behind this provider, so cached results
+    // from one model/prompt are never served for another
+    default String fingerprint() {
+        return getClass().getSimpleName();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,249 @@
+package com.example.airtimebackend.ai;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Caps upstream calls in flight at a limit it finds by itself, the way TCP finds a window: a
+ * gradient on round-trip time (Netflix's Gradient2) pushes the limit up while latency holds and
+ * pulls it down as soon as the upstream starts queueing, and a 429, 5xx or failed call cuts it
+ * multiplicatively (at most once per round trip, so one burst of errors is one cut).
+ * <p>
+ * Each successful call compares a short RTT average (the last ~10 calls) with a long one (~100):
+ * {@code gradient = clamp(tolerance * long / short, 0.5, 1)}, and the limit moves a fifth of the way
+ * towards {@code limit * gradient + sqrt(limit)}. The square-root headroom is what lets it probe
+ * upwards when latency is flat. It only grows while at least half of it is actually used.
+ * <p>
+ * Calls over the limit wait FIFO for up to {@code maxWait}; once {@code maxQueue} are waiting, or a
+ * wait runs out, the caller gets no permit and answers with the fallback right away. Waiters don't
+ * hold a thread.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final int SHORT_WINDOW = 10;
+    private static final int LONG_WINDOW = 100;
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+
+    /** What became of a call made under a permit. */
+    public enum Outcome {
+        // Answered normally; its RTT is a latency sample
+        SUCCESS,
+        // 429, 5xx, timeout or connection failure: the upstream is overloaded or unwell
+        DROPPED,
+        // Says nothing about the upstream's load: cancelled, a client-side error, or a stream
+        IGNORED
+    }
+
+    /** One call's slot. Released exactly once; further releases are no-ops. */
+    public final class Permit {
+        private boolean released;
+
+        public void release(Outcome outcome, long rttNanos) {
+            synchronized (AdaptiveConcurrencyLimiter.this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+                inFlight--;
+                switch (outcome) {
+                    case SUCCESS -> onSample(rttNanos);
+                    case DROPPED -> onDrop();
+                    case IGNORED -> {
+                    }
+                }
+            }
+            grantWaiting();
+        }
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final double tolerance;
+    private final double backoff;
+    private final ScheduledExecutorService timer;
+    private final LongSupplier clock;
+
+    // Guarded by this
+    private double limit;
+    private int inFlight;
+    private final ArrayDeque<CompletableFuture<Permit>> waiting = new ArrayDeque<>();
+    private double shortRttNanos;
+    private double longRttNanos;
+    private long lastDropNanos;
+    private boolean dropped;
+
+    private final AtomicLong shed = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final AtomicLong drops = new AtomicLong();
+
+    /**
+     * @param tolerance how much slower than the long-run RTT calls may get before the limit shrinks
+     * @param backoff   factor the limit is multiplied by on a 429/5xx/failure
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueue, Duration maxWait,
+                                      double tolerance, double backoff, ScheduledExecutorService timer) {
+        this(initialLimit, minLimit, maxLimit, maxQueue, maxWait, tolerance, backoff, timer, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int maxQueue, Duration maxWait,
+                               double tolerance, double backoff, ScheduledExecutorService timer,
+                               LongSupplier clock) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.maxQueue = Math.max(0, maxQueue);
+        this.maxWaitNanos = maxWait.toNanos();
+        this.tolerance = tolerance;
+        this.backoff = backoff;
+        this.timer = timer;
+        this.clock = clock;
+    }
+
+    /**
+     * A permit, now or once one frees up; completes with null if the queue is full or the wait ran out.
+     * Cancelling the future while it waits gives up its place.
+     */
+    public CompletableFuture<Permit> acquire() {
+        CompletableFuture<Permit> waiter;
+        synchronized (this) {
+            if (waiting.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                return CompletableFuture.completedFuture(new Permit());
+            }
+            if (waiting.size() >= maxQueue || maxWaitNanos <= 0) {
+                shed.incrementAndGet();
+                return CompletableFuture.completedFuture(null);
+            }
+            waiter = new CompletableFuture<>();
+            waiting.add(waiter);
+        }
+        timer.schedule(() -> {
+            // Out of the queue first, so it can no longer be granted a slot
+            synchronized (this) {
+                if (!waiting.remove(waiter) || waiter.isDone()) {
+                    return;
+                }
+            }
+            timedOut.incrementAndGet();
+            waiter.complete(null);
+        }, maxWaitNanos, TimeUnit.NANOSECONDS);
+        return waiter;
+    }
+
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized int waiting() {
+        return waiting.size();
+    }
+
+    // Short-run average round trip, the one compared against the long-run baseline
+    public synchronized double shortRttMillis() {
+        return shortRttNanos / 1e6;
+    }
+
+    public synchronized double longRttMillis() {
+        return longRttNanos / 1e6;
+    }
+
+    public long shed() {
+        return shed.get();
+    }
+
+    public long timedOut() {
+        return timedOut.get();
+    }
+
+    public long drops() {
+        return drops.get();
+    }
+
+    // Guarded by this
+    private void onSample(long rttNanos) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (longRttNanos == 0) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+        } else {
+            shortRttNanos += (rttNanos - shortRttNanos) / SHORT_WINDOW;
+            longRttNanos += (rttNanos - longRttNanos) / LONG_WINDOW;
+        }
+        // After a slow spell the baseline would otherwise stay inflated for hundreds of calls
+        if (longRttNanos > 2 * shortRttNanos) {
+            longRttNanos *= 0.95;
+        }
+        // Nothing learned about capacity while most of the limit sits unused
+        if (inFlight + 1 < limit / 2) {
+            return;
+        }
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longRttNanos / shortRttNanos));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = clamp(limit * (1 - SMOOTHING) + target * SMOOTHING);
+    }
+
+    // Guarded by this
+    private void onDrop() {
+        drops.incrementAndGet();
+        long now = clock.getAsLong();
+        // Calls already in flight when the upstream pushed back fail together; that is one signal, not many
+        if (dropped && now - lastDropNanos < Math.max(shortRttNanos, 1)) {
+            return;
+        }
+        dropped = true;
+        lastDropNanos = now;
+        limit = clamp(limit * backoff);
+    }
+
+    private double clamp(double value) {
+        return Math.min(maxLimit, Math.max(minLimit, value));
+    }
+
+    // Hands freed slots to waiters in order; completing happens outside the lock
+    private void grantWaiting() {
+        while (true) {
+            List<CompletableFuture<Permit>> granted = new ArrayList<>();
+            List<Permit> permits = new ArrayList<>();
+            synchronized (this) {
+                while (!waiting.isEmpty() && inFlight < (int) limit) {
+                    granted.add(waiting.poll());
+                    permits.add(new Permit());
+                    inFlight++;
+                }
+            }
+            if (granted.isEmpty()) {
+                return;
+            }
+            boolean returned = false;
+            for (int i = 0; i < granted.size(); i++) {
+                // Timed out or cancelled in the meantime: give the slot back and try the next waiter
+                if (!granted.get(i).complete(permits.get(i))) {
+                    synchronized (this) {
+                        permits.get(i).released = true;
+                        inFlight--;
+                    }
+                    returned = true;
+                }
+            }
+            if (!returned) {
+                return;
+            }
+        }
+    }
+}
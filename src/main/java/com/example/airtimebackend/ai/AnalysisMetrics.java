@@ -0,0 +1,147 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.FallbackCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer instruments for the analysis pipeline, published under {@code airtime.*}
+ * (see /actuator/metrics and /actuator/prometheus).
+ */
+@Component
+public class AnalysisMetrics {
+
+    private final MeterRegistry registry;
+    private final Timer ttfb;
+    private final Timer timeToFirstToken;
+    private final Timer parseTime;
+    private final DistributionSummary responseSize;
+    private final Map<FallbackCause, Counter> fallbacks = new EnumMap<>(FallbackCause.class);
+
+    public AnalysisMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.ttfb = Timer.builder("airtime.upstream.ttfb")
+                .description("Time from sending the upstream request to its response headers")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.timeToFirstToken = Timer.builder("airtime.upstream.first.token")
+                .description("Time from sending a streaming request to the first content delta")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.parseTime = Timer.builder("airtime.parse.time")
+                .description("Time spent binding the model output into a BrainDumpResponse")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.responseSize = DistributionSummary.builder("airtime.upstream.response.size")
+                .description("Upstream response body size")
+                .baseUnit("bytes")
+                .register(registry);
+        for (FallbackCause cause : FallbackCause.values()) {
+            fallbacks.put(cause, Counter.builder("airtime.fallbacks")
+                    .description("Responses served from the canned fallback")
+                    .tag("cause", cause.tag())
+                    .register(registry));
+        }
+    }
+
+    // Full upstream round trip, tagged by how it ended (ok, fallback cause, ...) and the prompt version sent
+    public void upstreamLatency(long nanos, String outcome, boolean streaming, String prompt) {
+        Timer.builder("airtime.upstream.latency")
+                .description("Upstream chat-completion round trip")
+                .tag("outcome", outcome)
+                .tag("mode", streaming ? "stream" : "blocking")
+                .tag("prompt", prompt)
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void ttfb(long nanos) {
+        ttfb.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void timeToFirstToken(long nanos) {
+        timeToFirstToken.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void parseTime(long nanos) {
+        parseTime.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void responseSize(long bytes) {
+        responseSize.record(bytes);
+    }
+
+    public void tokens(long prompt, long completion, String promptVersion) {
+        if (prompt > 0) {
+            tokenSummary("prompt", promptVersion).record(prompt);
+        }
+        if (completion > 0) {
+            tokenSummary("completion", promptVersion).record(completion);
+        }
+    }
+
+    private DistributionSummary tokenSummary(String type, String promptVersion) {
+        return DistributionSummary.builder("airtime.upstream.tokens")
+                .description("Token counts reported in OpenRouter's usage block")
+                .tag("type", type)
+                .tag("prompt", promptVersion)
+                .register(registry);
+    }
+
+    // outcome: launched, or won when the hedge answered first
+    public void hedge(String outcome) {
+        Counter.builder("airtime.hedges")
+                .description("Hedged upstream requests")
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+
+    // Registered once per upstream, when its adaptive limiter is created
+    public void upstreamLimiter(String endpoint, String model, AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder("airtime.upstream.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                .description("Adaptive cap on upstream calls in flight")
+                .tags("endpoint", endpoint, "model", model)
+                .register(registry);
+        Gauge.builder("airtime.upstream.limit.inflight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                .tags("endpoint", endpoint, "model", model)
+                .register(registry);
+        Gauge.builder("airtime.upstream.limit.queued", limiter, AdaptiveConcurrencyLimiter::waiting)
+                .tags("endpoint", endpoint, "model", model)
+                .register(registry);
+        Gauge.builder("airtime.upstream.rtt", limiter, AdaptiveConcurrencyLimiter::shortRttMillis)
+                .description("Average upstream round trip the limiter compares, last ~10 and ~100 calls")
+                .baseUnit("milliseconds")
+                .tags("endpoint", endpoint, "model", model, "window", "short")
+                .register(registry);
+        Gauge.builder("airtime.upstream.rtt", limiter, AdaptiveConcurrencyLimiter::longRttMillis)
+                .baseUnit("milliseconds")
+                .tags("endpoint", endpoint, "model", model, "window", "long")
+                .register(registry);
+        FunctionCounter.builder("airtime.upstream.limit.rejected", limiter, AdaptiveConcurrencyLimiter::shed)
+                .description("Calls answered with the fallback instead of waiting for the upstream limit")
+                .tags("endpoint", endpoint, "model", model, "reason", "queue_full")
+                .register(registry);
+        FunctionCounter.builder("airtime.upstream.limit.rejected", limiter, AdaptiveConcurrencyLimiter::timedOut)
+                .tags("endpoint", endpoint, "model", model, "reason", "queue_timeout")
+                .register(registry);
+        FunctionCounter.builder("airtime.upstream.limit.drops", limiter, AdaptiveConcurrencyLimiter::drops)
+                .description("429, 5xx and failed upstream calls seen by the limiter")
+                .tags("endpoint", endpoint, "model", model)
+                .register(registry);
+    }
+
+    public void fallback(FallbackCause cause) {
+        fallbacks.get(cause).increment();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Receives a brain dump analysis piece by piece while the model is still generating it.
+ */
+public interface AnalysisStreamListener {
+
+    ObjectMapper REPLAY_MAPPER = new ObjectMapper();
+
+    // A completed top-level scalar/object field, e.g. "quickWin" or "urgency"
+    void onField(String name, JsonNode value);
+
+    // One completed element of a top-level array, e.g. a single organizedNotes entry
+    void onItem(String arrayName, JsonNode item);
+
+    // The final, normalized response (may be the fallback)
+    void onComplete(BrainDumpResponse response);
+
+    // True once the client has gone away, so producers can stop reading upstream
+    default boolean isCancelled() {
+        return false;
+    }
+
+    // Emits an already finished response through the same callbacks a live stream would use
+    static void replay(BrainDumpResponse response, AnalysisStreamListener listener) {
+        JsonNode tree = REPLAY_MAPPER.valueToTree(response);
+        Iterator<Map.Entry<String, JsonNode>> fields = tree.fields();
+        while (fields.hasNext() && !listener.isCancelled()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (field.getValue().isArray()) {
+                for (JsonNode item : field.getValue()) {
+                    listener.onItem(field.getKey(), item);
+                }
+            } else {
+                listener.onField(field.getKey(), field.getValue());
+            }
+        }
+        if (!listener.isCancelled()) {
+            listener.onComplete(response);
+        }
+    }
+}
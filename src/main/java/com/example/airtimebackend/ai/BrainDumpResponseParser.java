@@ -0,0 +1,200 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.CalendarEvent;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binds the model's JSON answer straight into a {@link BrainDumpResponse} with Jackson's
+ * streaming parser - no intermediate tree, no copies of the payload.
+ * Tolerates the usual model sloppiness in the same single pass: a markdown fence or chatter
+ * before the object (skipped up to the first '{'), anything after the closing '}',
+ * trailing commas and raw newlines inside strings.
+ * Missing fields get the same defaults the service has always used.
+ */
+public class BrainDumpResponseParser {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+            .enable(JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS)
+            .enable(JsonReadFeature.ALLOW_BACKSLASH_ESCAPING_ANY_CHARACTER)
+            .build();
+
+    /**
+     * @return the parsed response, or null when the content holds no parseable JSON object
+     */
+    public BrainDumpResponse parse(String content, String originalText) {
+        int start = content.indexOf('{');
+        if (start == -1) {
+            return null;
+        }
+
+        StringReader reader = new StringReader(content);
+        try {
+            reader.skip(start);
+            try (JsonParser parser = JSON_FACTORY.createParser(reader)) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    return null;
+                }
+                return readResponse(parser, originalText);
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private BrainDumpResponse readResponse(JsonParser parser, String originalText) throws IOException {
+        int urgency = 3;
+        int priority = 3;
+        String advice = "Break this into smaller, manageable steps";
+        String motivation = "You've got this! Every step forward counts 💪";
+        String quickWin = "Start with the easiest task to build momentum";
+        int estimatedTime = 30;
+        String energyLevel = "medium";
+        String celebration = "Amazing work! You're making real progress! 🎉";
+        int dopamineScore = 3;
+        List<String> organizedNotes = null;
+        List<String> nextSteps = null;
+        List<CalendarEvent> calendarEvents = null;
+        List<String> timeManagementTips = null;
+
+        // Stops at the root END_OBJECT, so trailing fences or text are never read
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "urgency" -> urgency = readInt(parser, urgency);
+                case "priority" -> priority = readInt(parser, priority);
+                case "advice" -> advice = readText(parser, advice);
+                case "motivation" -> motivation = readText(parser, motivation);
+                case "quickWin" -> quickWin = readText(parser, quickWin);
+                case "estimatedTime" -> estimatedTime = readInt(parser, estimatedTime);
+                case "energyLevel" -> energyLevel = readText(parser, energyLevel);
+                case "celebration" -> celebration = readText(parser, celebration);
+                case "dopamineScore" -> dopamineScore = readInt(parser, dopamineScore);
+                case "organizedNotes" -> organizedNotes = readStrings(parser);
+                case "nextSteps" -> nextSteps = readStrings(parser);
+                case "calendarEvents" -> calendarEvents = readEvents(parser);
+                case "timeManagementTips" -> timeManagementTips = readStrings(parser);
+                default -> parser.skipChildren();
+            }
+        }
+
+        if (organizedNotes == null || organizedNotes.isEmpty()) {
+            organizedNotes = new ArrayList<>(List.of(originalText));
+        }
+        if (nextSteps == null || nextSteps.isEmpty()) {
+            nextSteps = new ArrayList<>(List.of("Take the first small step", "Keep going"));
+        }
+        if (calendarEvents == null) {
+            calendarEvents = new ArrayList<>();
+        }
+        if (timeManagementTips == null || timeManagementTips.isEmpty()) {
+            timeManagementTips = new ArrayList<>(List.of("Take breaks every 25 minutes"));
+        }
+
+        return new BrainDumpResponse(
+                urgency,
+                priority,
+                advice,
+                motivation,
+                organizedNotes,
+                quickWin,
+                estimatedTime,
+                energyLevel,
+                celebration,
+                nextSteps,
+                dopamineScore,
+                calendarEvents,
+                timeManagementTips
+        );
+    }
+
+    private static int readInt(JsonParser parser, int fallback) throws IOException {
+        if (parser.currentToken().isStructStart()) {
+            parser.skipChildren();
+            return fallback;
+        }
+        return parser.getValueAsInt(fallback);
+    }
+
+    private static String readText(JsonParser parser, String fallback) throws IOException {
+        if (parser.currentToken().isStructStart()) {
+            parser.skipChildren();
+            return fallback;
+        }
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return fallback;
+        }
+        return parser.getValueAsString(fallback);
+    }
+
+    // Keeps only string elements, like the tree-based parser did
+    private static List<String> readStrings(JsonParser parser) throws IOException {
+        List<String> values = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return values;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.VALUE_STRING) {
+                values.add(parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return values;
+    }
+
+    private static List<CalendarEvent> readEvents(JsonParser parser) throws IOException {
+        List<CalendarEvent> events = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return events;
+        }
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.START_OBJECT) {
+                events.add(readEvent(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return events;
+    }
+
+    private static CalendarEvent readEvent(JsonParser parser) throws IOException {
+        String title = "Task";
+        String date = "";
+        String time = "";
+        int duration = 30;
+        String priority = "medium";
+        String notes = "";
+        String color = "blue";
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "title" -> title = readText(parser, title);
+                case "date" -> date = readText(parser, date);
+                case "time" -> time = readText(parser, time);
+                case "duration" -> duration = readInt(parser, duration);
+                case "priority" -> priority = readText(parser, priority);
+                case "notes" -> notes = readText(parser, notes);
+                case "color" -> color = readText(parser, color);
+                default -> parser.skipChildren();
+            }
+        }
+        return new CalendarEvent(title, date, time, duration, priority, notes, color);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.airtimebackend.ai;
+
+import org.apache.hc.client5.http.async.methods.AbstractBinResponseConsumer;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Buffers a (small) upstream JSON body and notes when the response headers arrived,
+ * which is our time-to-first-byte.
+ */
+class BufferingResponseConsumer extends AbstractBinResponseConsumer<BufferingResponseConsumer.Result> {
+
+    record Result(int status, byte[] body, long firstByteNanos) {
+    }
+
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream(8192);
+    private int status;
+    private long firstByteNanos;
+
+    @Override
+    protected void start(HttpResponse response, ContentType contentType) throws HttpException, IOException {
+        firstByteNanos = System.nanoTime();
+        status = response.getCode();
+    }
+
+    @Override
+    protected int capacityIncrement() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    protected void data(ByteBuffer src, boolean endOfStream) {
+        if (src.hasArray()) {
+            body.write(src.array(), src.arrayOffset() + src.position(), src.remaining());
+            src.position(src.limit());
+        } else {
+            while (src.hasRemaining()) {
+                body.write(src.get());
+            }
+        }
+    }
+
+    @Override
+    protected Result buildResult() {
+        return new Result(status, body.toByteArray(), firstByteNanos);
+    }
+
+    @Override
+    public void failed(Exception cause) {
+    }
+
+    @Override
+    public void releaseResources() {
+    }
+}
@@ -0,0 +1,311 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.CalendarEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Wraps any AIProvider with a bounded LRU + TTL cache keyed on the normalized
+ * brain dump text and the delegate's model/prompt fingerprint.
+ * Concurrent identical requests share a single in-flight upstream call.
+ * Fallback responses are never cached.
+ */
+public class CachingAIProvider implements AIProvider {
+
+    private final AIProvider delegate;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final ConcurrentHashMap<String, CompletableFuture<BrainDumpResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public CachingAIProvider(AIProvider delegate, boolean enabled, int maxEntries, long maxBytes, Duration ttl) {
+        this(delegate, enabled, maxEntries, maxBytes, ttl, System::nanoTime);
+    }
+
+    CachingAIProvider(AIProvider delegate, boolean enabled, int maxEntries, long maxBytes, Duration ttl,
+                      LongSupplier clock) {
+        this.delegate = delegate;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+    }
+
+    @Override
+    public String fingerprint() {
+        return delegate.fingerprint();
+    }
+
+    @Override
+    public BrainDumpResponse analyzeBrainDump(String text) {
+        if (!enabled || text == null) {
+            return delegate.analyzeBrainDump(text);
+        }
+
+        String key = cacheKey(text);
+
+        BrainDumpResponse cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return cached.copy();
+        }
+
+        // Single-flight: the first caller for a key does the upstream call, the rest wait on it
+        CompletableFuture<BrainDumpResponse> mine = new CompletableFuture<>();
+        CompletableFuture<BrainDumpResponse> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return copyOf(await(existing));
+        }
+
+        misses.incrementAndGet();
+        try {
+            BrainDumpResponse response = delegate.analyzeBrainDump(text);
+            if (response != null && !response.fallback) {
+                store(key, response);
+            }
+            mine.complete(response);
+            return copyOf(response);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    @Override
+    public CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text) {
+        if (!enabled || text == null) {
+            return delegate.analyzeBrainDumpAsync(text);
+        }
+
+        String key = cacheKey(text);
+
+        BrainDumpResponse cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached.copy());
+        }
+
+        CompletableFuture<BrainDumpResponse> mine = new CompletableFuture<>();
+        CompletableFuture<BrainDumpResponse> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            // A dependent copy, so one caller cancelling doesn't cancel the shared call
+            return existing.thenApply(CachingAIProvider::copyOf);
+        }
+
+        misses.incrementAndGet();
+        CompletableFuture<BrainDumpResponse> call;
+        try {
+            call = delegate.analyzeBrainDumpAsync(text);
+        } catch (RuntimeException e) {
+            // Otherwise every later caller for this key would wait on mine forever
+            inFlight.remove(key, mine);
+            mine.completeExceptionally(e);
+            return mine.thenApply(CachingAIProvider::copyOf);
+        }
+        call.whenComplete((response, error) -> {
+            if (error == null && response != null && !response.fallback) {
+                store(key, response);
+            }
+            inFlight.remove(key, mine);
+            if (error != null) {
+                mine.completeExceptionally(error);
+            } else {
+                mine.complete(response);
+            }
+        });
+        return mine.thenApply(CachingAIProvider::copyOf);
+    }
+
+    @Override
+    public void streamBrainDump(String text, AnalysisStreamListener listener) {
+        if (!enabled || text == null) {
+            delegate.streamBrainDump(text, listener);
+            return;
+        }
+
+        String key = cacheKey(text);
+        BrainDumpResponse cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            AnalysisStreamListener.replay(cached, listener);
+            return;
+        }
+
+        // Streams are not coalesced (each client needs its own live feed), but the result is cached
+        misses.incrementAndGet();
+        delegate.streamBrainDump(text, new AnalysisStreamListener() {
+            @Override
+            public void onField(String name, JsonNode value) {
+                listener.onField(name, value);
+            }
+
+            @Override
+            public void onItem(String arrayName, JsonNode item) {
+                listener.onItem(arrayName, item);
+            }
+
+            @Override
+            public void onComplete(BrainDumpResponse response) {
+                if (response != null && !response.fallback) {
+                    store(key, response.copy());
+                }
+                listener.onComplete(response);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return listener.isCancelled();
+            }
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("coalesced", coalesced.get());
+        stats.put("evictions", evictions.get());
+        synchronized (entries) {
+            stats.put("entries", entries.size());
+            stats.put("bytes", totalBytes);
+        }
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public long coalesced() {
+        return coalesced.get();
+    }
+
+    public long evictions() {
+        return evictions.get();
+    }
+
+    private String cacheKey(String text) {
+        return TextKey.of(delegate.fingerprint(), text);
+    }
+
+    private BrainDumpResponse lookup(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (clock.getAsLong() - entry.storedAt > ttlNanos) {
+                entries.remove(key);
+                totalBytes -= entry.bytes;
+                evictions.incrementAndGet();
+                return null;
+            }
+            return entry.response;
+        }
+    }
+
+    private void store(String key, BrainDumpResponse response) {
+        long bytes = estimateBytes(key, response);
+        if (bytes > maxBytes) {
+            return;
+        }
+        synchronized (entries) {
+            Entry previous = entries.put(key, new Entry(response, bytes, clock.getAsLong()));
+            totalBytes += bytes;
+            if (previous != null) {
+                totalBytes -= previous.bytes;
+            }
+
+            Iterator<Entry> eldest = entries.values().iterator();
+            while ((entries.size() > maxEntries || totalBytes > maxBytes) && eldest.hasNext()) {
+                Entry evicted = eldest.next();
+                eldest.remove();
+                totalBytes -= evicted.bytes;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    // Callers annotate their result (id, conflicts), so none of them gets the instance the cache keeps
+    private static BrainDumpResponse copyOf(BrainDumpResponse response) {
+        return response == null ? null : response.copy();
+    }
+
+    private static BrainDumpResponse await(CompletableFuture<BrainDumpResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Rough heap footprint: 2 bytes per char plus a fixed per-object overhead
+    static long estimateBytes(String key, BrainDumpResponse response) {
+        long bytes = 128 + stringBytes(key);
+        bytes += stringBytes(response.advice) + stringBytes(response.motivation) + stringBytes(response.quickWin)
+                + stringBytes(response.energyLevel) + stringBytes(response.celebration);
+        bytes += listBytes(response.organizedNotes) + listBytes(response.nextSteps)
+                + listBytes(response.timeManagementTips);
+        if (response.calendarEvents != null) {
+            for (CalendarEvent event : response.calendarEvents) {
+                bytes += 48 + stringBytes(event.title()) + stringBytes(event.date()) + stringBytes(event.time())
+                        + stringBytes(event.priority()) + stringBytes(event.notes()) + stringBytes(event.color());
+            }
+        }
+        return bytes;
+    }
+
+    private static long listBytes(List<String> list) {
+        if (list == null) {
+            return 0;
+        }
+        long bytes = 32;
+        for (String s : list) {
+            bytes += 8 + stringBytes(s);
+        }
+        return bytes;
+    }
+
+    private static long stringBytes(String s) {
+        return s == null ? 0 : 40 + 2L * s.length();
+    }
+
+    private record Entry(BrainDumpResponse response, long bytes, long storedAt) {
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.CalendarEvent;
+import com.example.airtimebackend.model.FallbackCause;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Map-reduce for very long brain dumps (a week of journal notes pasted in): above
+ * {@code thresholdChars} the text is split at paragraph, line or sentence boundaries into chunks of
+ * about {@code chunkChars}, every chunk is analyzed in parallel through the rest of the chain (so each
+ * one is cached, stored and deadline-bounded on its own), and the partial results are merged.
+ * One prompt would otherwise outgrow the completion budget and be cut off mid-JSON.
+ * <p>
+ * The merge drops near-duplicate notes, events, steps and tips, takes the highest urgency, a
+ * size-weighted priority and the summed time, and keeps the narrative fields of the most urgent chunk.
+ * A chunk that fell back still contributes its rule-based notes and events; only if every chunk fell
+ * back is the whole dump answered with the fallback. A fully merged result is stored under the whole
+ * text, so it gets an id and an identical resubmit is answered from the store without re-merging.
+ */
+public class ChunkingAIProvider implements AIProvider {
+
+    private static final Pattern PARAGRAPH_BREAK = Pattern.compile("\\r?\\n\\s*\\r?\\n");
+    private static final Pattern LINE_BREAK = Pattern.compile("\\r?\\n");
+    private static final Pattern SENTENCE_END = Pattern.compile("(?<=[.!?;])\\s+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // Word-set overlap at which two notes, steps or tips count as the same
+    private static final double SAME_TEXT = 0.8;
+    // Lower for event titles, which are short and matched together with their date and time
+    private static final double SAME_TITLE = 0.5;
+    private static final int MAX_NEXT_STEPS = 5;
+    private static final int MAX_TIPS = 5;
+
+    private final AIProvider delegate;
+    private final PersistentAIProvider persistence;
+    private final int thresholdChars;
+    private final int chunkChars;
+    private final int maxChunks;
+
+    private final AtomicLong chunkedAnalyses = new AtomicLong();
+    private final AtomicLong chunksAnalyzed = new AtomicLong();
+
+    /**
+     * @param persistence where merged results are stored, or null; chunk results are stored by the chain
+     * @param thresholdChars texts longer than this are chunked; {@code Integer.MAX_VALUE} turns chunking off
+     */
+    public ChunkingAIProvider(AIProvider delegate, PersistentAIProvider persistence, int thresholdChars,
+                              int chunkChars, int maxChunks) {
+        this.delegate = delegate;
+        this.persistence = persistence;
+        this.thresholdChars = thresholdChars;
+        this.chunkChars = Math.max(1, chunkChars);
+        this.maxChunks = Math.max(2, maxChunks);
+    }
+
+    @Override
+    public String fingerprint() {
+        return delegate.fingerprint();
+    }
+
+    @Override
+    public BrainDumpResponse analyzeBrainDump(String text) {
+        return analyzeBrainDumpAsync(text).join();
+    }
+
+    @Override
+    public CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text) {
+        List<String> chunks = chunks(text);
+        if (chunks.size() < 2) {
+            return delegate.analyzeBrainDumpAsync(text);
+        }
+        BrainDumpResponse recalled = persistence == null ? null : persistence.recall(text);
+        if (recalled != null) {
+            return CompletableFuture.completedFuture(recalled);
+        }
+        chunkedAnalyses.incrementAndGet();
+        chunksAnalyzed.addAndGet(chunks.size());
+
+        List<CompletableFuture<BrainDumpResponse>> parts = new ArrayList<>(chunks.size());
+        for (String chunk : chunks) {
+            CompletableFuture<BrainDumpResponse> part;
+            try {
+                part = delegate.analyzeBrainDumpAsync(chunk);
+            } catch (RuntimeException e) {
+                part = CompletableFuture.failedFuture(e);
+            }
+            parts.add(part.exceptionally(error -> FallbackResponses.forText(chunk)));
+        }
+        return CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).thenApply(ignored -> {
+            List<Part> results = new ArrayList<>(parts.size());
+            for (int i = 0; i < parts.size(); i++) {
+                results.add(new Part(parts.get(i).join(), chunks.get(i).length()));
+            }
+            return reduce(text, results);
+        });
+    }
+
+    @Override
+    public void streamBrainDump(String text, AnalysisStreamListener listener) {
+        if (chunks(text).size() < 2) {
+            delegate.streamBrainDump(text, listener);
+            return;
+        }
+        // Chunks finish out of order, so there is no single field stream to forward; send the merge in one go
+        analyzeBrainDumpAsync(text).thenAccept(response -> AnalysisStreamListener.replay(response, listener));
+    }
+
+    public long chunkedAnalyses() {
+        return chunkedAnalyses.get();
+    }
+
+    public long chunksAnalyzed() {
+        return chunksAnalyzed.get();
+    }
+
+    private List<String> chunks(String text) {
+        if (text == null || text.length() <= thresholdChars) {
+            return List.of();
+        }
+        // Never more than maxChunks calls for one dump: past that, chunks grow instead
+        int size = Math.max(chunkChars, (text.length() + maxChunks - 1) / maxChunks);
+        List<String> chunks = split(text, size);
+        while (chunks.size() > maxChunks) {
+            // Packing at boundaries leaves chunks part-empty
+            size += size / 2;
+            chunks = split(text, size);
+        }
+        return chunks;
+    }
+
+    private BrainDumpResponse reduce(String text, List<Part> parts) {
+        List<Part> failed = parts.stream().filter(part -> part.response.fallback).toList();
+        if (failed.size() == parts.size()) {
+            FallbackCause cause = failed.get(0).response.fallbackCause;
+            return FallbackResponses.forText(text, cause == null ? FallbackCause.EXCEPTION : cause);
+        }
+        BrainDumpResponse merged = merge(parts);
+        // A partial merge isn't stored, so the next submit retries just the chunks that failed
+        return failed.isEmpty() && persistence != null ? persistence.remember(text, merged) : merged;
+    }
+
+    // One chunk's result and the chunk's length, which weighs its scores in the merge
+    record Part(BrainDumpResponse response, int chars) {
+    }
+
+    /**
+     * Splits at paragraph breaks, then line breaks, then sentence ends, and only cuts mid-sentence
+     * (at a space) when a single sentence is longer than {@code maxChars}; the pieces are then packed
+     * back together, in order, into chunks of at most {@code maxChars}.
+     */
+    static List<String> split(String text, int maxChars) {
+        List<String> units = new ArrayList<>();
+        for (String paragraph : PARAGRAPH_BREAK.split(text)) {
+            addUnits(paragraph.strip(), maxChars, 0, units);
+        }
+        List<String> chunks = new ArrayList<>();
+        StringBuilder chunk = new StringBuilder();
+        for (String unit : units) {
+            if (chunk.length() > 0 && chunk.length() + 1 + unit.length() > maxChars) {
+                chunks.add(chunk.toString());
+                chunk.setLength(0);
+            }
+            if (chunk.length() > 0) {
+                chunk.append('\n');
+            }
+            chunk.append(unit);
+        }
+        if (chunk.length() > 0) {
+            chunks.add(chunk.toString());
+        }
+        return chunks;
+    }
+
+    private static void addUnits(String block, int maxChars, int level, List<String> units) {
+        if (block.isEmpty()) {
+            return;
+        }
+        if (block.length() <= maxChars) {
+            units.add(block);
+            return;
+        }
+        if (level < 2) {
+            String[] pieces = (level == 0 ? LINE_BREAK : SENTENCE_END).split(block);
+            for (String piece : pieces) {
+                addUnits(piece.strip(), maxChars, pieces.length > 1 ? level : level + 1, units);
+            }
+            return;
+        }
+        int cut = block.lastIndexOf(' ', maxChars);
+        if (cut <= 0) {
+            cut = maxChars;
+        }
+        units.add(block.substring(0, cut).strip());
+        addUnits(block.substring(cut).strip(), maxChars, level, units);
+    }
+
+    static BrainDumpResponse merge(List<Part> parts) {
+        List<Part> analyzed = parts.stream().filter(part -> !part.response.fallback).toList();
+        // Narrative fields come from the most urgent chunk; ties go to the longer one
+        Part lead = analyzed.stream()
+                .max(Comparator.comparingInt((Part part) -> part.response.urgency).thenComparingInt(Part::chars))
+                .orElseThrow();
+        // A quick win from the most urgent chunk, the shortest one if several are equally urgent
+        String quickWin = analyzed.stream()
+                .filter(part -> part.response.quickWin != null && !part.response.quickWin.isBlank())
+                .max(Comparator.comparingInt((Part part) -> part.response.urgency)
+                        .thenComparingInt(part -> -part.response.quickWin.length()))
+                .map(part -> part.response.quickWin)
+                .orElse(lead.response.quickWin);
+
+        int urgency = 0;
+        long weightedPriority = 0;
+        long weightedDopamine = 0;
+        long weight = 0;
+        // Chunks are never empty, so weight ends up positive
+        for (Part part : analyzed) {
+            urgency = Math.max(urgency, part.response.urgency);
+            weightedPriority += (long) part.response.priority * part.chars;
+            weightedDopamine += (long) part.response.dopamineScore * part.chars;
+            weight += part.chars;
+        }
+        int estimatedTime = 0;
+        List<String> notes = new ArrayList<>();
+        List<CalendarEvent> events = new ArrayList<>();
+        for (Part part : parts) {
+            estimatedTime += part.response.estimatedTime;
+            addDistinct(notes, part.response.organizedNotes, Integer.MAX_VALUE);
+            addDistinctEvents(events, part.response.calendarEvents);
+        }
+        List<String> nextSteps = new ArrayList<>();
+        List<String> tips = new ArrayList<>();
+        for (Part part : analyzed.stream().sorted(Comparator.comparingInt((Part part) -> -part.response.urgency))
+                .toList()) {
+            addDistinct(nextSteps, part.response.nextSteps, MAX_NEXT_STEPS);
+            addDistinct(tips, part.response.timeManagementTips, MAX_TIPS);
+        }
+
+        BrainDumpResponse narrative = lead.response;
+        return new BrainDumpResponse(urgency, clampScore(Math.round((double) weightedPriority / weight)),
+                narrative.advice, narrative.motivation, notes, quickWin, estimatedTime, narrative.energyLevel,
+                narrative.celebration, nextSteps, clampScore(Math.round((double) weightedDopamine / weight)), events,
+                tips);
+    }
+
+    private static int clampScore(long score) {
+        return (int) Math.max(1, Math.min(5, score));
+    }
+
+    private static void addDistinct(List<String> target, List<String> items, int limit) {
+        if (items == null) {
+            return;
+        }
+        for (String item : items) {
+            if (target.size() >= limit) {
+                return;
+            }
+            if (item != null && !item.isBlank()
+                    && target.stream().noneMatch(existing -> similarity(existing, item) >= SAME_TEXT)) {
+                target.add(item);
+            }
+        }
+    }
+
+    // Same date and start time (or no time on either) and a similar title is the same event; the more
+    // urgent copy wins, in the position of the first
+    private static void addDistinctEvents(List<CalendarEvent> target, List<CalendarEvent> events) {
+        if (events == null) {
+            return;
+        }
+        outer:
+        for (CalendarEvent event : events) {
+            for (int i = 0; i < target.size(); i++) {
+                CalendarEvent existing = target.get(i);
+                if (sameEvent(existing, event)) {
+                    if (rank(event.priority()) > rank(existing.priority())) {
+                        target.set(i, event);
+                    }
+                    continue outer;
+                }
+            }
+            target.add(event);
+        }
+    }
+
+    private static boolean sameEvent(CalendarEvent a, CalendarEvent b) {
+        if (a.date() != null && b.date() != null && !a.date().equals(b.date())) {
+            return false;
+        }
+        if (a.time() != null && b.time() != null && !a.time().isBlank() && !b.time().isBlank()
+                && !a.time().equals(b.time())) {
+            return false;
+        }
+        return similarity(a.title(), b.title()) >= SAME_TITLE;
+    }
+
+    private static int rank(String priority) {
+        if (priority == null) {
+            return 1;
+        }
+        return switch (priority.toLowerCase(Locale.ROOT)) {
+            case "urgent" -> 3;
+            case "high" -> 2;
+            case "low" -> 0;
+            default -> 1;
+        };
+    }
+
+    // Jaccard overlap of the two texts' word sets; 1 for texts that differ only in case and punctuation
+    static double similarity(String a, String b) {
+        Set<String> left = words(a);
+        Set<String> right = words(b);
+        if (left.isEmpty() || right.isEmpty()) {
+            return left.isEmpty() && right.isEmpty() ? 1 : 0;
+        }
+        int shared = 0;
+        for (String word : left) {
+            if (right.contains(word)) {
+                shared++;
+            }
+        }
+        return (double) shared / (left.size() + right.size() - shared);
+    }
+
+    private static Set<String> words(String text) {
+        if (text == null) {
+            return Set.of();
+        }
+        Set<String> words = new HashSet<>(Arrays.asList(NON_WORD.split(text.toLowerCase(Locale.ROOT))));
+        words.remove("");
+        return words;
+    }
+}
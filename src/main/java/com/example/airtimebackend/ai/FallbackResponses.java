@@ -0,0 +1,81 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.CalendarEvent;
+import com.example.airtimebackend.model.FallbackCause;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The response served whenever the AI analysis can't be produced: the local rule-based
+ * extraction, so the user still gets their tasks split out and dated events, flagged as a fallback.
+ * Never throws: if the extraction itself fails, the fixed {@link #canned} response is served instead.
+ */
+public final class FallbackResponses {
+
+    private static final String UNAVAILABLE_NOTE = "AI processing unavailable - review this manually";
+    private static final LocalAIProvider LOCAL = new LocalAIProvider(Clock.systemDefaultZone());
+
+    private FallbackResponses() {
+    }
+
+    public static BrainDumpResponse forText(String text) {
+        return forText(text, FallbackCause.EXCEPTION);
+    }
+
+    public static BrainDumpResponse forText(String text, FallbackCause cause) {
+        BrainDumpResponse fallback;
+        try {
+            fallback = LOCAL.analyze(text, UNAVAILABLE_NOTE);
+        } catch (RuntimeException | StackOverflowError e) {
+            return canned(text, cause);
+        }
+        fallback.fallback = true;
+        fallback.fallbackCause = cause;
+        return fallback;
+    }
+
+    /** A fixed response that looks at nothing but the text's first characters, so it can't fail. */
+    public static BrainDumpResponse canned(String text, FallbackCause cause) {
+        String input = text == null ? "" : text;
+        List<CalendarEvent> events = new ArrayList<>(1);
+        events.add(new CalendarEvent(
+                "Organize: " + (input.length() > 30 ? input.substring(0, 30) + "..." : input),
+                LocalDate.now().toString(),
+                "14:00",
+                30,
+                "medium",
+                UNAVAILABLE_NOTE,
+                "blue"
+        ));
+        BrainDumpResponse fallback = new BrainDumpResponse(
+                3,
+                3,
+                "Let's break this down step by step - you've got this!",
+                "Great job taking action! Planning is half the battle 🌟",
+                List.of(input),
+                "Start with just 5 minutes to get momentum going",
+                30,
+                "medium",
+                "Fantastic! You're making progress! 🎉",
+                List.of(
+                        "Read through your task carefully",
+                        "Identify the very first action step",
+                        "Set a 10-minute timer and start"
+                ),
+                3,
+                events,
+                List.of(
+                        "Try the Pomodoro technique: 25 min work, 5 min break",
+                        "Start with the easiest part to build confidence",
+                        "Celebrate small wins along the way"
+                )
+        );
+        fallback.fallback = true;
+        fallback.fallbackCause = cause;
+        return fallback;
+    }
+}
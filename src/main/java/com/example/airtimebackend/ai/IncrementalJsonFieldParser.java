@@ -0,0 +1,147 @@
+package com.example.airtimebackend.ai;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.core.json.JsonReadFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Parses the model's JSON answer as it streams in, token by token, and reports each
+ * top-level field (and each element of a top-level array) the moment it closes.
+ * Anything before the first '{' (e.g. a ```json fence) and after the closing '}' is ignored.
+ */
+public class IncrementalJsonFieldParser {
+
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+            .enable(JsonReadFeature.ALLOW_TRAILING_COMMA)
+            .enable(JsonReadFeature.ALLOW_UNESCAPED_CONTROL_CHARS)
+            .build();
+
+    private final AnalysisStreamListener listener;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final JsonNodeFactory nodes = JsonNodeFactory.instance;
+
+    // Open containers, root first; each remembers the field name it will be stored under
+    private final Deque<Frame> stack = new ArrayDeque<>();
+    private String pendingName;
+    // A high surrogate held back until its low half arrives in the next chunk
+    private char pendingHighSurrogate;
+
+    private boolean started;
+    private boolean finished;
+    private boolean failed;
+
+    public IncrementalJsonFieldParser(AnalysisStreamListener listener) {
+        this.listener = listener;
+        try {
+            this.parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not create non-blocking JSON parser", e);
+        }
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    public void feed(String chunk) {
+        if (finished || failed || chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        if (!started) {
+            int start = chunk.indexOf('{');
+            if (start == -1) {
+                return;
+            }
+            chunk = chunk.substring(start);
+            started = true;
+        }
+        if (pendingHighSurrogate != 0) {
+            chunk = pendingHighSurrogate + chunk;
+            pendingHighSurrogate = 0;
+        }
+        if (Character.isHighSurrogate(chunk.charAt(chunk.length() - 1))) {
+            pendingHighSurrogate = chunk.charAt(chunk.length() - 1);
+            chunk = chunk.substring(0, chunk.length() - 1);
+        }
+
+        byte[] bytes = chunk.getBytes(StandardCharsets.UTF_8);
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            JsonToken token;
+            while (!finished && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                handle(token);
+            }
+        } catch (IOException e) {
+            // Malformed partial output: stop emitting, the final tolerant parse decides the result
+            failed = true;
+        }
+    }
+
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    private void handle(JsonToken token) throws IOException {
+        switch (token) {
+            case FIELD_NAME -> pendingName = parser.currentName();
+            case START_OBJECT -> stack.push(new Frame(nodes.objectNode(), nameForNewValue()));
+            case START_ARRAY -> stack.push(new Frame(nodes.arrayNode(), nameForNewValue()));
+            case END_OBJECT, END_ARRAY -> {
+                Frame closed = stack.pop();
+                if (stack.isEmpty()) {
+                    finished = true;
+                } else {
+                    attach(closed.name, closed.node);
+                }
+            }
+            case VALUE_STRING -> attach(nameForNewValue(), nodes.textNode(parser.getText()));
+            case VALUE_NUMBER_INT -> attach(nameForNewValue(), nodes.numberNode(parser.getLongValue()));
+            case VALUE_NUMBER_FLOAT -> attach(nameForNewValue(), nodes.numberNode(parser.getDoubleValue()));
+            case VALUE_TRUE -> attach(nameForNewValue(), nodes.booleanNode(true));
+            case VALUE_FALSE -> attach(nameForNewValue(), nodes.booleanNode(false));
+            case VALUE_NULL -> attach(nameForNewValue(), nodes.nullNode());
+            default -> {
+            }
+        }
+    }
+
+    private String nameForNewValue() {
+        String name = pendingName;
+        pendingName = null;
+        return name;
+    }
+
+    private void attach(String name, JsonNode value) {
+        Frame parent = stack.peek();
+        if (parent == null) {
+            return;
+        }
+        if (parent.node instanceof ObjectNode object) {
+            object.set(name, value);
+            if (stack.size() == 1 && !value.isArray()) {
+                listener.onField(name, value);
+            }
+        } else if (parent.node instanceof ArrayNode array) {
+            array.add(value);
+            if (stack.size() == 2) {
+                listener.onItem(parent.name, value);
+            }
+        }
+    }
+
+    private record Frame(JsonNode node, String name) {
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.airtimebackend.ai;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the last N successful upstream latencies so the hedge delay can follow the
+ * observed tail instead of a fixed guess.
+ */
+class LatencyTracker {
+
+    private final long[] samples;
+    private int position;
+    private int count;
+
+    LatencyTracker(int size) {
+        this.samples = new long[Math.max(1, size)];
+    }
+
+    synchronized void record(long nanos) {
+        samples[position] = nanos;
+        position = (position + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    synchronized int count() {
+        return count;
+    }
+
+    // Nearest-rank percentile, or -1 with no samples yet
+    long percentile(double p) {
+        long[] copy;
+        synchronized (this) {
+            if (count == 0) {
+                return -1;
+            }
+            copy = Arrays.copyOf(samples, count);
+        }
+        Arrays.sort(copy);
+        int rank = (int) Math.ceil(p * copy.length) - 1;
+        return copy[Math.max(0, rank)];
+    }
+}
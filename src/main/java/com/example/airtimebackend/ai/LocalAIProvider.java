@@ -0,0 +1,231 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.CalendarEvent;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+/**
+ * In-process analysis built from {@link LocalExtractor}'s rule-based task and date extraction.
+ * No model call, so it answers in microseconds: used as the instant "preview" on the stream
+ * endpoint, as the degraded-mode response whenever the model can't answer, and to resolve
+ * dates for the model up front (see {@link #promptHints}).
+ */
+public class LocalAIProvider implements AIProvider {
+
+    private static final String VERSION = "local-rules-v1";
+    private static final Pattern QUICK_TASK = Pattern.compile(
+            "\\b(?:email|e-mail|call|text|reply|buy|book|pay|send|order|schedule|message|dm|renew|sign|print)\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final Comparator<LocalExtractor.Task> BY_WHEN = Comparator
+            .comparing(LocalExtractor.Task::date, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(LocalExtractor.Task::time, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final Clock clock;
+
+    public LocalAIProvider(Clock clock) {
+        this.clock = clock;
+    }
+
+    @Override
+    public String fingerprint() {
+        return VERSION;
+    }
+
+    @Override
+    public BrainDumpResponse analyzeBrainDump(String text) {
+        return analyze(text);
+    }
+
+    @Override
+    public CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text) {
+        // Cheap enough to run on the caller's thread
+        return CompletableFuture.completedFuture(analyze(text));
+    }
+
+    public BrainDumpResponse analyze(String text) {
+        return analyze(text, "");
+    }
+
+    /**
+     * @param placeholderNote the note on the generic "Organize" event added when nothing could be scheduled
+     */
+    BrainDumpResponse analyze(String text, String placeholderNote) {
+        String input = text == null ? "" : text;
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<LocalExtractor.Task> tasks = LocalExtractor.extract(input, now);
+
+        List<String> notes = new ArrayList<>(tasks.size());
+        for (LocalExtractor.Task task : tasks) {
+            notes.add(task.text());
+        }
+        if (notes.isEmpty()) {
+            notes.add(input);
+        }
+
+        List<CalendarEvent> events = new ArrayList<>();
+        int estimatedTime = 0;
+        long soonest = Long.MAX_VALUE;
+        for (LocalExtractor.Task task : tasks) {
+            if (!task.scheduled()) {
+                estimatedTime += 15;
+                continue;
+            }
+            CalendarEvent event = toEvent(task, now);
+            events.add(event);
+            estimatedTime += event.duration();
+            soonest = Math.min(soonest, ChronoUnit.DAYS.between(now.toLocalDate(), LocalDate.parse(event.date())));
+        }
+        events.sort(Comparator.comparing(CalendarEvent::date).thenComparing(CalendarEvent::time));
+        if (events.isEmpty()) {
+            events.add(new CalendarEvent(
+                    "Organize: " + (input.length() > 30 ? input.substring(0, 30) + "..." : input),
+                    now.toLocalDate().toString(),
+                    "14:00",
+                    30,
+                    "medium",
+                    placeholderNote,
+                    "blue"
+            ));
+        }
+
+        int urgency = soonest == Long.MAX_VALUE ? 3
+                : soonest <= 0 ? 5
+                : soonest == 1 ? 4
+                : soonest <= 3 ? 3
+                : 2;
+
+        List<LocalExtractor.Task> ordered = new ArrayList<>(tasks);
+        ordered.sort(BY_WHEN);
+        List<String> nextSteps = new ArrayList<>(3);
+        for (LocalExtractor.Task task : ordered) {
+            if (nextSteps.size() == 3) {
+                break;
+            }
+            nextSteps.add(task.title());
+        }
+        if (nextSteps.isEmpty()) {
+            nextSteps = List.of(
+                    "Read through your task carefully",
+                    "Identify the very first action step",
+                    "Set a 10-minute timer and start"
+            );
+        }
+
+        String advice = ordered.isEmpty()
+                ? "Let's break this down step by step - you've got this!"
+                : "Start with \"" + ordered.get(0).title() + "\", then take the rest one at a time.";
+
+        return new BrainDumpResponse(
+                urgency,
+                Math.max(3, urgency),
+                advice,
+                "Great job taking action! Planning is half the battle 🌟",
+                notes,
+                quickWin(tasks),
+                Math.max(15, estimatedTime),
+                "medium",
+                "Fantastic! You're making progress! 🎉",
+                nextSteps,
+                3,
+                events,
+                List.of(
+                        "Try the Pomodoro technique: 25 min work, 5 min break",
+                        "Start with the easiest part to build confidence",
+                        "Celebrate small wins along the way"
+                )
+        );
+    }
+
+    /**
+     * Dates and times already resolved from the dump, phrased for the model, or "" if none were found.
+     * Appended after the user's text, so the cacheable prompt prefix is unaffected.
+     */
+    public String promptHints(String text) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        List<LocalExtractor.Task> tasks = LocalExtractor.extract(text, now);
+        StringBuilder sb = null;
+        for (LocalExtractor.Task task : tasks) {
+            if (!task.scheduled()) {
+                continue;
+            }
+            if (sb == null) {
+                LocalDate today = now.toLocalDate();
+                sb = new StringBuilder(256)
+                        .append("\nToday is ")
+                        .append(today.getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.ENGLISH))
+                        .append(' ').append(today)
+                        .append(". Dates/times already resolved from the brain dump (use them as-is):\n");
+            }
+            CalendarEvent event = toEvent(task, now);
+            sb.append("- \"");
+            PromptTemplate.appendEscaped(sb, task.text());
+            sb.append("\" = ").append(event.date()).append(' ').append(event.time());
+            if (task.durationMinutes() > 0) {
+                sb.append(", ").append(task.durationMinutes()).append(" min");
+            }
+            if (task.deadline()) {
+                sb.append(", deadline");
+            }
+            sb.append('\n');
+        }
+        return sb == null ? "" : sb.toString();
+    }
+
+    private static CalendarEvent toEvent(LocalExtractor.Task task, LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        LocalDate date = task.date();
+        LocalTime time = task.time();
+        if (date == null) {
+            // A time with no day: the next time the clock shows it
+            date = time.isAfter(now.toLocalTime()) ? today : today.plusDays(1);
+        }
+        if (time == null) {
+            time = task.deadline() ? LocalTime.of(17, 0) : LocalTime.of(9, 0);
+            if (date.equals(today) && time.isBefore(now.toLocalTime())) {
+                time = LocalTime.of(Math.min(23, now.getHour() + 1), 0);
+            }
+        }
+        int duration = task.durationMinutes() > 0 ? task.durationMinutes() : task.deadline() ? 30 : 60;
+
+        long days = ChronoUnit.DAYS.between(today, date);
+        String priority = days <= 0 ? "urgent" : days == 1 ? "high" : days <= 3 ? "medium" : "low";
+        String color = switch (priority) {
+            case "urgent" -> "red";
+            case "high" -> "orange";
+            case "medium" -> "blue";
+            default -> "green";
+        };
+        String notes = task.deadline() ? "Deadline - " + task.text() : task.text();
+
+        return new CalendarEvent(task.title(), date.toString(), String.format("%02d:%02d", time.getHour(),
+                time.getMinute()), duration, priority, notes, color);
+    }
+
+    // The shortest task that sounds like a two-minute job, else the shortest task
+    private static String quickWin(List<LocalExtractor.Task> tasks) {
+        LocalExtractor.Task best = null;
+        boolean bestQuick = false;
+        for (LocalExtractor.Task task : tasks) {
+            boolean quick = QUICK_TASK.matcher(task.title()).find();
+            if (best == null
+                    || (quick && !bestQuick)
+                    || (quick == bestQuick && task.title().length() < best.title().length())) {
+                best = task;
+                bestQuick = quick;
+            }
+        }
+        return best == null ? "Start with just 5 minutes to get momentum going" : best.title();
+    }
+}
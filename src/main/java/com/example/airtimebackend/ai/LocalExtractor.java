@@ -0,0 +1,403 @@
+package com.example.airtimebackend.ai;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Deterministic first pass over a brain dump: splits it into tasks and resolves the dates,
+ * times and durations people actually write ("Wednesday 10 AM", "Thursday 11:59 PM",
+ * "6 PM today", "Sat 2-5 PM", "in 3 days", "Feb 13") relative to a given moment.
+ * Runs in microseconds, so its output can be served instantly or handed to the model as hints.
+ */
+final class LocalExtractor {
+
+    /**
+     * One task from the dump. {@code date}/{@code time} are null when the text doesn't say;
+     * {@code durationMinutes} is 0 when unknown.
+     */
+    record Task(String text, String title, LocalDate date, LocalTime time, int durationMinutes, boolean deadline) {
+
+        boolean scheduled() {
+            return date != null || time != null;
+        }
+    }
+
+    private static final int FLAGS = Pattern.CASE_INSENSITIVE;
+    private static final int MAX_DURATION_MINUTES = 24 * 60;
+
+    // Clause boundaries: new lines, bullets, sentence ends (not after common abbreviations), ; , and " - "
+    private static final Pattern CLAUSE_SPLIT = Pattern.compile(
+            "\\n+|[•;]|(?<!\\b(?:mr|mrs|ms|dr|prof|st|vs|etc))[.!?]+(?=\\s|$)|,|:(?=\\s)"
+                    + "|(?<!\\d)\\s+[-–—]\\s+(?!\\d)|\\s+(?:and then|then)\\s+", FLAGS);
+    private static final Pattern MERIDIEM_DOTS = Pattern.compile("\\b([ap])\\.m\\.?", FLAGS);
+    private static final Pattern LIST_MARKER = Pattern.compile("^\\s*(?:[-*]|\\d+[.)])\\s+");
+    private static final Pattern LEAD_IN = Pattern.compile(
+            "^(?:and|also|plus|oh|ok|okay|so|i|i've|i'll|i'm|we|need to|needs to|have to|has to|got to|gotta"
+                    + "|must|should|want to|remember to|don't forget to|dont forget to|to)\\b[\\s,]*", FLAGS);
+    private static final Pattern FILLER = Pattern.compile(
+            "^(?:so much to do|too much to do|so many things|to ?do|to-do(?: list)?|things to do|stuff to do"
+                    + "|brain dump|ugh+|ok|okay|also|and|help)$", FLAGS);
+
+    private static final String MONTH = "(january|february|march|april|may|june|july|august|september|october|november"
+            + "|december|jan|feb|mar|apr|jun|jul|aug|sept|sep|oct|nov|dec)\\.?";
+    private static final Pattern ISO_DATE = Pattern.compile("\\b(\\d{4})-(\\d{1,2})-(\\d{1,2})\\b");
+    private static final Pattern MONTH_DAY = Pattern.compile("\\b" + MONTH + "\\s+(\\d{1,2})(?:st|nd|rd|th)?\\b", FLAGS);
+    private static final Pattern DAY_MONTH = Pattern.compile("\\b(\\d{1,2})(?:st|nd|rd|th)?\\s+(?:of\\s+)?" + MONTH + "(?=\\W|$)", FLAGS);
+    private static final Pattern NUMERIC_DATE = Pattern.compile("\\b(\\d{1,2})/(\\d{1,2})(?:/(\\d{2}|\\d{4}))?\\b");
+    private static final Pattern DAY_AFTER_TOMORROW = Pattern.compile("\\b(?:the )?day after tomorrow\\b", FLAGS);
+    private static final Pattern TOMORROW = Pattern.compile("\\b(?:tomorrow|tmrw|tmr)\\b", FLAGS);
+    private static final Pattern TODAY = Pattern.compile("\\b(?:today|tonight|this (?:morning|afternoon|evening))\\b", FLAGS);
+    private static final Pattern IN_DAYS = Pattern.compile("\\bin (\\d{1,4}|a|an|one|two|three|four|five|six|seven) (days?|weeks?)\\b", FLAGS);
+    private static final Pattern NEXT_WEEK = Pattern.compile("\\bnext week\\b", FLAGS);
+    private static final Pattern WEEKEND = Pattern.compile("\\b(?:this |next |on the )?weekend\\b", FLAGS);
+    private static final Pattern END_OF = Pattern.compile("\\b(?:by )?(?:the )?end of (?:the )?(week|month)\\b", FLAGS);
+    private static final Pattern WEEKDAY = Pattern.compile(
+            "\\b(?:(next|this|on)\\s+)?(monday|tuesday|wednesday|thursday|friday|saturday|sunday"
+                    + "|mon|tues|tue|wed|thurs|thur|thu|fri)\\b", FLAGS);
+
+    private static final Pattern TIME_RANGE = Pattern.compile(
+            "\\b(\\d{1,2})(?::(\\d{2}))?\\s*(am|pm)?\\s*(?:-|–|to|until|till)\\s*(\\d{1,2})(?::(\\d{2}))?\\s*(am|pm)\\b", FLAGS);
+    private static final Pattern TIME_RANGE_24H = Pattern.compile(
+            "\\b([01]?\\d|2[0-3]):([0-5]\\d)\\s*(?:-|–|to|until|till)\\s*([01]?\\d|2[0-3]):([0-5]\\d)\\b");
+    private static final Pattern TIME_MERIDIEM = Pattern.compile("\\b(\\d{1,2})(?::(\\d{2}))?\\s*(am|pm)\\b", FLAGS);
+    private static final Pattern TIME_24H = Pattern.compile("\\b([01]?\\d|2[0-3]):([0-5]\\d)\\b");
+    private static final Pattern NOON = Pattern.compile("\\b(?:noon|midday)\\b", FLAGS);
+    private static final Pattern MIDNIGHT = Pattern.compile("\\bmidnight\\b", FLAGS);
+    private static final Pattern BARE_HOUR = Pattern.compile(
+            "\\b(?:at|@)\\s*(\\d{1,2})\\b(?!\\s*(?:%|/|\\.\\d|min|hour|hr|day|week|month|people|percent))", FLAGS);
+    private static final Pattern PART_OF_DAY = Pattern.compile(
+            "\\b(?:this |in the |at )?(tonight|night|morning|afternoon|evening|lunch)\\b", FLAGS);
+
+    private static final Pattern DURATION = Pattern.compile(
+            "\\b(?:for\\s+)?(\\d{1,4}(?:\\.\\d{1,2})?)\\s*(hours?|hrs?|h|minutes?|mins?)\\b", FLAGS);
+    private static final Pattern DURATION_WORDS = Pattern.compile(
+            "\\b(?:for\\s+)?(half an hour|an hour and a half|an hour|one hour)\\b", FLAGS);
+    private static final Pattern DEADLINE = Pattern.compile("\\b(?:due|by|before|deadline)\\b", FLAGS);
+
+    private static final Pattern DANGLING = Pattern.compile(
+            "(?:\\s|^)(?:at|on|by|due|before|from|this|next|for|until|till|around|@|the|of|in)\\s*$", FLAGS);
+    private static final Pattern LEADING_PREPOSITION = Pattern.compile("^(?:at|on|by|from|this|next|for)\\s+", FLAGS);
+    private static final Pattern EDGE_PUNCTUATION = Pattern.compile("^[\\s,.;:()\\-–—]+|[\\s,.;:(\\-–—]+$");
+
+    private static final Map<String, Integer> NUMBER_WORDS = Map.of(
+            "a", 1, "an", 1, "one", 1, "two", 2, "three", 3, "four", 4, "five", 5, "six", 6, "seven", 7);
+
+    private LocalExtractor() {
+    }
+
+    static List<Task> extract(String text, LocalDateTime now) {
+        List<Task> tasks = new ArrayList<>();
+        if (text == null || text.isBlank()) {
+            return tasks;
+        }
+        String normalized = MERIDIEM_DOTS.matcher(text).replaceAll("$1m");
+        for (String raw : CLAUSE_SPLIT.split(normalized)) {
+            String stripped = LIST_MARKER.matcher(raw).replaceFirst("").trim();
+            String clause = clean(stripped);
+            if (clause.isEmpty() || FILLER.matcher(stripped).matches() || FILLER.matcher(clause).matches()) {
+                continue;
+            }
+            Task task = parse(clause, now);
+            if (task.title().isEmpty() && !tasks.isEmpty()) {
+                // A bare "Friday, 3pm" fragment belongs to the task before it
+                Task previous = tasks.remove(tasks.size() - 1);
+                task = parse(previous.text() + " " + clause, now);
+            }
+            if (!task.title().isEmpty()) {
+                tasks.add(task);
+            }
+        }
+        return tasks;
+    }
+
+    static Task parse(String clause, LocalDateTime now) {
+        StringBuilder remaining = new StringBuilder(clause);
+        LocalDate today = now.toLocalDate();
+
+        LocalDate date = resolveDate(clause, today, remaining);
+
+        LocalTime time = null;
+        int duration = 0;
+        Matcher m;
+        if ((m = TIME_RANGE.matcher(remaining)).find()) {
+            String endMeridiem = m.group(6);
+            String startMeridiem = m.group(3);
+            int startHour = Integer.parseInt(m.group(1));
+            int endHour = Integer.parseInt(m.group(4));
+            LocalTime end = toTime(endHour, minutes(m.group(5)), endMeridiem);
+            LocalTime start = toTime(startHour, minutes(m.group(2)), startMeridiem != null ? startMeridiem : endMeridiem);
+            if (start != null && end != null && startMeridiem == null && start.isAfter(end)) {
+                // "11-1 pm": the start is in the morning
+                start = toTime(startHour, minutes(m.group(2)), "am");
+            }
+            if (start != null && end != null && end.isAfter(start)) {
+                time = start;
+                duration = (int) Duration.between(start, end).toMinutes();
+                blank(remaining, m);
+            }
+        } else if ((m = TIME_RANGE_24H.matcher(remaining)).find()) {
+            LocalTime start = LocalTime.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+            LocalTime end = LocalTime.of(Integer.parseInt(m.group(3)), Integer.parseInt(m.group(4)));
+            if (end.isAfter(start)) {
+                time = start;
+                duration = (int) Duration.between(start, end).toMinutes();
+                blank(remaining, m);
+            }
+        }
+        if (time == null && (m = TIME_MERIDIEM.matcher(remaining)).find()) {
+            time = toTime(Integer.parseInt(m.group(1)), minutes(m.group(2)), m.group(3));
+            blank(remaining, m);
+        }
+        if (time == null && (m = TIME_24H.matcher(remaining)).find()) {
+            time = LocalTime.of(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+            blank(remaining, m);
+        }
+        if (time == null && (m = NOON.matcher(remaining)).find()) {
+            time = LocalTime.NOON;
+            blank(remaining, m);
+        }
+        if (time == null && (m = MIDNIGHT.matcher(remaining)).find()) {
+            time = LocalTime.of(23, 59);
+            blank(remaining, m);
+        }
+        if (time == null && (m = BARE_HOUR.matcher(remaining)).find()) {
+            int hour = Integer.parseInt(m.group(1));
+            if (hour >= 1 && hour <= 12) {
+                // Without am/pm, 1-7 is almost always afternoon/evening and 8-11 morning
+                time = LocalTime.of(hour <= 7 ? hour + 12 : hour, 0);
+                blank(remaining, m);
+            }
+        }
+        if (time == null && (m = PART_OF_DAY.matcher(remaining)).find()) {
+            time = switch (m.group(1).toLowerCase(Locale.ROOT)) {
+                case "morning" -> LocalTime.of(9, 0);
+                case "lunch" -> LocalTime.NOON;
+                case "afternoon" -> LocalTime.of(14, 0);
+                case "evening" -> LocalTime.of(18, 0);
+                default -> LocalTime.of(20, 0);
+            };
+            if (!m.group(1).equalsIgnoreCase("lunch")) {
+                blank(remaining, m);
+            }
+        }
+
+        if (duration == 0 && (m = DURATION.matcher(remaining)).find()) {
+            double amount = Double.parseDouble(m.group(1));
+            long minutes = Math.round(m.group(2).toLowerCase(Locale.ROOT).startsWith("h") ? amount * 60 : amount);
+            // Anything past a day isn't a slot on the calendar
+            if (minutes <= MAX_DURATION_MINUTES) {
+                duration = (int) minutes;
+                blank(remaining, m);
+            }
+        } else if (duration == 0 && (m = DURATION_WORDS.matcher(remaining)).find()) {
+            String words = m.group(1).toLowerCase(Locale.ROOT);
+            duration = words.startsWith("half") ? 30 : words.contains("and a half") ? 90 : 60;
+            blank(remaining, m);
+        }
+
+        boolean deadline = DEADLINE.matcher(clause).find();
+        return new Task(capitalize(clause), title(remaining.toString()), date, time, duration, deadline);
+    }
+
+    private static LocalDate resolveDate(String clause, LocalDate today, StringBuilder remaining) {
+        Matcher m;
+        if ((m = ISO_DATE.matcher(clause)).find()) {
+            LocalDate date = safeDate(Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)),
+                    Integer.parseInt(m.group(3)));
+            if (date != null) {
+                blank(remaining, m);
+                return date;
+            }
+        }
+        if ((m = MONTH_DAY.matcher(clause)).find()) {
+            LocalDate date = upcoming(today, month(m.group(1)), Integer.parseInt(m.group(2)));
+            if (date != null) {
+                blank(remaining, m);
+                return date;
+            }
+        }
+        if ((m = DAY_MONTH.matcher(clause)).find()) {
+            LocalDate date = upcoming(today, month(m.group(2)), Integer.parseInt(m.group(1)));
+            if (date != null) {
+                blank(remaining, m);
+                return date;
+            }
+        }
+        if ((m = NUMERIC_DATE.matcher(clause)).find()) {
+            // US month/day order
+            LocalDate date;
+            if (m.group(3) != null) {
+                int year = Integer.parseInt(m.group(3));
+                date = safeDate(year < 100 ? 2000 + year : year, Integer.parseInt(m.group(1)),
+                        Integer.parseInt(m.group(2)));
+            } else {
+                date = upcoming(today, Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2)));
+            }
+            if (date != null) {
+                blank(remaining, m);
+                return date;
+            }
+        }
+        if ((m = DAY_AFTER_TOMORROW.matcher(clause)).find()) {
+            blank(remaining, m);
+            return today.plusDays(2);
+        }
+        if ((m = TOMORROW.matcher(clause)).find()) {
+            blank(remaining, m);
+            return today.plusDays(1);
+        }
+        if ((m = TODAY.matcher(clause)).find()) {
+            if (m.group().equalsIgnoreCase("today")) {
+                blank(remaining, m);
+            }
+            return today;
+        }
+        if ((m = IN_DAYS.matcher(clause)).find()) {
+            String amount = m.group(1).toLowerCase(Locale.ROOT);
+            int n = NUMBER_WORDS.containsKey(amount) ? NUMBER_WORDS.get(amount) : Integer.parseInt(amount);
+            blank(remaining, m);
+            return m.group(2).toLowerCase(Locale.ROOT).startsWith("week") ? today.plusWeeks(n) : today.plusDays(n);
+        }
+        if ((m = NEXT_WEEK.matcher(clause)).find()) {
+            blank(remaining, m);
+            return today.with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+        }
+        if ((m = WEEKEND.matcher(clause)).find()) {
+            blank(remaining, m);
+            return today.with(TemporalAdjusters.nextOrSame(DayOfWeek.SATURDAY));
+        }
+        if ((m = END_OF.matcher(clause)).find()) {
+            blank(remaining, m);
+            return m.group(1).equalsIgnoreCase("week")
+                    ? today.with(TemporalAdjusters.nextOrSame(DayOfWeek.FRIDAY))
+                    : today.with(TemporalAdjusters.lastDayOfMonth());
+        }
+        if ((m = WEEKDAY.matcher(clause)).find()) {
+            DayOfWeek day = weekday(m.group(2));
+            blank(remaining, m);
+            // The soonest such day, today included - except "next Friday", which is never today
+            return "next".equalsIgnoreCase(m.group(1))
+                    ? today.with(TemporalAdjusters.next(day))
+                    : today.with(TemporalAdjusters.nextOrSame(day));
+        }
+        return null;
+    }
+
+    // The next occurrence of month/day on or after today (this year, else next year)
+    private static LocalDate upcoming(LocalDate today, int month, int day) {
+        LocalDate date = safeDate(today.getYear(), month, day);
+        if (date != null && date.isBefore(today)) {
+            date = safeDate(today.getYear() + 1, month, day);
+        }
+        return date;
+    }
+
+    private static LocalDate safeDate(int year, int month, int day) {
+        if (month < 1 || month > 12 || day < 1 || day > 31) {
+            return null;
+        }
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static int month(String name) {
+        return switch (name.toLowerCase(Locale.ROOT).substring(0, 3)) {
+            case "jan" -> 1;
+            case "feb" -> 2;
+            case "mar" -> 3;
+            case "apr" -> 4;
+            case "may" -> 5;
+            case "jun" -> 6;
+            case "jul" -> 7;
+            case "aug" -> 8;
+            case "sep" -> 9;
+            case "oct" -> 10;
+            case "nov" -> 11;
+            default -> 12;
+        };
+    }
+
+    private static DayOfWeek weekday(String name) {
+        return switch (name.toLowerCase(Locale.ROOT).substring(0, 3)) {
+            case "mon" -> DayOfWeek.MONDAY;
+            case "tue" -> DayOfWeek.TUESDAY;
+            case "wed" -> DayOfWeek.WEDNESDAY;
+            case "thu" -> DayOfWeek.THURSDAY;
+            case "fri" -> DayOfWeek.FRIDAY;
+            case "sat" -> DayOfWeek.SATURDAY;
+            default -> DayOfWeek.SUNDAY;
+        };
+    }
+
+    private static LocalTime toTime(int hour, int minute, String meridiem) {
+        if (minute > 59) {
+            return null;
+        }
+        if (meridiem == null) {
+            return hour <= 23 ? LocalTime.of(hour, minute) : null;
+        }
+        if (hour < 1 || hour > 12) {
+            return null;
+        }
+        boolean pm = meridiem.equalsIgnoreCase("pm");
+        int h = hour % 12 + (pm ? 12 : 0);
+        return LocalTime.of(h, minute);
+    }
+
+    private static int minutes(String group) {
+        return group == null ? 0 : Integer.parseInt(group);
+    }
+
+    // Replaces a matched span with spaces so later patterns and the title don't see it again
+    private static void blank(StringBuilder remaining, Matcher m) {
+        for (int i = m.start(); i < m.end() && i < remaining.length(); i++) {
+            remaining.setCharAt(i, ' ');
+        }
+    }
+
+    private static String title(String remaining) {
+        String title = remaining.replaceAll("\\s+", " ").trim();
+        String previous;
+        do {
+            previous = title;
+            title = EDGE_PUNCTUATION.matcher(title).replaceAll("");
+            title = DANGLING.matcher(title).replaceAll("");
+            title = LEADING_PREPOSITION.matcher(title).replaceFirst("");
+            title = LEAD_IN.matcher(title).replaceFirst("");
+            title = title.replaceAll("\\(\\s*\\)", "").trim();
+        } while (!title.equals(previous));
+        return capitalize(title);
+    }
+
+    private static String clean(String clause) {
+        String text = clause.replaceAll("\\s+", " ").trim();
+        String previous;
+        do {
+            previous = text;
+            text = EDGE_PUNCTUATION.matcher(text).replaceAll("");
+            text = LEAD_IN.matcher(text).replaceFirst("");
+        } while (!text.equals(previous));
+        return text;
+    }
+
+    private static String capitalize(String text) {
+        if (text.isEmpty() || !Character.isLowerCase(text.charAt(0))) {
+            return text;
+        }
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+}
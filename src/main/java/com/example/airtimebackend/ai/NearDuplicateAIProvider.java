@@ -0,0 +1,180 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Wraps any AIProvider with a {@link SimilarityIndex} over recent results, so a dump that is only
+ * trivially different from one already analyzed (whitespace, reordered lines, a word added) is
+ * answered with that analysis instead of a new upstream call. The exact-match cache below it still
+ * catches identical resubmits of short dumps that are not indexed.
+ * <p>
+ * Callers can opt a request out of reuse; its result is still indexed for later requests.
+ * Fallback responses are never indexed.
+ */
+public class NearDuplicateAIProvider implements AIProvider {
+
+    private final AIProvider delegate;
+    private final boolean enabled;
+    private final int minWords;
+    private final SimilarityIndex index;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bypassed = new AtomicLong();
+
+    public NearDuplicateAIProvider(AIProvider delegate, boolean enabled, double threshold, int minWords,
+                                   int maxEntries, long maxBytes, Duration ttl) {
+        this(delegate, enabled, threshold, minWords, maxEntries, maxBytes, ttl, System::nanoTime);
+    }
+
+    NearDuplicateAIProvider(AIProvider delegate, boolean enabled, double threshold, int minWords,
+                            int maxEntries, long maxBytes, Duration ttl, LongSupplier clock) {
+        this.delegate = delegate;
+        this.enabled = enabled;
+        this.minWords = minWords;
+        this.index = new SimilarityIndex(threshold, maxEntries, maxBytes, ttl.toNanos(), clock);
+    }
+
+    @Override
+    public String fingerprint() {
+        return delegate.fingerprint();
+    }
+
+    @Override
+    public BrainDumpResponse analyzeBrainDump(String text) {
+        SimilarityIndex.Signature signature = signature(text);
+        BrainDumpResponse similar = lookup(signature);
+        if (similar != null) {
+            return similar;
+        }
+        BrainDumpResponse response = delegate.analyzeBrainDump(text);
+        index(signature, response);
+        return response;
+    }
+
+    @Override
+    public CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text) {
+        return analyzeBrainDumpAsync(text, true);
+    }
+
+    /** As {@link #analyzeBrainDumpAsync(String)}; with {@code reuseSimilar} false, always asks the delegate. */
+    public CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text, boolean reuseSimilar) {
+        SimilarityIndex.Signature signature = signature(text);
+        if (reuseSimilar) {
+            BrainDumpResponse similar = lookup(signature);
+            if (similar != null) {
+                return CompletableFuture.completedFuture(similar);
+            }
+        } else if (signature != null) {
+            bypassed.incrementAndGet();
+        }
+        return delegate.analyzeBrainDumpAsync(text).whenComplete((response, error) -> {
+            if (error == null) {
+                index(signature, response);
+            }
+        });
+    }
+
+    @Override
+    public void streamBrainDump(String text, AnalysisStreamListener listener) {
+        SimilarityIndex.Signature signature = signature(text);
+        BrainDumpResponse similar = lookup(signature);
+        if (similar != null) {
+            AnalysisStreamListener.replay(similar, listener);
+            return;
+        }
+        if (signature == null) {
+            delegate.streamBrainDump(text, listener);
+            return;
+        }
+        delegate.streamBrainDump(text, new AnalysisStreamListener() {
+            @Override
+            public void onField(String name, JsonNode value) {
+                listener.onField(name, value);
+            }
+
+            @Override
+            public void onItem(String arrayName, JsonNode item) {
+                listener.onItem(arrayName, item);
+            }
+
+            @Override
+            public void onComplete(BrainDumpResponse response) {
+                index(signature, response);
+                listener.onComplete(response);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return listener.isCancelled();
+            }
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        stats.put("bypassed", bypassed.get());
+        synchronized (index) {
+            stats.put("entries", index.size());
+            stats.put("bytes", index.bytes());
+            stats.put("evictions", index.evictions());
+        }
+        return stats;
+    }
+
+    public long hits() {
+        return hits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public int entries() {
+        synchronized (index) {
+            return index.size();
+        }
+    }
+
+    // Null when disabled or when the text is too short to be indexed; hashing happens outside the lock
+    private SimilarityIndex.Signature signature(String text) {
+        if (!enabled || text == null) {
+            return null;
+        }
+        return SimilarityIndex.sign(text, delegate.fingerprint(), minWords);
+    }
+
+    private BrainDumpResponse lookup(SimilarityIndex.Signature signature) {
+        if (signature == null) {
+            return null;
+        }
+        BrainDumpResponse similar;
+        synchronized (index) {
+            similar = index.lookup(signature);
+        }
+        (similar == null ? misses : hits).incrementAndGet();
+        // The requester sets its own id and conflicts on what it gets back
+        return similar == null ? null : similar.copy();
+    }
+
+    private void index(SimilarityIndex.Signature signature, BrainDumpResponse response) {
+        if (signature == null || response == null || response.fallback) {
+            return;
+        }
+        long bytes = CachingAIProvider.estimateBytes("", response);
+        synchronized (index) {
+            index.insert(signature, response.copy(), bytes);
+        }
+    }
+}
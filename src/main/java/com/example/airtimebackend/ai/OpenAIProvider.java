@@ -1,466 +1,572 @@
 package com.example.airtimebackend.ai;
 
 import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.FallbackCause;
+import com.example.airtimebackend.timing.RequestTiming;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.*;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value; // You need this!
 
 @Component
 public class OpenAIProvider implements AIProvider {
 
+    private static final Logger log = LoggerFactory.getLogger(OpenAIProvider.class);
+
     // 🔑 PUT YOUR OPENROUTER API KEY HERE
     // This grabs the key from the environment (Safe!)
     @Value("${openrouter.api-key}")
     private String API_KEY;
-    private static final String API_URL = "https://openrouter.ai/api/v1/chat/completions";
+    // Point at a local stand-in (see src/loadtest) with openrouter.base-url
+    @Value("${openrouter.base-url:https://openrouter.ai/api/v1}")
+    private String baseUrl = "https://openrouter.ai/api/v1";
+    private static final String MODEL = "openrouter/aurora-alpha";
+    // Append locally resolved dates/times after the user's text (see LocalAIProvider.promptHints)
+    @Value("${analysis.local.prompt-hints:true}")
+    private boolean promptHints = true;
+    // Completion budget: never below max-tokens, raised for longer texts up to max-tokens-ceiling
+    @Value("${openrouter.max-tokens:2000}")
+    private int maxTokens = 2000;
+    @Value("${openrouter.max-tokens-ceiling:4096}")
+    private int maxTokensCeiling = 4096;
+    // MODEL unless this is a withModel(...) variant, e.g. the cheaper hedge model
+    private final String model;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BrainDumpResponseParser responseParser = new BrainDumpResponseParser();
+
+    // Shared non-blocking pooled client (see HttpClientConfig) - no thread is parked per call
+    private final CloseableHttpAsyncClient httpClient;
+    private final AnalysisMetrics metrics;
+    // Which prompt template to send (see PromptProfile); its version is part of the fingerprint
+    private final PromptProfile promptProfile;
+    // Rule-based extraction behind the prompt hints
+    private final LocalAIProvider localAIProvider;
+    // Adaptive in-flight cap per endpoint and model, or null for none
+    private final UpstreamLimiters upstreamLimiters;
+
+    @Autowired
+    public OpenAIProvider(CloseableHttpAsyncClient upstreamHttpClient, AnalysisMetrics metrics,
+                          @Value("${openrouter.prompt-profile:compact}") PromptProfile promptProfile,
+                          LocalAIProvider localAIProvider, UpstreamLimiters upstreamLimiters) {
+        this(upstreamHttpClient, metrics, promptProfile, MODEL, localAIProvider, upstreamLimiters);
+    }
+
+    private OpenAIProvider(CloseableHttpAsyncClient upstreamHttpClient, AnalysisMetrics metrics,
+                           PromptProfile promptProfile, String model, LocalAIProvider localAIProvider,
+                           UpstreamLimiters upstreamLimiters) {
+        this.httpClient = upstreamHttpClient;
+        this.metrics = metrics;
+        this.promptProfile = promptProfile;
+        this.model = model;
+        this.localAIProvider = localAIProvider;
+        this.upstreamLimiters = upstreamLimiters;
+    }
+
+    /**
+     * Same client, key, endpoint and prompt, but asking for a different model.
+     */
+    public OpenAIProvider withModel(String otherModel) {
+        return withEndpoint(baseUrl, API_KEY, otherModel);
+    }
+
+    /**
+     * Same client and prompt against another OpenAI-compatible endpoint; null/blank arguments keep this one's.
+     */
+    public OpenAIProvider withEndpoint(String otherBaseUrl, String otherApiKey, String otherModel) {
+        OpenAIProvider variant = new OpenAIProvider(httpClient, metrics, promptProfile,
+                isBlank(otherModel) ? model : otherModel, localAIProvider, upstreamLimiters);
+        variant.API_KEY = isBlank(otherApiKey) ? API_KEY : otherApiKey;
+        variant.baseUrl = isBlank(otherBaseUrl) ? baseUrl : otherBaseUrl;
+        variant.promptHints = promptHints;
+        variant.maxTokens = maxTokens;
+        variant.maxTokensCeiling = maxTokensCeiling;
+        return variant;
+    }
+
+    public String model() {
+        return model;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    @PostConstruct
+    void checkApiKey() {
+        if (API_KEY == null || API_KEY.isBlank()) {
+            log.warn("openrouter.api-key is not set - every analysis will use the fallback response");
+        }
+    }
+
+    @Override
+    public String fingerprint() {
+        return model + ":" + promptProfile.version();
+    }
 
     @Override
     public BrainDumpResponse analyzeBrainDump(String text) {
+        return analyzeBrainDumpAsync(text).join();
+    }
 
-        String prompt = buildADHDPrompt(text);
+    /**
+     * Sends the brain dump upstream without blocking the caller, once the upstream's adaptive
+     * concurrency limit allows. The returned future always completes normally (with the fallback on
+     * any failure, or when the limit's queue is full); cancelling it aborts the wait or the HTTP exchange.
+     */
+    @Override
+    public CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text) {
+        // Taken on the caller's thread; the callbacks below run on I/O and timer threads
+        RequestTiming timing = RequestTiming.current();
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        if (limiter == null) {
+            return send(text, timing, null);
+        }
 
-        RestTemplate restTemplate = new RestTemplate();
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(API_KEY);
+        long queuedNanos = System.nanoTime();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> permit = limiter.acquire();
+        boolean waited = !permit.isDone();
+        CompletableFuture<BrainDumpResponse> result = new CompletableFuture<>();
+        permit.thenAccept(granted -> {
+            // Nothing thrown here may escape: the dependent future would swallow it, leaving the caller
+            // waiting and the permit taken for good
+            try {
+                if (waited) {
+                    timing.record(RequestTiming.Stage.UPSTREAM_QUEUE, System.nanoTime() - queuedNanos);
+                }
+                if (granted == null) {
+                    result.complete(getFallbackResponse(text, FallbackCause.UPSTREAM_LIMITED));
+                    return;
+                }
+                if (result.isDone()) {
+                    granted.release(AdaptiveConcurrencyLimiter.Outcome.IGNORED, 0);
+                    return;
+                }
+                CompletableFuture<BrainDumpResponse> call = send(text, timing, granted);
+                call.thenAccept(result::complete);
+                result.whenComplete((response, error) -> {
+                    if (result.isCancelled()) {
+                        call.cancel(true);
+                    }
+                });
+            } catch (Throwable e) {
+                result.complete(unsent(text, granted, e));
+            }
+        });
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                permit.cancel(false);
+            }
+        });
+        return result;
+    }
 
-        // DEBUG LOGGING
-        System.out.println("🔑 API_KEY is null: " + (API_KEY == null));
-        System.out.println("🔑 API_KEY is empty: " + (API_KEY != null && API_KEY.isEmpty()));
-        System.out.println("🔑 API_KEY length: " + (API_KEY != null ? API_KEY.length() : "NULL"));
+    // One exchange; permit (if any) is released with what the exchange says about the upstream's load
+    private CompletableFuture<BrainDumpResponse> send(String text, RequestTiming timing,
+                                                      AdaptiveConcurrencyLimiter.Permit permit) {
+        long buildNanos = System.nanoTime();
+        SimpleHttpRequest request;
+        try {
+            request = buildRequest(buildRequestBody(buildADHDPrompt(text), maxTokens(text), false), false);
+        } catch (Throwable e) {
+            return CompletableFuture.completedFuture(unsent(text, permit, e));
+        }
+        timing.record(RequestTiming.Stage.PROMPT, System.nanoTime() - buildNanos);
 
-        Map<String, Object> requestBody = new HashMap<>();
-        requestBody.put("model", "openrouter/aurora-alpha");
-        requestBody.put("messages", List.of(
-                Map.of("role", "system", "content", "You are an ADHD-friendly task organizer and calendar assistant. Analyze brain dumps, organize tasks, set priorities, suggest calendar events with specific times, and provide encouragement. Always respond in valid JSON format with no markdown."),
-                Map.of("role", "user", "content", prompt)
-        ));
-        requestBody.put("temperature", 0.7);
-        requestBody.put("max_tokens", 2000);
+        long startNanos = System.nanoTime();
+        CompletableFuture<BufferingResponseConsumer.Result> exchange = new CompletableFuture<>();
+        TimedRequestProducer[] producer = new TimedRequestProducer[1];
+        try {
+            log.debug("Sending request to OpenRouter");
+
+            producer[0] = new TimedRequestProducer(SimpleRequestProducer.create(request),
+                    request.getBodyBytes().length);
+            Future<BufferingResponseConsumer.Result> inFlight = httpClient.execute(
+                    producer[0],
+                    new BufferingResponseConsumer(),
+                    new FutureCallback<>() {
+                        @Override
+                        public void completed(BufferingResponseConsumer.Result response) {
+                            exchange.complete(response);
+                        }
+
+                        @Override
+                        public void failed(Exception e) {
+                            exchange.completeExceptionally(e);
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            exchange.cancel(false);
+                        }
+                    });
+            exchange.whenComplete((response, error) -> {
+                if (exchange.isCancelled()) {
+                    inFlight.cancel(true);
+                }
+            });
+        } catch (Exception e) {
+            exchange.completeExceptionally(e);
+        }
 
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+        CompletableFuture<BrainDumpResponse> result = exchange.handle((response, error) -> {
+            BrainDumpResponse analysis;
+            if (error != null) {
+                if (permit != null) {
+                    permit.release(error instanceof CancellationException
+                            ? AdaptiveConcurrencyLimiter.Outcome.IGNORED
+                            : AdaptiveConcurrencyLimiter.Outcome.DROPPED, 0);
+                }
+                log.atWarn().addKeyValue("error", error.toString()).log("Error calling OpenRouter API");
+                analysis = getFallbackResponse(text, FallbackCause.EXCEPTION);
+            } else {
+                long receivedNanos = System.nanoTime();
+                if (permit != null) {
+                    long sentNanos = producer[0].sentNanos() == 0 ? startNanos : producer[0].sentNanos();
+                    permit.release(limiterOutcome(response.status(), true), receivedNanos - sentNanos);
+                }
+                metrics.ttfb(response.firstByteNanos() - startNanos);
+                metrics.responseSize(response.body().length);
+                recordExchange(timing, startNanos, producer[0].sentNanos(), response.firstByteNanos(), receivedNanos);
+                timing.upstreamBytes(producer[0].bodyBytes(), response.body().length);
+                analysis = handleCompletion(response, text);
+                timing.record(RequestTiming.Stage.PARSE, System.nanoTime() - receivedNanos);
+            }
+            metrics.upstreamLatency(System.nanoTime() - startNanos, outcome(analysis), false, promptProfile.version());
+            return analysis;
+        });
+        // Propagate cancellation (e.g. a losing hedge or an expired deadline) down to the socket
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
 
+    private BrainDumpResponse handleCompletion(BufferingResponseConsumer.Result response, String text) {
         try {
-            System.out.println("🚀 Sending request to OpenRouter...");
-
-            ResponseEntity<String> response = restTemplate.exchange(
-                    API_URL,
-                    HttpMethod.POST,
-                    entity,
-                    String.class
-            );
+            if (response.status() >= 300) {
+                log.atWarn().addKeyValue("status", response.status()).log("OpenRouter returned an error status");
+                return getFallbackResponse(text, FallbackCause.HTTP_ERROR);
+            }
 
-            System.out.println("✅ Received response from OpenRouter");
+            log.debug("Received response from OpenRouter");
 
-        JsonNode rootNode = objectMapper.readTree(response.getBody());
+        JsonNode rootNode = objectMapper.readTree(response.body());
+        recordUsage(rootNode);
 
-        // DEBUG: Print full response to see what OpenRouter is sending
-        System.out.println("🔍 Full API Response: " + response.getBody());
-        
         // Safely navigate the response structure
         JsonNode choicesNode = rootNode.path("choices");
         if (choicesNode.isMissingNode() || !choicesNode.isArray() || choicesNode.size() == 0) {
-            System.err.println("❌ No choices array found in API response");
-            System.err.println("❌ Response was: " + response.getBody());
-            return getFallbackResponse(text);
+            log.warn("No choices array found in API response");
+            return getFallbackResponse(text, FallbackCause.NO_CHOICES);
         }
 
         JsonNode firstChoice = choicesNode.get(0);
         if (firstChoice == null || firstChoice.isMissingNode()) {
-            System.err.println("❌ First choice is null or missing");
-            return getFallbackResponse(text);
+            log.warn("First choice is null or missing");
+            return getFallbackResponse(text, FallbackCause.NO_CHOICES);
         }
         
         JsonNode messageNode = firstChoice.path("message");
         if (messageNode.isMissingNode()) {
-            System.err.println("❌ No message node found in choice");
-            return getFallbackResponse(text);
+            log.warn("No message node found in choice");
+            return getFallbackResponse(text, FallbackCause.EMPTY_CONTENT);
         }
         
         JsonNode contentNode = messageNode.path("content");
         if (contentNode.isMissingNode() || contentNode.isNull()) {
-            System.err.println("❌ No content found in message");
-            return getFallbackResponse(text);
+            log.warn("No content found in message");
+            return getFallbackResponse(text, FallbackCause.EMPTY_CONTENT);
         }
 
         String aiResponse = contentNode.asText();
         if (aiResponse == null || aiResponse.trim().isEmpty()) {
-            System.err.println("❌ AI response is empty");
-            return getFallbackResponse(text);
+            log.warn("AI response is empty");
+            return getFallbackResponse(text, FallbackCause.EMPTY_CONTENT);
         }
 
-        System.out.println("📝 AI Response: " + aiResponse);
         return parseAIResponse(aiResponse, text);
 
         } catch (Exception e) {
-            System.err.println("❌ Error calling OpenRouter API: " + e.getMessage());
-            e.printStackTrace();
-
-            return getFallbackResponse(text);
+            log.warn("Error handling OpenRouter response", e);
+            return getFallbackResponse(text, FallbackCause.EXCEPTION);
         }
     }
 
-    private String buildADHDPrompt(String text) {
-    return String.format("""
-        You are helping someone with ADHD organize their tasks and schedule.
-        
-        Brain dump from user:
-        "%s"
-        
-        CRITICAL: Respond with ONLY valid JSON. No explanations, no markdown, no ```json tags, just the JSON object starting with { and ending with }.
-        
-        Use this EXACT structure:
-        {
-          "urgency": 4,
-          "priority": 4,
-          "advice": "Start with the Fluid Mechanics problem set and debug the CAD file while your energy is high, then handle today's errands and prep for tomorrow's interview.",
-          "motivation": "You're doing an amazing job juggling everything! Let's break this down and crush each step 🌟",
-          "organizedNotes": [
-            "Fluid Mechanics p-set due Thursday 11:59 PM",
-            "Debug CAD file for robot arm before Wednesday meeting",
-            "Soccer practice at 6 PM today - bring cleats",
-            "Pick up Leo from school at 3 PM today",
-            "Internship interview Wednesday 10 AM - iron shirt Tuesday night",
-            "Watch Leo Saturday 2-5 PM",
-            "Senior Design meeting Wednesday - confirm room with Sarah",
-            "Buy chicken and spinach for meal prep",
-            "Email Professor Chen about lab extension",
-            "Start Thermo practice exam before Monday",
-            "Do laundry ASAP",
-            "Update LinkedIn profile for career fair",
-            "Make pasta for dinner tonight",
-            "Check FE Exam registration deadlines"
-          ],
-          "quickWin": "Email Professor Chen about the lab extension - it's quick and removes a worry",
-          "estimatedTime": 535,
-          "energyLevel": "high",
-          "celebration": "You're crushing it! Every completed task moves you closer to your goals! 🎉",
-          "nextSteps": [
-            "Iron the shirt for the Northrop interview (10 min)",
-            "Send email to Professor Chen requesting lab extension (10 min)",
-            "Start Fluid Mechanics p-set (first 30 min)"
-          ],
-          "dopamineScore": 4,
-          "calendarEvents": [
-            {
-              "title": "Fluid Mechanics p-set",
-              "date": "2026-02-13",
-              "time": "14:00",
-              "duration": 90,
-              "priority": "urgent",
-              "notes": "Due Thursday 11:59 PM - set and debug the CAD file while your energy is high, then handle today's errands",
-              "color": "red"
-            },
-            {
-              "title": "Pick up Leo from school",
-              "date": "2026-02-10",
-              "time": "15:00",
-              "duration": 15,
-              "priority": "urgent",
-              "notes": "Before soccer practice",
-              "color": "orange"
-            },
-            {
-              "title": "Soccer practice",
-              "date": "2026-02-10",
-              "time": "18:00",
-              "duration": 90,
-              "priority": "high",
-              "notes": "Bring cleats!",
-              "color": "green"
-            },
-            {
-              "title": "Northrop Interview",
-              "date": "2026-02-12",
-              "time": "10:00",
-              "duration": 60,
-              "priority": "urgent",
-              "notes": "Iron shirt Tuesday night - 30 min",
-              "color": "red"
-            },
-            {
-              "title": "Senior Design Meeting",
-              "date": "2026-02-12",
-              "time": "14:00",
-              "duration": 60,
-              "priority": "high",
-              "notes": "Library - confirm room with Sarah. Debug CAD file before meeting",
-              "color": "blue"
-            },
-            {
-              "title": "Watch Leo",
-              "date": "2026-02-15",
-              "time": "14:00",
-              "duration": 180,
-              "priority": "medium",
-              "notes": "Babysit little brother",
-              "color": "green"
-            }
-          ],
-          "timeManagementTips": [
-            "Use Pomodoro for the Fluid Mechanics p-set: 25 min focus, 5 min break",
-            "Tackle the p-set and CAD debugging first while energy is high",
-            "Prep interview clothes tonight to avoid morning stress",
-            "Batch errands: meal prep shopping + laundry in one trip"
-          ]
+    /**
+     * Same analysis as {@link #analyzeBrainDump}, but requested with stream=true so each
+     * top-level field is handed to the listener as soon as the model has finished writing it.
+     * Returns immediately; chunks are consumed on the HTTP client's I/O threads.
+     */
+    @Override
+    public void streamBrainDump(String text, AnalysisStreamListener listener) {
+        RequestTiming timing = RequestTiming.current();
+        AdaptiveConcurrencyLimiter limiter = limiter();
+        if (limiter == null) {
+            stream(text, listener, timing, null);
+            return;
         }
-        
-        RULES:
-        - urgency: 1-5 (1=can wait weeks, 5=do TODAY)
-        - priority: 1-5 (1=nice to have, 5=absolutely critical)
-        - energyLevel: must be exactly "low", "medium", or "high"
-        - estimatedTime: total minutes as a NUMBER (not string)
-        - dopamineScore: 1-5 (how satisfying/rewarding this will feel)
-        - calendarEvents: Extract SPECIFIC dates and times if mentioned, or suggest reasonable times
-        - color: "blue", "green", "orange", "purple", "red", or "yellow"
-        - color: Should represent difficulty and not random
-        - Break overwhelming tasks into micro-steps
-        - Identify the easiest "quick win" task
-        - Be super encouraging and positive
-        - Suggest realistic time blocks
-        - If information is not given Infer from the tasks given
-        - Consider energy levels (do hard stuff when energy is high)
-        
-        RESPOND WITH ONLY THE JSON OBJECT. NO OTHER TEXT.
-        """, text);
-}
+        long queuedNanos = System.nanoTime();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> permit = limiter.acquire();
+        boolean waited = !permit.isDone();
+        permit.thenAccept(granted -> {
+            try {
+                if (waited) {
+                    timing.record(RequestTiming.Stage.UPSTREAM_QUEUE, System.nanoTime() - queuedNanos);
+                }
+                if (granted == null) {
+                    AnalysisStreamListener.replay(getFallbackResponse(text, FallbackCause.UPSTREAM_LIMITED),
+                            listener);
+                } else if (listener.isCancelled()) {
+                    granted.release(AdaptiveConcurrencyLimiter.Outcome.IGNORED, 0);
+                } else {
+                    stream(text, listener, timing, granted);
+                }
+            } catch (Throwable e) {
+                BrainDumpResponse fallback = unsent(text, granted, e);
+                if (!listener.isCancelled()) {
+                    listener.onComplete(fallback);
+                }
+            }
+        });
+    }
 
-    private BrainDumpResponse parseAIResponse(String aiResponse, String originalText) {
-    try {
-        System.out.println("🔍 Raw AI Response: " + aiResponse);
-        
-        // STEP 1: Clean up response - remove markdown code blocks
-        String cleanedResponse = aiResponse
-                .replace("```json", "")
-                .replace("```", "")
-                .trim();
-        
-        // STEP 2: Find the JSON object - look for { and }
-        int jsonStart = cleanedResponse.indexOf('{');
-        int jsonEnd = cleanedResponse.lastIndexOf('}');
-        
-        if (jsonStart == -1 || jsonEnd == -1 || jsonStart >= jsonEnd) {
-            System.err.println("❌ No valid JSON found in response");
-            return getFallbackResponse(originalText);
-        }
-        
-        // Extract just the JSON part
-        cleanedResponse = cleanedResponse.substring(jsonStart, jsonEnd + 1);
-        
-        System.out.println("🧹 Cleaned JSON: " + cleanedResponse.substring(0, Math.min(200, cleanedResponse.length())) + "...");
-        
-        // STEP 3: Try to parse the JSON
-        JsonNode jsonNode;
+    // A stream's duration is mostly generation, so it holds a slot but is no latency sample for the limiter
+    private void stream(String text, AnalysisStreamListener listener, RequestTiming timing,
+                        AdaptiveConcurrencyLimiter.Permit permit) {
+        long buildNanos = System.nanoTime();
+        SimpleHttpRequest request;
         try {
-            jsonNode = objectMapper.readTree(cleanedResponse);
-        } catch (Exception parseError) {
-            System.err.println("❌ JSON parse failed, trying to fix common issues...");
-            
-            // Try to fix common JSON issues
-            cleanedResponse = cleanedResponse
-                .replace("\\n", " ")           // Remove newlines in strings
-                .replace("\\r", " ")           // Remove carriage returns
-                .replaceAll(",\\s*}", "}")     // Remove trailing commas
-                .replaceAll(",\\s*]", "]");    // Remove trailing commas in arrays
-            
-            try {
-                jsonNode = objectMapper.readTree(cleanedResponse);
-                System.out.println("✅ Fixed and parsed JSON!");
-            } catch (Exception e2) {
-                System.err.println("❌ Still can't parse JSON after fixes");
-                System.err.println("Response was: " + cleanedResponse);
-                return getFallbackResponse(originalText);
+            request = buildRequest(buildRequestBody(buildADHDPrompt(text), maxTokens(text), true), true);
+        } catch (Throwable e) {
+            BrainDumpResponse fallback = unsent(text, permit, e);
+            if (!listener.isCancelled()) {
+                listener.onComplete(fallback);
             }
+            return;
         }
-        
-        // STEP 4: Extract all fields with safe defaults
-        int urgency = jsonNode.path("urgency").asInt(3);
-        int priority = jsonNode.path("priority").asInt(3);
-        String advice = jsonNode.path("advice").asText("Break this into smaller, manageable steps");
-        String motivation = jsonNode.path("motivation").asText("You've got this! Every step forward counts 💪");
-        String quickWin = jsonNode.path("quickWin").asText("Start with the easiest task to build momentum");
-        int estimatedTime = jsonNode.path("estimatedTime").asInt(30);
-        String energyLevel = jsonNode.path("energyLevel").asText("medium");
-        String celebration = jsonNode.path("celebration").asText("Amazing work! You're making real progress! 🎉");
-        int dopamineScore = jsonNode.path("dopamineScore").asInt(3);
-        
-        // STEP 5: Parse arrays with extra error handling
-        List<String> organizedNotes = new ArrayList<>();
-        JsonNode notesNode = jsonNode.path("organizedNotes");
-        if (notesNode.isArray() && notesNode.size() > 0) {
-            for (JsonNode item : notesNode) {
-                if (item.isTextual()) {
-                    organizedNotes.add(item.asText());
-                }
+
+        long startNanos = System.nanoTime();
+        StringBuilder content = new StringBuilder();
+        IncrementalJsonFieldParser fieldParser = new IncrementalJsonFieldParser(listener);
+        AtomicBoolean firstToken = new AtomicBoolean(true);
+        long[] responseBytes = new long[1];
+
+        SseLineConsumer consumer = new SseLineConsumer(line -> {
+            responseBytes[0] += line.length() + 1;
+            // OpenAI-style SSE: "data: {chunk}" lines, ": keep-alive" comments, "data: [DONE]"
+            if (!line.startsWith("data:")) {
+                return;
             }
-        }
-        if (organizedNotes.isEmpty()) {
-            organizedNotes.add(originalText);
-        }
-        
-        List<String> nextSteps = new ArrayList<>();
-        JsonNode stepsNode = jsonNode.path("nextSteps");
-        if (stepsNode.isArray() && stepsNode.size() > 0) {
-            for (JsonNode item : stepsNode) {
-                if (item.isTextual()) {
-                    nextSteps.add(item.asText());
+            String data = line.substring(5).trim();
+            if (data.equals("[DONE]")) {
+                return;
+            }
+            try {
+                JsonNode chunk = objectMapper.readTree(data);
+                recordUsage(chunk);
+                String delta = chunk.path("choices").path(0).path("delta").path("content").asText("");
+                if (!delta.isEmpty() && firstToken.compareAndSet(true, false)) {
+                    metrics.timeToFirstToken(System.nanoTime() - startNanos);
                 }
+                content.append(delta);
+                fieldParser.feed(delta);
+            } catch (Exception e) {
+                log.debug("Skipping malformed stream chunk");
+            }
+        }, listener::isCancelled);
+
+        try {
+            timing.record(RequestTiming.Stage.PROMPT, System.nanoTime() - buildNanos);
+            TimedRequestProducer producer = new TimedRequestProducer(SimpleRequestProducer.create(request),
+                    request.getBodyBytes().length);
+            httpClient.execute(producer, consumer,
+                    new FutureCallback<Integer>() {
+                        @Override
+                        public void completed(Integer status) {
+                            if (permit != null) {
+                                permit.release(limiterOutcome(status, false), 0);
+                            }
+                            if (consumer.firstByteNanos() != 0) {
+                                metrics.ttfb(consumer.firstByteNanos() - startNanos);
+                            }
+                            metrics.responseSize(responseBytes[0]);
+                            recordExchange(timing, startNanos, producer.sentNanos(), consumer.firstByteNanos(),
+                                    System.nanoTime());
+                            timing.upstreamBytes(producer.bodyBytes(), responseBytes[0]);
+                            if (status >= 300) {
+                                log.atWarn().addKeyValue("status", status).log("OpenRouter returned an error status");
+                                finishStream(text, content, listener, FallbackCause.HTTP_ERROR, startNanos, timing);
+                            } else {
+                                finishStream(text, content, listener, FallbackCause.EMPTY_CONTENT, startNanos,
+                                        timing);
+                            }
+                        }
+
+                        @Override
+                        public void failed(Exception e) {
+                            if (permit != null) {
+                                permit.release(listener.isCancelled()
+                                        ? AdaptiveConcurrencyLimiter.Outcome.IGNORED
+                                        : AdaptiveConcurrencyLimiter.Outcome.DROPPED, 0);
+                            }
+                            log.atWarn().addKeyValue("error", e.toString()).log("Error streaming from OpenRouter API");
+                            finishStream(text, content, listener, FallbackCause.EXCEPTION, startNanos, timing);
+                        }
+
+                        @Override
+                        public void cancelled() {
+                            if (permit != null) {
+                                permit.release(AdaptiveConcurrencyLimiter.Outcome.IGNORED, 0);
+                            }
+                            finishStream(text, content, listener, FallbackCause.EXCEPTION, startNanos, timing);
+                        }
+                    });
+        } catch (Exception e) {
+            if (permit != null) {
+                permit.release(AdaptiveConcurrencyLimiter.Outcome.DROPPED, 0);
             }
+            log.atWarn().addKeyValue("error", e.toString()).log("Error streaming from OpenRouter API");
+            finishStream(text, content, listener, FallbackCause.EXCEPTION, startNanos, timing);
         }
-        if (nextSteps.isEmpty()) {
-            nextSteps.add("Take the first small step");
-            nextSteps.add("Keep going");
+    }
+
+    // Nothing went upstream, so the permit (if any) says nothing about its load
+    private BrainDumpResponse unsent(String text, AdaptiveConcurrencyLimiter.Permit permit, Throwable error) {
+        if (permit != null) {
+            permit.release(AdaptiveConcurrencyLimiter.Outcome.IGNORED, 0);
         }
-        
-        List<Map<String, Object>> calendarEvents = new ArrayList<>();
-        JsonNode eventsNode = jsonNode.path("calendarEvents");
-        if (eventsNode.isArray() && eventsNode.size() > 0) {
-            for (JsonNode eventNode : eventsNode) {
-                try {
-                    Map<String, Object> event = new HashMap<>();
-                    event.put("title", eventNode.path("title").asText("Task"));
-                    event.put("date", eventNode.path("date").asText(""));
-                    event.put("time", eventNode.path("time").asText(""));
-                    event.put("duration", eventNode.path("duration").asInt(30));
-                    event.put("priority", eventNode.path("priority").asText("medium"));
-                    event.put("notes", eventNode.path("notes").asText(""));
-                    event.put("color", eventNode.path("color").asText("blue"));
-                    calendarEvents.add(event);
-                    
-                    System.out.println("📌 Event: " + event.get("title") + " on " + event.get("date"));
-                } catch (Exception eventError) {
-                    System.err.println("⚠️ Skipping malformed event");
-                }
-            }
+        log.atWarn().addKeyValue("error", error.toString()).log("Could not build the OpenRouter request");
+        return getFallbackResponse(text, FallbackCause.EXCEPTION);
+    }
+
+    // emptyCause: why we fall back if nothing usable was streamed
+    private void finishStream(String text, StringBuilder content, AnalysisStreamListener listener,
+                              FallbackCause emptyCause, long startNanos, RequestTiming timing) {
+        if (listener.isCancelled()) {
+            metrics.upstreamLatency(System.nanoTime() - startNanos, "cancelled", true, promptProfile.version());
+            return;
         }
-        
-        List<String> timeManagementTips = new ArrayList<>();
-        JsonNode tipsNode = jsonNode.path("timeManagementTips");
-        if (tipsNode.isArray() && tipsNode.size() > 0) {
-            for (JsonNode item : tipsNode) {
-                if (item.isTextual()) {
-                    timeManagementTips.add(item.asText());
-                }
-            }
+        long parseNanos = System.nanoTime();
+        BrainDumpResponse analysis = content.length() == 0
+                ? getFallbackResponse(text, emptyCause)
+                : parseAIResponse(content.toString(), text);
+        timing.record(RequestTiming.Stage.PARSE, System.nanoTime() - parseNanos);
+        metrics.upstreamLatency(System.nanoTime() - startNanos, outcome(analysis), true, promptProfile.version());
+        listener.onComplete(analysis);
+    }
+
+    private void recordUsage(JsonNode root) {
+        JsonNode usage = root.path("usage");
+        if (usage.isObject()) {
+            metrics.tokens(usage.path("prompt_tokens").asLong(0), usage.path("completion_tokens").asLong(0),
+                    promptProfile.version());
         }
-        if (timeManagementTips.isEmpty()) {
-            timeManagementTips.add("Take breaks every 25 minutes");
+    }
+
+    // One exchange as connection setup (lease, connect, TLS), time to first byte, and the rest of the body
+    private static void recordExchange(RequestTiming timing, long startNanos, long sentNanos, long firstByteNanos,
+                                       long endNanos) {
+        if (sentNanos == 0) {
+            return;
+        }
+        timing.record(RequestTiming.Stage.CONNECT, sentNanos - startNanos);
+        if (firstByteNanos != 0) {
+            timing.record(RequestTiming.Stage.TTFB, firstByteNanos - sentNanos);
+            timing.record(RequestTiming.Stage.GENERATION, endNanos - firstByteNanos);
         }
-        
-        System.out.println("✅ Successfully parsed AI response");
-        System.out.println("📅 Found " + calendarEvents.size() + " calendar events");
-        System.out.println("📝 Found " + organizedNotes.size() + " organized notes");
-        
-        return new BrainDumpResponse(
-                urgency,
-                priority,
-                advice,
-                motivation,
-                organizedNotes,
-                quickWin,
-                estimatedTime,
-                energyLevel,
-                celebration,
-                nextSteps,
-                dopamineScore,
-                calendarEvents,
-                timeManagementTips
-        );
-        
-    } catch (Exception e) {
-        System.err.println("❌ Fatal error parsing AI response: " + e.getMessage());
-        e.printStackTrace();
-        System.err.println("Full response was: " + aiResponse);
-        return getFallbackResponse(originalText);
     }
-}
 
-// Helper method to safely parse string arrays
-private List<String> parseStringArraySafe(JsonNode jsonNode, String fieldName, String fallback) {
-    List<String> result = new ArrayList<>();
-    JsonNode arrayNode = jsonNode.path(fieldName);
-    
-    if (arrayNode.isArray()) {
-        for (JsonNode item : arrayNode) {
-            if (item.isTextual() && !item.asText().trim().isEmpty()) {
-                result.add(item.asText().trim());
-            }
+    // 429 and 5xx mean the upstream is pushing back; anything else answered is capacity it had
+    private static AdaptiveConcurrencyLimiter.Outcome limiterOutcome(int status, boolean latencySample) {
+        if (status == 429 || status >= 500) {
+            return AdaptiveConcurrencyLimiter.Outcome.DROPPED;
         }
+        return latencySample ? AdaptiveConcurrencyLimiter.Outcome.SUCCESS : AdaptiveConcurrencyLimiter.Outcome.IGNORED;
     }
-    
-    if (result.isEmpty()) {
-        result.add(fallback);
+
+    private AdaptiveConcurrencyLimiter limiter() {
+        return upstreamLimiters == null ? null : upstreamLimiters.forUpstream(baseUrl, model);
     }
-    
-    return result;
-}
 
-    private List<Map<String, Object>> parseCalendarEvents(JsonNode jsonNode) {
-        List<Map<String, Object>> events = new ArrayList<>();
-        JsonNode eventsNode = jsonNode.path("calendarEvents");
-
-        if (eventsNode.isArray()) {
-            for (JsonNode eventNode : eventsNode) {
-                Map<String, Object> event = new HashMap<>();
-                event.put("title", eventNode.path("title").asText("Task"));
-                event.put("date", eventNode.path("date").asText(""));
-                event.put("time", eventNode.path("time").asText(""));
-                event.put("duration", eventNode.path("duration").asInt(30));
-                event.put("priority", eventNode.path("priority").asText("medium"));
-                event.put("notes", eventNode.path("notes").asText(""));
-                event.put("color", eventNode.path("color").asText("blue"));
-                events.add(event);
-
-                System.out.println("📌 Event: " + event.get("title") + " on " + event.get("date"));
-            }
+    private static String outcome(BrainDumpResponse analysis) {
+        return analysis.fallback ? analysis.fallbackCause.tag() : "ok";
+    }
+
+    private SimpleHttpRequest buildRequest(Map<String, Object> requestBody, boolean stream) throws Exception {
+        SimpleRequestBuilder builder = SimpleRequestBuilder.post(baseUrl + "/chat/completions")
+                .setHeader(HttpHeaders.AUTHORIZATION, "Bearer " + API_KEY)
+                .setBody(objectMapper.writeValueAsBytes(requestBody), ContentType.APPLICATION_JSON);
+        if (stream) {
+            builder.setHeader(HttpHeaders.ACCEPT, "text/event-stream");
         }
+        return builder.build();
+    }
 
-        return events;
+    private Map<String, Object> buildRequestBody(String prompt, int maxTokens, boolean stream) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("model", model);
+        // System message first and user text last: the static prefix is what provider-side prompt caching reuses
+        requestBody.put("messages", List.of(
+                Map.of("role", "system", "content", PromptProfile.SYSTEM_MESSAGE),
+                Map.of("role", "user", "content", prompt)
+        ));
+        requestBody.put("temperature", 0.7);
+        requestBody.put("max_tokens", maxTokens);
+        if (stream) {
+            requestBody.put("stream", true);
+            // Ask OpenRouter to append token usage to the final chunk
+            requestBody.put("usage", Map.of("include", true));
+        }
+        return requestBody;
+    }
+
+    // The JSON answer grows with the number of items in the text: roughly 600 tokens of fixed fields plus
+    // 1.5 output tokens per input token (~4 chars). Long dumps are chunked (ChunkingAIProvider) well before
+    // the ceiling.
+    int maxTokens(String text) {
+        int estimate = 600 + (text == null ? 0 : text.length() * 3 / 8);
+        return Math.max(maxTokens, Math.min(maxTokensCeiling, estimate));
+    }
+
+    // Package-private for the JMH benchmarks in src/jmh
+    String buildADHDPrompt(String text) {
+        String prompt = promptProfile.render(text);
+        return promptHints && text != null ? prompt + localAIProvider.promptHints(text) : prompt;
+    }
+
+    BrainDumpResponse parseAIResponse(String aiResponse, String originalText) {
+        long startNanos = System.nanoTime();
+        BrainDumpResponse parsed = responseParser.parse(aiResponse, originalText);
+        metrics.parseTime(System.nanoTime() - startNanos);
+        if (parsed == null) {
+            log.atWarn().addKeyValue("contentLength", aiResponse.length()).log("No valid JSON found in response");
+            return getFallbackResponse(originalText, FallbackCause.PARSE_FAILURE);
+        }
+        return parsed;
     }
 
-    private BrainDumpResponse getFallbackResponse(String text) {
-        System.out.println("⚠️ Using fallback response");
-
-        // Create a simple calendar event from the text
-        List<Map<String, Object>> fallbackEvents = new ArrayList<>();
-        Map<String, Object> event = new HashMap<>();
-        event.put("title", "Organize: " + (text.length() > 30 ? text.substring(0, 30) + "..." : text));
-        event.put("date", java.time.LocalDate.now().toString());
-        event.put("time", "14:00");
-        event.put("duration", 30);
-        event.put("priority", "medium");
-        event.put("notes", "AI processing unavailable - review this manually");
-        event.put("color", "blue");
-        fallbackEvents.add(event);
-
-        return new BrainDumpResponse(
-                3,
-                3,
-                "Let's break this down step by step - you've got this!",
-                "Great job taking action! Planning is half the battle 🌟",
-                List.of(text),
-                "Start with just 5 minutes to get momentum going",
-                30,
-                "medium",
-                "Fantastic! You're making progress! 🎉",
-                List.of(
-                        "Read through your task carefully",
-                        "Identify the very first action step",
-                        "Set a 10-minute timer and start"
-                ),
-                3,
-                fallbackEvents,
-                List.of(
-                        "Try the Pomodoro technique: 25 min work, 5 min break",
-                        "Start with the easiest part to build confidence",
-                        "Celebrate small wins along the way"
-                )
-        );
+    private BrainDumpResponse getFallbackResponse(String text, FallbackCause cause) {
+        log.atInfo().addKeyValue("cause", cause.tag()).log("Using fallback response");
+        metrics.fallback(cause);
+        return FallbackResponses.forText(text, cause);
     }
 
 }
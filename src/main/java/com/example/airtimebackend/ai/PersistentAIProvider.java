@@ -0,0 +1,195 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.store.ResultStore;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Writes every successful analysis to the {@link ResultStore} and stamps it with the stored id,
+ * so it can be fetched again later without a model call.
+ * <p>
+ * Sits below the in-memory cache: on a cache miss (e.g. right after a restart), a result stored for
+ * the same text within {@code reuseTtl} is served from disk instead of calling upstream, which is how
+ * a fresh node warms up. Fallback responses are neither stored nor reused.
+ * With a null store this is a pass-through.
+ */
+public class PersistentAIProvider implements AIProvider, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PersistentAIProvider.class);
+
+    private final AIProvider delegate;
+    private final ResultStore store;
+    private final long reuseTtlMillis;
+    private final ObjectMapper objectMapper;
+    private final BrainDumpResponseParser parser = new BrainDumpResponseParser();
+    private final Clock clock;
+
+    public PersistentAIProvider(AIProvider delegate, ResultStore store, Duration reuseTtl, ObjectMapper objectMapper) {
+        this(delegate, store, reuseTtl, objectMapper, Clock.systemUTC());
+    }
+
+    PersistentAIProvider(AIProvider delegate, ResultStore store, Duration reuseTtl, ObjectMapper objectMapper,
+                         Clock clock) {
+        this.delegate = delegate;
+        this.store = store;
+        this.reuseTtlMillis = reuseTtl.toMillis();
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+    }
+
+    @Override
+    public String fingerprint() {
+        return delegate.fingerprint();
+    }
+
+    @Override
+    public BrainDumpResponse analyzeBrainDump(String text) {
+        if (store == null || text == null) {
+            return delegate.analyzeBrainDump(text);
+        }
+        long textHash = textHash(text);
+        BrainDumpResponse reused = reuse(textHash);
+        return reused != null ? reused : save(textHash, delegate.analyzeBrainDump(text));
+    }
+
+    @Override
+    public CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text) {
+        if (store == null || text == null) {
+            return delegate.analyzeBrainDumpAsync(text);
+        }
+        long textHash = textHash(text);
+        BrainDumpResponse reused = reuse(textHash);
+        if (reused != null) {
+            return CompletableFuture.completedFuture(reused);
+        }
+        return delegate.analyzeBrainDumpAsync(text).thenApply(response -> save(textHash, response));
+    }
+
+    @Override
+    public void streamBrainDump(String text, AnalysisStreamListener listener) {
+        if (store == null || text == null) {
+            delegate.streamBrainDump(text, listener);
+            return;
+        }
+        long textHash = textHash(text);
+        BrainDumpResponse reused = reuse(textHash);
+        if (reused != null) {
+            AnalysisStreamListener.replay(reused, listener);
+            return;
+        }
+        delegate.streamBrainDump(text, new AnalysisStreamListener() {
+            @Override
+            public void onField(String name, JsonNode value) {
+                listener.onField(name, value);
+            }
+
+            @Override
+            public void onItem(String arrayName, JsonNode item) {
+                listener.onItem(arrayName, item);
+            }
+
+            @Override
+            public void onComplete(BrainDumpResponse response) {
+                listener.onComplete(save(textHash, response));
+            }
+
+            @Override
+            public boolean isCancelled() {
+                return listener.isCancelled();
+            }
+        });
+    }
+
+    /**
+     * A previously stored analysis by id, or null if unknown, expired or not a valid id.
+     */
+    public BrainDumpResponse find(String id) {
+        if (store == null) {
+            return null;
+        }
+        UUID uuid;
+        try {
+            uuid = UUID.fromString(id);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        ResultStore.Record record = store.get(uuid);
+        return record == null ? null : decode(record);
+    }
+
+    /**
+     * Stores a result that was put together outside the provider chain (e.g. an incremental merge)
+     * under {@code text}, so it gets an id and is reused for that text like any other result.
+     */
+    public BrainDumpResponse remember(String text, BrainDumpResponse response) {
+        return store == null || text == null ? response : save(textHash(text), response);
+    }
+
+    /**
+     * The stored result for {@code text} if one is recent enough to reuse (see {@code reuseTtl}), else null.
+     */
+    public BrainDumpResponse recall(String text) {
+        return store == null || text == null ? null : reuse(textHash(text));
+    }
+
+    public ResultStore store() {
+        return store;
+    }
+
+    @Override
+    public void close() {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    private BrainDumpResponse reuse(long textHash) {
+        if (reuseTtlMillis <= 0) {
+            return null;
+        }
+        ResultStore.Record record = store.latest(textHash);
+        if (record == null || clock.millis() - record.createdAtMillis() > reuseTtlMillis) {
+            return null;
+        }
+        return decode(record);
+    }
+
+    private BrainDumpResponse save(long textHash, BrainDumpResponse response) {
+        if (response == null || response.fallback) {
+            return response;
+        }
+        try {
+            UUID id = store.append(textHash, objectMapper.writeValueAsBytes(response));
+            if (id != null) {
+                response.id = id.toString();
+            }
+        } catch (JsonProcessingException | RuntimeException e) {
+            // The analysis itself succeeded; losing its history entry must not fail the request
+            log.atWarn().setCause(e).log("Could not store analysis result");
+        }
+        return response;
+    }
+
+    private BrainDumpResponse decode(ResultStore.Record record) {
+        BrainDumpResponse response = parser.parse(new String(record.payload(), StandardCharsets.UTF_8), "");
+        if (response != null) {
+            response.id = record.id().toString();
+        }
+        return response;
+    }
+
+    // Same identity the cache uses
+    private long textHash(String text) {
+        return TextKey.hashOf(delegate.fingerprint(), text);
+    }
+}
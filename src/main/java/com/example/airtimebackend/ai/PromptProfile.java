@@ -0,0 +1,59 @@
+package com.example.airtimebackend.ai;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Selectable prompt variants, picked with {@code openrouter.prompt-profile}.
+ * Templates live in src/main/resources/prompts and are compiled once at class load.
+ * Every template puts the static instructions first and the user's text last, so the
+ * provider can reuse its prompt cache for the shared prefix.
+ * <p>
+ * The version id feeds the analysis cache key and the upstream metrics, so bump it
+ * whenever a template's wording changes.
+ */
+public enum PromptProfile {
+
+    /** Full few-shot example response - the most tokens, the most guidance. */
+    FULL("adhd-full-v2", "prompts/adhd-full.txt"),
+
+    /** Schema and rules only - roughly a quarter of FULL's input tokens. */
+    COMPACT("adhd-compact-v1", "prompts/adhd-compact.txt");
+
+    static final String SYSTEM_MESSAGE = "You are an ADHD-friendly task organizer and calendar assistant. "
+            + "Analyze brain dumps, organize tasks, set priorities, suggest calendar events with specific times, "
+            + "and provide encouragement. Always respond in valid JSON format with no markdown.";
+
+    private final String version;
+    private final PromptTemplate template;
+
+    PromptProfile(String version, String resource) {
+        this.version = version;
+        this.template = PromptTemplate.compile(load(resource));
+    }
+
+    public String version() {
+        return version;
+    }
+
+    public PromptTemplate template() {
+        return template;
+    }
+
+    public String render(String text) {
+        return template.render(text);
+    }
+
+    private static String load(String resource) {
+        try (InputStream in = PromptProfile.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing prompt template " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.airtimebackend.ai;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A prompt template compiled once into literal segments around {@code {{input}}} placeholders.
+ * Rendering is a straight append into a pre-sized buffer - no format-string parsing per call.
+ * The user's text is escaped as the body of a double-quoted string, so it can't close the quote
+ * and masquerade as instructions.
+ */
+public final class PromptTemplate {
+
+    static final String INPUT = "{{input}}";
+
+    private final String[] literals;
+    private final int literalLength;
+
+    private PromptTemplate(String[] literals) {
+        this.literals = literals;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    public static PromptTemplate compile(String source) {
+        List<String> literals = new ArrayList<>();
+        int from = 0;
+        int at;
+        while ((at = source.indexOf(INPUT, from)) != -1) {
+            literals.add(source.substring(from, at));
+            from = at + INPUT.length();
+        }
+        literals.add(source.substring(from));
+        if (literals.size() < 2) {
+            throw new IllegalArgumentException("Prompt template has no " + INPUT + " placeholder");
+        }
+        return new PromptTemplate(literals.toArray(String[]::new));
+    }
+
+    public String render(String input) {
+        String text = input == null ? "" : input;
+        int slots = literals.length - 1;
+        // Escaping rarely grows the text by much; the slack avoids a resize in the common case
+        StringBuilder sb = new StringBuilder(literalLength + slots * (text.length() + 16));
+        sb.append(literals[0]);
+        for (int i = 1; i < literals.length; i++) {
+            appendEscaped(sb, text);
+            sb.append(literals[i]);
+        }
+        return sb.toString();
+    }
+
+    // The static text before the first placeholder - identical across requests, so cacheable upstream
+    public String prefix() {
+        return literals[0];
+    }
+
+    static void appendEscaped(StringBuilder sb, String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n', '\t' -> sb.append(c);
+                case '\r' -> {
+                    // Normalize CRLF to LF
+                }
+                default -> {
+                    if (c < 0x20 || c == 0x7f) {
+                        sb.append(' ');
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+    }
+}
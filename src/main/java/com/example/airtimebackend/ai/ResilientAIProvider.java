@@ -0,0 +1,320 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.FallbackCause;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounds how long and how often we wait on a degraded upstream:
+ * <ul>
+ *   <li>every call gets a deadline, after which the caller receives the fallback and the
+ *       upstream exchange is cancelled;</li>
+ *   <li>a circuit breaker (optional) answers with the fallback straight away while the
+ *       upstream is failing or slow;</li>
+ *   <li>with a hedge provider configured, a second request is fired once the first has taken
+ *       longer than the observed p95. The first real answer wins and the other is cancelled.</li>
+ * </ul>
+ * Streams get the deadline and the breaker but are never hedged - the client is already
+ * watching the first one arrive.
+ */
+public class ResilientAIProvider implements AIProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilientAIProvider.class);
+
+    private static final double HEDGE_PERCENTILE = 0.95;
+    // Samples needed before trusting the observed percentile over the configured initial delay
+    private static final int MIN_HEDGE_SAMPLES = 20;
+
+    private final AIProvider delegate;
+    private final AIProvider hedgeDelegate;
+    private final CircuitBreaker breaker;
+    private final long deadlineNanos;
+    private final long hedgeMinDelayNanos;
+    private final long hedgeInitialDelayNanos;
+    private final ScheduledExecutorService scheduler;
+    private final AnalysisMetrics metrics;
+    private final LatencyTracker latencies = new LatencyTracker(256);
+
+    /**
+     * @param hedgeDelegate where hedged requests go (e.g. the same provider on a cheaper model), or null to disable hedging
+     * @param breaker       null to disable the circuit breaker
+     */
+    public ResilientAIProvider(AIProvider delegate, AIProvider hedgeDelegate, CircuitBreaker breaker,
+                               Duration deadline, Duration hedgeMinDelay, Duration hedgeInitialDelay,
+                               ScheduledExecutorService scheduler, AnalysisMetrics metrics) {
+        this.delegate = delegate;
+        this.hedgeDelegate = hedgeDelegate;
+        this.breaker = breaker;
+        this.deadlineNanos = deadline.toNanos();
+        this.hedgeMinDelayNanos = hedgeMinDelay.toNanos();
+        this.hedgeInitialDelayNanos = hedgeInitialDelay.toNanos();
+        this.scheduler = scheduler;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public String fingerprint() {
+        return delegate.fingerprint();
+    }
+
+    @Override
+    public BrainDumpResponse analyzeBrainDump(String text) {
+        return analyzeBrainDumpAsync(text).join();
+    }
+
+    @Override
+    public CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text) {
+        if (breaker != null && !breaker.tryAcquire()) {
+            return CompletableFuture.completedFuture(fallback(text, FallbackCause.CIRCUIT_OPEN));
+        }
+        return new Call(text).start();
+    }
+
+    @Override
+    public void streamBrainDump(String text, AnalysisStreamListener listener) {
+        if (breaker != null && !breaker.tryAcquire()) {
+            AnalysisStreamListener.replay(fallback(text, FallbackCause.CIRCUIT_OPEN), listener);
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        AtomicBoolean done = new AtomicBoolean();
+        // The delegate skips onComplete for cancelled listeners, so the timer also releases the breaker permit
+        ScheduledFuture<?> deadlineTimer = scheduler.schedule(() -> {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            if (listener.isCancelled()) {
+                releaseIgnored();
+                return;
+            }
+            recordOutcome(true, System.nanoTime() - startNanos);
+            listener.onComplete(fallback(text, FallbackCause.DEADLINE));
+        }, deadlineNanos, TimeUnit.NANOSECONDS);
+
+        delegate.streamBrainDump(text, new AnalysisStreamListener() {
+            @Override
+            public void onField(String name, JsonNode value) {
+                if (!done.get()) {
+                    listener.onField(name, value);
+                }
+            }
+
+            @Override
+            public void onItem(String arrayName, JsonNode item) {
+                if (!done.get()) {
+                    listener.onItem(arrayName, item);
+                }
+            }
+
+            @Override
+            public void onComplete(BrainDumpResponse response) {
+                if (!done.compareAndSet(false, true)) {
+                    return;
+                }
+                deadlineTimer.cancel(false);
+                long elapsed = System.nanoTime() - startNanos;
+                if (shedLocally(response)) {
+                    releaseIgnored();
+                    listener.onComplete(response);
+                    return;
+                }
+                recordOutcome(response.fallback, elapsed);
+                if (!response.fallback) {
+                    latencies.record(elapsed);
+                }
+                listener.onComplete(response);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                // Past the deadline the upstream stream is abandoned
+                return done.get() || listener.isCancelled();
+            }
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("circuitBreaker", breaker == null ? "disabled" : breaker.stats());
+        stats.put("deadlineMs", TimeUnit.NANOSECONDS.toMillis(deadlineNanos));
+        stats.put("hedging", hedgeDelegate != null);
+        if (hedgeDelegate != null) {
+            stats.put("hedgeDelayMs", TimeUnit.NANOSECONDS.toMillis(hedgeDelayNanos()));
+        }
+        long p95 = latencies.percentile(HEDGE_PERCENTILE);
+        stats.put("observedP95Ms", p95 < 0 ? null : TimeUnit.NANOSECONDS.toMillis(p95));
+        return stats;
+    }
+
+    public CircuitBreaker breaker() {
+        return breaker;
+    }
+
+    // Observed p95, floored at the configured minimum and kept inside the deadline
+    long hedgeDelayNanos() {
+        long delay = latencies.count() < MIN_HEDGE_SAMPLES
+                ? hedgeInitialDelayNanos
+                : latencies.percentile(HEDGE_PERCENTILE);
+        return Math.min(Math.max(delay, hedgeMinDelayNanos), deadlineNanos);
+    }
+
+    // Runs on the timer thread and in completion callbacks, where a throw would leave the call hanging
+    private BrainDumpResponse fallback(String text, FallbackCause cause) {
+        try {
+            log.atInfo().addKeyValue("cause", cause.tag()).log("Using fallback response");
+            metrics.fallback(cause);
+            return FallbackResponses.forText(text, cause);
+        } catch (Throwable e) {
+            return FallbackResponses.canned(text, cause);
+        }
+    }
+
+    private void recordOutcome(boolean failed, long elapsedNanos) {
+        if (breaker != null) {
+            breaker.onResult(failed, elapsedNanos);
+        }
+    }
+
+    // Turned away by our own upstream concurrency limit: says nothing about the upstream's health
+    private static boolean shedLocally(BrainDumpResponse response) {
+        return response.fallbackCause == FallbackCause.UPSTREAM_LIMITED;
+    }
+
+    private void releaseIgnored() {
+        if (breaker != null) {
+            breaker.onIgnored();
+        }
+    }
+
+    /**
+     * One logical analysis: the primary attempt, at most one hedge, and the deadline.
+     */
+    private class Call {
+        private final String text;
+        private final long startNanos = System.nanoTime();
+        private final CompletableFuture<BrainDumpResponse> result = new CompletableFuture<>();
+        // Guarded by this
+        private final List<CompletableFuture<BrainDumpResponse>> attempts = new ArrayList<>(2);
+        private int pending;
+        private volatile ScheduledFuture<?> deadlineTimer;
+        private volatile ScheduledFuture<?> hedgeTimer;
+
+        Call(String text) {
+            this.text = text;
+        }
+
+        CompletableFuture<BrainDumpResponse> start() {
+            deadlineTimer = scheduler.schedule(this::expire, deadlineNanos, TimeUnit.NANOSECONDS);
+            if (hedgeDelegate != null) {
+                hedgeTimer = scheduler.schedule(() -> launch(hedgeDelegate, true), hedgeDelayNanos(),
+                        TimeUnit.NANOSECONDS);
+            }
+            result.whenComplete((response, error) -> finish(response));
+            launch(delegate, false);
+            return result;
+        }
+
+        private void launch(AIProvider provider, boolean hedge) {
+            synchronized (this) {
+                if (result.isDone()) {
+                    return;
+                }
+                pending++;
+            }
+            if (hedge) {
+                metrics.hedge("launched");
+            }
+            CompletableFuture<BrainDumpResponse> attempt;
+            try {
+                attempt = provider.analyzeBrainDumpAsync(text);
+            } catch (RuntimeException e) {
+                attempt = CompletableFuture.failedFuture(e);
+            }
+            synchronized (this) {
+                attempts.add(attempt);
+            }
+            if (result.isDone()) {
+                attempt.cancel(true);
+            }
+            attempt.whenComplete((response, error) -> onAttempt(response, error, hedge));
+        }
+
+        private void onAttempt(BrainDumpResponse response, Throwable error, boolean hedge) {
+            if (result.isDone()) {
+                return;
+            }
+            if (error != null || response == null) {
+                log.atWarn().addKeyValue("error", String.valueOf(error)).log("Analysis attempt failed");
+                response = fallback(text, FallbackCause.EXCEPTION);
+            }
+            boolean last;
+            synchronized (this) {
+                last = --pending == 0;
+            }
+            if (!response.fallback) {
+                if (result.complete(response) && hedge) {
+                    metrics.hedge("won");
+                }
+            } else if (last) {
+                // Nothing else in flight; hedging is for slow answers, not failed ones
+                result.complete(response);
+            }
+        }
+
+        private void expire() {
+            if (result.isDone()) {
+                return;
+            }
+            BrainDumpResponse response = null;
+            try {
+                log.atWarn().addKeyValue("deadlineMs", TimeUnit.NANOSECONDS.toMillis(deadlineNanos))
+                        .log("Upstream missed the analysis deadline");
+                response = fallback(text, FallbackCause.DEADLINE);
+            } finally {
+                // Completing is what releases a half-open probe and cancels the attempts
+                result.complete(response != null ? response : FallbackResponses.canned(text, FallbackCause.DEADLINE));
+            }
+        }
+
+        private void finish(BrainDumpResponse response) {
+            if (deadlineTimer != null) {
+                deadlineTimer.cancel(false);
+            }
+            if (hedgeTimer != null) {
+                hedgeTimer.cancel(false);
+            }
+            List<CompletableFuture<BrainDumpResponse>> losers;
+            synchronized (this) {
+                losers = new ArrayList<>(attempts);
+            }
+            // Aborts the HTTP exchange of whichever attempt didn't win
+            losers.forEach(attempt -> attempt.cancel(true));
+
+            long elapsed = System.nanoTime() - startNanos;
+            if (response == null || shedLocally(response)) {
+                // The caller cancelled, or the call never left this process
+                releaseIgnored();
+                return;
+            }
+            recordOutcome(response.fallback, elapsed);
+            if (!response.fallback) {
+                // When a hedge wins this is a lower bound on the primary's latency
+                latencies.record(elapsed);
+            }
+        }
+    }
+}
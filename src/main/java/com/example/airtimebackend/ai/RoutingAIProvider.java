@@ -0,0 +1,265 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Spreads requests over several upstream providers/models using "power of two choices":
+ * two candidates are drawn at random in proportion to their weight and the cheaper one wins,
+ * where cost = EWMA latency x (in-flight + 1) / success rate / weight.
+ * A slow or failing provider therefore loses traffic on its own and regains it as its
+ * EWMA recovers. A small share of requests ignores cost so every provider keeps being sampled.
+ */
+public class RoutingAIProvider implements AIProvider {
+
+    // Share of requests routed by weight alone, to keep fresh samples for providers the cost rule avoids
+    private static final double EXPLORE_RATE = 0.05;
+    // EWMA time constant: a sample's influence decays to 1/e over this long
+    private static final long DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+    // Cost assumed before a provider's first answer
+    private static final long INITIAL_LATENCY_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private final List<Route> routes;
+    private final double totalWeight;
+    private final LongSupplier clock;
+
+    public RoutingAIProvider(List<Route> routes) {
+        this(routes, System::nanoTime);
+    }
+
+    RoutingAIProvider(List<Route> routes, LongSupplier clock) {
+        if (routes.isEmpty()) {
+            throw new IllegalArgumentException("At least one route is required");
+        }
+        this.routes = List.copyOf(routes);
+        this.totalWeight = routes.stream().mapToDouble(Route::weight).sum();
+        this.clock = clock;
+    }
+
+    /**
+     * One upstream option: a provider (typically an {@link OpenAIProvider} endpoint/model variant)
+     * with its static weight and live health.
+     */
+    public static final class Route {
+        private final String name;
+        private final AIProvider provider;
+        private final double weight;
+
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicLong selections = new AtomicLong();
+        // Guarded by this
+        private double ewmaLatencyNanos = INITIAL_LATENCY_NANOS;
+        private double ewmaErrorRate;
+        private long lastUpdate;
+        private boolean sampled;
+
+        public Route(String name, AIProvider provider, double weight) {
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Route " + name + " needs a positive weight");
+            }
+            this.name = name;
+            this.provider = provider;
+            this.weight = weight;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public double weight() {
+            return weight;
+        }
+
+        public int inFlight() {
+            return inFlight.get();
+        }
+
+        public long selections() {
+            return selections.get();
+        }
+
+        public synchronized double ewmaLatencyMillis() {
+            return ewmaLatencyNanos / 1_000_000.0;
+        }
+
+        public synchronized double errorRate() {
+            return ewmaErrorRate;
+        }
+
+        synchronized double cost() {
+            double successRate = Math.max(0.05, 1 - ewmaErrorRate);
+            return ewmaLatencyNanos * (inFlight.get() + 1) / successRate / weight;
+        }
+
+        synchronized void record(long now, long latencyNanos, boolean failed) {
+            // Time-based decay, so a provider that hasn't been used for a while is judged on its next answer
+            double keep = sampled ? Math.exp(-(double) (now - lastUpdate) / DECAY_NANOS) : 0;
+            sampled = true;
+            lastUpdate = now;
+            ewmaErrorRate = ewmaErrorRate * keep + (failed ? 1 - keep : 0);
+            if (!failed) {
+                ewmaLatencyNanos = ewmaLatencyNanos * keep + latencyNanos * (1 - keep);
+            }
+        }
+
+        // A cancelled call (lost a hedge, hit the deadline, client left) only tells us the latency was
+        // at least this long - worth recording when that's worse than what we currently assume
+        synchronized void recordCancelled(long now, long elapsedNanos) {
+            if (elapsedNanos > ewmaLatencyNanos) {
+                record(now, elapsedNanos, false);
+            }
+        }
+    }
+
+    @Override
+    public String fingerprint() {
+        return routes.stream().map(route -> route.provider.fingerprint())
+                .collect(Collectors.joining("|", "router[", "]"));
+    }
+
+    @Override
+    public BrainDumpResponse analyzeBrainDump(String text) {
+        return analyzeBrainDumpAsync(text).join();
+    }
+
+    @Override
+    public CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text) {
+        Route route = select();
+        long startNanos = begin(route);
+        CompletableFuture<BrainDumpResponse> result;
+        try {
+            result = route.provider.analyzeBrainDumpAsync(text);
+        } catch (RuntimeException e) {
+            end(route, startNanos, true);
+            throw e;
+        }
+        // Returned as-is so a caller's cancel still reaches the upstream exchange
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) {
+                cancelled(route, startNanos);
+            } else {
+                end(route, startNanos, error != null || response.fallback);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void streamBrainDump(String text, AnalysisStreamListener listener) {
+        Route route = select();
+        long startNanos = begin(route);
+        AtomicBoolean finished = new AtomicBoolean();
+
+        route.provider.streamBrainDump(text, new AnalysisStreamListener() {
+            @Override
+            public void onField(String name, JsonNode value) {
+                listener.onField(name, value);
+            }
+
+            @Override
+            public void onItem(String arrayName, JsonNode item) {
+                listener.onItem(arrayName, item);
+            }
+
+            @Override
+            public void onComplete(BrainDumpResponse response) {
+                if (finished.compareAndSet(false, true)) {
+                    end(route, startNanos, response.fallback);
+                }
+                listener.onComplete(response);
+            }
+
+            @Override
+            public boolean isCancelled() {
+                // Cancelled streams never reach onComplete, so release the in-flight slot here
+                boolean cancelled = listener.isCancelled();
+                if (cancelled && finished.compareAndSet(false, true)) {
+                    cancelled(route, startNanos);
+                }
+                return cancelled;
+            }
+        });
+    }
+
+    public List<Route> routes() {
+        return routes;
+    }
+
+    public List<Map<String, Object>> stats() {
+        List<Map<String, Object>> stats = new ArrayList<>(routes.size());
+        for (Route route : routes) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", route.name);
+            entry.put("fingerprint", route.provider.fingerprint());
+            entry.put("weight", route.weight);
+            entry.put("selections", route.selections());
+            entry.put("inFlight", route.inFlight());
+            entry.put("ewmaLatencyMs", Math.round(route.ewmaLatencyMillis()));
+            entry.put("errorRate", route.errorRate());
+            stats.add(entry);
+        }
+        return stats;
+    }
+
+    Route select() {
+        Route chosen;
+        if (routes.size() == 1) {
+            chosen = routes.get(0);
+        } else {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            Route first = byWeight(random);
+            if (random.nextDouble() < EXPLORE_RATE) {
+                chosen = first;
+            } else {
+                Route second = byWeight(random);
+                for (int attempt = 0; second == first && attempt < 3; attempt++) {
+                    second = byWeight(random);
+                }
+                chosen = second.cost() < first.cost() ? second : first;
+            }
+        }
+        chosen.selections.incrementAndGet();
+        return chosen;
+    }
+
+    private Route byWeight(ThreadLocalRandom random) {
+        double point = random.nextDouble() * totalWeight;
+        for (Route route : routes) {
+            point -= route.weight;
+            if (point < 0) {
+                return route;
+            }
+        }
+        return routes.get(routes.size() - 1);
+    }
+
+    private long begin(Route route) {
+        route.inFlight.incrementAndGet();
+        return clock.getAsLong();
+    }
+
+    private void end(Route route, long startNanos, boolean failed) {
+        route.inFlight.decrementAndGet();
+        long now = clock.getAsLong();
+        route.record(now, now - startNanos, failed);
+    }
+
+    private void cancelled(Route route, long startNanos) {
+        route.inFlight.decrementAndGet();
+        long now = clock.getAsLong();
+        route.recordCancelled(now, now - startNanos);
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.function.LongSupplier;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded near-duplicate index over recent brain dumps: MinHash signatures with banded LSH lookup.
+ * <p>
+ * A dump's features are its words plus the word pairs within each line, so extra whitespace and
+ * reordered lines leave them unchanged and one added word changes only a few. 128 min-hashes are
+ * split into 16 bands of 8; two dumps are candidates when any band matches, which finds pairs with a
+ * Jaccard similarity of 0.85 about 99% of the time, and each candidate is then checked against the
+ * threshold by its signature. Only 8 bits of each min-hash are kept per entry (b-bit MinHash), so an
+ * entry's sketch is 128 bytes.
+ * <p>
+ * Numbers and date words ("3pm", "friday", "tomorrow") have to match exactly, since they end up in
+ * calendar events; they are folded into every band key, so dumps that differ in them are never
+ * candidates. Entries are evicted oldest first by count, approximate bytes and age. Arrays grow by
+ * doubling up to {@code maxEntries}, so an idle index stays small. Not thread-safe on its own;
+ * {@link NearDuplicateAIProvider} serializes access.
+ */
+final class SimilarityIndex {
+
+    static final int HASHES = 128;
+    private static final int BANDS = 16;
+    private static final int ROWS = HASHES / BANDS;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int NONE = -1;
+
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> DATE_WORDS = Set.of(
+            "today", "tomorrow", "tonight", "yesterday", "morning", "afternoon", "evening", "noon", "midnight",
+            "am", "pm", "next", "week", "weekend", "month",
+            "monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday",
+            "mon", "tue", "tues", "wed", "thu", "thur", "thurs", "fri", "sat", "sun",
+            "january", "february", "march", "april", "may", "june", "july", "august", "september", "october",
+            "november", "december", "jan", "feb", "mar", "apr", "jun", "jul", "aug", "sep", "sept", "oct", "nov",
+            "dec");
+
+    // Min-hash i of a feature x is the high half of A[i] * x + B[i] (multiply-shift universal hashing)
+    private static final long[] A = new long[HASHES];
+    private static final long[] B = new long[HASHES];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_D0C5L);
+        for (int i = 0; i < HASHES; i++) {
+            A[i] = random.nextLong() | 1;
+            B[i] = random.nextLong();
+        }
+    }
+
+    /** A dump's sketch, band keys and date/number anchor; computed outside the index lock. */
+    record Signature(byte[] sketch, int[] bandKeys, long anchor) {
+    }
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final double threshold;
+    private final LongSupplier clock;
+
+    // Ring of entries in insertion order: the oldest is at head, slot = (head + k) % capacity
+    private int capacity;
+    private byte[] sketches;
+    private int[] bandKeys;
+    // Per band, chains of slots whose band key lands in the same table bucket
+    private int[] next;
+    private int[] buckets;
+    private int bucketMask;
+    private long[] anchors;
+    private long[] storedAt;
+    private long[] bytes;
+    private BrainDumpResponse[] values;
+    private int head;
+    private int size;
+    private long totalBytes;
+    private long evictions;
+
+    SimilarityIndex(double threshold, int maxEntries, long maxBytes, long ttlNanos, LongSupplier clock) {
+        this.threshold = threshold;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.maxBytes = maxBytes;
+        this.ttlNanos = ttlNanos;
+        this.clock = clock;
+        allocate(Math.min(this.maxEntries, INITIAL_CAPACITY));
+    }
+
+    /**
+     * The signature of a dump as seen by a provider with the given fingerprint, or null if the dump
+     * has fewer than {@code minWords} words - short texts are too easily "similar" to be reused.
+     */
+    static Signature sign(String text, String fingerprint, int minWords) {
+        long[] mins = new long[HASHES];
+        Arrays.fill(mins, Long.MAX_VALUE);
+        Set<String> anchorWords = new HashSet<>();
+        int words = 0;
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+        for (String line : normalized.split("\n")) {
+            long previous = 0;
+            for (String word : NON_WORD.split(line)) {
+                if (word.isEmpty()) {
+                    continue;
+                }
+                words++;
+                long hash = TextKey.hash(word);
+                addFeature(mins, hash);
+                if (previous != 0) {
+                    addFeature(mins, TextKey.mix(previous * 0x9E3779B97F4A7C15L ^ hash));
+                }
+                previous = hash;
+                if (DATE_WORDS.contains(word) || hasDigit(word)) {
+                    anchorWords.add(word);
+                }
+            }
+        }
+        if (words < minWords) {
+            return null;
+        }
+
+        // Order-independent, so moving a line with a date around keeps the anchor
+        long anchor = TextKey.hash(fingerprint);
+        for (String word : anchorWords) {
+            anchor += TextKey.mix(TextKey.hash(word));
+        }
+        byte[] sketch = new byte[HASHES];
+        for (int i = 0; i < HASHES; i++) {
+            sketch[i] = (byte) mins[i];
+        }
+        int[] keys = new int[BANDS];
+        for (int band = 0; band < BANDS; band++) {
+            long key = anchor ^ band * 0xC2B2AE3D27D4EB4FL;
+            for (int row = 0; row < ROWS; row++) {
+                key = TextKey.mix(key ^ mins[band * ROWS + row]);
+            }
+            keys[band] = (int) key;
+        }
+        return new Signature(sketch, keys, anchor);
+    }
+
+    /** The most similar live entry at or above the threshold, or null. */
+    BrainDumpResponse lookup(Signature signature) {
+        expire();
+        int best = NONE;
+        double bestSimilarity = threshold;
+        for (int band = 0; band < BANDS; band++) {
+            int key = signature.bandKeys[band];
+            for (int slot = buckets[band * (bucketMask + 1) + (key & bucketMask)]; slot != NONE;
+                 slot = next[slot * BANDS + band]) {
+                if (bandKeys[slot * BANDS + band] != key || anchors[slot] != signature.anchor) {
+                    continue;
+                }
+                double similarity = similarity(signature.sketch, slot);
+                if (similarity >= bestSimilarity) {
+                    best = slot;
+                    bestSimilarity = similarity;
+                }
+            }
+        }
+        return best == NONE ? null : values[best];
+    }
+
+    void insert(Signature signature, BrainDumpResponse value, long valueBytes) {
+        // The sketch, band keys and chain links of an entry, on top of the value itself
+        long entryBytes = valueBytes + HASHES + BANDS * 8L + 32;
+        if (entryBytes > maxBytes) {
+            return;
+        }
+        expire();
+        while (size > 0 && (size >= maxEntries || totalBytes + entryBytes > maxBytes)) {
+            evictOldest();
+        }
+        if (size == capacity) {
+            allocate(Math.min(maxEntries, capacity * 2));
+        }
+        int slot = (head + size) % capacity;
+        System.arraycopy(signature.sketch, 0, sketches, slot * HASHES, HASHES);
+        System.arraycopy(signature.bandKeys, 0, bandKeys, slot * BANDS, BANDS);
+        anchors[slot] = signature.anchor;
+        storedAt[slot] = clock.getAsLong();
+        bytes[slot] = entryBytes;
+        values[slot] = value;
+        link(slot);
+        size++;
+        totalBytes += entryBytes;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long bytes() {
+        return totalBytes;
+    }
+
+    long evictions() {
+        return evictions;
+    }
+
+    // b-bit MinHash estimate: unrelated sketches still agree on 1 in 256 bytes by chance
+    private double similarity(byte[] sketch, int slot) {
+        int offset = slot * HASHES;
+        int matches = 0;
+        for (int i = 0; i < HASHES; i++) {
+            if (sketches[offset + i] == sketch[i]) {
+                matches++;
+            }
+        }
+        double chance = 1.0 / 256;
+        return ((double) matches / HASHES - chance) / (1 - chance);
+    }
+
+    private void expire() {
+        long now = clock.getAsLong();
+        while (size > 0 && now - storedAt[head] > ttlNanos) {
+            evictOldest();
+        }
+    }
+
+    private void evictOldest() {
+        int slot = head;
+        for (int band = 0; band < BANDS; band++) {
+            int bucket = band * (bucketMask + 1) + (bandKeys[slot * BANDS + band] & bucketMask);
+            int previous = NONE;
+            for (int current = buckets[bucket]; current != NONE; current = next[current * BANDS + band]) {
+                if (current == slot) {
+                    if (previous == NONE) {
+                        buckets[bucket] = next[slot * BANDS + band];
+                    } else {
+                        next[previous * BANDS + band] = next[slot * BANDS + band];
+                    }
+                    break;
+                }
+                previous = current;
+            }
+        }
+        values[slot] = null;
+        totalBytes -= bytes[slot];
+        head = (head + 1) % capacity;
+        size--;
+        evictions++;
+    }
+
+    private void link(int slot) {
+        for (int band = 0; band < BANDS; band++) {
+            int bucket = band * (bucketMask + 1) + (bandKeys[slot * BANDS + band] & bucketMask);
+            next[slot * BANDS + band] = buckets[bucket];
+            buckets[bucket] = slot;
+        }
+    }
+
+    // (Re)sizes every array, moving live entries to slots 0..size-1 oldest first and relinking them
+    private void allocate(int newCapacity) {
+        byte[] oldSketches = sketches;
+        int[] oldBandKeys = bandKeys;
+        long[] oldAnchors = anchors;
+        long[] oldStoredAt = storedAt;
+        long[] oldBytes = bytes;
+        BrainDumpResponse[] oldValues = values;
+        int oldCapacity = capacity;
+
+        capacity = newCapacity;
+        sketches = new byte[newCapacity * HASHES];
+        bandKeys = new int[newCapacity * BANDS];
+        next = new int[newCapacity * BANDS];
+        anchors = new long[newCapacity];
+        storedAt = new long[newCapacity];
+        bytes = new long[newCapacity];
+        values = new BrainDumpResponse[newCapacity];
+        int tableSize = Integer.highestOneBit(Math.max(1, newCapacity - 1)) << 1;
+        bucketMask = tableSize - 1;
+        buckets = new int[BANDS * tableSize];
+        Arrays.fill(buckets, NONE);
+
+        for (int k = 0; k < size; k++) {
+            int from = (head + k) % oldCapacity;
+            System.arraycopy(oldSketches, from * HASHES, sketches, k * HASHES, HASHES);
+            System.arraycopy(oldBandKeys, from * BANDS, bandKeys, k * BANDS, BANDS);
+            anchors[k] = oldAnchors[from];
+            storedAt[k] = oldStoredAt[from];
+            bytes[k] = oldBytes[from];
+            values[k] = oldValues[from];
+            link(k);
+        }
+        head = 0;
+    }
+
+    private static void addFeature(long[] mins, long feature) {
+        for (int i = 0; i < HASHES; i++) {
+            long value = (A[i] * feature + B[i]) >>> 32;
+            if (value < mins[i]) {
+                mins[i] = value;
+            }
+        }
+    }
+
+    private static boolean hasDigit(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.isDigit(word.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.airtimebackend.ai;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.client5.http.async.methods.AbstractBinResponseConsumer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Non-blocking consumer for an upstream server-sent-event body. Splits the raw bytes
+ * into lines as they arrive on the I/O thread and hands each complete line on.
+ * Splitting on '\n' before decoding is safe because it never occurs inside a UTF-8 sequence.
+ */
+class SseLineConsumer extends AbstractBinResponseConsumer<Integer> {
+
+    private final Consumer<String> lineHandler;
+    private final BooleanSupplier cancelled;
+    private final ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+    private int status;
+    private volatile long firstByteNanos;
+
+    SseLineConsumer(Consumer<String> lineHandler, BooleanSupplier cancelled) {
+        this.lineHandler = lineHandler;
+        this.cancelled = cancelled;
+    }
+
+    @Override
+    protected void start(HttpResponse response, ContentType contentType) throws HttpException, IOException {
+        firstByteNanos = System.nanoTime();
+        status = response.getCode();
+    }
+
+    long firstByteNanos() {
+        return firstByteNanos;
+    }
+
+    @Override
+    protected int capacityIncrement() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    protected void data(ByteBuffer src, boolean endOfStream) throws IOException {
+        if (cancelled.getAsBoolean()) {
+            throw new IOException("Stream cancelled by client");
+        }
+        // Error bodies are not SSE; the caller falls back based on the status code
+        if (status >= 300) {
+            return;
+        }
+        while (src.hasRemaining()) {
+            byte b = src.get();
+            if (b == '\n') {
+                flushLine();
+            } else if (b != '\r') {
+                line.write(b);
+            }
+        }
+        if (endOfStream) {
+            flushLine();
+        }
+    }
+
+    @Override
+    protected Integer buildResult() {
+        return status;
+    }
+
+    @Override
+    public void failed(Exception cause) {
+    }
+
+    @Override
+    public void releaseResources() {
+    }
+
+    private void flushLine() {
+        if (line.size() > 0) {
+            lineHandler.accept(line.toString(StandardCharsets.UTF_8));
+            line.reset();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.airtimebackend.ai;
+
+import java.text.Normalizer;
+
+/**
+ * How text is keyed wherever it is cached, stored or counted: the cache key of an analysis and the
+ * 64-bit hash used for the result store, the similarity index and per-client rate limiting.
+ */
+public final class TextKey {
+
+    private TextKey() {
+    }
+
+    /** The identity of an analysis: the model/prompt fingerprint plus the normalized text. */
+    public static String of(String fingerprint, String text) {
+        return fingerprint + '\u0000' + normalize(text);
+    }
+
+    /** {@link #hash} of {@link #of}; the result store persists it, so it must never change. */
+    public static long hashOf(String fingerprint, String text) {
+        return hash(of(fingerprint, text));
+    }
+
+    // Collapses whitespace runs and unicode variants so trivially different resubmits share a key
+    static String normalize(String text) {
+        String nfc = Normalizer.normalize(text, Normalizer.Form.NFC);
+        StringBuilder sb = new StringBuilder(nfc.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < nfc.length(); i++) {
+            char c = nfc.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    sb.append(' ');
+                    pendingSpace = false;
+                }
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /** FNV-1a over the chars, finished with {@link #mix} so short keys spread over all 64 bits. */
+    public static long hash(String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    /** MurmurHash3's fmix64 finalizer. */
+    public static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.airtimebackend.ai;
+
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http.nio.DataStreamChannel;
+import org.apache.hc.core5.http.nio.RequestChannel;
+import org.apache.hc.core5.http.protocol.HttpContext;
+
+import java.io.IOException;
+
+/**
+ * Notes when the client actually starts sending the request, i.e. once a pooled connection has been
+ * leased and, if it was new, connected and TLS-negotiated. Everything before that is connection setup;
+ * everything after it until the response headers is the upstream's time to first byte.
+ */
+class TimedRequestProducer implements AsyncRequestProducer {
+
+    private final AsyncRequestProducer delegate;
+    private final long bodyBytes;
+    private volatile long sentNanos;
+
+    TimedRequestProducer(AsyncRequestProducer delegate, long bodyBytes) {
+        this.delegate = delegate;
+        this.bodyBytes = bodyBytes;
+    }
+
+    long bodyBytes() {
+        return bodyBytes;
+    }
+
+    /** When the request went out, or 0 if it never did. */
+    long sentNanos() {
+        return sentNanos;
+    }
+
+    @Override
+    public void sendRequest(RequestChannel channel, HttpContext context) throws HttpException, IOException {
+        if (sentNanos == 0) {
+            sentNanos = System.nanoTime();
+        }
+        delegate.sendRequest(channel, context);
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return delegate.isRepeatable();
+    }
+
+    @Override
+    public void failed(Exception cause) {
+        delegate.failed(cause);
+    }
+
+    @Override
+    public int available() {
+        return delegate.available();
+    }
+
+    @Override
+    public void produce(DataStreamChannel channel) throws IOException {
+        delegate.produce(channel);
+    }
+
+    @Override
+    public void releaseResources() {
+        delegate.releaseResources();
+    }
+}
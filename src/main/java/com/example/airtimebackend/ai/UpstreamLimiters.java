@@ -0,0 +1,75 @@
+package com.example.airtimebackend.ai;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * One {@link AdaptiveConcurrencyLimiter} per upstream endpoint and model, since each has its own
+ * capacity (OpenRouter limits per model; a second provider is a different service). Created on the
+ * first call, which is when an OpenAIProvider variant knows its endpoint.
+ */
+public class UpstreamLimiters {
+
+    private final Supplier<AdaptiveConcurrencyLimiter> factory;
+    private final AnalysisMetrics metrics;
+    private final Map<String, Entry> limiters = new ConcurrentHashMap<>();
+
+    private record Entry(String endpoint, String model, AdaptiveConcurrencyLimiter limiter) {
+    }
+
+    /**
+     * @param factory a new limiter with the configured settings, or null to call upstream unlimited
+     */
+    public UpstreamLimiters(Supplier<AdaptiveConcurrencyLimiter> factory, AnalysisMetrics metrics) {
+        this.factory = factory;
+        this.metrics = metrics;
+    }
+
+    /** The limiter for this endpoint and model, or null when limiting is off. */
+    public AdaptiveConcurrencyLimiter forUpstream(String baseUrl, String model) {
+        if (factory == null) {
+            return null;
+        }
+        return limiters.computeIfAbsent(baseUrl + ' ' + model, key -> {
+            String endpoint = host(baseUrl);
+            AdaptiveConcurrencyLimiter limiter = factory.get();
+            metrics.upstreamLimiter(endpoint, model, limiter);
+            return new Entry(endpoint, model, limiter);
+        }).limiter();
+    }
+
+    // Current limit, usage and the RTTs driving it, per upstream
+    public List<Map<String, Object>> stats() {
+        List<Map<String, Object>> stats = new ArrayList<>();
+        for (Entry entry : limiters.values()) {
+            AdaptiveConcurrencyLimiter limiter = entry.limiter();
+            Map<String, Object> upstream = new LinkedHashMap<>();
+            upstream.put("endpoint", entry.endpoint());
+            upstream.put("model", entry.model());
+            upstream.put("limit", limiter.limit());
+            upstream.put("inFlight", limiter.inFlight());
+            upstream.put("queued", limiter.waiting());
+            upstream.put("shortRttMs", Math.round(limiter.shortRttMillis()));
+            upstream.put("longRttMs", Math.round(limiter.longRttMillis()));
+            upstream.put("drops", limiter.drops());
+            upstream.put("shed", limiter.shed());
+            upstream.put("queueTimeouts", limiter.timedOut());
+            stats.add(upstream);
+        }
+        return stats;
+    }
+
+    private static String host(String baseUrl) {
+        try {
+            URI uri = URI.create(baseUrl);
+            return uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+        } catch (IllegalArgumentException e) {
+            return baseUrl;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.airtimebackend.config;
+
+import com.example.airtimebackend.ai.AIProvider;
+import com.example.airtimebackend.ai.AdaptiveConcurrencyLimiter;
+import com.example.airtimebackend.ai.AnalysisMetrics;
+import com.example.airtimebackend.ai.CachingAIProvider;
+import com.example.airtimebackend.ai.ChunkingAIProvider;
+import com.example.airtimebackend.ai.CircuitBreaker;
+import com.example.airtimebackend.ai.LocalAIProvider;
+import com.example.airtimebackend.ai.NearDuplicateAIProvider;
+import com.example.airtimebackend.ai.OpenAIProvider;
+import com.example.airtimebackend.ai.PersistentAIProvider;
+import com.example.airtimebackend.ai.ResilientAIProvider;
+import com.example.airtimebackend.ai.RoutingAIProvider;
+import com.example.airtimebackend.ai.UpstreamLimiters;
+import com.example.airtimebackend.store.ResultStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Assembles the AIProvider chain that BrainDumpService talks to:
+ * near-duplicate reuse -> chunking (long dumps only) -> cache -> result store -> resilience (deadline, circuit breaker, hedging)
+ * -> router -> upstream providers.
+ */
+@Configuration
+@EnableConfigurationProperties({AnalysisCacheProperties.class, AnalysisBatchProperties.class,
+        AnalysisResilienceProperties.class, AnalysisLocalProperties.class, AnalysisStoreProperties.class,
+        AnalysisJobsProperties.class, AnalysisIncrementalProperties.class, AnalysisScheduleProperties.class,
+        AnalysisChunkingProperties.class, AnalysisSimilarityProperties.class})
+public class AIProviderConfig {
+
+    // Fires deadlines and hedges; the work it triggers is non-blocking, so one thread is plenty
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService analysisTimer() {
+        return Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "analysis-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Waiting calls need no thread of their own; the shared timer only expires their waits
+    @Bean
+    public UpstreamLimiters upstreamLimiters(OpenRouterProperties properties,
+                                             ScheduledExecutorService analysisTimer, AnalysisMetrics metrics) {
+        OpenRouterProperties.Concurrency concurrency = properties.getConcurrency();
+        Supplier<AdaptiveConcurrencyLimiter> factory = concurrency.isEnabled()
+                ? () -> new AdaptiveConcurrencyLimiter(concurrency.getInitialLimit(), concurrency.getMinLimit(),
+                        concurrency.getMaxLimit(), concurrency.getMaxQueue(), concurrency.getMaxWait(),
+                        concurrency.getRttTolerance(), concurrency.getBackoff(), analysisTimer)
+                : null;
+        return new UpstreamLimiters(factory, metrics);
+    }
+
+    // Rule-based, in-process: the instant stream preview
+    @Bean
+    public LocalAIProvider localAIProvider() {
+        return new LocalAIProvider(Clock.systemDefaultZone());
+    }
+
+    // openrouter.providers, or just the default OpenRouter endpoint/model when none are listed
+    @Bean
+    public RoutingAIProvider routingAIProvider(OpenAIProvider openAIProvider, OpenRouterProperties properties) {
+        List<RoutingAIProvider.Route> routes = new ArrayList<>();
+        for (OpenRouterProperties.Provider provider : properties.getProviders()) {
+            OpenAIProvider upstream = openAIProvider.withEndpoint(provider.getBaseUrl(), provider.getApiKey(),
+                    provider.getModel());
+            String name = provider.getName() == null || provider.getName().isBlank()
+                    ? upstream.model()
+                    : provider.getName();
+            routes.add(new RoutingAIProvider.Route(name, upstream, provider.getWeight()));
+        }
+        if (routes.isEmpty()) {
+            routes.add(new RoutingAIProvider.Route("default", openAIProvider, 1.0));
+        }
+        return new RoutingAIProvider(routes);
+    }
+
+    @Bean
+    public ResilientAIProvider resilientAIProvider(RoutingAIProvider routingAIProvider,
+                                                   OpenAIProvider openAIProvider,
+                                                   AnalysisResilienceProperties resilience,
+                                                   ScheduledExecutorService analysisTimer,
+                                                   AnalysisMetrics metrics) {
+        AnalysisResilienceProperties.CircuitBreaker cb = resilience.getCircuitBreaker();
+        CircuitBreaker breaker = cb.isEnabled()
+                ? new CircuitBreaker(cb.getWindowSize(), cb.getMinimumCalls(), cb.getFailureRateThreshold(),
+                        cb.getSlowCallThreshold(), cb.getSlowCallRateThreshold(), cb.getOpenDuration(),
+                        cb.getHalfOpenProbes())
+                : null;
+
+        AnalysisResilienceProperties.Hedge hedge = resilience.getHedge();
+        AIProvider hedgeProvider = null;
+        if (hedge.isEnabled()) {
+            // Without a dedicated hedge model the router picks again, usually landing on another provider
+            hedgeProvider = hedge.getModel() == null || hedge.getModel().isBlank()
+                    ? routingAIProvider
+                    : openAIProvider.withModel(hedge.getModel());
+        }
+
+        return new ResilientAIProvider(routingAIProvider, hedgeProvider, breaker, resilience.getDeadline(),
+                hedge.getMinDelay(), hedge.getInitialDelay(), analysisTimer, metrics);
+    }
+
+    // Opening the store recovers its segments, so this is where a restarted node gets its history back
+    @Bean
+    public PersistentAIProvider persistentAIProvider(ResilientAIProvider resilientAIProvider,
+                                                     AnalysisStoreProperties properties,
+                                                     ScheduledExecutorService analysisTimer,
+                                                     ObjectMapper objectMapper) {
+        ResultStore store = null;
+        if (properties.isEnabled()) {
+            store = new ResultStore(Path.of(properties.getDir()), properties.getSegmentBytes(), properties.isFsync(),
+                    properties.getRetention(), properties.getCompactBelowLiveRatio());
+            ResultStore compacted = store;
+            long period = Math.max(1, properties.getCompactionInterval().toSeconds());
+            // Compaction copies segments, so keep it off the timer thread that fires deadlines
+            analysisTimer.scheduleWithFixedDelay(() -> ForkJoinPool.commonPool().execute(compacted::compact),
+                    period, period, TimeUnit.SECONDS);
+        }
+        return new PersistentAIProvider(resilientAIProvider, store, properties.getReuseTtl(), objectMapper);
+    }
+
+    @Bean
+    public CachingAIProvider cachingAIProvider(PersistentAIProvider persistentAIProvider,
+                                               AnalysisCacheProperties cache) {
+        return new CachingAIProvider(persistentAIProvider, cache.isEnabled(), cache.getMaxEntries(),
+                cache.getMaxBytes(), cache.getTtl());
+    }
+
+    // Each chunk goes through the cache and store on its own; the merged result is stored under the whole text
+    @Bean
+    public ChunkingAIProvider chunkingAIProvider(CachingAIProvider cachingAIProvider,
+                                                 PersistentAIProvider persistentAIProvider,
+                                                 AnalysisChunkingProperties chunking) {
+        return new ChunkingAIProvider(cachingAIProvider, persistentAIProvider,
+                chunking.isEnabled() ? chunking.getThresholdChars() : Integer.MAX_VALUE,
+                chunking.getChunkChars(), chunking.getMaxChunks());
+    }
+
+    // In front of chunking, so a near-identical long dump saves every chunk call, not just one
+    @Bean
+    @Primary
+    public NearDuplicateAIProvider nearDuplicateAIProvider(ChunkingAIProvider chunkingAIProvider,
+                                                           AnalysisSimilarityProperties similarity) {
+        return new NearDuplicateAIProvider(chunkingAIProvider, similarity.isEnabled(), similarity.getThreshold(),
+                similarity.getMinWords(), similarity.getMaxEntries(), similarity.getMaxBytes(), similarity.getTtl());
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.airtimebackend.config;
+
+import com.example.airtimebackend.admission.AdmissionFilter;
+import com.example.airtimebackend.admission.ClientRateLimiter;
+import com.example.airtimebackend.admission.ConcurrencyLimiter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Puts the admission filter in front of the analysis endpoints only; /api/ping, diagnostics
+ * and actuator are never throttled. Job submissions are rate limited per client; the job queue
+ * has its own capacity limit.
+ */
+@Configuration
+@EnableConfigurationProperties(AnalysisAdmissionProperties.class)
+public class AdmissionConfig {
+
+    @Bean
+    public AdmissionFilter admissionFilter(AnalysisAdmissionProperties properties,
+                                           ScheduledExecutorService analysisTimer) {
+        AnalysisAdmissionProperties.RateLimit rate = properties.getRateLimit();
+        ClientRateLimiter rateLimiter = null;
+        if (rate.isEnabled()) {
+            rateLimiter = new ClientRateLimiter(rate.getRatePerSecond(), rate.getBurst(), rate.getIdleTimeout(),
+                    rate.getMaxClients(), rate.getStripes());
+            // Growth sweeps already drop idle buckets; this returns memory after a burst of one-off clients
+            long period = Math.max(1, rate.getIdleTimeout().toSeconds());
+            analysisTimer.scheduleWithFixedDelay(rateLimiter::evictIdle, period, period, TimeUnit.SECONDS);
+        }
+
+        AnalysisAdmissionProperties.Concurrency concurrency = properties.getConcurrency();
+        ConcurrencyLimiter concurrencyLimiter = concurrency.isEnabled()
+                ? new ConcurrencyLimiter(concurrency.getMaxInFlight())
+                : null;
+
+        return new AdmissionFilter(rateLimiter, concurrencyLimiter, rate.isTrustForwardedFor(),
+                Set.copyOf(rate.getApiKeys()), concurrency.getRetryAfter());
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdmissionFilter> admissionFilterRegistration(AdmissionFilter admissionFilter,
+                                                                               AnalysisAdmissionProperties properties) {
+        FilterRegistrationBean<AdmissionFilter> registration = new FilterRegistrationBean<>(admissionFilter);
+        registration.addUrlPatterns("/api/brain-dump", "/api/brain-dump/*", "/api/jobs");
+        registration.setEnabled(properties.isEnabled());
+        return registration;
+    }
+}
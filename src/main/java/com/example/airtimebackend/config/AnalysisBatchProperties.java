@@ -0,0 +1,29 @@
+package com.example.airtimebackend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Limits for POST /api/brain-dump/batch, bound from {@code analysis.batch.*}.
+ */
+@ConfigurationProperties(prefix = "analysis.batch")
+public class AnalysisBatchProperties {
+
+    private int maxConcurrency = 8;
+    private int maxItems = 500;
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    public void setMaxItems(int maxItems) {
+        this.maxItems = maxItems;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.airtimebackend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Map-reduce analysis of long brain dumps (ChunkingAIProvider), bound from {@code analysis.chunking.*}.
+ */
+@ConfigurationProperties(prefix = "analysis.chunking")
+public class AnalysisChunkingProperties {
+
+    private boolean enabled = true;
+    // Texts longer than this are split and analyzed in parallel
+    private int thresholdChars = 6000;
+    private int chunkChars = 3000;
+    // Upper bound on parallel model calls per dump; longer texts get bigger chunks instead
+    private int maxChunks = 8;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getThresholdChars() {
+        return thresholdChars;
+    }
+
+    public void setThresholdChars(int thresholdChars) {
+        this.thresholdChars = thresholdChars;
+    }
+
+    public int getChunkChars() {
+        return chunkChars;
+    }
+
+    public void setChunkChars(int chunkChars) {
+        this.chunkChars = chunkChars;
+    }
+
+    public int getMaxChunks() {
+        return maxChunks;
+    }
+
+    public void setMaxChunks(int maxChunks) {
+        this.maxChunks = maxChunks;
+    }
+}
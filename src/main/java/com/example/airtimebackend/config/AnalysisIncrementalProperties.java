@@ -0,0 +1,50 @@
+package com.example.airtimebackend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Session-aware incremental re-analysis (requests with a sessionId), bound from {@code analysis.incremental.*}.
+ */
+@ConfigurationProperties(prefix = "analysis.incremental")
+public class AnalysisIncrementalProperties {
+
+    private boolean enabled = true;
+    private int maxSessions = 10000;
+    private Duration sessionTtl = Duration.ofHours(2);
+    // Above this share of added or removed lines, a full analysis is cheaper and better than a delta
+    private double maxChangedRatio = 0.6;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMaxSessions() {
+        return maxSessions;
+    }
+
+    public void setMaxSessions(int maxSessions) {
+        this.maxSessions = maxSessions;
+    }
+
+    public Duration getSessionTtl() {
+        return sessionTtl;
+    }
+
+    public void setSessionTtl(Duration sessionTtl) {
+        this.sessionTtl = sessionTtl;
+    }
+
+    public double getMaxChangedRatio() {
+        return maxChangedRatio;
+    }
+
+    public void setMaxChangedRatio(double maxChangedRatio) {
+        this.maxChangedRatio = maxChangedRatio;
+    }
+}
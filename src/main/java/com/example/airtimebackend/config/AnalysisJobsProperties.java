@@ -0,0 +1,110 @@
+package com.example.airtimebackend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Async job mode (POST /api/jobs), bound from {@code analysis.jobs.*}.
+ */
+@ConfigurationProperties(prefix = "analysis.jobs")
+public class AnalysisJobsProperties {
+
+    private int maxConcurrency = 16;
+    private int queueCapacity = 1000;
+    // From submission; a job still queued or running after this is marked timed_out
+    private Duration timeout = Duration.ofMinutes(2);
+    private Duration resultTtl = Duration.ofMinutes(15);
+    // How far ahead of a normal job submitted at the same time a high one is ordered (and a low one behind)
+    private Duration priorityHeadStart = Duration.ofSeconds(30);
+    private Duration retryAfter = Duration.ofSeconds(5);
+    private int callbackAttempts = 3;
+    // Hosts callbacks may be sent to; empty allows none
+    private List<String> callbackAllowedHosts = new ArrayList<>();
+    // Connect and response timeout for each callback attempt
+    private Duration callbackTimeout = Duration.ofSeconds(10);
+    // Connections the callback client keeps in total; callbacks never use the upstream pool
+    private int callbackMaxConnections = 20;
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    public Duration getResultTtl() {
+        return resultTtl;
+    }
+
+    public void setResultTtl(Duration resultTtl) {
+        this.resultTtl = resultTtl;
+    }
+
+    public Duration getPriorityHeadStart() {
+        return priorityHeadStart;
+    }
+
+    public void setPriorityHeadStart(Duration priorityHeadStart) {
+        this.priorityHeadStart = priorityHeadStart;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public void setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+    }
+
+    public int getCallbackAttempts() {
+        return callbackAttempts;
+    }
+
+    public void setCallbackAttempts(int callbackAttempts) {
+        this.callbackAttempts = callbackAttempts;
+    }
+
+    public List<String> getCallbackAllowedHosts() {
+        return callbackAllowedHosts;
+    }
+
+    public void setCallbackAllowedHosts(List<String> callbackAllowedHosts) {
+        this.callbackAllowedHosts = callbackAllowedHosts;
+    }
+
+    public Duration getCallbackTimeout() {
+        return callbackTimeout;
+    }
+
+    public void setCallbackTimeout(Duration callbackTimeout) {
+        this.callbackTimeout = callbackTimeout;
+    }
+
+    public int getCallbackMaxConnections() {
+        return callbackMaxConnections;
+    }
+
+    public void setCallbackMaxConnections(int callbackMaxConnections) {
+        this.callbackMaxConnections = callbackMaxConnections;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.airtimebackend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Rule-based local extraction (LocalAIProvider), bound from {@code analysis.local.*}.
+ */
+@ConfigurationProperties(prefix = "analysis.local")
+public class AnalysisLocalProperties {
+
+    // Send the local result as a "preview" event before the model's fields on /api/brain-dump/stream
+    private boolean streamPreview = true;
+    // Append locally resolved dates/times to the model prompt (read by OpenAIProvider)
+    private boolean promptHints = true;
+
+    public boolean isStreamPreview() {
+        return streamPreview;
+    }
+
+    public void setStreamPreview(boolean streamPreview) {
+        this.streamPreview = streamPreview;
+    }
+
+    public boolean isPromptHints() {
+        return promptHints;
+    }
+
+    public void setPromptHints(boolean promptHints) {
+        this.promptHints = promptHints;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.airtimebackend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.LocalTime;
+
+/**
+ * Calendar conflict detection and repacking (CalendarScheduler), bound from {@code analysis.schedule.*}.
+ */
+@ConfigurationProperties(prefix = "analysis.schedule")
+public class AnalysisScheduleProperties {
+
+    // Add the overlapping pairs of calendarEvents to every analysis as "conflicts"
+    private boolean detectConflicts = true;
+    // Moved events are only placed inside this window
+    private LocalTime dayStart = LocalTime.of(8, 0);
+    private LocalTime dayEnd = LocalTime.of(22, 0);
+    // How many days past its own date an event may be pushed when its day is full
+    private int maxShiftDays = 2;
+    private int maxEvents = 20_000;
+    private int maxReportedConflicts = 500;
+
+    public boolean isDetectConflicts() {
+        return detectConflicts;
+    }
+
+    public void setDetectConflicts(boolean detectConflicts) {
+        this.detectConflicts = detectConflicts;
+    }
+
+    public LocalTime getDayStart() {
+        return dayStart;
+    }
+
+    public void setDayStart(LocalTime dayStart) {
+        this.dayStart = dayStart;
+    }
+
+    public LocalTime getDayEnd() {
+        return dayEnd;
+    }
+
+    public void setDayEnd(LocalTime dayEnd) {
+        this.dayEnd = dayEnd;
+    }
+
+    public int getMaxShiftDays() {
+        return maxShiftDays;
+    }
+
+    public void setMaxShiftDays(int maxShiftDays) {
+        this.maxShiftDays = maxShiftDays;
+    }
+
+    public int getMaxEvents() {
+        return maxEvents;
+    }
+
+    public void setMaxEvents(int maxEvents) {
+        this.maxEvents = maxEvents;
+    }
+
+    public int getMaxReportedConflicts() {
+        return maxReportedConflicts;
+    }
+
+    public void setMaxReportedConflicts(int maxReportedConflicts) {
+        this.maxReportedConflicts = maxReportedConflicts;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.airtimebackend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings for reusing the analysis of a near-identical recent dump, bound from {@code analysis.similarity.*}.
+ */
+@ConfigurationProperties(prefix = "analysis.similarity")
+public class AnalysisSimilarityProperties {
+
+    private boolean enabled = true;
+    // Estimated Jaccard similarity of the two dumps' word and word-pair sets
+    private double threshold = 0.85;
+    private int minWords = 12;
+    private int maxEntries = 100_000;
+    private long maxBytes = 64L * 1024 * 1024;
+    private Duration ttl = Duration.ofMinutes(30);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public void setThreshold(double threshold) {
+        this.threshold = threshold;
+    }
+
+    public int getMinWords() {
+        return minWords;
+    }
+
+    public void setMinWords(int minWords) {
+        this.minWords = minWords;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    public Duration getTtl() {
+        return ttl;
+    }
+
+    public void setTtl(Duration ttl) {
+        this.ttl = ttl;
+    }
+}
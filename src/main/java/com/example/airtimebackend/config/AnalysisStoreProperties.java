@@ -0,0 +1,87 @@
+package com.example.airtimebackend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * On-disk result store (ResultStore), bound from {@code analysis.store.*}.
+ */
+@ConfigurationProperties(prefix = "analysis.store")
+public class AnalysisStoreProperties {
+
+    private boolean enabled = true;
+    private String dir = "data/results";
+    private int segmentBytes = 64 * 1024 * 1024;
+    // Force every record to disk; without it a process crash loses nothing, a power cut may lose the tail
+    private boolean fsync = false;
+    private Duration retention = Duration.ofDays(30);
+    // Serve a stored result for identical text this long after it was produced; 0 disables
+    private Duration reuseTtl = Duration.ofMinutes(30);
+    private Duration compactionInterval = Duration.ofMinutes(10);
+    private double compactBelowLiveRatio = 0.5;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getDir() {
+        return dir;
+    }
+
+    public void setDir(String dir) {
+        this.dir = dir;
+    }
+
+    public int getSegmentBytes() {
+        return segmentBytes;
+    }
+
+    public void setSegmentBytes(int segmentBytes) {
+        this.segmentBytes = segmentBytes;
+    }
+
+    public boolean isFsync() {
+        return fsync;
+    }
+
+    public void setFsync(boolean fsync) {
+        this.fsync = fsync;
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public void setRetention(Duration retention) {
+        this.retention = retention;
+    }
+
+    public Duration getReuseTtl() {
+        return reuseTtl;
+    }
+
+    public void setReuseTtl(Duration reuseTtl) {
+        this.reuseTtl = reuseTtl;
+    }
+
+    public Duration getCompactionInterval() {
+        return compactionInterval;
+    }
+
+    public void setCompactionInterval(Duration compactionInterval) {
+        this.compactionInterval = compactionInterval;
+    }
+
+    public double getCompactBelowLiveRatio() {
+        return compactBelowLiveRatio;
+    }
+
+    public void setCompactBelowLiveRatio(double compactBelowLiveRatio) {
+        this.compactBelowLiveRatio = compactBelowLiveRatio;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.airtimebackend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Writing streamed responses (SSE) to clients, bound from {@code analysis.stream.*}.
+ */
+@ConfigurationProperties(prefix = "analysis.stream")
+public class AnalysisStreamProperties {
+
+    // Threads doing the blocking writes to clients, i.e. how many slow readers can stall at once
+    private int writerThreads = 8;
+    // Streams waiting for a writer thread
+    private int writerQueue = 1000;
+    // Events one stream may have waiting; a client this far behind has its stream ended
+    private int maxPendingEvents = 256;
+
+    public int getWriterThreads() {
+        return writerThreads;
+    }
+
+    public void setWriterThreads(int writerThreads) {
+        this.writerThreads = writerThreads;
+    }
+
+    public int getWriterQueue() {
+        return writerQueue;
+    }
+
+    public void setWriterQueue(int writerQueue) {
+        this.writerQueue = writerQueue;
+    }
+
+    public int getMaxPendingEvents() {
+        return maxPendingEvents;
+    }
+
+    public void setMaxPendingEvents(int maxPendingEvents) {
+        this.maxPendingEvents = maxPendingEvents;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.airtimebackend.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Per-request stage timing, bound from {@code analysis.timing.*}.
+ */
+@ConfigurationProperties(prefix = "analysis.timing")
+public class AnalysisTimingProperties {
+
+    private boolean enabled = true;
+    // Send the stages to clients as a Server-Timing header
+    private boolean serverTimingHeader = true;
+    // How many of the slowest requests GET /api/diagnostics/slow-requests keeps
+    private int slowRequests = 50;
+    private Duration slowRequestWindow = Duration.ofMinutes(15);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isServerTimingHeader() {
+        return serverTimingHeader;
+    }
+
+    public void setServerTimingHeader(boolean serverTimingHeader) {
+        this.serverTimingHeader = serverTimingHeader;
+    }
+
+    public int getSlowRequests() {
+        return slowRequests;
+    }
+
+    public void setSlowRequests(int slowRequests) {
+        this.slowRequests = slowRequests;
+    }
+
+    public Duration getSlowRequestWindow() {
+        return slowRequestWindow;
+    }
+
+    public void setSlowRequestWindow(Duration slowRequestWindow) {
+        this.slowRequestWindow = slowRequestWindow;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.airtimebackend.config;
+
+import com.example.airtimebackend.service.CallbackAddressResolver;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * One shared, pooled HTTP client for every upstream OpenRouter call.
+ * Connections are kept alive and reused (HTTP/2 when the server negotiates it via ALPN),
+ * and the client is fully non-blocking: a handful of I/O reactor threads drive every
+ * in-flight request, so slow model calls never pin servlet threads.
+ * <p>
+ * Job callbacks go to client-chosen hosts, so they get a client of their own: a slow or hostile
+ * callback receiver can't hold upstream connections or I/O threads, and every connection it opens
+ * is resolved through {@link CallbackAddressResolver}.
+ */
+@Configuration
+@EnableConfigurationProperties(OpenRouterProperties.class)
+public class HttpClientConfig {
+
+    @Bean
+    public PoolingAsyncClientConnectionManager upstreamConnectionManager(OpenRouterProperties properties) {
+        OpenRouterProperties.Http http = properties.getHttp();
+
+        ConnectionConfig connectionConfig = ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.of(http.getConnectTimeout()))
+                .setSocketTimeout(Timeout.of(http.getReadTimeout()))
+                .setTimeToLive(TimeValue.of(http.getTimeToLive()))
+                .setValidateAfterInactivity(TimeValue.ofSeconds(2))
+                .build();
+
+        return PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(http.getMaxTotal())
+                .setMaxConnPerRoute(http.getMaxPerRoute())
+                .setDefaultConnectionConfig(connectionConfig)
+                .setDefaultTlsConfig(TlsConfig.custom().setVersionPolicy(HttpVersionPolicy.NEGOTIATE).build())
+                .build();
+    }
+
+    @Bean
+    public CloseableHttpAsyncClient upstreamHttpClient(PoolingAsyncClientConnectionManager upstreamConnectionManager,
+                                                       OpenRouterProperties properties) {
+        OpenRouterProperties.Http http = properties.getHttp();
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(Timeout.of(http.getConnectionRequestTimeout()))
+                .setResponseTimeout(Timeout.of(http.getReadTimeout()))
+                .build();
+
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(upstreamConnectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setIOReactorConfig(IOReactorConfig.custom().setIoThreadCount(http.getIoThreads()).build())
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.of(http.getIdleEviction()))
+                .build();
+        client.start();
+        return client;
+    }
+
+    @Bean
+    public CloseableHttpAsyncClient callbackHttpClient(AnalysisJobsProperties properties) {
+        Timeout timeout = Timeout.of(properties.getCallbackTimeout());
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setDnsResolver(CallbackAddressResolver.INSTANCE)
+                .setMaxConnTotal(properties.getCallbackMaxConnections())
+                .setMaxConnPerRoute(Math.max(1, properties.getCallbackMaxConnections() / 4))
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(timeout)
+                        .setSocketTimeout(timeout)
+                        .build())
+                .build();
+
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(timeout)
+                        .setResponseTimeout(timeout)
+                        .build())
+                .setIOReactorConfig(IOReactorConfig.custom().setIoThreadCount(1).build())
+                // A redirect would be a way around the allow-list
+                .disableRedirectHandling()
+                .evictExpiredConnections()
+                .build();
+        client.start();
+        return client;
+    }
+}
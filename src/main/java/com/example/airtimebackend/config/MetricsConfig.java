@@ -0,0 +1,165 @@
+package com.example.airtimebackend.config;
+
+import com.example.airtimebackend.admission.AdmissionFilter;
+import com.example.airtimebackend.admission.ClientRateLimiter;
+import com.example.airtimebackend.admission.ConcurrencyLimiter;
+import com.example.airtimebackend.ai.CachingAIProvider;
+import com.example.airtimebackend.ai.ChunkingAIProvider;
+import com.example.airtimebackend.ai.CircuitBreaker;
+import com.example.airtimebackend.ai.NearDuplicateAIProvider;
+import com.example.airtimebackend.ai.PersistentAIProvider;
+import com.example.airtimebackend.ai.ResilientAIProvider;
+import com.example.airtimebackend.ai.RoutingAIProvider;
+import com.example.airtimebackend.store.ResultStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Publishes the upstream pool, analysis cache, circuit breaker, router, admission and result store statistics as Micrometer meters.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder upstreamPoolMetrics(PoolingAsyncClientConnectionManager upstreamConnectionManager) {
+        return registry -> {
+            Gauge.builder("airtime.upstream.pool.leased", upstreamConnectionManager,
+                            pool -> pool.getTotalStats().getLeased())
+                    .description("Upstream connections currently in use")
+                    .register(registry);
+            Gauge.builder("airtime.upstream.pool.idle", upstreamConnectionManager,
+                            pool -> pool.getTotalStats().getAvailable())
+                    .description("Upstream connections idle in the pool")
+                    .register(registry);
+            Gauge.builder("airtime.upstream.pool.pending", upstreamConnectionManager,
+                            pool -> pool.getTotalStats().getPending())
+                    .description("Requests waiting for an upstream connection")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder analysisCacheMetrics(CachingAIProvider cachingAIProvider) {
+        return registry -> {
+            FunctionCounter.builder("airtime.cache.requests", cachingAIProvider, CachingAIProvider::hits)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("airtime.cache.requests", cachingAIProvider, CachingAIProvider::misses)
+                    .tag("result", "miss").register(registry);
+            FunctionCounter.builder("airtime.cache.requests", cachingAIProvider, CachingAIProvider::coalesced)
+                    .tag("result", "coalesced").register(registry);
+            FunctionCounter.builder("airtime.cache.evictions", cachingAIProvider, CachingAIProvider::evictions)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder similarityMetrics(NearDuplicateAIProvider nearDuplicateAIProvider) {
+        return registry -> {
+            FunctionCounter.builder("airtime.similarity.requests", nearDuplicateAIProvider,
+                            NearDuplicateAIProvider::hits)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("airtime.similarity.requests", nearDuplicateAIProvider,
+                            NearDuplicateAIProvider::misses)
+                    .tag("result", "miss").register(registry);
+            Gauge.builder("airtime.similarity.entries", nearDuplicateAIProvider, NearDuplicateAIProvider::entries)
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder chunkingMetrics(ChunkingAIProvider chunkingAIProvider) {
+        return registry -> {
+            FunctionCounter.builder("airtime.chunking.analyses", chunkingAIProvider,
+                            ChunkingAIProvider::chunkedAnalyses)
+                    .description("Long brain dumps split into chunks and analyzed in parallel")
+                    .register(registry);
+            FunctionCounter.builder("airtime.chunking.chunks", chunkingAIProvider, ChunkingAIProvider::chunksAnalyzed)
+                    .description("Chunks sent down the provider chain for those dumps")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder circuitBreakerMetrics(ResilientAIProvider resilientAIProvider) {
+        return registry -> {
+            CircuitBreaker breaker = resilientAIProvider.breaker();
+            if (breaker == null) {
+                return;
+            }
+            Gauge.builder("airtime.circuit.state", breaker, b -> b.state().ordinal())
+                    .description("Upstream circuit breaker: 0 closed, 1 half-open, 2 open")
+                    .register(registry);
+            FunctionCounter.builder("airtime.circuit.opened", breaker, CircuitBreaker::timesOpened)
+                    .description("Times the upstream circuit breaker has tripped open")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder routerMetrics(RoutingAIProvider routingAIProvider) {
+        return registry -> {
+            for (RoutingAIProvider.Route route : routingAIProvider.routes()) {
+                FunctionCounter.builder("airtime.router.selections", route, RoutingAIProvider.Route::selections)
+                        .description("Requests the router sent to this provider")
+                        .tag("provider", route.name())
+                        .register(registry);
+                Gauge.builder("airtime.router.inflight", route, RoutingAIProvider.Route::inFlight)
+                        .tag("provider", route.name())
+                        .register(registry);
+                Gauge.builder("airtime.router.latency.ewma", route, RoutingAIProvider.Route::ewmaLatencyMillis)
+                        .description("Decaying average latency the router scores this provider with")
+                        .baseUnit("milliseconds")
+                        .tag("provider", route.name())
+                        .register(registry);
+                Gauge.builder("airtime.router.error.rate", route, RoutingAIProvider.Route::errorRate)
+                        .tag("provider", route.name())
+                        .register(registry);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder admissionMetrics(AdmissionFilter admissionFilter) {
+        return registry -> {
+            FunctionCounter.builder("airtime.admission.rejected", admissionFilter, AdmissionFilter::rateLimited)
+                    .description("Analysis calls rejected with 429 or 503")
+                    .tag("reason", "rate_limited")
+                    .register(registry);
+            ClientRateLimiter rateLimiter = admissionFilter.rateLimiter();
+            if (rateLimiter != null) {
+                Gauge.builder("airtime.admission.clients", rateLimiter, ClientRateLimiter::trackedClients)
+                        .description("Clients with a partially drained rate-limit bucket")
+                        .register(registry);
+            }
+            ConcurrencyLimiter limiter = admissionFilter.concurrencyLimiter();
+            if (limiter != null) {
+                FunctionCounter.builder("airtime.admission.rejected", limiter, ConcurrencyLimiter::shed)
+                        .tag("reason", "overloaded")
+                        .register(registry);
+                Gauge.builder("airtime.admission.inflight", limiter, ConcurrencyLimiter::inFlight)
+                        .register(registry);
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder resultStoreMetrics(PersistentAIProvider persistentAIProvider) {
+        return registry -> {
+            ResultStore store = persistentAIProvider.store();
+            if (store == null) {
+                return;
+            }
+            Gauge.builder("airtime.store.records", store, ResultStore::records)
+                    .description("Analysis results retrievable by id")
+                    .register(registry);
+            Gauge.builder("airtime.store.size", store, ResultStore::bytes)
+                    .baseUnit("bytes")
+                    .description("Bytes written across result store segments")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.airtimebackend.config;
+
+import com.example.airtimebackend.controller.StreamWriter;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The writer pool for streamed responses, so the upstream client's I/O threads never block on a client.
+ */
+@Configuration
+@EnableConfigurationProperties(AnalysisStreamProperties.class)
+public class StreamingConfig {
+
+    @Bean(destroyMethod = "close")
+    public StreamWriter streamWriter(AnalysisStreamProperties properties) {
+        return new StreamWriter(properties.getWriterThreads(), properties.getWriterQueue(),
+                properties.getMaxPendingEvents());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.airtimebackend.config;
+
+import com.example.airtimebackend.timing.RequestTimingFilter;
+import com.example.airtimebackend.timing.SlowRequestLog;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Times the analysis and calendar endpoints stage by stage (see RequestTiming). The filter sits
+ * just outside the admission filter, so the calls it rejects are timed too.
+ */
+@Configuration
+@EnableConfigurationProperties(AnalysisTimingProperties.class)
+public class TimingConfig {
+
+    @Bean
+    public SlowRequestLog slowRequestLog(AnalysisTimingProperties properties) {
+        return new SlowRequestLog(properties.getSlowRequests(), properties.getSlowRequestWindow().toNanos());
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestTimingFilter> requestTimingFilterRegistration(
+            SlowRequestLog slowRequestLog, AnalysisTimingProperties properties) {
+        FilterRegistrationBean<RequestTimingFilter> registration =
+                new FilterRegistrationBean<>(new RequestTimingFilter(slowRequestLog));
+        registration.addUrlPatterns("/api/brain-dump", "/api/brain-dump/*", "/api/jobs", "/api/calendar/*");
+        registration.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+        registration.setEnabled(properties.isEnabled());
+        return registration;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.airtimebackend.config;
+
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Opens a few pooled connections to OpenRouter at startup so the first
+ * brain dumps after a deploy don't pay for DNS + TLS.
+ * Off by default; enable with openrouter.http.prewarm=true.
+ */
+@Component
+public class UpstreamConnectionPrewarmer {
+
+    private static final Logger log = LoggerFactory.getLogger(UpstreamConnectionPrewarmer.class);
+
+    private final CloseableHttpAsyncClient upstreamHttpClient;
+    private final OpenRouterProperties properties;
+
+    public UpstreamConnectionPrewarmer(CloseableHttpAsyncClient upstreamHttpClient, OpenRouterProperties properties) {
+        this.upstreamHttpClient = upstreamHttpClient;
+        this.properties = properties;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void prewarm() {
+        if (!properties.getHttp().isPrewarm()) {
+            return;
+        }
+
+        // Concurrent requests so each one leases (and then keeps) its own connection
+        int connections = Math.min(properties.getHttp().getPrewarmConnections(), properties.getHttp().getMaxPerRoute());
+        String prewarmUrl = properties.getBaseUrl() + "/models";
+        List<Future<SimpleHttpResponse>> warmups = new ArrayList<>();
+        for (int i = 0; i < connections; i++) {
+            warmups.add(upstreamHttpClient.execute(SimpleRequestBuilder.head(prewarmUrl).build(), null));
+        }
+        int warmed = 0;
+        for (Future<SimpleHttpResponse> warmup : warmups) {
+            try {
+                warmup.get();
+                warmed++;
+            } catch (Exception e) {
+                log.warn("Connection pre-warm failed: {}", e.getMessage());
+            }
+        }
+        log.info("Pre-warmed {} upstream connections", warmed);
+    }
+}
@@ -1,19 +1,52 @@
 package com.example.airtimebackend.controller;
 
+import com.example.airtimebackend.admission.AdmissionFilter;
+import com.example.airtimebackend.config.AnalysisBatchProperties;
+import com.example.airtimebackend.config.AnalysisLocalProperties;
+import com.example.airtimebackend.model.BatchResultLine;
 import com.example.airtimebackend.model.BrainDumpRequest;
 import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.ResponseProjection;
 import com.example.airtimebackend.service.BrainDumpService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @RestController
 @RequestMapping("/api")
 @CrossOrigin(origins = "*")
 public class BrainDumpController {
 
+    private static final long STREAM_TIMEOUT_MS = 120_000;
+    private static final long BATCH_TIMEOUT_MS = 600_000;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final BrainDumpService service;
+    private final AnalysisBatchProperties batchProperties;
+    private final AnalysisLocalProperties localProperties;
+    private final ObjectMapper objectMapper;
+    private final StreamWriter streamWriter;
+    private final AdmissionFilter admissionFilter;
 
-    public BrainDumpController(BrainDumpService service) {
+    public BrainDumpController(BrainDumpService service, AnalysisBatchProperties batchProperties,
+                               AnalysisLocalProperties localProperties, ObjectMapper objectMapper,
+                               StreamWriter streamWriter, AdmissionFilter admissionFilter) {
         this.service = service;
+        this.batchProperties = batchProperties;
+        this.localProperties = localProperties;
+        this.objectMapper = objectMapper;
+        this.streamWriter = streamWriter;
+        this.admissionFilter = admissionFilter;
     }
 
     @GetMapping("/ping")
@@ -22,8 +55,104 @@ public class BrainDumpController {
     }
     
 
+    // Async: the servlet thread is released while the model call is in flight.
+    // JSON, Smile or CBOR by Accept header; fields=a,b trims the response to those fields.
+    // "reuseSimilar": false in the body skips reusing the analysis of a near-identical recent dump
     @PostMapping("/brain-dump")
-    public BrainDumpResponse analyze(@RequestBody BrainDumpRequest request) {
-        return service.analyze(request.text);
+    public CompletableFuture<Object> analyze(@RequestBody BrainDumpRequest request,
+                                             @RequestParam(required = false) String fields) {
+        ResponseProjection projection = projection(fields);
+        return service.analyzeAsync(request.text, request.sessionId, !Boolean.FALSE.equals(request.reuseSimilar))
+                .thenApply(response -> project(response, projection));
+    }
+
+    // A stored result by the id returned with it; served from disk, no model call
+    @GetMapping("/brain-dump/{id}")
+    public Object get(@PathVariable String id, @RequestParam(required = false) String fields) {
+        ResponseProjection projection = projection(fields);
+        BrainDumpResponse response = service.find(id);
+        if (response == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No stored analysis " + id);
+        }
+        return project(response, projection);
+    }
+
+    // Same analysis, but each field is pushed as a server-sent event as soon as the model finishes it.
+    // A rule-based "preview" event goes out first, so the client has tasks and dates immediately.
+    @PostMapping(value = "/brain-dump/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter analyzeStream(@RequestBody BrainDumpRequest request) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        if (localProperties.isStreamPreview()) {
+            try {
+                emitter.send(SseEmitter.event().name("preview").data(service.preview(request.text),
+                        MediaType.APPLICATION_JSON));
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+                return emitter;
+            }
+        }
+        service.analyzeStream(request.text, new SseAnalysisListener(emitter, streamWriter));
+        return emitter;
+    }
+
+    // Many dumps in one call; one NDJSON line per item, in completion order, tagged with its input index
+    @PostMapping(value = "/brain-dump/batch", produces = "application/x-ndjson")
+    public ResponseBodyEmitter analyzeBatch(@RequestBody List<BrainDumpRequest> requests,
+                                            HttpServletRequest httpRequest) {
+        if (requests.size() > batchProperties.getMaxItems()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Batch is limited to " + batchProperties.getMaxItems() + " items");
+        }
+        // Admission took one token and one in-flight slot; the batch pays for the rest of its items and lanes
+        int lanes = Math.min(Math.max(1, batchProperties.getMaxConcurrency()), requests.size());
+        admissionFilter.charge(httpRequest, requests.size() - 1, lanes - 1);
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(BATCH_TIMEOUT_MS);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        emitter.onTimeout(() -> cancelled.set(true));
+        emitter.onError(error -> cancelled.set(true));
+
+        // Results arrive on the upstream client's I/O threads; the blocking writes happen on the lane
+        StreamWriter.Lane lane = streamWriter.lane();
+        List<String> texts = requests.stream().map(request -> request.text).toList();
+        service.analyzeBatch(texts, (index, response) -> {
+            if (cancelled.get()) {
+                return;
+            }
+            boolean queued = lane.offer(() -> {
+                if (cancelled.get()) {
+                    return;
+                }
+                try {
+                    String line = objectMapper.writeValueAsString(new BatchResultLine(index, response)) + "\n";
+                    emitter.send(line, NDJSON);
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away - stop dispatching the rest of the batch
+                    cancelled.set(true);
+                }
+            });
+            if (!queued) {
+                // The client reads too slowly, or every writer is busy: stop the batch
+                cancelled.set(true);
+            }
+        }, cancelled::get).whenComplete((ignored, error) -> {
+            // After the queued lines; completing an emitter the client already dropped is a no-op
+            if (!lane.offerLast(emitter::complete)) {
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
+
+    private static ResponseProjection projection(String fields) {
+        try {
+            return ResponseProjection.parse(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    private static Object project(BrainDumpResponse response, ResponseProjection projection) {
+        return projection == null ? response : projection.apply(response);
     }
 }
\ No newline at end of file
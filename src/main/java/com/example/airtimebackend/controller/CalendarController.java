@@ -0,0 +1,77 @@
+package com.example.airtimebackend.controller;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.CalendarEvent;
+import com.example.airtimebackend.model.ScheduleRequest;
+import com.example.airtimebackend.model.ScheduleResponse;
+import com.example.airtimebackend.service.BrainDumpService;
+import com.example.airtimebackend.service.CalendarService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api")
+@CrossOrigin(origins = "*")
+public class CalendarController {
+
+    private static final MediaType TEXT_CALENDAR = MediaType.parseMediaType("text/calendar;charset=UTF-8");
+
+    private final CalendarService calendarService;
+    private final BrainDumpService brainDumpService;
+
+    public CalendarController(CalendarService calendarService, BrainDumpService brainDumpService) {
+        this.calendarService = calendarService;
+        this.brainDumpService = brainDumpService;
+    }
+
+    // Conflicts in the given events, and the events repacked so that none overlap where a slot could be found
+    @PostMapping("/calendar/schedule")
+    public ScheduleResponse schedule(@RequestBody ScheduleRequest request) {
+        return calendarService.schedule(events(request), request.energyLevel);
+    }
+
+    // The given events as an .ics file, optionally repacked first; written as it's generated
+    @PostMapping(value = "/calendar/ics", produces = "text/calendar")
+    public ResponseEntity<StreamingResponseBody> ics(@RequestBody ScheduleRequest request,
+                                                     @RequestParam(defaultValue = "false") boolean repack) {
+        List<CalendarEvent> events = events(request);
+        return ics(repack ? calendarService.schedule(events, request.energyLevel).events : events, null);
+    }
+
+    // A stored analysis's calendarEvents as an .ics file; no model call
+    @GetMapping(value = "/brain-dump/{id}/calendar.ics", produces = "text/calendar")
+    public ResponseEntity<StreamingResponseBody> storedIcs(@PathVariable String id,
+                                                           @RequestParam(defaultValue = "false") boolean repack) {
+        BrainDumpResponse response = brainDumpService.find(id);
+        if (response == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No stored analysis " + id);
+        }
+        List<CalendarEvent> events = response.calendarEvents == null ? List.of() : response.calendarEvents;
+        return ics(repack ? calendarService.schedule(events, response.energyLevel).events : events, id);
+    }
+
+    private List<CalendarEvent> events(ScheduleRequest request) {
+        if (request.events == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "events is required");
+        }
+        if (request.events.size() > calendarService.maxEvents()) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Calendars are limited to " + calendarService.maxEvents() + " events");
+        }
+        return request.events;
+    }
+
+    private ResponseEntity<StreamingResponseBody> ics(List<CalendarEvent> events, String uidSeed) {
+        return ResponseEntity.ok()
+                .contentType(TEXT_CALENDAR)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"airtime.ics\"")
+                .body(out -> calendarService.writeIcs(events, uidSeed, out));
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.airtimebackend.controller;
+
+import com.example.airtimebackend.admission.AdmissionFilter;
+import com.example.airtimebackend.ai.CachingAIProvider;
+import com.example.airtimebackend.ai.NearDuplicateAIProvider;
+import com.example.airtimebackend.ai.PersistentAIProvider;
+import com.example.airtimebackend.ai.ResilientAIProvider;
+import com.example.airtimebackend.ai.RoutingAIProvider;
+import com.example.airtimebackend.ai.UpstreamLimiters;
+import com.example.airtimebackend.service.IncrementalAnalysisService;
+import com.example.airtimebackend.store.ResultStore;
+import com.example.airtimebackend.timing.SlowRequestLog;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/diagnostics")
+public class DiagnosticsController {
+
+    private final PoolingAsyncClientConnectionManager upstreamConnectionManager;
+    private final CachingAIProvider cachingAIProvider;
+    private final ResilientAIProvider resilientAIProvider;
+    private final RoutingAIProvider routingAIProvider;
+    private final AdmissionFilter admissionFilter;
+    private final PersistentAIProvider persistentAIProvider;
+    private final IncrementalAnalysisService incrementalAnalysis;
+    private final NearDuplicateAIProvider nearDuplicateAIProvider;
+    private final SlowRequestLog slowRequestLog;
+    private final UpstreamLimiters upstreamLimiters;
+
+    public DiagnosticsController(PoolingAsyncClientConnectionManager upstreamConnectionManager,
+                                 CachingAIProvider cachingAIProvider,
+                                 ResilientAIProvider resilientAIProvider,
+                                 RoutingAIProvider routingAIProvider,
+                                 AdmissionFilter admissionFilter,
+                                 PersistentAIProvider persistentAIProvider,
+                                 IncrementalAnalysisService incrementalAnalysis,
+                                 NearDuplicateAIProvider nearDuplicateAIProvider,
+                                 SlowRequestLog slowRequestLog,
+                                 UpstreamLimiters upstreamLimiters) {
+        this.upstreamConnectionManager = upstreamConnectionManager;
+        this.cachingAIProvider = cachingAIProvider;
+        this.resilientAIProvider = resilientAIProvider;
+        this.routingAIProvider = routingAIProvider;
+        this.admissionFilter = admissionFilter;
+        this.persistentAIProvider = persistentAIProvider;
+        this.incrementalAnalysis = incrementalAnalysis;
+        this.nearDuplicateAIProvider = nearDuplicateAIProvider;
+        this.slowRequestLog = slowRequestLog;
+        this.upstreamLimiters = upstreamLimiters;
+    }
+
+    // Pool usage for sizing openrouter.http.max-total / max-per-route
+    @GetMapping("/upstream-pool")
+    public Map<String, Object> upstreamPool() {
+        PoolStats stats = upstreamConnectionManager.getTotalStats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("leased", stats.getLeased());
+        result.put("idle", stats.getAvailable());
+        result.put("pending", stats.getPending());
+        result.put("max", stats.getMax());
+        result.put("maxPerRoute", upstreamConnectionManager.getDefaultMaxPerRoute());
+        return result;
+    }
+
+    @GetMapping("/analysis-cache")
+    public Map<String, Object> analysisCache() {
+        return cachingAIProvider.stats();
+    }
+
+    // Breaker state, deadline and the current hedge delay
+    @GetMapping("/resilience")
+    public Map<String, Object> resilience() {
+        return resilientAIProvider.stats();
+    }
+
+    // Per-provider health as the router sees it, and how often each was picked
+    @GetMapping("/providers")
+    public List<Map<String, Object>> providers() {
+        return routingAIProvider.stats();
+    }
+
+    // 429s so far, tracked clients and the in-flight/queue picture behind the global cap
+    @GetMapping("/admission")
+    public Map<String, Object> admission() {
+        return admissionFilter.stats();
+    }
+
+    // Records, segments and bytes on disk, plus what was recovered at startup
+    @GetMapping("/result-store")
+    public Map<String, Object> resultStore() {
+        ResultStore store = persistentAIProvider.store();
+        return store == null ? Map.of("enabled", false) : store.stats();
+    }
+
+    // How often session resubmits were answered from a delta vs. a full re-analysis
+    @GetMapping("/incremental")
+    public Map<String, Object> incremental() {
+        return incrementalAnalysis.stats();
+    }
+
+    // Near-duplicate reuse: hits, misses, opted-out requests and the index size
+    @GetMapping("/similarity")
+    public Map<String, Object> similarity() {
+        return nearDuplicateAIProvider.stats();
+    }
+
+    // Adaptive in-flight limit per upstream endpoint and model, with the RTTs driving it
+    @GetMapping("/upstream-limits")
+    public List<Map<String, Object>> upstreamLimits() {
+        return upstreamLimiters.stats();
+    }
+
+    // The slowest recent requests with their stage timings and sizes (no user text), slowest first
+    @GetMapping("/slow-requests")
+    public List<SlowRequestLog.Entry> slowRequests() {
+        return slowRequestLog.snapshot();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.airtimebackend.controller;
+
+import com.example.airtimebackend.model.JobRequest;
+import com.example.airtimebackend.model.JobStatusResponse;
+import com.example.airtimebackend.service.AnalysisJobService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+
+// Fire-and-forget analyses for clients that can't hold a connection open for the whole model call
+@RestController
+@RequestMapping("/api/jobs")
+@CrossOrigin(origins = "*")
+public class JobController {
+
+    private final AnalysisJobService jobs;
+
+    public JobController(AnalysisJobService jobs) {
+        this.jobs = jobs;
+    }
+
+    // 202 with the job id straight away; poll GET /api/jobs/{id} or wait for the callback
+    @PostMapping
+    public ResponseEntity<JobStatusResponse> submit(@RequestBody JobRequest request) {
+        if (request.text == null || request.text.isBlank()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "text is required");
+        }
+        AnalysisJobService.Priority priority;
+        try {
+            priority = AnalysisJobService.Priority.parse(request.priority);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "priority must be high, normal or low");
+        }
+        URI callbackUrl = null;
+        if (request.callbackUrl != null && !request.callbackUrl.isBlank()) {
+            try {
+                callbackUrl = new URI(request.callbackUrl);
+            } catch (URISyntaxException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "callbackUrl is not a valid URI");
+            }
+            if (!jobs.isCallbackAllowed(callbackUrl)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "callbackUrl is not allowed");
+            }
+        }
+
+        JobStatusResponse job = jobs.submit(request.text, priority, callbackUrl);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(jobs.retryAfterSeconds()))
+                    .build();
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/jobs/" + job.id))
+                .body(job);
+    }
+
+    @GetMapping("/{id}")
+    public JobStatusResponse status(@PathVariable String id) {
+        JobStatusResponse job = jobs.status(id);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No job " + id);
+        }
+        return job;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.airtimebackend.controller;
+
+import com.example.airtimebackend.ai.AnalysisStreamListener;
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+/**
+ * Forwards streamed analysis pieces to the client as server-sent events.
+ * Each event is named after the field it carries ("quickWin", "organizedNotes", ...);
+ * the final normalized response arrives as a "complete" event. Callbacks arrive on the upstream
+ * client's I/O threads, so the writes themselves are handed to a {@link StreamWriter} lane.
+ */
+class SseAnalysisListener implements AnalysisStreamListener {
+
+    private final SseEmitter emitter;
+    private final StreamWriter.Lane lane;
+    private volatile boolean cancelled;
+
+    SseAnalysisListener(SseEmitter emitter, StreamWriter writer) {
+        this.emitter = emitter;
+        this.lane = writer.lane();
+        emitter.onTimeout(() -> cancelled = true);
+        emitter.onError(error -> cancelled = true);
+    }
+
+    @Override
+    public void onField(String name, JsonNode value) {
+        write(() -> send(name, value));
+    }
+
+    @Override
+    public void onItem(String arrayName, JsonNode item) {
+        write(() -> send(arrayName, item));
+    }
+
+    @Override
+    public void onComplete(BrainDumpResponse response) {
+        if (cancelled) {
+            return;
+        }
+        end(() -> {
+            send("complete", response);
+            if (!cancelled) {
+                emitter.complete();
+            }
+        });
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    private void write(Runnable task) {
+        if (cancelled || lane.offer(task)) {
+            return;
+        }
+        // The client reads slower than the model writes, or every writer is busy: give up on this stream
+        cancelled = true;
+        end(() -> emitter.completeWithError(new IOException("Client is not keeping up with the stream")));
+    }
+
+    private void end(Runnable task) {
+        if (!lane.offerLast(task)) {
+            // Nothing of this stream is being written right now, so ending it here doesn't race a send
+            cancelled = true;
+            emitter.completeWithError(new IOException("No stream writer available"));
+        }
+    }
+
+    private void send(String name, Object data) {
+        if (cancelled) {
+            return;
+        }
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away - stop reading upstream
+            cancelled = true;
+        }
+    }
+}
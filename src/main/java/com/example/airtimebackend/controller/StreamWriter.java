@@ -0,0 +1,116 @@
+package com.example.airtimebackend.controller;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes streamed responses to clients off the upstream HTTP client's I/O threads. Those few
+ * threads serve every upstream exchange, so a blocking servlet write to one slow reader there
+ * would stall all of them. Each stream gets a {@link Lane} that runs its writes in order on a
+ * small bounded pool; a stream whose client falls too far behind is refused further writes.
+ */
+public final class StreamWriter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamWriter.class);
+
+    private final ThreadPoolExecutor pool;
+    private final int maxPending;
+
+    /**
+     * @param threads    writer threads, i.e. how many slow clients can block at once
+     * @param queue      streams waiting for a writer thread
+     * @param maxPending writes one stream may have queued before it is refused more
+     */
+    public StreamWriter(int threads, int queue, int maxPending) {
+        AtomicInteger count = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queue)), runnable -> {
+            Thread thread = new Thread(runnable, "stream-writer-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pool.allowCoreThreadTimeOut(true);
+        this.maxPending = Math.max(1, maxPending);
+    }
+
+    /** A serial queue of writes for one stream. */
+    public Lane lane() {
+        return new Lane();
+    }
+
+    @Override
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    public final class Lane {
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Lane() {
+        }
+
+        /** Queues a write; false, and it never runs, if this stream has too many queued or the pool is full. */
+        public boolean offer(Runnable task) {
+            if (pending.incrementAndGet() > maxPending) {
+                pending.decrementAndGet();
+                return false;
+            }
+            return enqueue(task);
+        }
+
+        /** Queues the write that ends the stream; it runs after everything already queued, whatever the backlog. */
+        public boolean offerLast(Runnable task) {
+            pending.incrementAndGet();
+            return enqueue(task);
+        }
+
+        private boolean enqueue(Runnable task) {
+            tasks.add(task);
+            if (!scheduled.compareAndSet(false, true)) {
+                // The running drain picks the task up
+                return true;
+            }
+            try {
+                pool.execute(this::drain);
+                return true;
+            } catch (RejectedExecutionException e) {
+                // A refused write never runs, the caller gives up on the stream instead; no drain can take it
+                // while we hold the flag
+                tasks.remove(task);
+                pending.decrementAndGet();
+                scheduled.set(false);
+                return false;
+            }
+        }
+
+        private void drain() {
+            do {
+                try {
+                    for (Runnable task; (task = tasks.poll()) != null; ) {
+                        pending.decrementAndGet();
+                        try {
+                            task.run();
+                        } catch (RuntimeException e) {
+                            log.atWarn().addKeyValue("error", e.toString()).log("Stream write failed");
+                        }
+                    }
+                } finally {
+                    scheduled.set(false);
+                }
+                // Offered after the last poll but before the flag was cleared: its offer was told it would run,
+                // so run it here rather than resubmit to a pool that may be full by now
+            } while (!tasks.isEmpty() && scheduled.compareAndSet(false, true));
+        }
+    }
+}
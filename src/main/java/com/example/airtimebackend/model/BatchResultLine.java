@@ -0,0 +1,14 @@
+package com.example.airtimebackend.model;
+
+// One NDJSON line of a batch response; index is the item's position in the request list
+public class BatchResultLine {
+    public int index;
+    public boolean fallback;
+    public BrainDumpResponse result;
+
+    public BatchResultLine(int index, BrainDumpResponse result) {
+        this.index = index;
+        this.fallback = result.fallback;
+        this.result = result;
+    }
+}
@@ -2,4 +2,8 @@ package com.example.airtimebackend.model;
 
 public class BrainDumpRequest {
     public String text;
+    // Optional, client-chosen; resubmits under the same id are re-analyzed incrementally
+    public String sessionId;
+    // false: always analyze, even if a near-identical dump was analyzed recently
+    public Boolean reuseSimilar;
 }
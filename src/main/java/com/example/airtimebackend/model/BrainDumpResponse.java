@@ -1,9 +1,15 @@
 package com.example.airtimebackend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
-import java.util.Map;
 
 public class BrainDumpResponse {
+    // Stored analysis id for GET /api/brain-dump/{id}; absent for results that weren't stored
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String id;
+
     public int urgency;          // 1-5
     public int priority;         // 1-5
     public String advice;
@@ -12,7 +18,10 @@ public class BrainDumpResponse {
 
 
     // ADHD-specific additions
-    public List<Map<String, Object>> calendarEvents;
+    public List<CalendarEvent> calendarEvents;
+    // Overlapping pairs of calendarEvents, found server-side; omitted when there are none
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    public List<CalendarConflict> conflicts;
     public List<String> timeManagementTips;
     public String quickWin;
     public int estimatedTime;
@@ -21,6 +30,11 @@ public class BrainDumpResponse {
     public List<String> nextSteps;
     public int dopamineScore;
 
+    // Set when the AI call failed and this is the canned fallback - never cached
+    @JsonIgnore
+    public boolean fallback;
+    @JsonIgnore
+    public FallbackCause fallbackCause;
 
     public BrainDumpResponse(
             int urgency,
@@ -34,7 +48,7 @@ public class BrainDumpResponse {
             String celebration,
             List<String> nextSteps,
             int dopamineScore,
-            List<Map<String, Object>> calendarEvents, // Added 12
+            List<CalendarEvent> calendarEvents,        // Added 12
             List<String> timeManagementTips          // Added 13
     ) {
         this.urgency = urgency;
@@ -52,4 +66,19 @@ public class BrainDumpResponse {
         this.timeManagementTips = timeManagementTips;
     }
 
+    /**
+     * A shallow copy for handing one shared result (cached, coalesced) to another request, which may
+     * then set its own id and conflicts. The lists are shared: nothing modifies them after parsing.
+     */
+    public BrainDumpResponse copy() {
+        BrainDumpResponse copy = new BrainDumpResponse(urgency, priority, advice, motivation, organizedNotes,
+                quickWin, estimatedTime, energyLevel, celebration, nextSteps, dopamineScore, calendarEvents,
+                timeManagementTips);
+        copy.id = id;
+        copy.conflicts = conflicts;
+        copy.fallback = fallback;
+        copy.fallbackCause = fallbackCause;
+        return copy;
+    }
+
 }
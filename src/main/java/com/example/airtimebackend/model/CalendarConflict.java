@@ -0,0 +1,11 @@
+package com.example.airtimebackend.model;
+
+// Two events that overlap; first and second are their positions in the event list, first starting earlier
+public record CalendarConflict(
+        int first,
+        int second,
+        String firstTitle,
+        String secondTitle,
+        int overlapMinutes
+) {
+}
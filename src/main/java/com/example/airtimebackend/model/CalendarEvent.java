@@ -0,0 +1,12 @@
+package com.example.airtimebackend.model;
+
+public record CalendarEvent(
+        String title,
+        String date,      // yyyy-MM-dd
+        String time,      // HH:mm
+        int duration,     // minutes
+        String priority,
+        String notes,
+        String color
+) {
+}
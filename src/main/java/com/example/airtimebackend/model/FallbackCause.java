@@ -0,0 +1,20 @@
+package com.example.airtimebackend.model;
+
+// Why a request ended up with the canned fallback instead of a real analysis
+public enum FallbackCause {
+    NO_CHOICES,
+    EMPTY_CONTENT,
+    PARSE_FAILURE,
+    HTTP_ERROR,
+    EXCEPTION,
+    // Upstream didn't answer within analysis.resilience.deadline
+    DEADLINE,
+    // Circuit breaker open: upstream was not called at all
+    CIRCUIT_OPEN,
+    // The upstream's adaptive concurrency limit was reached and its queue was full or too slow
+    UPSTREAM_LIMITED;
+
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.airtimebackend.model;
+
+// POST /api/jobs body; priority is "high", "normal" (default) or "low"
+public class JobRequest {
+    public String text;
+    public String priority;
+    // Optional: the finished job is POSTed here as JSON, in addition to being available via GET /api/jobs/{id}
+    public String callbackUrl;
+}
@@ -0,0 +1,22 @@
+package com.example.airtimebackend.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+// Lifecycle of an async analysis job; the last three are final
+public enum JobState {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+    // analysis.jobs.timeout passed, counted from submission, before a result was ready
+    TIMED_OUT;
+
+    public boolean isFinal() {
+        return this != QUEUED && this != RUNNING;
+    }
+
+    @JsonValue
+    public String tag() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.airtimebackend.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+// GET /api/jobs/{id}, the 202 from POST /api/jobs and the callback body
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class JobStatusResponse {
+    public String id;
+    public JobState status;
+    public String priority;
+    public String submittedAt;
+    public String startedAt;
+    public String finishedAt;
+    public Long queueWaitMillis;
+    public Long executionMillis;
+    public Boolean fallback;
+    public BrainDumpResponse result;
+    public String error;
+}
@@ -0,0 +1,101 @@
+package com.example.airtimebackend.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * A {@code fields=} selection of {@link BrainDumpResponse} properties, e.g. {@code fields=calendarEvents}
+ * for the calendar sync. Applying it copies the selected fields through plain accessors into a map, in
+ * the response's own field order; the id is always kept so the full result can be fetched later.
+ * <p>
+ * Parsed projections are cached by their spec string, so the per-request cost is one map lookup.
+ */
+public final class ResponseProjection {
+
+    private static final Map<String, Function<BrainDumpResponse, Object>> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("urgency", response -> response.urgency);
+        FIELDS.put("priority", response -> response.priority);
+        FIELDS.put("advice", response -> response.advice);
+        FIELDS.put("motivation", response -> response.motivation);
+        FIELDS.put("organizedNotes", response -> response.organizedNotes);
+        FIELDS.put("calendarEvents", response -> response.calendarEvents);
+        FIELDS.put("conflicts", response -> response.conflicts);
+        FIELDS.put("timeManagementTips", response -> response.timeManagementTips);
+        FIELDS.put("quickWin", response -> response.quickWin);
+        FIELDS.put("estimatedTime", response -> response.estimatedTime);
+        FIELDS.put("energyLevel", response -> response.energyLevel);
+        FIELDS.put("celebration", response -> response.celebration);
+        FIELDS.put("nextSteps", response -> response.nextSteps);
+        FIELDS.put("dopamineScore", response -> response.dopamineScore);
+    }
+
+    // Specs come from query strings, so only this many distinct ones are kept
+    private static final int MAX_CACHED = 256;
+    private static final Map<String, ResponseProjection> CACHE = new ConcurrentHashMap<>();
+
+    private final String[] names;
+    private final Function<BrainDumpResponse, Object>[] accessors;
+
+    @SuppressWarnings("unchecked")
+    private ResponseProjection(String[] names) {
+        this.names = names;
+        this.accessors = Arrays.stream(names).map(FIELDS::get).toArray(Function[]::new);
+    }
+
+    /**
+     * The projection for a comma-separated field list, or null for a null or blank spec (the full
+     * response). Unknown field names are rejected with IllegalArgumentException.
+     */
+    public static ResponseProjection parse(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return null;
+        }
+        ResponseProjection cached = CACHE.get(spec);
+        if (cached != null) {
+            return cached;
+        }
+        Set<String> selected = new HashSet<>();
+        for (String name : spec.split(",")) {
+            String field = name.trim();
+            if (field.isEmpty() || field.equals("id")) {
+                continue;
+            }
+            if (!FIELDS.containsKey(field)) {
+                throw new IllegalArgumentException("Unknown field '" + field + "'");
+            }
+            selected.add(field);
+        }
+        // Response order, whatever order the caller listed them in
+        List<String> names = new ArrayList<>();
+        for (String name : FIELDS.keySet()) {
+            if (selected.contains(name)) {
+                names.add(name);
+            }
+        }
+        ResponseProjection projection = new ResponseProjection(names.toArray(String[]::new));
+        if (CACHE.size() < MAX_CACHED) {
+            CACHE.putIfAbsent(spec, projection);
+        }
+        return projection;
+    }
+
+    public Map<String, Object> apply(BrainDumpResponse response) {
+        Map<String, Object> view = new LinkedHashMap<>(names.length * 2 + 2);
+        if (response.id != null) {
+            view.put("id", response.id);
+        }
+        for (int i = 0; i < names.length; i++) {
+            view.put(names[i], accessors[i].apply(response));
+        }
+        return view;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.airtimebackend.model;
+
+import java.util.List;
+
+// POST /api/calendar/schedule and /api/calendar/ics body
+public class ScheduleRequest {
+    public List<CalendarEvent> events;
+    // "low", "medium" or "high"; lower energy gets more breathing room between events and fewer hours per day
+    public String energyLevel;
+}
@@ -0,0 +1,17 @@
+package com.example.airtimebackend.model;
+
+import java.util.List;
+
+public class ScheduleResponse {
+    // The input events in input order, with moved ones at their new date/time
+    public List<CalendarEvent> events;
+    // Overlaps found in the input, capped at analysis.schedule.max-reported-conflicts
+    public List<CalendarConflict> conflicts;
+    public int totalConflicts;
+    public List<Move> moved;
+    // Positions of events that still overlap something because no free slot was found for them
+    public List<Integer> unresolved;
+
+    public record Move(int index, String title, String fromDate, String fromTime, String toDate, String toTime) {
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.airtimebackend.schedule;
+
+import com.example.airtimebackend.model.CalendarConflict;
+import com.example.airtimebackend.model.CalendarEvent;
+import com.example.airtimebackend.model.ScheduleResponse;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Conflict detection and repacking for {@link CalendarEvent}s.
+ * <p>
+ * Detection is a sweep over the events by start time: whatever is still running when an event
+ * starts overlaps it, so it costs O(n log n) plus the pairs reported. Repacking places events
+ * from highest to lowest priority in an {@link IntervalTree}. An event keeps its own slot if
+ * that slot is free. Once every such event is placed, each displaced event moves to the free
+ * slot nearest its original time of day inside the working day, on its own date or one of the
+ * next {@code maxShiftDays} days. Lower energy leaves longer breaks around moved events and
+ * fills fewer hours of any one day.
+ * <p>
+ * Events without a parseable date and time are passed through untouched.
+ */
+public final class CalendarScheduler {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    // What an event with a missing or zero duration is assumed to take
+    private static final int DEFAULT_DURATION = 30;
+    static final long UNTIMED = Long.MIN_VALUE;
+    private static final long NO_SLOT = Long.MIN_VALUE;
+
+    private enum Energy {
+        LOW(15, 6 * 60),
+        MEDIUM(10, 9 * 60),
+        HIGH(5, MINUTES_PER_DAY);
+
+        final int bufferMinutes;
+        final int dailyMinutes;
+
+        Energy(int bufferMinutes, int dailyMinutes) {
+            this.bufferMinutes = bufferMinutes;
+            this.dailyMinutes = dailyMinutes;
+        }
+
+        static Energy parse(String value) {
+            if (value == null) {
+                return MEDIUM;
+            }
+            return switch (value.trim().toLowerCase(Locale.ROOT)) {
+                case "low" -> LOW;
+                case "high" -> HIGH;
+                default -> MEDIUM;
+            };
+        }
+    }
+
+    private final int dayStartMinute;
+    private final int dayEndMinute;
+    private final int maxShiftDays;
+    private final int maxReportedConflicts;
+
+    public CalendarScheduler(LocalTime dayStart, LocalTime dayEnd, int maxShiftDays, int maxReportedConflicts) {
+        if (!dayStart.isBefore(dayEnd)) {
+            throw new IllegalArgumentException("dayStart must be before dayEnd");
+        }
+        this.dayStartMinute = dayStart.toSecondOfDay() / 60;
+        this.dayEndMinute = dayEnd.toSecondOfDay() / 60;
+        this.maxShiftDays = Math.max(0, maxShiftDays);
+        this.maxReportedConflicts = maxReportedConflicts;
+    }
+
+    public record Conflicts(List<CalendarConflict> reported, int total) {
+    }
+
+    /** Every overlapping pair, ordered by the later event's start; all are counted, max-reported are listed. */
+    public Conflicts conflicts(List<CalendarEvent> events) {
+        Spans spans = Spans.of(events);
+        PriorityQueue<Integer> running = new PriorityQueue<>(Comparator.comparingLong(i -> spans.end[i]));
+        List<CalendarConflict> reported = new ArrayList<>();
+        int total = 0;
+        for (int i : spans.byStart) {
+            while (!running.isEmpty() && spans.end[running.peek()] <= spans.start[i]) {
+                running.poll();
+            }
+            total += running.size();
+            for (int other : running) {
+                if (reported.size() >= maxReportedConflicts) {
+                    break;
+                }
+                reported.add(new CalendarConflict(other, i, events.get(other).title(), events.get(i).title(),
+                        (int) (Math.min(spans.end[other], spans.end[i]) - spans.start[i])));
+            }
+            running.add(i);
+        }
+        return new Conflicts(reported, total);
+    }
+
+    /** Detects conflicts, then moves lower-priority events out of the way; the input list is not modified. */
+    public ScheduleResponse schedule(List<CalendarEvent> events, String energyLevel) {
+        Energy energy = Energy.parse(energyLevel);
+        Spans spans = Spans.of(events);
+        Conflicts conflicts = conflicts(events);
+
+        List<CalendarEvent> result = new ArrayList<>(events);
+        List<ScheduleResponse.Move> moved = new ArrayList<>();
+        List<Integer> unresolved = new ArrayList<>();
+        IntervalTree<Integer> placed = new IntervalTree<>();
+        Map<Long, Integer> load = new HashMap<>();
+
+        Integer[] order = Arrays.stream(spans.byStart).boxed().toArray(Integer[]::new);
+        // Highest priority first; byStart is in start order and the sort is stable, so ties go by start
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> -rank(events.get(i).priority())));
+        // Everything that fits where it is stays put first, so a moved event never displaces one that didn't clash
+        List<Integer> displaced = new ArrayList<>();
+        for (int i : order) {
+            if (placed.overlapsAny(spans.start[i], spans.end[i])) {
+                displaced.add(i);
+            } else {
+                place(placed, load, i, spans.start[i], spans.end[i] - spans.start[i]);
+            }
+        }
+        for (int i : displaced) {
+            long start = spans.start[i];
+            long length = spans.end[i] - start;
+            long slot = findSlot(placed, load, start, length, energy);
+            if (slot == NO_SLOT) {
+                unresolved.add(i);
+            } else {
+                CalendarEvent event = events.get(i);
+                CalendarEvent moving = new CalendarEvent(event.title(), date(slot), time(slot), event.duration(),
+                        event.priority(), event.notes(), event.color());
+                result.set(i, moving);
+                moved.add(new ScheduleResponse.Move(i, event.title(), event.date(), event.time(),
+                        moving.date(), moving.time()));
+                start = slot;
+            }
+            place(placed, load, i, start, length);
+        }
+        moved.sort(Comparator.comparingInt(ScheduleResponse.Move::index));
+        unresolved.sort(null);
+
+        ScheduleResponse response = new ScheduleResponse();
+        response.events = result;
+        response.conflicts = conflicts.reported();
+        response.totalConflicts = conflicts.total();
+        response.moved = moved;
+        response.unresolved = unresolved;
+        return response;
+    }
+
+    private static void place(IntervalTree<Integer> placed, Map<Long, Integer> load, int index, long start,
+                              long length) {
+        placed.insert(start, start + length, index);
+        load.merge(Math.floorDiv(start, MINUTES_PER_DAY), (int) length, Integer::sum);
+    }
+
+    // Start minute of the free slot nearest the event's time of day, or NO_SLOT if none within maxShiftDays
+    private long findSlot(IntervalTree<Integer> placed, Map<Long, Integer> load, long start, long length,
+                          Energy energy) {
+        long day = Math.floorDiv(start, MINUTES_PER_DAY);
+        long timeOfDay = start - day * MINUTES_PER_DAY;
+        for (int shift = 0; shift <= maxShiftDays; shift++, day++) {
+            if (load.getOrDefault(day, 0) + length > energy.dailyMinutes) {
+                continue;
+            }
+            long midnight = day * MINUTES_PER_DAY;
+            long slot = nearestGap(placed, midnight + dayStartMinute, midnight + dayEndMinute, midnight + timeOfDay,
+                    length, energy.bufferMinutes);
+            if (slot != NO_SLOT) {
+                return slot;
+            }
+        }
+        return NO_SLOT;
+    }
+
+    // Walks the gaps between the day's busy intervals (each widened by the buffer) in order
+    private static long nearestGap(IntervalTree<Integer> placed, long windowStart, long windowEnd, long target,
+                                   long length, int buffer) {
+        long[] best = {NO_SLOT, Long.MAX_VALUE};
+        long[] cursor = {windowStart};
+        placed.forEachOverlap(windowStart - buffer, windowEnd + buffer, busy -> {
+            consider(cursor[0], Math.min(busy.start() - buffer, windowEnd), target, length, best);
+            cursor[0] = Math.max(cursor[0], busy.end() + buffer);
+        });
+        consider(cursor[0], windowEnd, target, length, best);
+        return best[0];
+    }
+
+    private static void consider(long gapStart, long gapEnd, long target, long length, long[] best) {
+        if (gapEnd - gapStart < length) {
+            return;
+        }
+        long slot = Math.max(gapStart, Math.min(target, gapEnd - length));
+        long distance = Math.abs(slot - target);
+        if (distance < best[1]) {
+            best[0] = slot;
+            best[1] = distance;
+        }
+    }
+
+    static int rank(String priority) {
+        if (priority == null) {
+            return 1;
+        }
+        return switch (priority.trim().toLowerCase(Locale.ROOT)) {
+            case "urgent" -> 3;
+            case "high" -> 2;
+            case "low" -> 0;
+            default -> 1;
+        };
+    }
+
+    private static String date(long minute) {
+        return LocalDate.ofEpochDay(Math.floorDiv(minute, MINUTES_PER_DAY)).toString();
+    }
+
+    private static String time(long minute) {
+        return LocalTime.ofSecondOfDay(Math.floorMod(minute, MINUTES_PER_DAY) * 60L).toString();
+    }
+
+    /**
+     * Start minute (minutes since 1970-01-01, local time) of an event, or {@link #UNTIMED} if its date
+     * or time can't be parsed.
+     */
+    static long startMinute(CalendarEvent event) {
+        if (event == null || event.date() == null || event.time() == null) {
+            return UNTIMED;
+        }
+        try {
+            return LocalDate.parse(event.date().trim()).toEpochDay() * MINUTES_PER_DAY
+                    + LocalTime.parse(event.time().trim()).toSecondOfDay() / 60;
+        } catch (DateTimeParseException e) {
+            return UNTIMED;
+        }
+    }
+
+    // Event extents in minutes, and the timed events' positions in start order
+    private static final class Spans {
+        final long[] start;
+        final long[] end;
+        final int[] byStart;
+
+        private Spans(long[] start, long[] end, int[] byStart) {
+            this.start = start;
+            this.end = end;
+            this.byStart = byStart;
+        }
+
+        static Spans of(List<CalendarEvent> events) {
+            int n = events.size();
+            long[] start = new long[n];
+            long[] end = new long[n];
+            int[] timed = new int[n];
+            int count = 0;
+            for (int i = 0; i < n; i++) {
+                start[i] = startMinute(events.get(i));
+                if (start[i] != UNTIMED) {
+                    int duration = events.get(i).duration();
+                    end[i] = start[i] + (duration > 0 ? duration : DEFAULT_DURATION);
+                    timed[count++] = i;
+                }
+            }
+            // Stable, so ties keep input order
+            return new Spans(start, end, Arrays.stream(timed, 0, count).boxed()
+                    .sorted(Comparator.comparingLong(i -> start[i]))
+                    .mapToInt(Integer::intValue)
+                    .toArray());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.airtimebackend.schedule;
+
+import com.example.airtimebackend.model.CalendarEvent;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+/**
+ * Writes events as an iCalendar (RFC 5545) VCALENDAR, one VEVENT at a time straight to the writer,
+ * so an export of any size never exists as a whole string. Times are "floating" local times, the
+ * same way the analysis produces them; events without a parseable date are skipped, and events
+ * without a time become all-day events.
+ */
+public final class IcsWriter {
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final int MAX_LINE_OCTETS = 75;
+
+    private final Writer out;
+    private final String dtStamp;
+    private final String uidSeed;
+
+    /**
+     * @param uidSeed mixed into every UID, e.g. the stored analysis id, so re-importing the same export
+     *                updates events instead of duplicating them
+     */
+    public IcsWriter(Writer out, Instant now, String uidSeed) {
+        this.out = out;
+        this.dtStamp = DATE_TIME.format(now.atOffset(ZoneOffset.UTC)) + "Z";
+        this.uidSeed = uidSeed == null ? "" : uidSeed;
+    }
+
+    public void writeAll(Iterable<CalendarEvent> events) throws IOException {
+        line("BEGIN:VCALENDAR");
+        line("VERSION:2.0");
+        line("PRODID:-//AirTime//Brain Dump//EN");
+        line("CALSCALE:GREGORIAN");
+        int index = 0;
+        for (CalendarEvent event : events) {
+            write(event, index++);
+        }
+        line("END:VCALENDAR");
+    }
+
+    private void write(CalendarEvent event, int index) throws IOException {
+        LocalDate date = parseDate(event.date());
+        if (date == null) {
+            return;
+        }
+        LocalTime time = parseTime(event.time());
+        String title = event.title() == null ? "" : event.title();
+        UUID uid = UUID.nameUUIDFromBytes((uidSeed + '\u0000' + index + '\u0000' + title)
+                .getBytes(StandardCharsets.UTF_8));
+
+        line("BEGIN:VEVENT");
+        line("UID:" + uid + "@airtime");
+        line("DTSTAMP:" + dtStamp);
+        if (time == null) {
+            line("DTSTART;VALUE=DATE:" + DATE.format(date));
+            line("DURATION:P1D");
+        } else {
+            line("DTSTART:" + DATE_TIME.format(date.atTime(time)));
+            line("DURATION:PT" + (event.duration() > 0 ? event.duration() : 30) + "M");
+        }
+        line("SUMMARY:" + escape(title));
+        if (event.notes() != null && !event.notes().isBlank()) {
+            line("DESCRIPTION:" + escape(event.notes()));
+        }
+        line("PRIORITY:" + switch (CalendarScheduler.rank(event.priority())) {
+            case 3 -> 1;
+            case 2 -> 3;
+            case 0 -> 9;
+            default -> 5;
+        });
+        line("END:VEVENT");
+    }
+
+    // Content lines are folded at 75 octets with CRLF + space, never inside a UTF-8 sequence
+    private void line(String content) throws IOException {
+        int octets = 0;
+        for (int i = 0; i < content.length(); ) {
+            int codePoint = content.codePointAt(i);
+            int width = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (octets + width > MAX_LINE_OCTETS) {
+                out.write("\r\n ");
+                // The leading space counts towards the continuation line
+                octets = 1;
+            }
+            out.write(content, i, Character.charCount(codePoint));
+            octets += width;
+            i += Character.charCount(codePoint);
+        }
+        out.write("\r\n");
+    }
+
+    static String escape(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\', ';', ',' -> escaped.append('\\').append(c);
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> {
+                }
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static LocalDate parseDate(String value) {
+        try {
+            return value == null ? null : LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static LocalTime parseTime(String value) {
+        try {
+            return value == null || value.isBlank() ? null : LocalTime.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.airtimebackend.schedule;
+
+import java.util.function.Consumer;
+
+/**
+ * Half-open intervals {@code [start, end)} in an AVL tree ordered by start, with each node holding the
+ * largest end in its subtree, so overlap queries skip every subtree that ends before the query starts.
+ * Insert and "any overlap" are O(log n); listing overlaps is O(log n + k) and yields them by start.
+ * <p>
+ * Not thread-safe; each scheduling run builds its own.
+ */
+final class IntervalTree<T> {
+
+    private Node<T> root;
+    private int size;
+    private long sequence;
+
+    void insert(long start, long end, T value) {
+        root = insert(root, new Node<>(start, end, value, sequence++));
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean overlapsAny(long start, long end) {
+        Node<T> node = root;
+        while (node != null) {
+            if (node.start < end && start < node.end) {
+                return true;
+            }
+            // If the left subtree reaches past start but has no overlap, nothing to the right can have one
+            node = node.left != null && node.left.maxEnd > start ? node.left : node.right;
+        }
+        return false;
+    }
+
+    /** Every stored interval overlapping {@code [start, end)}, in start order. */
+    void forEachOverlap(long start, long end, Consumer<Interval<T>> action) {
+        forEachOverlap(root, start, end, action);
+    }
+
+    private static <T> void forEachOverlap(Node<T> node, long start, long end, Consumer<Interval<T>> action) {
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        forEachOverlap(node.left, start, end, action);
+        if (node.start >= end) {
+            return;
+        }
+        if (start < node.end) {
+            action.accept(node);
+        }
+        forEachOverlap(node.right, start, end, action);
+    }
+
+    interface Interval<T> {
+        long start();
+
+        long end();
+
+        T value();
+    }
+
+    private static final class Node<T> implements Interval<T> {
+        final long start;
+        final long end;
+        final T value;
+        final long sequence;
+        Node<T> left;
+        Node<T> right;
+        int height = 1;
+        long maxEnd;
+
+        Node(long start, long end, T value, long sequence) {
+            this.start = start;
+            this.end = end;
+            this.value = value;
+            this.sequence = sequence;
+            this.maxEnd = end;
+        }
+
+        @Override
+        public long start() {
+            return start;
+        }
+
+        @Override
+        public long end() {
+            return end;
+        }
+
+        @Override
+        public T value() {
+            return value;
+        }
+
+        // Equal starts are kept in insertion order
+        boolean before(Node<T> other) {
+            return start < other.start || start == other.start && sequence < other.sequence;
+        }
+    }
+
+    private static <T> Node<T> insert(Node<T> node, Node<T> added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.before(node)) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return balance(node);
+    }
+
+    private static <T> Node<T> balance(Node<T> node) {
+        update(node);
+        int skew = height(node.left) - height(node.right);
+        if (skew > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (skew < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static <T> Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <T> Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static <T> void update(Node<T> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        long maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+}
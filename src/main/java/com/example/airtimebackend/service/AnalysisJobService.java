@@ -0,0 +1,408 @@
+package com.example.airtimebackend.service;
+
+import com.example.airtimebackend.ai.AIProvider;
+import com.example.airtimebackend.config.AnalysisJobsProperties;
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.JobState;
+import com.example.airtimebackend.model.JobStatusResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Async job mode: a submitted analysis is queued and acknowledged at once, then run by a bounded
+ * number of lanes against the AIProvider chain. The result is kept for {@code result-ttl} for polling,
+ * and optionally POSTed to a callback URL.
+ * <p>
+ * The queue is bounded ({@link #submit} returns null when full) and ordered by submission time,
+ * with high and low priority jobs shifted by {@code priority-head-start}, so priority jumps the
+ * queue without starving low-priority work.
+ */
+@Service
+public class AnalysisJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(AnalysisJobService.class);
+    private static final int CALLBACK_THREADS = 2;
+    // What URI#getHost gives for an IPv4 or (bracketed) IPv6 address
+    private static final Pattern IP_LITERAL = Pattern.compile("[0-9.]+|\\[[0-9A-Fa-f:.%]+]");
+
+    public enum Priority {
+        HIGH, NORMAL, LOW;
+
+        public String tag() {
+            return name().toLowerCase();
+        }
+
+        /** Null or blank is NORMAL; anything unrecognised is rejected with IllegalArgumentException. */
+        public static Priority parse(String value) {
+            return value == null || value.isBlank() ? NORMAL : valueOf(value.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final AIProvider aiProvider;
+    private final AnalysisJobsProperties properties;
+    private final ScheduledExecutorService analysisTimer;
+    private final CloseableHttpAsyncClient callbackHttpClient;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry registry;
+    private final Counter rejected;
+    // Connecting resolves the callback host, a blocking lookup, so callbacks are sent from here rather than
+    // from an upstream I/O thread or the shared timer
+    private final ThreadPoolExecutor callbackSender;
+
+    private final ConcurrentHashMap<String, Job> jobs = new ConcurrentHashMap<>();
+    // Guarded by itself, together with running
+    private final PriorityQueue<Job> queue = new PriorityQueue<>(Comparator.comparingLong((Job job) -> job.sortKey)
+            .thenComparingLong(job -> job.sequence));
+    private int running;
+    private long sequence;
+
+    public AnalysisJobService(AIProvider aiProvider, AnalysisJobsProperties properties,
+                              ScheduledExecutorService analysisTimer, CloseableHttpAsyncClient callbackHttpClient,
+                              ObjectMapper objectMapper, MeterRegistry registry) {
+        this.aiProvider = aiProvider;
+        this.properties = properties;
+        this.analysisTimer = analysisTimer;
+        this.callbackHttpClient = callbackHttpClient;
+        this.objectMapper = objectMapper;
+        this.registry = registry;
+        AtomicInteger callbackThreads = new AtomicInteger();
+        this.callbackSender = new ThreadPoolExecutor(CALLBACK_THREADS, CALLBACK_THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "job-callback-" + callbackThreads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.callbackSender.allowCoreThreadTimeOut(true);
+        this.rejected = Counter.builder("airtime.jobs.rejected")
+                .description("Jobs refused because the queue was full")
+                .register(registry);
+        Gauge.builder("airtime.jobs.queued", this, AnalysisJobService::queued)
+                .description("Jobs waiting for a free lane")
+                .register(registry);
+        Gauge.builder("airtime.jobs.running", this, AnalysisJobService::running)
+                .register(registry);
+    }
+
+    /**
+     * Queues an analysis.
+     *
+     * @param callbackUrl where to POST the finished job, or null; must already be validated
+     * @return the job's current status, or null when the queue is full
+     */
+    public JobStatusResponse submit(String text, Priority priority, URI callbackUrl) {
+        long headStart = properties.getPriorityHeadStart().toNanos();
+        long now = System.nanoTime();
+        Job job = new Job(UUID.randomUUID().toString(), text, priority, callbackUrl, now,
+                switch (priority) {
+                    case HIGH -> now - headStart;
+                    case NORMAL -> now;
+                    case LOW -> now + headStart;
+                });
+        synchronized (queue) {
+            if (queue.size() >= properties.getQueueCapacity()) {
+                rejected.increment();
+                return null;
+            }
+            job.sequence = sequence++;
+            jobs.put(job.id, job);
+            queue.add(job);
+        }
+        job.timeout = analysisTimer.schedule(() -> timeOut(job), properties.getTimeout().toMillis(),
+                TimeUnit.MILLISECONDS);
+        dispatch();
+        return job.view();
+    }
+
+    /** The job's current status, or null if unknown or expired. */
+    public JobStatusResponse status(String id) {
+        Job job = jobs.get(id);
+        return job == null ? null : job.view();
+    }
+
+    /**
+     * Whether a callback may be sent to this URL: http(s), a host on {@code callback-allowed-hosts} (none
+     * are allowed while it is empty), and not an address inside our network. Does no lookup, so it is safe
+     * on a request thread; a host name is checked when the callback client connects, through
+     * {@link CallbackAddressResolver}, with the very addresses it connects to.
+     */
+    public boolean isCallbackAllowed(URI callbackUrl) {
+        String scheme = callbackUrl.getScheme();
+        String host = callbackUrl.getHost();
+        if (!("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme)) || host == null
+                || properties.getCallbackAllowedHosts().stream().noneMatch(host::equalsIgnoreCase)) {
+            return false;
+        }
+        if (!IP_LITERAL.matcher(host).matches()) {
+            return true;
+        }
+        try {
+            // A literal is parsed, not looked up
+            return CallbackAddressResolver.isPublic(InetAddress.getByName(host));
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+
+    public long retryAfterSeconds() {
+        return Math.max(1, properties.getRetryAfter().toSeconds());
+    }
+
+    public int queued() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    public int running() {
+        synchronized (queue) {
+            return running;
+        }
+    }
+
+    // Fills every free lane from the head of the queue
+    private void dispatch() {
+        while (true) {
+            Job job;
+            synchronized (queue) {
+                if (running >= properties.getMaxConcurrency() || queue.isEmpty()) {
+                    return;
+                }
+                job = queue.poll();
+                running++;
+            }
+            if (!start(job)) {
+                // Timed out while queued; its lane is free again
+                synchronized (queue) {
+                    running--;
+                }
+            }
+        }
+    }
+
+    private boolean start(Job job) {
+        synchronized (job) {
+            if (job.state != JobState.QUEUED) {
+                return false;
+            }
+            job.state = JobState.RUNNING;
+            job.startedNanos = System.nanoTime();
+            job.startedAt = Instant.now();
+        }
+        Timer.builder("airtime.jobs.queue.wait")
+                .description("Time a job spent queued before a lane picked it up")
+                .tag("priority", job.priority.tag())
+                .publishPercentileHistogram()
+                .register(registry)
+                .record(job.startedNanos - job.submittedNanos, TimeUnit.NANOSECONDS);
+
+        CompletableFuture<BrainDumpResponse> analysis;
+        try {
+            analysis = aiProvider.analyzeBrainDumpAsync(job.text);
+        } catch (RuntimeException e) {
+            analysis = CompletableFuture.failedFuture(e);
+        }
+        job.analysis = analysis;
+        analysis.whenComplete((response, error) -> {
+            finish(job, error == null ? JobState.SUCCEEDED : JobState.FAILED, response, error);
+            releaseLane();
+        });
+        return true;
+    }
+
+    private void releaseLane() {
+        synchronized (queue) {
+            running--;
+        }
+        dispatch();
+    }
+
+    private void timeOut(Job job) {
+        synchronized (queue) {
+            queue.remove(job);
+        }
+        if (finish(job, JobState.TIMED_OUT, null, null) && job.analysis != null) {
+            // Frees the lane through the completion handler; the shared upstream call itself is bounded by
+            // analysis.resilience.deadline
+            job.analysis.cancel(false);
+        }
+    }
+
+    // Moves the job to a final state once; returns false if it already was final
+    private boolean finish(Job job, JobState state, BrainDumpResponse response, Throwable error) {
+        synchronized (job) {
+            if (job.state.isFinal()) {
+                return false;
+            }
+            job.state = state;
+            job.result = response;
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause()
+                        : error;
+                job.error = cause instanceof CancellationException ? "cancelled" : cause.getClass().getSimpleName();
+            }
+            job.finishedNanos = System.nanoTime();
+            job.finishedAt = Instant.now();
+        }
+        if (job.timeout != null && state != JobState.TIMED_OUT) {
+            job.timeout.cancel(false);
+        }
+        if (job.startedNanos != 0) {
+            Timer.builder("airtime.jobs.execution")
+                    .description("Time from a lane picking a job up to its final state")
+                    .tag("outcome", state.tag())
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(job.finishedNanos - job.startedNanos, TimeUnit.NANOSECONDS);
+        }
+        analysisTimer.schedule(() -> jobs.remove(job.id, job), properties.getResultTtl().toMillis(),
+                TimeUnit.MILLISECONDS);
+        if (job.callbackUrl != null) {
+            sendCallback(job, 1);
+        }
+        return true;
+    }
+
+    private void sendCallback(Job job, int attempt) {
+        callbackSender.execute(() -> postCallback(job, attempt));
+    }
+
+    private void postCallback(Job job, int attempt) {
+        SimpleHttpRequest request;
+        try {
+            request = SimpleRequestBuilder.post(job.callbackUrl)
+                    .setBody(objectMapper.writeValueAsBytes(job.view()), ContentType.APPLICATION_JSON)
+                    .build();
+        } catch (Exception e) {
+            callbackResult("error");
+            return;
+        }
+        callbackHttpClient.execute(request, new FutureCallback<SimpleHttpResponse>() {
+            @Override
+            public void completed(SimpleHttpResponse response) {
+                if (response.getCode() / 100 == 2) {
+                    callbackResult("delivered");
+                } else {
+                    retry("HTTP " + response.getCode());
+                }
+            }
+
+            @Override
+            public void failed(Exception e) {
+                retry(e.getClass().getSimpleName());
+            }
+
+            @Override
+            public void cancelled() {
+                retry("cancelled");
+            }
+
+            private void retry(String reason) {
+                if (attempt >= properties.getCallbackAttempts()) {
+                    callbackResult("failed");
+                    log.atWarn()
+                            .addKeyValue("job", job.id)
+                            .addKeyValue("reason", reason)
+                            .log("Giving up on job callback");
+                    return;
+                }
+                // 1s, 2s, 4s, ...
+                analysisTimer.schedule(() -> sendCallback(job, attempt + 1), 1L << (attempt - 1), TimeUnit.SECONDS);
+            }
+        });
+    }
+
+    private void callbackResult(String result) {
+        Counter.builder("airtime.jobs.callbacks")
+                .tag("result", result)
+                .register(registry)
+                .increment();
+    }
+
+    private static final class Job {
+        final String id;
+        final String text;
+        final Priority priority;
+        final URI callbackUrl;
+        final Instant submittedAt = Instant.now();
+        final long submittedNanos;
+        final long sortKey;
+        long sequence;
+        volatile ScheduledFuture<?> timeout;
+        volatile CompletableFuture<BrainDumpResponse> analysis;
+
+        // Guarded by the job's monitor
+        JobState state = JobState.QUEUED;
+        long startedNanos;
+        long finishedNanos;
+        Instant startedAt;
+        Instant finishedAt;
+        BrainDumpResponse result;
+        String error;
+
+        Job(String id, String text, Priority priority, URI callbackUrl, long submittedNanos, long sortKey) {
+            this.id = id;
+            this.text = text;
+            this.priority = priority;
+            this.callbackUrl = callbackUrl;
+            this.submittedNanos = submittedNanos;
+            this.sortKey = sortKey;
+        }
+
+        synchronized JobStatusResponse view() {
+            JobStatusResponse view = new JobStatusResponse();
+            view.id = id;
+            view.status = state;
+            view.priority = priority.tag();
+            view.submittedAt = submittedAt.toString();
+            if (startedAt != null) {
+                view.startedAt = startedAt.toString();
+                view.queueWaitMillis = TimeUnit.NANOSECONDS.toMillis(startedNanos - submittedNanos);
+            }
+            if (finishedAt != null) {
+                view.finishedAt = finishedAt.toString();
+                if (startedAt != null) {
+                    view.executionMillis = TimeUnit.NANOSECONDS.toMillis(finishedNanos - startedNanos);
+                }
+            }
+            if (result != null) {
+                view.result = result;
+                view.fallback = result.fallback;
+            }
+            view.error = error;
+            return view;
+        }
+    }
+}
@@ -1,19 +1,150 @@
 package com.example.airtimebackend.service;
 
 import com.example.airtimebackend.ai.AIProvider;
+import com.example.airtimebackend.ai.AnalysisStreamListener;
+import com.example.airtimebackend.ai.FallbackResponses;
+import com.example.airtimebackend.ai.LocalAIProvider;
+import com.example.airtimebackend.ai.NearDuplicateAIProvider;
+import com.example.airtimebackend.ai.PersistentAIProvider;
+import com.example.airtimebackend.config.AnalysisBatchProperties;
 import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.timing.RequestTiming;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+
 @Service
 public class BrainDumpService {
 
     private final AIProvider aiProvider;
+    private final AnalysisBatchProperties batchProperties;
+    private final LocalAIProvider localAIProvider;
+    private final PersistentAIProvider persistentAIProvider;
+    private final IncrementalAnalysisService incrementalAnalysis;
+    private final CalendarService calendarService;
+    private final NearDuplicateAIProvider nearDuplicateAIProvider;
 
-    public BrainDumpService(AIProvider aiProvider) {
+    public BrainDumpService(AIProvider aiProvider, AnalysisBatchProperties batchProperties,
+                            LocalAIProvider localAIProvider, PersistentAIProvider persistentAIProvider,
+                            IncrementalAnalysisService incrementalAnalysis, CalendarService calendarService,
+                            NearDuplicateAIProvider nearDuplicateAIProvider) {
         this.aiProvider = aiProvider;
+        this.batchProperties = batchProperties;
+        this.localAIProvider = localAIProvider;
+        this.persistentAIProvider = persistentAIProvider;
+        this.incrementalAnalysis = incrementalAnalysis;
+        this.calendarService = calendarService;
+        this.nearDuplicateAIProvider = nearDuplicateAIProvider;
     }
 
     public BrainDumpResponse analyze(String text) {
         return aiProvider.analyzeBrainDump(text);
     }
+
+    public CompletableFuture<BrainDumpResponse> analyzeAsync(String text) {
+        return aiProvider.analyzeBrainDumpAsync(text);
+    }
+
+    // With a session id, an edited resubmit only sends its new/changed lines upstream.
+    // Without reuseSimilar, a near-identical recent dump's analysis is not served for this one.
+    // Calendar conflicts are flagged on the way out, and the request's timing notes whether it fell back.
+    public CompletableFuture<BrainDumpResponse> analyzeAsync(String text, String sessionId, boolean reuseSimilar) {
+        RequestTiming timing = RequestTiming.current();
+        CompletableFuture<BrainDumpResponse> analysis =
+                sessionId == null || sessionId.isBlank() || text == null || !incrementalAnalysis.isEnabled()
+                        ? nearDuplicateAIProvider.analyzeBrainDumpAsync(text, reuseSimilar)
+                        : incrementalAnalysis.analyzeAsync(sessionId, text);
+        return analysis.thenApply(response -> {
+            timing.outcome(response);
+            return calendarService.annotate(response);
+        });
+    }
+
+    /**
+     * Analyzes many brain dumps with at most analysis.batch.max-concurrency in flight.
+     * Results are reported in completion order together with their input index; a failed
+     * item gets its own fallback instead of failing the batch. Stops dispatching once cancelled.
+     */
+    public CompletableFuture<Void> analyzeBatch(List<String> texts,
+                                                BiConsumer<Integer, BrainDumpResponse> onResult,
+                                                BooleanSupplier cancelled) {
+        BatchRun run = new BatchRun(texts, onResult, cancelled);
+        int lanes = Math.min(Math.max(1, batchProperties.getMaxConcurrency()), texts.size());
+        if (lanes == 0) {
+            run.done.complete(null);
+        }
+        for (int i = 0; i < lanes; i++) {
+            run.dispatchNext();
+        }
+        return run.done;
+    }
+
+    private class BatchRun {
+        private final List<String> texts;
+        private final BiConsumer<Integer, BrainDumpResponse> onResult;
+        private final BooleanSupplier cancelled;
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger remaining;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        BatchRun(List<String> texts, BiConsumer<Integer, BrainDumpResponse> onResult, BooleanSupplier cancelled) {
+            this.texts = texts;
+            this.onResult = onResult;
+            this.cancelled = cancelled;
+            this.remaining = new AtomicInteger(texts.size());
+        }
+
+        // Each finished item pulls the next one, so the number of lanes is the concurrency limit
+        void dispatchNext() {
+            if (cancelled.getAsBoolean()) {
+                done.complete(null);
+                return;
+            }
+            int index = next.getAndIncrement();
+            if (index >= texts.size()) {
+                return;
+            }
+            String text = texts.get(index);
+            CompletableFuture<BrainDumpResponse> item;
+            try {
+                item = aiProvider.analyzeBrainDumpAsync(text);
+            } catch (RuntimeException e) {
+                item = CompletableFuture.failedFuture(e);
+            }
+            // One handler for success and failure, so nothing thrown on the way can skip the count-down
+            item.handle((response, error) -> {
+                try {
+                    onResult.accept(index, error == null && response != null
+                            ? response
+                            : FallbackResponses.forText(text));
+                } finally {
+                    if (remaining.decrementAndGet() == 0) {
+                        done.complete(null);
+                    } else {
+                        dispatchNext();
+                    }
+                }
+                return null;
+            });
+        }
+    }
+
+    // A past result from the on-disk store, or null; never calls the model
+    public BrainDumpResponse find(String id) {
+        return calendarService.annotate(persistentAIProvider.find(id));
+    }
+
+    // Rule-based analysis only - instant, no model call
+    public BrainDumpResponse preview(String text) {
+        return localAIProvider.analyze(text);
+    }
+
+    // Returns immediately; the provider pushes pieces to the listener as they arrive
+    public void analyzeStream(String text, AnalysisStreamListener listener) {
+        aiProvider.streamBrainDump(text, listener);
+    }
 }
\ No newline at end of file
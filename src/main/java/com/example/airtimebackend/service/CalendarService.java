@@ -0,0 +1,54 @@
+package com.example.airtimebackend.service;
+
+import com.example.airtimebackend.config.AnalysisScheduleProperties;
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.CalendarEvent;
+import com.example.airtimebackend.model.ScheduleResponse;
+import com.example.airtimebackend.schedule.CalendarScheduler;
+import com.example.airtimebackend.schedule.IcsWriter;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+@Service
+public class CalendarService {
+
+    private final AnalysisScheduleProperties properties;
+    private final CalendarScheduler scheduler;
+
+    public CalendarService(AnalysisScheduleProperties properties) {
+        this.properties = properties;
+        this.scheduler = new CalendarScheduler(properties.getDayStart(), properties.getDayEnd(),
+                properties.getMaxShiftDays(), properties.getMaxReportedConflicts());
+    }
+
+    // Sets response.conflicts from its calendarEvents; recomputed each time, so cached results need no care
+    public BrainDumpResponse annotate(BrainDumpResponse response) {
+        if (properties.isDetectConflicts() && response != null && response.calendarEvents != null) {
+            response.conflicts = scheduler.conflicts(response.calendarEvents).reported();
+        }
+        return response;
+    }
+
+    public ScheduleResponse schedule(List<CalendarEvent> events, String energyLevel) {
+        return scheduler.schedule(events, energyLevel);
+    }
+
+    // Streams the events as .ics; the caller owns (and closes) the stream
+    public void writeIcs(List<CalendarEvent> events, String uidSeed, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        new IcsWriter(writer, Instant.now(), uidSeed).writeAll(events);
+        writer.flush();
+    }
+
+    public int maxEvents() {
+        return properties.getMaxEvents();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.airtimebackend.service;
+
+import org.apache.hc.client5.http.DnsResolver;
+import org.apache.hc.client5.http.SystemDefaultDnsResolver;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Resolves job callback hosts, refusing any that resolve to an address inside our own network:
+ * loopback, private (site-local and IPv6 unique-local), link-local (which includes cloud metadata
+ * endpoints), the wildcard address and multicast. The callback client resolves through this on every
+ * connection, so a host that passed the allow-list can't be re-pointed inwards afterwards.
+ */
+public final class CallbackAddressResolver implements DnsResolver {
+
+    public static final CallbackAddressResolver INSTANCE = new CallbackAddressResolver();
+
+    private CallbackAddressResolver() {
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        InetAddress[] addresses = InetAddress.getAllByName(host);
+        for (InetAddress address : addresses) {
+            if (!isPublic(address)) {
+                throw new UnknownHostException(host + " resolves to a non-public address");
+            }
+        }
+        return addresses;
+    }
+
+    @Override
+    public String resolveCanonicalHostname(String host) throws UnknownHostException {
+        return SystemDefaultDnsResolver.INSTANCE.resolveCanonicalHostname(host);
+    }
+
+    static boolean isPublic(InetAddress address) {
+        if (address.isLoopbackAddress() || address.isSiteLocalAddress() || address.isLinkLocalAddress()
+                || address.isAnyLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        // fc00::/7; isSiteLocalAddress only knows the deprecated fec0::/10
+        return !(address instanceof Inet6Address && (address.getAddress()[0] & 0xfe) == 0xfc);
+    }
+}
@@ -0,0 +1,368 @@
+package com.example.airtimebackend.service;
+
+import com.example.airtimebackend.ai.AIProvider;
+import com.example.airtimebackend.ai.FallbackResponses;
+import com.example.airtimebackend.ai.PersistentAIProvider;
+import com.example.airtimebackend.config.AnalysisIncrementalProperties;
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.CalendarEvent;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Session-aware re-analysis of an edited brain dump.
+ * <p>
+ * Per session the last text (as lines; a paragraph is split into sentences) and result are kept,
+ * with every note and event attributed to the line it most likely came from. On resubmit, lines are
+ * matched against the previous ones: items from unchanged lines are kept as they were, items from
+ * removed or edited lines are dropped, and only the new or edited lines go upstream, together with a
+ * short summary of what is already planned. The model's answer for that delta is merged in.
+ * <p>
+ * Falls back to a full analysis for a new session or when most of the dump changed.
+ */
+@Service
+public class IncrementalAnalysisService {
+
+    private static final Pattern LINE_BREAK = Pattern.compile("\\r?\\n|(?<=[.!?])\\s+(?=\\S)");
+    private static final Pattern WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Set<String> STOP_WORDS = Set.of("the", "and", "for", "with", "that", "this", "need",
+            "have", "from", "about", "before", "after", "then", "also", "just", "your", "you", "get", "got");
+    private static final int SUMMARY_ITEMS = 20;
+    private static final int SUMMARY_NOTE_CHARS = 60;
+
+    private final AIProvider aiProvider;
+    private final PersistentAIProvider persistentAIProvider;
+    private final AnalysisIncrementalProperties properties;
+
+    // Access-ordered, so iteration starts at the least recently used session
+    private final LinkedHashMap<String, Session> sessions = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong full = new AtomicLong();
+    private final AtomicLong incremental = new AtomicLong();
+    private final AtomicLong unchanged = new AtomicLong();
+
+    public IncrementalAnalysisService(AIProvider aiProvider, PersistentAIProvider persistentAIProvider,
+                                      AnalysisIncrementalProperties properties) {
+        this.aiProvider = aiProvider;
+        this.persistentAIProvider = persistentAIProvider;
+        this.properties = properties;
+    }
+
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+
+    public CompletableFuture<BrainDumpResponse> analyzeAsync(String sessionId, String text) {
+        List<String> lines = lines(text);
+        Session previous = session(sessionId);
+        Delta delta = previous == null ? null : diff(previous, lines);
+
+        if (delta == null || delta.changedRatio() > properties.getMaxChangedRatio()) {
+            full.incrementAndGet();
+            return aiProvider.analyzeBrainDumpAsync(text).thenApply(response -> {
+                if (!response.fallback) {
+                    remember(sessionId, lines, response);
+                }
+                return response;
+            });
+        }
+
+        if (delta.added().isEmpty()) {
+            if (delta.removedLines() == 0) {
+                unchanged.incrementAndGet();
+                return CompletableFuture.completedFuture(previous.result.copy());
+            }
+            // Only deletions: nothing to ask the model
+            incremental.incrementAndGet();
+            BrainDumpResponse merged = merge(previous, delta, null);
+            remember(sessionId, lines, persistentAIProvider.remember(text, merged));
+            return CompletableFuture.completedFuture(merged);
+        }
+
+        incremental.incrementAndGet();
+        return aiProvider.analyzeBrainDumpAsync(deltaPrompt(previous, delta)).thenApply(response -> {
+            if (response.fallback) {
+                // The fallback was extracted from the whole prompt, summary included; redo it on the new lines only
+                BrainDumpResponse merged = merge(previous, delta,
+                        FallbackResponses.forText(String.join("\n", delta.added()), response.fallbackCause));
+                // Keep the old state so the new lines are sent again next time instead of being locked in
+                merged.fallback = true;
+                merged.fallbackCause = response.fallbackCause;
+                return merged;
+            }
+            BrainDumpResponse merged = merge(previous, delta, response);
+            remember(sessionId, lines, persistentAIProvider.remember(text, merged));
+            return merged;
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("full", full.get());
+        stats.put("incremental", incremental.get());
+        stats.put("unchanged", unchanged.get());
+        synchronized (sessions) {
+            stats.put("sessions", sessions.size());
+        }
+        return stats;
+    }
+
+    private Session session(String sessionId) {
+        synchronized (sessions) {
+            Session session = sessions.get(sessionId);
+            if (session != null && System.nanoTime() - session.storedAt > properties.getSessionTtl().toNanos()) {
+                sessions.remove(sessionId);
+                return null;
+            }
+            return session;
+        }
+    }
+
+    // Keeps its own copy: what the caller gets back is annotated and serialized downstream
+    private void remember(String sessionId, List<String> lines, BrainDumpResponse response) {
+        response = response.copy();
+        Session session = new Session(lines, response, attribute(lines, response.organizedNotes),
+                attribute(lines, eventTexts(response.calendarEvents)), System.nanoTime());
+        synchronized (sessions) {
+            sessions.put(sessionId, session);
+            var eldest = sessions.entrySet().iterator();
+            while (sessions.size() > properties.getMaxSessions() && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+            }
+        }
+    }
+
+    // Non-blank lines, with paragraphs split into sentences so a one-paragraph dump still diffs finely
+    static List<String> lines(String text) {
+        List<String> lines = new ArrayList<>();
+        if (text == null) {
+            return lines;
+        }
+        for (String line : LINE_BREAK.split(text)) {
+            String trimmed = line.strip();
+            if (!trimmed.isEmpty()) {
+                lines.add(trimmed);
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Matches new lines against the previous ones (ignoring case, whitespace and order):
+     * matched lines are unchanged, the rest of the new lines are added, the rest of the old ones removed.
+     */
+    static Delta diff(Session previous, List<String> lines) {
+        Map<String, List<Integer>> oldByKey = new HashMap<>();
+        for (int i = 0; i < previous.lines.size(); i++) {
+            oldByKey.computeIfAbsent(key(previous.lines.get(i)), k -> new ArrayList<>()).add(i);
+        }
+        boolean[] kept = new boolean[previous.lines.size()];
+        List<String> added = new ArrayList<>();
+        for (String line : lines) {
+            List<Integer> candidates = oldByKey.get(key(line));
+            if (candidates != null && !candidates.isEmpty()) {
+                kept[candidates.remove(candidates.size() - 1)] = true;
+            } else {
+                added.add(line);
+            }
+        }
+        int removed = 0;
+        for (boolean k : kept) {
+            if (!k) {
+                removed++;
+            }
+        }
+        return new Delta(kept, added, removed, Math.max(lines.size(), previous.lines.size()));
+    }
+
+    static String deltaPrompt(Session previous, Delta delta) {
+        StringBuilder sb = new StringBuilder(512);
+        List<String> planned = new ArrayList<>();
+        List<CalendarEvent> events = previous.result.calendarEvents == null
+                ? List.of()
+                : previous.result.calendarEvents;
+        for (int i = 0; i < events.size() && planned.size() < SUMMARY_ITEMS; i++) {
+            if (delta.keeps(previous.eventLines[i])) {
+                CalendarEvent event = events.get(i);
+                planned.add(event.title() + " (" + event.date() + " " + event.time() + ")");
+            }
+        }
+        List<String> notes = previous.result.organizedNotes == null ? List.of() : previous.result.organizedNotes;
+        for (int i = 0; i < notes.size() && planned.size() < SUMMARY_ITEMS; i++) {
+            if (delta.keeps(previous.noteLines[i])) {
+                String note = notes.get(i);
+                planned.add(note.length() > SUMMARY_NOTE_CHARS ? note.substring(0, SUMMARY_NOTE_CHARS) + "..." : note);
+            }
+        }
+        if (!planned.isEmpty()) {
+            sb.append("Already planned from the rest of this brain dump (don't repeat these):\n");
+            for (String item : planned) {
+                sb.append("- ").append(item).append('\n');
+            }
+            sb.append("\nNew or changed lines to organize:\n");
+        }
+        for (String line : delta.added()) {
+            sb.append(line).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Items from unchanged lines (and items that couldn't be traced to any line) in their previous order,
+     * followed by the delta's new items. Scalars come from the delta answer, urgency and priority never
+     * drop below what the kept items already warranted.
+     */
+    static BrainDumpResponse merge(Session previous, Delta delta, BrainDumpResponse update) {
+        BrainDumpResponse old = previous.result;
+
+        List<String> notes = new ArrayList<>();
+        List<String> oldNotes = old.organizedNotes == null ? List.of() : old.organizedNotes;
+        for (int i = 0; i < oldNotes.size(); i++) {
+            if (delta.keeps(previous.noteLines[i])) {
+                notes.add(oldNotes.get(i));
+            }
+        }
+        List<CalendarEvent> events = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        List<CalendarEvent> oldEvents = old.calendarEvents == null ? List.of() : old.calendarEvents;
+        int keptMinutes = 0;
+        for (int i = 0; i < oldEvents.size(); i++) {
+            if (delta.keeps(previous.eventLines[i])) {
+                CalendarEvent event = oldEvents.get(i);
+                events.add(event);
+                seen.add(eventKey(event));
+                keptMinutes += event.duration();
+            }
+        }
+
+        if (update == null) {
+            return new BrainDumpResponse(old.urgency, old.priority, old.advice, old.motivation, notes, old.quickWin,
+                    Math.max(15, keptMinutes), old.energyLevel, old.celebration, old.nextSteps, old.dopamineScore,
+                    events, old.timeManagementTips);
+        }
+        boolean keptAnything = !notes.isEmpty() || !events.isEmpty();
+
+        if (update.organizedNotes != null) {
+            Set<String> noteKeys = new HashSet<>();
+            for (String note : notes) {
+                noteKeys.add(key(note));
+            }
+            for (String note : update.organizedNotes) {
+                if (noteKeys.add(key(note))) {
+                    notes.add(note);
+                }
+            }
+        }
+        if (update.calendarEvents != null) {
+            for (CalendarEvent event : update.calendarEvents) {
+                if (seen.add(eventKey(event))) {
+                    events.add(event);
+                }
+            }
+        }
+        return new BrainDumpResponse(
+                keptAnything ? Math.max(update.urgency, old.urgency) : update.urgency,
+                keptAnything ? Math.max(update.priority, old.priority) : update.priority,
+                update.advice,
+                update.motivation,
+                notes,
+                update.quickWin,
+                keptMinutes + update.estimatedTime,
+                update.energyLevel,
+                update.celebration,
+                update.nextSteps,
+                update.dopamineScore,
+                events,
+                update.timeManagementTips);
+    }
+
+    // For each item, the index of the line sharing the most words with it, or -1 if none shares any
+    static int[] attribute(List<String> lines, List<String> items) {
+        if (items == null) {
+            return new int[0];
+        }
+        List<Set<String>> lineWords = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            lineWords.add(words(line));
+        }
+        int[] attribution = new int[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            Set<String> itemWords = words(items.get(i));
+            int best = -1;
+            int bestScore = 0;
+            for (int j = 0; j < lineWords.size(); j++) {
+                int score = 0;
+                for (String word : itemWords) {
+                    if (lineWords.get(j).contains(word)) {
+                        score++;
+                    }
+                }
+                if (score > bestScore) {
+                    best = j;
+                    bestScore = score;
+                }
+            }
+            attribution[i] = best;
+        }
+        return attribution;
+    }
+
+    private static List<String> eventTexts(List<CalendarEvent> events) {
+        if (events == null) {
+            return null;
+        }
+        List<String> texts = new ArrayList<>(events.size());
+        for (CalendarEvent event : events) {
+            texts.add(event.title() + " " + (event.notes() == null ? "" : event.notes()));
+        }
+        return texts;
+    }
+
+    private static Set<String> words(String text) {
+        Set<String> words = new HashSet<>();
+        for (String word : WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (word.length() >= 3 && !STOP_WORDS.contains(word)) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+
+    private static String key(String line) {
+        return line.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static String eventKey(CalendarEvent event) {
+        return key(event.title()) + '|' + event.date() + '|' + event.time();
+    }
+
+    record Session(List<String> lines, BrainDumpResponse result, int[] noteLines, int[] eventLines, long storedAt) {
+    }
+
+    /**
+     * @param kept per previous line, whether it is still present
+     */
+    record Delta(boolean[] kept, List<String> added, int removedLines, int totalLines) {
+
+        // Items traced to no line are kept; the rest only while their line is
+        boolean keeps(int line) {
+            return line < 0 || kept[line];
+        }
+
+        double changedRatio() {
+            return totalLines == 0 ? 0 : (double) Math.max(added.size(), removedLines) / totalLines;
+        }
+    }
+}
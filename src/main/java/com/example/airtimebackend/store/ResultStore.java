@@ -0,0 +1,391 @@
+package com.example.airtimebackend.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only store of serialized analysis results in memory-mapped segment files.
+ * <p>
+ * Each record is a 40-byte header (payload length, CRC32, created-at millis, 128-bit id, text hash)
+ * followed by the payload. The length is written last, so a record only becomes visible once it is
+ * complete; at startup every segment is scanned, records are checked against their CRC and the active
+ * segment is truncated after the last good one. Lookups by id or by text hash go through an in-memory
+ * index of record locations and read straight from the mapped file.
+ * <p>
+ * Records older than {@code retention} are dropped by {@link #compact()}, which deletes segments with
+ * nothing live left and rewrites mostly-dead ones into the active segment.
+ */
+public class ResultStore implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ResultStore.class);
+
+    static final int HEADER_BYTES = 40;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d{8})\\.dat");
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final boolean fsync;
+    private final long retentionMillis;
+    private final double compactBelowLiveRatio;
+    private final Clock clock;
+
+    private final ConcurrentSkipListMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<UUID, Long> byId = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Long> byTextHash = new ConcurrentHashMap<>();
+    // Readers hold the read lock; only deleting a segment needs the write lock
+    private final ReadWriteLock segmentLock = new ReentrantReadWriteLock();
+    private Segment active;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong recovered = new AtomicLong();
+    private final AtomicLong compacted = new AtomicLong();
+
+    public ResultStore(Path dir, int segmentBytes, boolean fsync, Duration retention, double compactBelowLiveRatio) {
+        this(dir, segmentBytes, fsync, retention, compactBelowLiveRatio, Clock.systemUTC());
+    }
+
+    ResultStore(Path dir, int segmentBytes, boolean fsync, Duration retention, double compactBelowLiveRatio,
+                Clock clock) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+        this.retentionMillis = retention.toMillis();
+        this.compactBelowLiveRatio = compactBelowLiveRatio;
+        this.clock = clock;
+        try {
+            Files.createDirectories(dir);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open result store in " + dir, e);
+        }
+    }
+
+    /**
+     * One stored result. {@code payload} is a private copy.
+     */
+    public record Record(UUID id, long textHash, long createdAtMillis, byte[] payload) {
+    }
+
+    /**
+     * Appends a result and indexes it under a new id and {@code textHash}.
+     *
+     * @return the new record's id, or null if the payload can't fit in a segment
+     */
+    public synchronized UUID append(long textHash, byte[] payload) {
+        if (HEADER_BYTES + payload.length > segmentBytes) {
+            return null;
+        }
+        UUID id = UUID.randomUUID();
+        write(id, textHash, clock.millis(), payload);
+        appended.incrementAndGet();
+        return id;
+    }
+
+    public Record get(UUID id) {
+        return lookup(byId, id);
+    }
+
+    /** The newest record stored for this text hash, or null. */
+    public Record latest(long textHash) {
+        return lookup(byTextHash, textHash);
+    }
+
+    /**
+     * Drops expired records: deletes segments with nothing live and rewrites the live records of
+     * segments below the live-ratio threshold into the active segment. The active segment is left alone.
+     */
+    public synchronized void compact() {
+        long cutoff = clock.millis() - retentionMillis;
+        for (Segment segment : new ArrayList<>(segments.values())) {
+            if (segment == active) {
+                continue;
+            }
+            List<Integer> live = new ArrayList<>();
+            long liveBytes = 0;
+            for (int pos = 0; pos < segment.end; pos += HEADER_BYTES + segment.buffer.getInt(pos)) {
+                long location = location(segment.id, pos);
+                if (segment.buffer.getLong(pos + 8) >= cutoff && isIndexed(segment.buffer, pos, location)) {
+                    live.add(pos);
+                    liveBytes += HEADER_BYTES + segment.buffer.getInt(pos);
+                }
+            }
+            if (!live.isEmpty() && liveBytes >= compactBelowLiveRatio * segment.end) {
+                continue;
+            }
+            for (int pos : live) {
+                int length = segment.buffer.getInt(pos);
+                byte[] payload = new byte[length];
+                segment.buffer.get(pos + HEADER_BYTES, payload);
+                UUID id = new UUID(segment.buffer.getLong(pos + 16), segment.buffer.getLong(pos + 24));
+                write(id, segment.buffer.getLong(pos + 32), segment.buffer.getLong(pos + 8), payload);
+            }
+            drop(segment);
+            compacted.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("dir", dir.toString());
+        stats.put("records", byId.size());
+        stats.put("segments", segments.size());
+        stats.put("bytes", bytes());
+        stats.put("appended", appended.get());
+        stats.put("recovered", recovered.get());
+        stats.put("segmentsCompacted", compacted.get());
+        return stats;
+    }
+
+    public long records() {
+        return byId.size();
+    }
+
+    public long bytes() {
+        long bytes = 0;
+        for (Segment segment : segments.values()) {
+            bytes += segment.end;
+        }
+        return bytes;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (active != null) {
+            active.buffer.force();
+        }
+        for (Segment segment : segments.values()) {
+            try {
+                segment.channel.close();
+            } catch (IOException e) {
+                log.debug("Closing result segment {} failed", segment.path.toString(), e);
+            }
+        }
+    }
+
+    private void write(UUID id, long textHash, long createdAt, byte[] payload) {
+        int size = HEADER_BYTES + payload.length;
+        if (active.end + size > active.buffer.capacity()) {
+            if (fsync) {
+                active.buffer.force();
+            }
+            active = openSegment(active.id + 1);
+        }
+        MappedByteBuffer buffer = active.buffer;
+        int pos = active.end;
+        buffer.putLong(pos + 8, createdAt);
+        buffer.putLong(pos + 16, id.getMostSignificantBits());
+        buffer.putLong(pos + 24, id.getLeastSignificantBits());
+        buffer.putLong(pos + 32, textHash);
+        buffer.put(pos + HEADER_BYTES, payload);
+        buffer.putInt(pos + 4, crc(buffer, pos, payload.length));
+        // Publishes the record: a crash before this line leaves a zero length, which recovery reads as the end
+        buffer.putInt(pos, payload.length);
+        if (fsync) {
+            buffer.force(pos, size);
+        }
+        active.end = pos + size;
+
+        long location = location(active.id, pos);
+        byId.put(id, location);
+        byTextHash.merge(textHash, location, (previous, next) -> createdAt(previous) > createdAt ? previous : next);
+    }
+
+    private <K> Record lookup(Map<K, Long> index, K key) {
+        Long location = index.get(key);
+        if (location == null) {
+            return null;
+        }
+        Record record = read(location);
+        if (record == null) {
+            // Compaction may have moved the record between the index lookup and the read
+            Long moved = index.get(key);
+            if (moved != null && !moved.equals(location)) {
+                record = read(moved);
+            }
+        }
+        return record;
+    }
+
+    private Record read(long location) {
+        segmentLock.readLock().lock();
+        try {
+            Segment segment = segments.get(segmentOf(location));
+            if (segment == null) {
+                return null;
+            }
+            int pos = offsetOf(location);
+            MappedByteBuffer buffer = segment.buffer;
+            long createdAt = buffer.getLong(pos + 8);
+            if (createdAt < clock.millis() - retentionMillis) {
+                return null;
+            }
+            byte[] payload = new byte[buffer.getInt(pos)];
+            buffer.get(pos + HEADER_BYTES, payload);
+            return new Record(new UUID(buffer.getLong(pos + 16), buffer.getLong(pos + 24)),
+                    buffer.getLong(pos + 32), createdAt, payload);
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    ids.add(Integer.parseInt(matcher.group(1)));
+                }
+            });
+        }
+        ids.sort(null);
+
+        long cutoff = clock.millis() - retentionMillis;
+        for (int i = 0; i < ids.size(); i++) {
+            Segment segment = openSegment(ids.get(i));
+            MappedByteBuffer buffer = segment.buffer;
+            int pos = 0;
+            while (pos + HEADER_BYTES <= buffer.capacity()) {
+                int length = buffer.getInt(pos);
+                if (length == 0) {
+                    break;
+                }
+                if (length < 0 || pos + HEADER_BYTES + length > buffer.capacity()
+                        || buffer.getInt(pos + 4) != crc(buffer, pos, length)) {
+                    log.atWarn()
+                            .addKeyValue("segment", segment.path.toString())
+                            .addKeyValue("offset", pos)
+                            .log("Torn or corrupt result record, truncating segment");
+                    zero(buffer, pos);
+                    break;
+                }
+                long createdAt = buffer.getLong(pos + 8);
+                if (createdAt >= cutoff) {
+                    long location = location(segment.id, pos);
+                    byId.put(new UUID(buffer.getLong(pos + 16), buffer.getLong(pos + 24)), location);
+                    byTextHash.merge(buffer.getLong(pos + 32), location,
+                            (previous, next) -> createdAt(previous) > createdAt ? previous : next);
+                    recovered.incrementAndGet();
+                }
+                pos += HEADER_BYTES + length;
+            }
+            segment.end = pos;
+        }
+        active = segments.isEmpty() ? openSegment(1) : segments.lastEntry().getValue();
+        if (recovered.get() > 0) {
+            log.atInfo()
+                    .addKeyValue("records", recovered.get())
+                    .addKeyValue("segments", segments.size())
+                    .log("Recovered result store");
+        }
+    }
+
+    private Segment openSegment(int id) {
+        Path path = dir.resolve(String.format("segment-%08d.dat", id));
+        try {
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            // An existing segment keeps its size, even if segment-size has changed since it was written
+            long size = Math.max(channel.size(), segmentBytes);
+            Segment segment = new Segment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+            segments.put(id, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot map result segment " + path, e);
+        }
+    }
+
+    private void drop(Segment segment) {
+        segmentLock.writeLock().lock();
+        try {
+            segments.remove(segment.id);
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+        byId.values().removeIf(location -> segmentOf(location) == segment.id);
+        byTextHash.values().removeIf(location -> segmentOf(location) == segment.id);
+        try {
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            log.atWarn().addKeyValue("segment", segment.path.toString()).setCause(e).log("Could not delete result segment");
+        }
+    }
+
+    private boolean isIndexed(MappedByteBuffer buffer, int pos, long location) {
+        Long indexed = byId.get(new UUID(buffer.getLong(pos + 16), buffer.getLong(pos + 24)));
+        return indexed != null && indexed == location;
+    }
+
+    private long createdAt(long location) {
+        Segment segment = segments.get(segmentOf(location));
+        return segment == null ? Long.MIN_VALUE : segment.buffer.getLong(offsetOf(location) + 8);
+    }
+
+    // Covers the header after the CRC field, then the payload
+    private static int crc(MappedByteBuffer buffer, int pos, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(pos + 8, HEADER_BYTES - 8 + length));
+        return (int) crc.getValue();
+    }
+
+    private static void zero(MappedByteBuffer buffer, int from) {
+        byte[] zeros = new byte[8192];
+        for (int pos = from; pos < buffer.capacity(); pos += zeros.length) {
+            buffer.put(pos, zeros, 0, Math.min(zeros.length, buffer.capacity() - pos));
+        }
+    }
+
+    private static long location(int segment, int offset) {
+        return ((long) segment << 32) | (offset & 0xffffffffL);
+    }
+
+    private static int segmentOf(long location) {
+        return (int) (location >>> 32);
+    }
+
+    private static int offsetOf(long location) {
+        return (int) location;
+    }
+
+    private static final class Segment {
+        final int id;
+        final Path path;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        // First free byte; only moves for the active segment
+        volatile int end;
+
+        Segment(int id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.airtimebackend.timing;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.FallbackCause;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Where one request's time went, stage by stage. Created by {@link RequestTimingFilter} and bound to
+ * the servlet thread while the request is dispatched, so code on the call path picks it up with
+ * {@link #current()} and keeps the reference for its async callbacks. Off that path (hedges fired
+ * from the timer, job workers) {@code current()} is a no-op instance.
+ * <p>
+ * Stages add up across calls: a chunked dump reports the sum of its parallel chunk calls and how
+ * many there were, so a stage can exceed the request's wall time.
+ */
+public final class RequestTiming {
+
+    public enum Stage {
+        UPSTREAM_QUEUE("limit", "Upstream concurrency limit wait"),
+        PROMPT("prompt", "Prompt and request body"),
+        CONNECT("conn", "Pool lease, connect and TLS"),
+        TTFB("ttfb", "Upstream time to first byte"),
+        GENERATION("gen", "Upstream body after first byte"),
+        PARSE("parse", "Parsing the model output"),
+        SERIALIZE("ser", "Writing the response");
+
+        private final String metric;
+        private final String description;
+
+        Stage(String metric, String description) {
+            this.metric = metric;
+            this.description = description;
+        }
+
+        public String metric() {
+            return metric;
+        }
+
+        public String description() {
+            return description;
+        }
+    }
+
+    public static final String ATTRIBUTE = RequestTiming.class.getName();
+
+    private static final Stage[] STAGES = Stage.values();
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+    private static final RequestTiming DISCARD = new RequestTiming(0, false);
+
+    private final long startNanos;
+    private final boolean recording;
+    private final AtomicLongArray nanos = new AtomicLongArray(STAGES.length);
+    private final AtomicLongArray counts = new AtomicLongArray(STAGES.length);
+    private final AtomicLong upstreamRequestBytes = new AtomicLong();
+    private final AtomicLong upstreamResponseBytes = new AtomicLong();
+    private volatile FallbackCause fallbackCause;
+    private volatile long bodyWriteNanos;
+
+    public RequestTiming(long startNanos) {
+        this(startNanos, true);
+    }
+
+    private RequestTiming(long startNanos, boolean recording) {
+        this.startNanos = startNanos;
+        this.recording = recording;
+    }
+
+    /** The timing bound to this thread, or one that records nothing. */
+    public static RequestTiming current() {
+        RequestTiming timing = CURRENT.get();
+        return timing == null ? DISCARD : timing;
+    }
+
+    static void bind(RequestTiming timing) {
+        CURRENT.set(timing);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    public void record(Stage stage, long stageNanos) {
+        if (recording && stageNanos >= 0) {
+            nanos.addAndGet(stage.ordinal(), stageNanos);
+            counts.incrementAndGet(stage.ordinal());
+        }
+    }
+
+    public void upstreamBytes(long sent, long received) {
+        if (recording) {
+            upstreamRequestBytes.addAndGet(sent);
+            upstreamResponseBytes.addAndGet(received);
+        }
+    }
+
+    // The response actually served: with chunking or a deadline that isn't what any one upstream call said
+    public void outcome(BrainDumpResponse response) {
+        if (recording && response != null) {
+            fallbackCause = response.fallback ? response.fallbackCause : null;
+        }
+    }
+
+    void bodyWriteStarted(long now) {
+        bodyWriteNanos = now;
+    }
+
+    /**
+     * The {@code Server-Timing} header value as of {@code now}: every stage seen so far, the fallback
+     * cause if any, and the total. Serialization hasn't happened yet when headers go out, so it is
+     * only in the slow-request log.
+     */
+    String serverTiming(long now) {
+        StringBuilder header = new StringBuilder(160);
+        for (Stage stage : STAGES) {
+            long count = counts.get(stage.ordinal());
+            if (count == 0 || stage == Stage.SERIALIZE) {
+                continue;
+            }
+            header.append(stage.metric).append(";dur=").append(millis(nanos.get(stage.ordinal())));
+            if (count > 1) {
+                header.append(";desc=\"").append(count).append(" calls\"");
+            }
+            header.append(", ");
+        }
+        FallbackCause cause = fallbackCause;
+        if (cause != null) {
+            header.append("fallback;desc=\"").append(cause.tag()).append("\", ");
+        }
+        return header.append("total;dur=").append(millis(now - startNanos)).toString();
+    }
+
+    SlowRequestLog.Entry toEntry(Instant at, String method, String path, int status, long requestBytes, long now) {
+        long written = bodyWriteNanos;
+        if (written != 0) {
+            record(Stage.SERIALIZE, now - written);
+        }
+        Map<String, Double> stages = new LinkedHashMap<>();
+        for (Stage stage : STAGES) {
+            if (counts.get(stage.ordinal()) > 0) {
+                stages.put(stage.metric, millis(nanos.get(stage.ordinal())));
+            }
+        }
+        FallbackCause cause = fallbackCause;
+        return new SlowRequestLog.Entry(at, method, path, status, millis(now - startNanos), stages,
+                requestBytes, upstreamRequestBytes.get(), upstreamResponseBytes.get(),
+                cause == null ? null : cause.tag());
+    }
+
+    long startNanos() {
+        return startNanos;
+    }
+
+    // Milliseconds with one decimal
+    private static double millis(long nanos) {
+        return Math.round(nanos / 100_000.0) / 10.0;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.airtimebackend.timing;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Starts a {@link RequestTiming} for every request it covers and hands the finished request to the
+ * {@link SlowRequestLog}. Async and streaming requests are finished when their response is, not when
+ * the servlet thread returns. Runs before the admission filter so rejected calls are timed too.
+ */
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    private final SlowRequestLog slowRequests;
+
+    public RequestTimingFilter(SlowRequestLog slowRequests) {
+        this.slowRequests = slowRequests;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Instant at = Instant.now();
+        RequestTiming timing = new RequestTiming(System.nanoTime());
+        request.setAttribute(RequestTiming.ATTRIBUTE, timing);
+        RequestTiming.bind(timing);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestTiming.unbind();
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        finish(request, response, timing, at);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                finish(request, response, timing, at);
+            }
+        }
+    }
+
+    // Timeouts and errors still end in onComplete, so that is the one place a request is finished
+    private void finish(HttpServletRequest request, HttpServletResponse response, RequestTiming timing,
+                        Instant at) {
+        long now = System.nanoTime();
+        slowRequests.offer(now - timing.startNanos(), () -> timing.toEntry(at, request.getMethod(),
+                request.getRequestURI(), response.getStatus(), Math.max(0, request.getContentLengthLong()), now));
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.airtimebackend.timing;
+
+import com.example.airtimebackend.config.AnalysisTimingProperties;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds the {@code Server-Timing} header just before a response body is serialized, which is the
+ * last moment headers can still change - for async endpoints that is after the analysis finished.
+ * Also marks where serialization starts, for the slow-request log.
+ */
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    // Off: only mark serialization, e.g. when stage timings shouldn't reach clients
+    private final boolean header;
+
+    public ServerTimingAdvice(AnalysisTimingProperties properties) {
+        this.header = properties.isServerTimingHeader();
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && servletRequest.getServletRequest().getAttribute(RequestTiming.ATTRIBUTE)
+                instanceof RequestTiming timing) {
+            long now = System.nanoTime();
+            timing.bodyWriteStarted(now);
+            if (header) {
+                response.getHeaders().add("Server-Timing", timing.serverTiming(now));
+            }
+        }
+        return body;
+    }
+}
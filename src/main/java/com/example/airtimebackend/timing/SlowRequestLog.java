@@ -0,0 +1,88 @@
+package com.example.airtimebackend.timing;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * The N slowest requests of the last {@code window}, in a fixed array of slots that is updated with
+ * compare-and-set only: a finished request scans the slots and, if it is slower than the fastest
+ * one kept (or a slot is free or has aged out), swaps itself in. Requests that don't make the cut
+ * cost one scan and never build their entry. Entries hold timings and sizes, never the user's text.
+ */
+public final class SlowRequestLog {
+
+    public record Entry(Instant at, String method, String path, int status, double totalMillis,
+                        Map<String, Double> stagesMillis, long requestBytes, long upstreamRequestBytes,
+                        long upstreamResponseBytes, String fallbackCause) {
+    }
+
+    private record Slot(Entry entry, long durationNanos, long recordedAtNanos) {
+    }
+
+    private final AtomicReferenceArray<Slot> slots;
+    private final long windowNanos;
+    private final LongSupplier clock;
+
+    public SlowRequestLog(int size, long windowNanos) {
+        this(size, windowNanos, System::nanoTime);
+    }
+
+    SlowRequestLog(int size, long windowNanos, LongSupplier clock) {
+        this.slots = new AtomicReferenceArray<>(Math.max(1, size));
+        this.windowNanos = windowNanos;
+        this.clock = clock;
+    }
+
+    /** Keeps the request if it is among the slowest; {@code entry} is only called if it is. */
+    public void offer(long durationNanos, Supplier<Entry> entry) {
+        Slot slot = null;
+        while (true) {
+            long now = clock.getAsLong();
+            int victim = -1;
+            Slot replaced = null;
+            for (int i = 0; i < slots.length(); i++) {
+                Slot current = slots.get(i);
+                if (current == null || now - current.recordedAtNanos > windowNanos) {
+                    victim = i;
+                    replaced = current;
+                    break;
+                }
+                if (current.durationNanos < durationNanos
+                        && (replaced == null || current.durationNanos < replaced.durationNanos)) {
+                    victim = i;
+                    replaced = current;
+                }
+            }
+            if (victim < 0) {
+                return;
+            }
+            if (slot == null) {
+                slot = new Slot(entry.get(), durationNanos, now);
+            }
+            // Lost a race for this slot: rescan, the picture has changed
+            if (slots.compareAndSet(victim, replaced, slot)) {
+                return;
+            }
+        }
+    }
+
+    /** Live entries, slowest first. */
+    public List<Entry> snapshot() {
+        long now = clock.getAsLong();
+        List<Slot> live = new ArrayList<>(slots.length());
+        for (int i = 0; i < slots.length(); i++) {
+            Slot slot = slots.get(i);
+            if (slot != null && now - slot.recordedAtNanos <= windowNanos) {
+                live.add(slot);
+            }
+        }
+        live.sort(Comparator.comparingLong(Slot::durationNanos).reversed());
+        return live.stream().map(Slot::entry).toList();
+    }
+}
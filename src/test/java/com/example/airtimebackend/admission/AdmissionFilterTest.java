@@ -0,0 +1,62 @@
+package com.example.airtimebackend.admission;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.ErrorResponseException;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionFilterTest {
+
+    @Test
+    void onlyConfiguredKeysGetABucketOfTheirOwn() {
+        AdmissionFilter filter = new AdmissionFilter(null, null, false, Set.of("issued-key"), Duration.ofSeconds(1));
+
+        MockHttpServletRequest known = new MockHttpServletRequest();
+        known.setRemoteAddr("10.0.0.7");
+        known.addHeader("X-API-Key", "issued-key");
+        assertEquals("key:issued-key", filter.clientId(known));
+
+        MockHttpServletRequest bearer = new MockHttpServletRequest();
+        bearer.addHeader("Authorization", "Bearer issued-key");
+        assertEquals("key:issued-key", filter.clientId(bearer));
+
+        // A made-up key is no way around the per-address bucket
+        MockHttpServletRequest minted = new MockHttpServletRequest();
+        minted.setRemoteAddr("10.0.0.7");
+        minted.addHeader("X-API-Key", "fresh-" + System.nanoTime());
+        minted.addHeader("X-Forwarded-For", "203.0.113.9");
+        assertEquals("ip:10.0.0.7", filter.clientId(minted));
+    }
+
+    @Test
+    void shedsWith503AndHoldsChargedSlotsUntilTheResponseEnds() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4);
+        AdmissionFilter filter = new AdmissionFilter(null, limiter, false, Set.of(), Duration.ofSeconds(2));
+
+        MockHttpServletRequest batch = new MockHttpServletRequest("POST", "/api/brain-dump/batch");
+        filter.doFilter(batch, new MockHttpServletResponse(), (request, response) -> {
+            filter.charge((HttpServletRequest) request, 0, 2);
+            assertEquals(3, limiter.inFlight());
+            ErrorResponseException rejected = assertThrows(ErrorResponseException.class,
+                    () -> filter.charge((HttpServletRequest) request, 0, 2));
+            assertEquals(HttpStatus.SERVICE_UNAVAILABLE, rejected.getStatusCode());
+            assertEquals("2", rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+
+            MockHttpServletResponse shed = new MockHttpServletResponse();
+            limiter.tryAcquire();
+            filter.doFilter(new MockHttpServletRequest("POST", "/api/brain-dump"), shed,
+                    (ignored, alsoIgnored) -> fail("admitted past the cap"));
+            assertEquals(503, shed.getStatus());
+            limiter.release();
+        });
+        assertEquals(0, limiter.inFlight());
+    }
+}
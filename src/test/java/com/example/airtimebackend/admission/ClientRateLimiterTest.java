@@ -0,0 +1,97 @@
+package com.example.airtimebackend.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClientRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000_000L);
+
+    @Test
+    void drainsBurstThenRefillsAtRate() {
+        ClientRateLimiter limiter = new ClientRateLimiter(2.0, 3, Duration.ofMinutes(10), 1000, 4, now::get);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("alice"));
+        }
+        long wait = limiter.tryAcquire("alice");
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), wait);
+        // Other clients have their own bucket
+        assertEquals(0, limiter.tryAcquire("bob"));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(0, limiter.tryAcquire("alice"));
+        assertTrue(limiter.tryAcquire("alice") > 0);
+    }
+
+    @Test
+    void aChargeBiggerThanTheBurstIsAdmittedFromAFullBucketAndPaidOffAfterwards() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1.0, 5, Duration.ofMinutes(10), 1000, 4, now::get);
+        // The call's first token was taken on admission, the rest when it knew its size
+        assertEquals(0, limiter.tryAcquire("batcher"));
+        assertEquals(0, limiter.tryAcquire("batcher", 19, 1));
+        // 15 tokens in debt plus the one wanted
+        assertEquals(TimeUnit.SECONDS.toNanos(16), limiter.tryAcquire("batcher"));
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(16));
+        assertEquals(0, limiter.tryAcquire("batcher"));
+        assertEquals(TimeUnit.SECONDS.toNanos(3), limiter.tryAcquire("batcher", 3, 0));
+    }
+
+    @Test
+    void evictsBucketsOnceRefilledOrIdle() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1.0, 5, Duration.ofMinutes(10), 1000, 4, now::get);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire("client-" + i);
+        }
+        assertEquals(100, limiter.trackedClients());
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        limiter.evictIdle();
+        assertEquals(100, limiter.trackedClients());
+
+        // One token spent at burst 5 and 1/s: full again after a second
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(500));
+        limiter.evictIdle();
+        assertEquals(0, limiter.trackedClients());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedBucketsWhenEveryBucketIsActive() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1.0, 1, Duration.ofMinutes(10), 32, 1, now::get);
+        for (int i = 0; i < 32; i++) {
+            assertEquals(0, limiter.tryAcquire("client-" + i));
+            now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        // A new id gets its one token, and no more than that: nobody goes unmetered
+        assertEquals(0, limiter.tryAcquire("one-too-many"));
+        assertTrue(limiter.tryAcquire("one-too-many") > 0);
+        // An eighth of the stripe made room at once
+        assertEquals(4, limiter.evicted());
+        assertEquals(29, limiter.trackedClients());
+        // client-0 to client-3 were the stalest and start over; the others are still drained
+        assertEquals(0, limiter.tryAcquire("client-0"));
+        assertEquals(0, limiter.tryAcquire("client-3"));
+        assertTrue(limiter.tryAcquire("client-4") > 0);
+        assertTrue(limiter.tryAcquire("client-31") > 0);
+    }
+
+    @Test
+    void aFloodOfNewIdsCostsOneSweepPerEighthOfAStripe() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1.0, 1, Duration.ofMinutes(10), 1024, 1, now::get);
+        int ids = 100_000;
+        for (int i = 0; i < ids; i++) {
+            limiter.tryAcquire("2001:db8::" + Integer.toHexString(i));
+            now.incrementAndGet();
+        }
+        assertTrue(limiter.trackedClients() <= 1024);
+        assertEquals(ids - limiter.trackedClients(), limiter.evicted());
+        // Growing to the cap takes a handful; after that one per 128 new ids
+        assertTrue(limiter.sweeps() <= 20 + ids / 128, "sweeps " + limiter.sweeps());
+    }
+}
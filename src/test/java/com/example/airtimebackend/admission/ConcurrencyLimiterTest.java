@@ -0,0 +1,26 @@
+package com.example.airtimebackend.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrencyLimiterTest {
+
+    @Test
+    void shedsAtOnceBeyondTheCapAndCountsMultiSlotHolders() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(4);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire(3));
+        assertEquals(4, limiter.inFlight());
+
+        long start = System.nanoTime();
+        assertFalse(limiter.tryAcquire());
+        assertTrue(System.nanoTime() - start < 50_000_000L, "never waits for a slot");
+        assertEquals(1, limiter.shed());
+
+        limiter.release(3);
+        assertFalse(limiter.tryAcquire(4));
+        assertTrue(limiter.tryAcquire(3));
+        assertEquals(2, limiter.shed());
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.airtimebackend.ai;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void stopTimer() {
+        timer.shutdownNow();
+    }
+
+    // Keeps the limit saturated and releases every call with the same RTT
+    private static void runAtLimit(AdaptiveConcurrencyLimiter limiter, int rounds, long rttNanos) {
+        for (int round = 0; round < rounds; round++) {
+            List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            for (int i = limiter.limit(); i > 0; i--) {
+                permits.add(limiter.acquire().join());
+            }
+            permits.forEach(permit -> permit.release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS, rttNanos));
+        }
+    }
+
+    @Test
+    void growsWhileLatencyHoldsAndShrinksWhenItRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 2, 40, 0, Duration.ZERO, 1.5, 0.75,
+                timer);
+
+        runAtLimit(limiter, 20, 100 * MS);
+        int grown = limiter.limit();
+        assertTrue(grown > 10, "limit " + grown);
+
+        // The upstream starts queueing: RTTs triple
+        runAtLimit(limiter, 1, 300 * MS);
+        int shrunk = limiter.limit();
+        assertTrue(shrunk < grown, "limit " + shrunk + " vs " + grown);
+        assertTrue(limiter.shortRttMillis() > 1.5 * limiter.longRttMillis());
+
+        // Once the long-run baseline has caught up, the new latency is simply normal again
+        runAtLimit(limiter, 20, 300 * MS);
+        assertTrue(limiter.limit() > shrunk, "limit " + limiter.limit() + " vs " + shrunk);
+    }
+
+    @Test
+    void dropsCutTheLimitOncePerRoundTripAndIgnoredCallsLeaveItAlone() {
+        AtomicLong clock = new AtomicLong();
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(16, 2, 40, 0, Duration.ZERO, 1.5, 0.5,
+                timer, clock::get);
+        limiter.acquire().join().release(AdaptiveConcurrencyLimiter.Outcome.IGNORED, 0);
+        assertEquals(16, limiter.limit());
+
+        // Prime the RTT so "one round trip" means 100ms
+        limiter.acquire().join().release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS, 100 * MS);
+        int before = limiter.limit();
+
+        // A burst of 429s from calls that were in flight together
+        List<AdaptiveConcurrencyLimiter.Permit> burst = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            burst.add(limiter.acquire().join());
+        }
+        burst.forEach(permit -> permit.release(AdaptiveConcurrencyLimiter.Outcome.DROPPED, 0));
+        assertEquals(before / 2, limiter.limit());
+        assertEquals(5, limiter.drops());
+
+        clock.addAndGet(150 * MS);
+        limiter.acquire().join().release(AdaptiveConcurrencyLimiter.Outcome.DROPPED, 0);
+        assertEquals(before / 4, limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void callsOverTheLimitQueueFifoUntilTheQueueIsFullOrTheWaitRunsOut() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 2, Duration.ofMillis(200), 1.5,
+                0.75, timer);
+        AdaptiveConcurrencyLimiter.Permit held = limiter.acquire().join();
+
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> first = limiter.acquire();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> second = limiter.acquire();
+        assertNull(limiter.acquire().join(), "queue full");
+        assertEquals(1, limiter.shed());
+        assertFalse(first.isDone());
+
+        held.release(AdaptiveConcurrencyLimiter.Outcome.IGNORED, 0);
+        AdaptiveConcurrencyLimiter.Permit granted = first.getNow(null);
+        assertNotNull(granted);
+        assertFalse(second.isDone());
+
+        // The slot stays taken past max-wait, so the second waiter gives up
+        assertNull(second.get(2, TimeUnit.SECONDS));
+        assertEquals(1, limiter.timedOut());
+        assertEquals(0, limiter.waiting());
+        granted.release(AdaptiveConcurrencyLimiter.Outcome.IGNORED, 0);
+        granted.release(AdaptiveConcurrencyLimiter.Outcome.IGNORED, 0);
+        assertEquals(0, limiter.inFlight());
+    }
+}
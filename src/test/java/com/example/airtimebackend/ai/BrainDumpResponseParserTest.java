@@ -0,0 +1,70 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.CalendarEvent;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BrainDumpResponseParserTest {
+
+    private final BrainDumpResponseParser parser = new BrainDumpResponseParser();
+
+    static String fixture(String name) throws IOException {
+        try (InputStream in = BrainDumpResponseParserTest.class.getResourceAsStream("/fixtures/" + name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void bindsCleanJsonIntoTypedResponse() throws IOException {
+        BrainDumpResponse response = parser.parse(fixture("model-output-clean.json"), "dump");
+
+        assertNotNull(response);
+        assertEquals(4, response.urgency);
+        assertEquals("high", response.energyLevel);
+        assertEquals(535, response.estimatedTime);
+        assertEquals(14, response.organizedNotes.size());
+        assertEquals(6, response.calendarEvents.size());
+        assertEquals(new CalendarEvent("Soccer practice", "2026-02-10", "18:00", 90, "high",
+                "Bring cleats!", "green"), response.calendarEvents.get(2));
+        assertFalse(response.fallback);
+    }
+
+    @Test
+    void toleratesMarkdownFencesAndTrailingCommasInOnePass() throws IOException {
+        BrainDumpResponse clean = parser.parse(fixture("model-output-clean.json"), "dump");
+        BrainDumpResponse fenced = parser.parse(fixture("model-output-fenced.txt"), "dump");
+        BrainDumpResponse trailing = parser.parse(fixture("model-output-trailing-commas.json"), "dump");
+
+        assertNotNull(fenced);
+        assertNotNull(trailing);
+        assertEquals(clean.organizedNotes, fenced.organizedNotes);
+        assertEquals(clean.calendarEvents, trailing.calendarEvents);
+        assertEquals(clean.timeManagementTips, trailing.timeManagementTips);
+    }
+
+    @Test
+    void appliesDefaultsForMissingOrMistypedFields() {
+        BrainDumpResponse response = parser.parse(
+                "{\"urgency\": \"5\", \"priority\": {\"oops\": 1}, \"calendarEvents\": [{\"title\": \"Gym\"}, 7]}",
+                "go to the gym");
+
+        assertNotNull(response);
+        assertEquals(5, response.urgency);
+        assertEquals(3, response.priority);
+        assertEquals(List.of("go to the gym"), response.organizedNotes);
+        assertEquals(List.of(new CalendarEvent("Gym", "", "", 30, "medium", "", "blue")), response.calendarEvents);
+    }
+
+    @Test
+    void returnsNullForGarbage() throws IOException {
+        assertNull(parser.parse(fixture("model-output-garbage.txt"), "dump"));
+        assertNull(parser.parse("{\"urgency\": 4, \"advice\": \"cut off mid", "dump"));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingAIProviderTest {
+
+    private static BrainDumpResponse response(String note) {
+        return new BrainDumpResponse(3, 3, "advice", "motivation", List.of(note), "quick win", 30,
+                "medium", "yay", List.of("step"), 3, List.of(), List.of("tip"));
+    }
+
+    @Test
+    void servesRepeatedAndWhitespaceVariantsFromCache() {
+        AtomicInteger calls = new AtomicInteger();
+        CachingAIProvider cache = new CachingAIProvider(text -> {
+            calls.incrementAndGet();
+            return response(text);
+        }, true, 100, 1_000_000, Duration.ofMinutes(5));
+
+        BrainDumpResponse first = cache.analyzeBrainDump("buy milk\n  call mom");
+        BrainDumpResponse second = cache.analyzeBrainDump("  buy milk call   mom ");
+
+        assertSame(first.organizedNotes, second.organizedNotes);
+        assertEquals(1, calls.get());
+        assertEquals(1, cache.hits());
+        assertEquals(1, cache.misses());
+
+        // Each caller gets its own instance to annotate
+        assertNotSame(first, second);
+        first.id = "mine";
+        assertNull(cache.analyzeBrainDump("buy milk call mom").id);
+    }
+
+    @Test
+    void aDelegateThrowingOnTheCallerThreadDoesNotStrandLaterCallers() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CachingAIProvider cache = new CachingAIProvider(new AIProvider() {
+            @Override
+            public BrainDumpResponse analyzeBrainDump(String text) {
+                return response(text);
+            }
+
+            @Override
+            public CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text) {
+                if (calls.incrementAndGet() == 1) {
+                    throw new IllegalStateException("no upstream");
+                }
+                return CompletableFuture.completedFuture(response(text));
+            }
+        }, true, 100, 1_000_000, Duration.ofMinutes(5));
+
+        CompletableFuture<BrainDumpResponse> failed = cache.analyzeBrainDumpAsync("same text");
+        assertTrue(failed.isCompletedExceptionally());
+        BrainDumpResponse retried = cache.analyzeBrainDumpAsync("same text").get(1, TimeUnit.SECONDS);
+        assertEquals(List.of("same text"), retried.organizedNotes);
+        assertEquals(0, cache.stats().get("inFlight"));
+    }
+
+    @Test
+    void neverCachesFallbackResponses() {
+        AtomicInteger calls = new AtomicInteger();
+        CachingAIProvider cache = new CachingAIProvider(text -> {
+            calls.incrementAndGet();
+            BrainDumpResponse fallback = response(text);
+            fallback.fallback = true;
+            return fallback;
+        }, true, 100, 1_000_000, Duration.ofMinutes(5));
+
+        cache.analyzeBrainDump("same text");
+        cache.analyzeBrainDump("same text");
+
+        assertEquals(2, calls.get());
+        assertEquals(0, cache.hits());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedAndExpiredEntries() {
+        AtomicLong now = new AtomicLong();
+        AtomicInteger calls = new AtomicInteger();
+        CachingAIProvider cache = new CachingAIProvider(text -> {
+            calls.incrementAndGet();
+            return response(text);
+        }, true, 2, 1_000_000, Duration.ofSeconds(10), now::get);
+
+        cache.analyzeBrainDump("a");
+        cache.analyzeBrainDump("b");
+        cache.analyzeBrainDump("a");     // touch a so b is eldest
+        cache.analyzeBrainDump("c");     // evicts b
+        assertEquals(3, calls.get());
+
+        cache.analyzeBrainDump("a");
+        assertEquals(3, calls.get());
+        cache.analyzeBrainDump("b");
+        assertEquals(4, calls.get());
+
+        now.addAndGet(Duration.ofSeconds(11).toNanos());
+        cache.analyzeBrainDump("a");
+        assertEquals(5, calls.get());
+        assertTrue(cache.evictions() >= 2);
+    }
+
+    @Test
+    void collapsesConcurrentIdenticalRequestsIntoOneUpstreamCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CachingAIProvider cache = new CachingAIProvider(text -> {
+            calls.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return response(text);
+        }, true, 100, 1_000_000, Duration.ofMinutes(5));
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<BrainDumpResponse>> results = new java.util.ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit(() -> cache.analyzeBrainDump("double tap")));
+            }
+            // Give every caller time to join the in-flight request before it completes
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (cache.coalesced() < 7 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            release.countDown();
+
+            BrainDumpResponse first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<BrainDumpResponse> result : results) {
+                assertSame(first.organizedNotes, result.get(5, TimeUnit.SECONDS).organizedNotes);
+            }
+            assertEquals(1, calls.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.CalendarEvent;
+import com.example.airtimebackend.model.FallbackCause;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkingAIProviderTest {
+
+    private static BrainDumpResponse response(int urgency, int priority, String quickWin, int minutes,
+                                              List<String> notes, List<CalendarEvent> events) {
+        return new BrainDumpResponse(urgency, priority, "advice " + urgency, "motivation", notes, quickWin, minutes,
+                "medium", "celebration", List.of("Start with " + quickWin), 3, events, List.of("Use a timer"));
+    }
+
+    private static CalendarEvent event(String title, String time, String priority) {
+        return new CalendarEvent(title, "2026-02-12", time, 60, priority, "", "blue");
+    }
+
+    @Test
+    void splitsAtParagraphLineAndSentenceBoundariesBeforeCuttingWords() {
+        String text = "Monday: gym. Groceries.\n\nTuesday: call mom\nreview the budget\n\n"
+                + "Wednesday was a very long day without any punctuation at all just words";
+
+        List<String> chunks = ChunkingAIProvider.split(text, 30);
+
+        assertEquals(List.of("Monday: gym. Groceries.", "Tuesday: call mom", "review the budget",
+                "Wednesday was a very long day", "without any punctuation at all", "just words"), chunks);
+        assertEquals(List.of("Monday: gym. Groceries.\nTuesday: call mom\nreview the budget"),
+                ChunkingAIProvider.split(text.substring(0, text.indexOf("\n\nWednesday")), 100));
+    }
+
+    @Test
+    void analyzesChunksInParallelAndMergesWithoutDuplicates() {
+        Map<String, CompletableFuture<BrainDumpResponse>> calls = new ConcurrentHashMap<>();
+        AIProvider upstream = new AIProvider() {
+            @Override
+            public BrainDumpResponse analyzeBrainDump(String text) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text) {
+                CompletableFuture<BrainDumpResponse> call = new CompletableFuture<>();
+                calls.put(text.substring(0, 3), call);
+                return call;
+            }
+        };
+        String text = "Mon " + "x ".repeat(40) + "\n\nTue " + "y ".repeat(40) + "\n\nWed " + "z ".repeat(40);
+        CompletableFuture<BrainDumpResponse> result = new ChunkingAIProvider(upstream, null, 100, 90, 8)
+                .analyzeBrainDumpAsync(text);
+
+        // Every chunk is in flight before any has answered
+        assertEquals(3, calls.size());
+        calls.get("Wed").complete(FallbackResponses.forText("Wed: dentist", FallbackCause.DEADLINE));
+        calls.get("Tue").complete(response(5, 2, "Email Sarah", 30,
+                List.of("Call the dentist!", "Finish the report"),
+                List.of(event("Senior design meeting", "14:00", "urgent"))));
+        assertFalse(result.isDone());
+        calls.get("Mon").complete(response(2, 4, "Water the plants", 90,
+                List.of("call the dentist", "Buy groceries"),
+                List.of(event("Senior Design Meeting", "14:00", "high"), event("Gym", "07:00", "medium"))));
+
+        BrainDumpResponse merged = result.join();
+        assertFalse(merged.fallback);
+        assertEquals(5, merged.urgency);
+        // Weighted by chunk length: (4 + 2) / 2
+        assertEquals(3, merged.priority);
+        assertEquals("advice 5", merged.advice);
+        assertEquals("Email Sarah", merged.quickWin);
+        assertTrue(merged.estimatedTime >= 120);
+        assertEquals(List.of("call the dentist", "Buy groceries", "Finish the report"),
+                merged.organizedNotes.subList(0, 3));
+        assertEquals(List.of("Senior design meeting", "Gym"),
+                merged.calendarEvents.stream().map(CalendarEvent::title).toList().subList(0, 2));
+        assertEquals("urgent", merged.calendarEvents.get(0).priority());
+        assertEquals(List.of("Use a timer"), merged.timeManagementTips);
+    }
+
+    @Test
+    void shortTextsPassThroughAndAllFailedChunksFallBackForTheWholeText() {
+        List<String> seen = Collections.synchronizedList(new ArrayList<>());
+        AIProvider failing = new AIProvider() {
+            @Override
+            public BrainDumpResponse analyzeBrainDump(String text) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text) {
+                seen.add(text);
+                return CompletableFuture.failedFuture(new IllegalStateException("down"));
+            }
+        };
+        ChunkingAIProvider provider = new ChunkingAIProvider(failing, null, 100, 60, 8);
+
+        assertTrue(provider.analyzeBrainDumpAsync("short").isCompletedExceptionally());
+        assertEquals(List.of("short"), seen);
+
+        String text = "Taxes are due soon. ".repeat(10);
+        BrainDumpResponse response = provider.analyzeBrainDumpAsync(text).join();
+        assertTrue(response.fallback);
+        assertEquals(1, provider.chunkedAnalyses());
+        assertEquals(seen.size() - 1, provider.chunksAnalyzed());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalJsonFieldParserTest {
+
+    private final List<String> events = new ArrayList<>();
+
+    private final AnalysisStreamListener recorder = new AnalysisStreamListener() {
+        @Override
+        public void onField(String name, JsonNode value) {
+            events.add(name + "=" + value);
+        }
+
+        @Override
+        public void onItem(String arrayName, JsonNode item) {
+            events.add(arrayName + "[]=" + item);
+        }
+
+        @Override
+        public void onComplete(BrainDumpResponse response) {
+        }
+    };
+
+    @Test
+    void emitsEachFieldAsSoonAsItCloses() {
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser(recorder);
+        parser.feed("```json\n{\"urgency\": 4, \"quickWin\": \"Email Prof");
+        assertEquals(List.of("urgency=4"), events);
+
+        parser.feed("essor Chen\", \"organizedNotes\": [\"Laundry\", \"Iron ");
+        assertEquals(List.of("urgency=4", "quickWin=\"Email Professor Chen\"", "organizedNotes[]=\"Laundry\""), events);
+
+        parser.feed("shirt\"], \"calendarEvents\": [{\"title\": \"Soccer\", \"time\": \"18:00\"},]}\n```");
+        assertEquals("organizedNotes[]=\"Iron shirt\"", events.get(3));
+        assertEquals("calendarEvents[]={\"title\":\"Soccer\",\"time\":\"18:00\"}", events.get(4));
+        assertTrue(parser.isFinished());
+        assertFalse(parser.isFailed());
+    }
+
+    @Test
+    void splitsMultiByteCharactersSafelyAcrossChunks() {
+        IncrementalJsonFieldParser parser = new IncrementalJsonFieldParser(recorder);
+        String json = "{\"celebration\": \"You did it 🎉\", \"dopamineScore\": 5}";
+        for (int i = 0; i < json.length(); i++) {
+            parser.feed(json.substring(i, i + 1));
+        }
+        assertEquals(List.of("celebration=\"You did it 🎉\"", "dopamineScore=5"), events);
+    }
+}
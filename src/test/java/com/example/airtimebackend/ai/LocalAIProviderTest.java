@@ -0,0 +1,106 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.CalendarEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalAIProviderTest {
+
+    // Tuesday morning
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 2, 10, 8, 30);
+    private static final String DUMP = "Fluid Mechanics p-set due Thursday 11:59 PM, need to debug the CAD file "
+            + "before the Wednesday meeting. Soccer practice at 6 PM today, bring cleats. Pick up Leo at 3. "
+            + "Internship interview Wednesday 10 AM - iron shirt tonight. Email Professor Chen about the lab "
+            + "extension. Watch Leo Saturday 2-5 PM";
+
+    private final LocalAIProvider provider = new LocalAIProvider(Clock.fixed(NOW.toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+
+    @Test
+    void resolvesRelativeDatesAndTimes() {
+        List<LocalExtractor.Task> tasks = LocalExtractor.extract(DUMP, NOW);
+
+        assertEquals(List.of("Fluid Mechanics p-set", "Debug the CAD file before the meeting", "Soccer practice",
+                        "Bring cleats", "Pick up Leo", "Internship interview", "Iron shirt",
+                        "Email Professor Chen about the lab extension", "Watch Leo"),
+                tasks.stream().map(LocalExtractor.Task::title).toList());
+
+        LocalExtractor.Task pset = tasks.get(0);
+        assertEquals(LocalDate.of(2026, 2, 12), pset.date());
+        assertEquals(LocalTime.of(23, 59), pset.time());
+        assertTrue(pset.deadline());
+
+        assertEquals(LocalTime.of(18, 0), tasks.get(2).time());
+        assertEquals(LocalDate.of(2026, 2, 10), tasks.get(2).date());
+        assertEquals(LocalTime.of(15, 0), tasks.get(4).time());
+        assertEquals(LocalDate.of(2026, 2, 11), tasks.get(5).date());
+        assertEquals(LocalTime.of(10, 0), tasks.get(5).time());
+
+        LocalExtractor.Task babysitting = tasks.get(8);
+        assertEquals(LocalDate.of(2026, 2, 14), babysitting.date());
+        assertEquals(LocalTime.of(14, 0), babysitting.time());
+        assertEquals(180, babysitting.durationMinutes());
+    }
+
+    @Test
+    void handlesExplicitDatesDurationsAndFiller() {
+        List<LocalExtractor.Task> tasks = LocalExtractor.extract(
+                "so much to do: taxes\ndentist on Feb 20th at 9:30am for 45 min\n- call mom next Tuesday evening", NOW);
+
+        assertEquals(List.of("Taxes", "Dentist", "Call mom"), tasks.stream().map(LocalExtractor.Task::title).toList());
+        assertEquals(LocalDate.of(2026, 2, 20), tasks.get(1).date());
+        assertEquals(LocalTime.of(9, 30), tasks.get(1).time());
+        assertEquals(45, tasks.get(1).durationMinutes());
+        assertEquals(LocalDate.of(2026, 2, 17), tasks.get(2).date());
+        assertEquals(LocalTime.of(18, 0), tasks.get(2).time());
+    }
+
+    @Test
+    void outOfRangeNumbersAreLeftInTheTitleInsteadOfThrowing() {
+        List<LocalExtractor.Task> tasks = LocalExtractor.extract(
+                "Finish report in 12345678901 days. Study for 99999999999 hours", NOW);
+
+        assertEquals(List.of("Finish report in 12345678901 days", "Study for 99999999999 hours"),
+                tasks.stream().map(LocalExtractor.Task::title).toList());
+        assertNull(tasks.get(0).date());
+        assertEquals(0, tasks.get(1).durationMinutes());
+        assertTrue(FallbackResponses.forText("finish report in 12345678901 days").fallback);
+    }
+
+    @Test
+    void buildsEventsOrderedByTimeWithUrgencyFromTheSoonest() {
+        BrainDumpResponse response = provider.analyze(DUMP);
+
+        List<CalendarEvent> events = response.calendarEvents;
+        assertEquals(7, events.size());
+        assertEquals(new CalendarEvent("Pick up Leo", "2026-02-10", "15:00", 60, "urgent", "Pick up Leo at 3", "red"),
+                events.get(0));
+        assertEquals("Watch Leo", events.get(events.size() - 1).title());
+        assertEquals(5, response.urgency);
+        assertEquals("Email Professor Chen about the lab extension", response.quickWin);
+        assertEquals(9, response.organizedNotes.size());
+    }
+
+    @Test
+    void fallbackKeepsGenericEventWhenNothingIsScheduled() {
+        BrainDumpResponse response = provider.analyze("laundry");
+
+        assertEquals(List.of("Laundry"), response.organizedNotes);
+        assertEquals(1, response.calendarEvents.size());
+        assertTrue(response.calendarEvents.get(0).title().startsWith("Organize: "));
+        assertEquals("", response.calendarEvents.get(0).notes());
+        assertEquals("", provider.promptHints("laundry"));
+
+        // Only an actual fallback says the AI was unavailable
+        assertEquals("AI processing unavailable - review this manually",
+                FallbackResponses.forText("laundry").calendarEvents.get(0).notes());
+    }
+}
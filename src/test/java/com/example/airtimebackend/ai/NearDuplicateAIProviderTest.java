@@ -0,0 +1,112 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearDuplicateAIProviderTest {
+
+    private static final String DUMP = """
+            Finish the fluid mechanics problem set before the study group meets
+            Call the dentist about moving my cleaning appointment
+            Pick up groceries for the week and remember the oat milk
+            Email professor Chen about the lab report extension
+            Soccer practice Thursday at 6pm, bring the cleats""";
+
+    private static BrainDumpResponse response(String note) {
+        return new BrainDumpResponse(3, 3, "advice", "motivation", List.of(note), "quick win", 30,
+                "medium", "yay", List.of("step"), 3, List.of(), List.of("tip"));
+    }
+
+    private static NearDuplicateAIProvider provider(AIProvider delegate, int maxEntries, AtomicLong clock) {
+        return new NearDuplicateAIProvider(delegate, true, 0.85, 12, maxEntries, 10_000_000,
+                Duration.ofMinutes(5), clock::get);
+    }
+
+    @Test
+    void reusesTriviallyDifferentDumpsButNotChangedTimesOrShortTexts() {
+        AtomicInteger calls = new AtomicInteger();
+        NearDuplicateAIProvider provider = provider(text -> {
+            calls.incrementAndGet();
+            return response(text);
+        }, 100, new AtomicLong());
+
+        BrainDumpResponse first = provider.analyzeBrainDump(DUMP);
+        List<String> lines = new ArrayList<>(List.of(DUMP.split("\n")));
+        Collections.reverse(lines);
+        String reordered = String.join("\n\n   ", lines);
+        String oneWordAdded = DUMP.replace("Call the dentist", "Call the new dentist");
+
+        assertSame(first.organizedNotes, provider.analyzeBrainDump(reordered).organizedNotes);
+        assertSame(first.organizedNotes, provider.analyzeBrainDump(oneWordAdded).organizedNotes);
+        first.id = "first";
+        BrainDumpResponse reused = provider.analyzeBrainDumpAsync(DUMP.toUpperCase()).join();
+        assertSame(first.organizedNotes, reused.organizedNotes);
+        assertNull(reused.id);
+        assertEquals(1, calls.get());
+
+        provider.analyzeBrainDump(DUMP.replace("6pm", "7pm"));
+        provider.analyzeBrainDump(DUMP.replace("Thursday", "Friday"));
+        provider.analyzeBrainDump("Plan a birthday party for my sister, book the venue and send invites to "
+                + "everyone from the choir, order the cake and a banner, and find a playlist");
+        provider.analyzeBrainDump("call mom");
+        provider.analyzeBrainDump("call mom");
+        assertEquals(6, calls.get());
+        assertEquals(3, provider.hits());
+    }
+
+    @Test
+    void optedOutRequestsAskTheDelegateButAreStillIndexed() {
+        AtomicInteger calls = new AtomicInteger();
+        NearDuplicateAIProvider provider = provider(text -> {
+            BrainDumpResponse response = response(text);
+            // The first call fails over to the fallback, which must not be reused
+            response.fallback = calls.incrementAndGet() == 1;
+            return response;
+        }, 100, new AtomicLong());
+
+        provider.analyzeBrainDump(DUMP);
+        BrainDumpResponse optedOut = provider.analyzeBrainDumpAsync(DUMP, false).join();
+        assertFalse(optedOut.fallback);
+        assertEquals(2, calls.get());
+
+        BrainDumpResponse reused = provider.analyzeBrainDumpAsync(DUMP + " again", true).join();
+        assertSame(optedOut.organizedNotes, reused.organizedNotes);
+        assertEquals(2, calls.get());
+        assertEquals(1L, provider.stats().get("bypassed"));
+    }
+
+    @Test
+    void boundsEntriesAndExpiresOldOnes() {
+        AtomicLong clock = new AtomicLong();
+        AtomicInteger calls = new AtomicInteger();
+        NearDuplicateAIProvider provider = provider(text -> {
+            calls.incrementAndGet();
+            return response(text);
+        }, 1500, clock);
+
+        // Past the initial array size, so the index grows and relinks before it starts evicting
+        for (int i = 0; i < 2000; i++) {
+            provider.analyzeBrainDump(DUMP.replace("6pm", i + "pm"));
+        }
+        assertEquals(1500, provider.entries());
+        assertEquals(2000, calls.get());
+
+        provider.analyzeBrainDump(DUMP.replace("6pm", "1999pm"));
+        provider.analyzeBrainDump(DUMP.replace("6pm", "3pm"));
+        assertEquals(2001, calls.get());
+
+        clock.addAndGet(Duration.ofMinutes(6).toNanos());
+        provider.analyzeBrainDump(DUMP.replace("6pm", "1999pm"));
+        assertEquals(2002, calls.get());
+        assertEquals(1, provider.entries());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.FallbackCause;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenAIProviderTest {
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void stopTimer() {
+        timer.shutdownNow();
+    }
+
+    @Test
+    void aPromptThatCannotBeBuiltFallsBackAndGivesItsPermitBack() throws Exception {
+        AnalysisMetrics metrics = new AnalysisMetrics(new SimpleMeterRegistry());
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1, 0, Duration.ZERO, 1.5, 0.75,
+                timer);
+        LocalAIProvider failingHints = new LocalAIProvider(Clock.systemDefaultZone()) {
+            @Override
+            public String promptHints(String text) {
+                throw new IllegalStateException("boom");
+            }
+        };
+        // No HTTP client: nothing may get as far as sending
+        OpenAIProvider provider = new OpenAIProvider(null, metrics, PromptProfile.COMPACT, failingHints,
+                new UpstreamLimiters(() -> limiter, metrics));
+
+        for (int i = 0; i < 3; i++) {
+            BrainDumpResponse response = provider.analyzeBrainDumpAsync("Call mom").get(5, TimeUnit.SECONDS);
+            assertTrue(response.fallback);
+            assertEquals(FallbackCause.EXCEPTION, response.fallbackCause);
+            assertEquals(0, limiter.inFlight());
+        }
+
+        CompletableFuture<BrainDumpResponse> streamed = new CompletableFuture<>();
+        provider.streamBrainDump("Call mom", new AnalysisStreamListener() {
+            @Override
+            public void onField(String name, JsonNode value) {
+            }
+
+            @Override
+            public void onItem(String arrayName, JsonNode item) {
+            }
+
+            @Override
+            public void onComplete(BrainDumpResponse response) {
+                streamed.complete(response);
+            }
+        });
+        assertTrue(streamed.get(5, TimeUnit.SECONDS).fallback);
+        assertEquals(0, limiter.inFlight());
+    }
+}
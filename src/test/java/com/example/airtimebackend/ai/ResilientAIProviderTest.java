@@ -0,0 +1,149 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.FallbackCause;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientAIProviderTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final AnalysisMetrics metrics = new AnalysisMetrics(new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private static BrainDumpResponse response(String note) {
+        return new BrainDumpResponse(3, 3, "advice", "motivation", List.of(note), "quick win", 30,
+                "medium", "yay", List.of("step"), 3, List.of(), List.of("tip"));
+    }
+
+    // Never answers on its own; records whether it was cancelled
+    private static class HangingProvider implements AIProvider {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile CompletableFuture<BrainDumpResponse> last;
+
+        @Override
+        public BrainDumpResponse analyzeBrainDump(String text) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text) {
+            calls.incrementAndGet();
+            last = new CompletableFuture<>();
+            return last;
+        }
+    }
+
+    @Test
+    void servesDeadlineFallbackAndCancelsUpstream() {
+        HangingProvider upstream = new HangingProvider();
+        ResilientAIProvider provider = new ResilientAIProvider(upstream, null, null, Duration.ofMillis(50),
+                Duration.ofSeconds(1), Duration.ofSeconds(1), scheduler, metrics);
+
+        BrainDumpResponse response = provider.analyzeBrainDumpAsync("text").orTimeout(5, TimeUnit.SECONDS).join();
+
+        assertTrue(response.fallback);
+        assertEquals(FallbackCause.DEADLINE, response.fallbackCause);
+        assertTrue(upstream.last.isCancelled());
+    }
+
+    @Test
+    void aFallbackThatFailsToBuildStillEndsTheCall() {
+        AnalysisMetrics failing = new AnalysisMetrics(new SimpleMeterRegistry()) {
+            @Override
+            public void fallback(FallbackCause cause) {
+                throw new IllegalStateException("boom");
+            }
+        };
+        HangingProvider upstream = new HangingProvider();
+        ResilientAIProvider provider = new ResilientAIProvider(upstream, null, null, Duration.ofMillis(50),
+                Duration.ofSeconds(1), Duration.ofSeconds(1), scheduler, failing);
+
+        BrainDumpResponse response = provider.analyzeBrainDumpAsync("text").orTimeout(5, TimeUnit.SECONDS).join();
+        assertTrue(response.fallback);
+        assertEquals(FallbackCause.DEADLINE, response.fallbackCause);
+        assertTrue(upstream.last.isCancelled());
+
+        AIProvider broken = text -> {
+            throw new IllegalStateException("upstream");
+        };
+        ResilientAIProvider failingFast = new ResilientAIProvider(broken, null, null, Duration.ofSeconds(5),
+                Duration.ofSeconds(1), Duration.ofSeconds(1), scheduler, failing);
+        assertEquals(FallbackCause.EXCEPTION,
+                failingFast.analyzeBrainDumpAsync("text").orTimeout(5, TimeUnit.SECONDS).join().fallbackCause);
+    }
+
+    @Test
+    void hedgeWinsAndLoserIsCancelled() {
+        HangingProvider primary = new HangingProvider();
+        AIProvider hedge = text -> response("from hedge");
+        ResilientAIProvider provider = new ResilientAIProvider(primary, hedge, null, Duration.ofSeconds(5),
+                Duration.ofMillis(20), Duration.ofMillis(20), scheduler, metrics);
+
+        BrainDumpResponse response = provider.analyzeBrainDumpAsync("text").orTimeout(5, TimeUnit.SECONDS).join();
+
+        assertFalse(response.fallback);
+        assertEquals(List.of("from hedge"), response.organizedNotes);
+        assertTrue(primary.last.isCancelled());
+    }
+
+    @Test
+    void openBreakerShortCircuitsUntilProbesSucceed() {
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, Duration.ofSeconds(10), 1.0,
+                Duration.ofSeconds(30), 2, now::get);
+        AtomicInteger calls = new AtomicInteger();
+        AtomicInteger failing = new AtomicInteger(4);
+        AIProvider upstream = text -> {
+            calls.incrementAndGet();
+            return failing.getAndDecrement() > 0 ? FallbackResponses.forText(text) : response(text);
+        };
+        ResilientAIProvider provider = new ResilientAIProvider(upstream, null, breaker, Duration.ofSeconds(5),
+                Duration.ofSeconds(1), Duration.ofSeconds(1), scheduler, metrics);
+
+        for (int i = 0; i < 4; i++) {
+            provider.analyzeBrainDump("text");
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+
+        BrainDumpResponse shortCircuited = provider.analyzeBrainDump("text");
+        assertEquals(FallbackCause.CIRCUIT_OPEN, shortCircuited.fallbackCause);
+        assertEquals(4, calls.get());
+
+        now.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertFalse(provider.analyzeBrainDump("text").fallback);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.state());
+        assertFalse(provider.analyzeBrainDump("text").fallback);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void breakerTripsOnSlowCalls() {
+        CircuitBreaker breaker = new CircuitBreaker(10, 3, 0.5, Duration.ofSeconds(2), 0.6,
+                Duration.ofSeconds(30), 1, () -> 0L);
+
+        breaker.onResult(false, Duration.ofSeconds(3).toNanos());
+        breaker.onResult(false, Duration.ofMillis(100).toNanos());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.state());
+        breaker.onResult(false, Duration.ofSeconds(5).toNanos());
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+    }
+}
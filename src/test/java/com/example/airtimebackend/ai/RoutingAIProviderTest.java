@@ -0,0 +1,93 @@
+package com.example.airtimebackend.ai;
+
+import com.example.airtimebackend.model.BrainDumpResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoutingAIProviderTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private static BrainDumpResponse response(String note) {
+        return new BrainDumpResponse(3, 3, "advice", "motivation", List.of(note), "quick win", 30,
+                "medium", "yay", List.of("step"), 3, List.of(), List.of("tip"));
+    }
+
+    // Answers synchronously, advancing the fake clock by its latency
+    private AIProvider upstream(Duration latency, boolean failing) {
+        return new AIProvider() {
+            @Override
+            public BrainDumpResponse analyzeBrainDump(String text) {
+                now.addAndGet(latency.toNanos());
+                return failing ? FallbackResponses.forText(text) : response(text);
+            }
+
+            @Override
+            public CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text) {
+                return CompletableFuture.completedFuture(analyzeBrainDump(text));
+            }
+        };
+    }
+
+    @Test
+    void drainsTrafficAwayFromSlowProvider() {
+        RoutingAIProvider.Route fast = new RoutingAIProvider.Route("fast", upstream(Duration.ofMillis(300), false), 1);
+        RoutingAIProvider.Route slow = new RoutingAIProvider.Route("slow", upstream(Duration.ofSeconds(6), false), 1);
+        RoutingAIProvider router = new RoutingAIProvider(List.of(fast, slow), now::get);
+
+        for (int i = 0; i < 500; i++) {
+            router.analyzeBrainDump("text " + i);
+        }
+
+        assertTrue(slow.selections() < 60, "slow provider got " + slow.selections());
+        assertTrue(slow.ewmaLatencyMillis() > fast.ewmaLatencyMillis());
+        assertEquals(0, fast.inFlight() + slow.inFlight());
+    }
+
+    @Test
+    void drainsTrafficAwayFromFailingProvider() {
+        RoutingAIProvider.Route healthy = new RoutingAIProvider.Route("healthy", upstream(Duration.ofSeconds(1), false), 1);
+        RoutingAIProvider.Route broken = new RoutingAIProvider.Route("broken", upstream(Duration.ofMillis(50), true), 1);
+        RoutingAIProvider router = new RoutingAIProvider(List.of(healthy, broken), now::get);
+
+        for (int i = 0; i < 500; i++) {
+            router.analyzeBrainDump("text " + i);
+        }
+
+        assertTrue(broken.selections() < 100, "broken provider got " + broken.selections());
+        assertTrue(broken.errorRate() > 0.5);
+    }
+
+    @Test
+    void cancellationReleasesInFlightSlot() {
+        CompletableFuture<BrainDumpResponse> pending = new CompletableFuture<>();
+        AIProvider hanging = new AIProvider() {
+            @Override
+            public BrainDumpResponse analyzeBrainDump(String text) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text) {
+                return pending;
+            }
+        };
+        RoutingAIProvider.Route route = new RoutingAIProvider.Route("only", hanging, 1);
+        RoutingAIProvider router = new RoutingAIProvider(List.of(route), now::get);
+
+        CompletableFuture<BrainDumpResponse> call = router.analyzeBrainDumpAsync("text");
+        assertEquals(1, route.inFlight());
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        call.cancel(true);
+
+        assertTrue(pending.isCancelled());
+        assertEquals(0, route.inFlight());
+        assertTrue(route.ewmaLatencyMillis() >= 30_000);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.airtimebackend.ai;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextKeyTest {
+
+    @Test
+    void whitespaceVariantsShareAKeyAndTheStoredHashNeverChanges() {
+        assertEquals("openai/gpt-4o-mini\u0000Call mom tomorrow",
+                TextKey.of("openai/gpt-4o-mini", "  Call   mom\ntomorrow "));
+        assertNotEquals(TextKey.of("a", "Call mom"), TextKey.of("b", "Call mom"));
+
+        // Result stores on disk are indexed by this value
+        assertEquals(-8467479475063096331L, TextKey.hashOf("openai/gpt-4o-mini", "Call mom tomorrow"));
+        assertEquals(TextKey.hash(TextKey.of("openai/gpt-4o-mini", "Call mom tomorrow")),
+                TextKey.hashOf("openai/gpt-4o-mini", "Call  mom tomorrow"));
+    }
+}
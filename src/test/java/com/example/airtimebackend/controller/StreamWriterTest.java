@@ -0,0 +1,83 @@
+package com.example.airtimebackend.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamWriterTest {
+
+    @Test
+    void writesOfOneStreamRunInOrderOffTheCallersThreadAndASlowStreamIsRefusedMore() throws Exception {
+        try (StreamWriter writer = new StreamWriter(2, 10, 3)) {
+            CountDownLatch unblock = new CountDownLatch(1);
+            CountDownLatch done = new CountDownLatch(1);
+            List<String> written = new ArrayList<>();
+            Thread caller = Thread.currentThread();
+
+            StreamWriter.Lane slow = writer.lane();
+            assertTrue(slow.offer(() -> {
+                assertNotSame(caller, Thread.currentThread());
+                try {
+                    unblock.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                written.add("a");
+            }));
+            assertTrue(slow.offer(() -> written.add("b")));
+            assertTrue(slow.offer(() -> written.add("c")));
+            // The first write may or may not have been picked up yet; either way the lane is now full
+            slow.offer(() -> written.add("d"));
+            assertFalse(slow.offer(() -> written.add("e")));
+            assertTrue(slow.offerLast(done::countDown));
+
+            // Another stream isn't held up by the blocked one
+            CountDownLatch other = new CountDownLatch(1);
+            assertTrue(writer.lane().offer(other::countDown));
+            assertTrue(other.await(5, TimeUnit.SECONDS));
+
+            unblock.countDown();
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of("a", "b", "c"), written.subList(0, 3));
+            assertFalse(written.contains("e"));
+        }
+    }
+
+    @Test
+    void aWriteRefusedBecauseEveryWriterIsBusyNeverRuns() throws Exception {
+        try (StreamWriter writer = new StreamWriter(1, 1, 10)) {
+            CountDownLatch unblock = new CountDownLatch(1);
+            CountDownLatch started = new CountDownLatch(1);
+            assertTrue(writer.lane().offer(() -> {
+                started.countDown();
+                try {
+                    unblock.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            CountDownLatch queued = new CountDownLatch(1);
+            assertTrue(writer.lane().offer(queued::countDown));
+
+            // The only writer is busy and the only queue slot taken
+            List<String> written = new CopyOnWriteArrayList<>();
+            StreamWriter.Lane refused = writer.lane();
+            assertFalse(refused.offer(() -> written.add("write")));
+            assertFalse(refused.offerLast(() -> written.add("end")));
+
+            unblock.countDown();
+            assertTrue(queued.await(5, TimeUnit.SECONDS));
+            CountDownLatch later = new CountDownLatch(1);
+            assertTrue(refused.offerLast(later::countDown));
+            assertTrue(later.await(5, TimeUnit.SECONDS));
+            assertEquals(List.of(), written);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.airtimebackend.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseProjectionTest {
+
+    @Test
+    void keepsSelectedFieldsInResponseOrderPlusId() {
+        BrainDumpResponse response = new BrainDumpResponse(4, 3, "advice", "motivation", List.of("note"),
+                "quick win", 30, "medium", "celebration", List.of("step"), 3,
+                List.of(new CalendarEvent("Dentist", "2026-02-10", "09:00", 30, "high", "", "red")), List.of("tip"));
+        response.id = "abc";
+
+        Map<String, Object> view = ResponseProjection.parse(" calendarEvents, urgency ,id").apply(response);
+
+        assertEquals(List.of("id", "urgency", "calendarEvents"), List.copyOf(view.keySet()));
+        assertSame(response.calendarEvents, view.get("calendarEvents"));
+        assertEquals(4, view.get("urgency"));
+    }
+
+    @Test
+    void blankMeansFullResponseAndUnknownFieldsAreRejected() {
+        assertNull(ResponseProjection.parse(null));
+        assertNull(ResponseProjection.parse(" "));
+        assertSame(ResponseProjection.parse("quickWin"), ResponseProjection.parse("quickWin"));
+        assertThrows(IllegalArgumentException.class, () -> ResponseProjection.parse("quickWin,fallback"));
+    }
+}
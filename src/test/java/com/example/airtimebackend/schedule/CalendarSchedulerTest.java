@@ -0,0 +1,74 @@
+package com.example.airtimebackend.schedule;
+
+import com.example.airtimebackend.model.CalendarConflict;
+import com.example.airtimebackend.model.CalendarEvent;
+import com.example.airtimebackend.model.ScheduleResponse;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CalendarSchedulerTest {
+
+    private final CalendarScheduler scheduler = new CalendarScheduler(LocalTime.of(8, 0), LocalTime.of(22, 0), 2, 500);
+
+    private static CalendarEvent event(String title, String date, String time, int duration, String priority) {
+        return new CalendarEvent(title, date, time, duration, priority, "", "blue");
+    }
+
+    @Test
+    void findsOverlapsAndIgnoresBackToBackAndUntimedEvents() {
+        List<CalendarEvent> events = List.of(
+                event("Senior Design Meeting", "2026-02-12", "14:00", 60, "high"),
+                event("Fluid Mechanics p-set", "2026-02-12", "14:00", 90, "urgent"),
+                event("Northrop Interview", "2026-02-12", "10:00", 60, "urgent"),
+                event("Commute", "2026-02-12", "15:30", 30, "low"),
+                event("Someday", null, null, 30, "low"));
+
+        CalendarScheduler.Conflicts conflicts = scheduler.conflicts(events);
+
+        assertEquals(1, conflicts.total());
+        assertEquals(List.of(new CalendarConflict(0, 1, "Senior Design Meeting", "Fluid Mechanics p-set", 60)),
+                conflicts.reported());
+    }
+
+    @Test
+    void movesLowerPriorityEventToNearestFreeSlotAndKeepsTheRest() {
+        List<CalendarEvent> events = List.of(
+                event("Senior Design Meeting", "2026-02-12", "14:00", 60, "high"),
+                event("Fluid Mechanics p-set", "2026-02-12", "14:00", 90, "urgent"),
+                event("Lunch", "2026-02-12", "12:00", 60, "medium"));
+
+        ScheduleResponse result = scheduler.schedule(events, "medium");
+
+        assertEquals(events.get(1), result.events.get(1));
+        assertEquals(events.get(2), result.events.get(2));
+        // Right after the p-set plus the 10 minute medium-energy break beats before lunch (11:50 would need 13:00 + 10)
+        assertEquals("15:40", result.events.get(0).time());
+        assertEquals("2026-02-12", result.events.get(0).date());
+        assertEquals(1, result.moved.size());
+        assertEquals(0, result.moved.get(0).index());
+        assertTrue(result.unresolved.isEmpty());
+        assertEquals(1, result.totalConflicts);
+    }
+
+    @Test
+    void lowEnergyPushesToNextDayOnceTheDayIsFullAndReportsWhatCannotMove() {
+        List<CalendarEvent> events = new ArrayList<>();
+        // 6 hours of urgent work fills a low-energy day
+        events.add(event("Deep work", "2026-02-10", "09:00", 360, "urgent"));
+        events.add(event("Errands", "2026-02-10", "10:00", 60, "low"));
+        events.add(event("Marathon", "2026-02-10", "09:00", 24 * 60, "low"));
+
+        ScheduleResponse result = new CalendarScheduler(LocalTime.of(8, 0), LocalTime.of(22, 0), 1, 500)
+                .schedule(events, "low");
+
+        assertEquals("2026-02-11", result.events.get(1).date());
+        assertEquals("10:00", result.events.get(1).time());
+        assertEquals(List.of(2), result.unresolved);
+        assertEquals(events.get(2), result.events.get(2));
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.airtimebackend.schedule;
+
+import com.example.airtimebackend.model.CalendarEvent;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IcsWriterTest {
+
+    @Test
+    void writesFoldedEscapedEventsAndSkipsUndatedOnes() throws Exception {
+        StringWriter out = new StringWriter();
+        new IcsWriter(out, Instant.parse("2026-02-10T08:00:00Z"), "abc").writeAll(List.of(
+                new CalendarEvent("Soccer, practice; bring cleats", "2026-02-10", "18:00", 90, "high",
+                        "Leo's team\n" + "é".repeat(60), "green"),
+                new CalendarEvent("Laundry", "2026-02-11", null, 0, "low", null, "gray"),
+                new CalendarEvent("Someday", "not a date", "10:00", 30, "low", null, "gray")));
+        String ics = out.toString();
+
+        assertTrue(ics.startsWith("BEGIN:VCALENDAR\r\nVERSION:2.0\r\n"));
+        assertTrue(ics.endsWith("END:VCALENDAR\r\n"));
+        assertTrue(ics.contains("\r\nSUMMARY:Soccer\\, practice\\; bring cleats\r\n"));
+        assertTrue(ics.contains("\r\nDTSTART:20260210T180000\r\nDURATION:PT90M\r\n"));
+        assertTrue(ics.contains("\r\nDTSTAMP:20260210T080000Z\r\n"));
+        assertTrue(ics.contains("\r\nDTSTART;VALUE=DATE:20260211\r\nDURATION:P1D\r\n"));
+        assertTrue(ics.contains("\r\nPRIORITY:3\r\n"));
+        assertFalse(ics.contains("Someday"));
+        assertEquals(2, ics.split("BEGIN:VEVENT", -1).length - 1);
+
+        for (String line : ics.split("\r\n")) {
+            assertTrue(line.getBytes(StandardCharsets.UTF_8).length <= 75, line);
+        }
+        String unfolded = ics.replace("\r\n ", "");
+        assertTrue(unfolded.contains("DESCRIPTION:Leo's team\\n" + "é".repeat(60) + "\r\n"));
+    }
+}
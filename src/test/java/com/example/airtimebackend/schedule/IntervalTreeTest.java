@@ -0,0 +1,56 @@
+package com.example.airtimebackend.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalTreeTest {
+
+    @Test
+    void overlapQueriesMatchBruteForce() {
+        Random random = new Random(42);
+        IntervalTree<Integer> tree = new IntervalTree<>();
+        List<long[]> all = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long start = random.nextInt(100_000);
+            long end = start + 1 + random.nextInt(500);
+            tree.insert(start, end, i);
+            all.add(new long[]{start, end});
+        }
+        assertEquals(2000, tree.size());
+
+        for (int q = 0; q < 500; q++) {
+            long start = random.nextInt(100_000);
+            long end = start + 1 + random.nextInt(300);
+            List<Integer> expected = new ArrayList<>();
+            for (int i = 0; i < all.size(); i++) {
+                if (all.get(i)[0] < end && start < all.get(i)[1]) {
+                    expected.add(i);
+                }
+            }
+            List<Integer> actual = new ArrayList<>();
+            List<Long> starts = new ArrayList<>();
+            tree.forEachOverlap(start, end, interval -> {
+                actual.add(interval.value());
+                starts.add(interval.start());
+            });
+
+            assertEquals(!expected.isEmpty(), tree.overlapsAny(start, end));
+            assertEquals(expected.stream().sorted().toList(), actual.stream().sorted().toList());
+            assertEquals(starts.stream().sorted().toList(), starts, "yielded in start order");
+        }
+    }
+
+    @Test
+    void touchingIntervalsDoNotOverlap() {
+        IntervalTree<String> tree = new IntervalTree<>();
+        tree.insert(60, 120, "a");
+        assertFalse(tree.overlapsAny(120, 180));
+        assertFalse(tree.overlapsAny(0, 60));
+        assertTrue(tree.overlapsAny(119, 121));
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.airtimebackend.service;
+
+import com.example.airtimebackend.ai.AIProvider;
+import com.example.airtimebackend.ai.FallbackResponses;
+import com.example.airtimebackend.config.AnalysisJobsProperties;
+import com.example.airtimebackend.config.HttpClientConfig;
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.JobState;
+import com.example.airtimebackend.model.JobStatusResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnalysisJobServiceTest {
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<String> started = new CopyOnWriteArrayList<>();
+    private final Map<String, CompletableFuture<BrainDumpResponse>> calls = new ConcurrentHashMap<>();
+
+    // Each analysis stays in flight until the test completes it
+    private final AIProvider provider = new AIProvider() {
+        @Override
+        public BrainDumpResponse analyzeBrainDump(String text) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text) {
+            started.add(text);
+            return calls.computeIfAbsent(text, t -> new CompletableFuture<>());
+        }
+    };
+
+    @AfterEach
+    void stopTimer() {
+        timer.shutdownNow();
+    }
+
+    private AnalysisJobService service(int maxConcurrency, int queueCapacity, Duration timeout) {
+        AnalysisJobsProperties properties = new AnalysisJobsProperties();
+        properties.setMaxConcurrency(maxConcurrency);
+        properties.setQueueCapacity(queueCapacity);
+        properties.setTimeout(timeout);
+        return new AnalysisJobService(provider, properties, timer, null, new ObjectMapper(), registry);
+    }
+
+    @Test
+    void runsQueuedJobsByPriorityAndKeepsTheResult() {
+        AnalysisJobService jobs = service(1, 10, Duration.ofMinutes(1));
+        JobStatusResponse first = jobs.submit("first", AnalysisJobService.Priority.NORMAL, null);
+        jobs.submit("low", AnalysisJobService.Priority.LOW, null);
+        jobs.submit("normal", AnalysisJobService.Priority.NORMAL, null);
+        jobs.submit("high", AnalysisJobService.Priority.HIGH, null);
+        assertEquals(JobState.RUNNING, jobs.status(first.id).status);
+        assertEquals(3, jobs.queued());
+
+        for (String text : List.of("first", "high", "normal")) {
+            calls.get(text).complete(FallbackResponses.forText(text));
+        }
+        assertEquals(List.of("first", "high", "normal", "low"), started);
+
+        JobStatusResponse done = jobs.status(first.id);
+        assertEquals(JobState.SUCCEEDED, done.status);
+        assertNotNull(done.result);
+        assertNotNull(done.executionMillis);
+        assertEquals(3, registry.get("airtime.jobs.execution").tag("outcome", "succeeded").timer().count());
+    }
+
+    @Test
+    void callbacksGoOnlyToListedHostsThatResolveOutsideOurNetwork() throws Exception {
+        AnalysisJobsProperties properties = new AnalysisJobsProperties();
+        properties.setCallbackAttempts(1);
+        AtomicInteger received = new AtomicInteger();
+        HttpServer receiver = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        receiver.createContext("/hook", exchange -> {
+            received.incrementAndGet();
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        receiver.start();
+        try (CloseableHttpAsyncClient callbackClient = new HttpClientConfig().callbackHttpClient(properties)) {
+            AnalysisJobService jobs = new AnalysisJobService(provider, properties, timer, callbackClient,
+                    new ObjectMapper(), registry);
+            assertFalse(jobs.isCallbackAllowed(URI.create("https://93.184.216.34/hook")), "empty list allows none");
+
+            properties.setCallbackAllowedHosts(List.of("93.184.216.34", "127.0.0.1", "localhost", "10.1.2.3",
+                    "169.254.169.254", "0.0.0.0", "[fd00::1]"));
+            assertTrue(jobs.isCallbackAllowed(URI.create("https://93.184.216.34/hook")));
+            assertFalse(jobs.isCallbackAllowed(URI.create("ftp://93.184.216.34/hook")));
+            assertFalse(jobs.isCallbackAllowed(URI.create("https://93.184.216.35/hook")), "not listed");
+            for (String host : List.of("127.0.0.1", "10.1.2.3", "169.254.169.254", "0.0.0.0", "[fd00::1]")) {
+                assertFalse(jobs.isCallbackAllowed(URI.create("http://" + host + "/hook")), host);
+            }
+
+            // A name isn't looked up on the request thread; the callback client refuses it when connecting
+            URI local = URI.create("http://localhost:" + receiver.getAddress().getPort() + "/hook");
+            assertTrue(jobs.isCallbackAllowed(local));
+            JobStatusResponse job = jobs.submit("call back", AnalysisJobService.Priority.NORMAL, local);
+            calls.get("call back").complete(FallbackResponses.forText("call back"));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (registry.find("airtime.jobs.callbacks").tag("result", "failed").counter() == null
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(JobState.SUCCEEDED, jobs.status(job.id).status);
+            assertEquals(1.0, registry.get("airtime.jobs.callbacks").tag("result", "failed").counter().count());
+            assertEquals(0, received.get());
+        } finally {
+            receiver.stop(0);
+        }
+    }
+
+    @Test
+    void rejectsWhenTheQueueIsFull() {
+        AnalysisJobService jobs = service(1, 1, Duration.ofMinutes(1));
+        assertNotNull(jobs.submit("running", AnalysisJobService.Priority.NORMAL, null));
+        assertNotNull(jobs.submit("queued", AnalysisJobService.Priority.NORMAL, null));
+        assertNull(jobs.submit("rejected", AnalysisJobService.Priority.HIGH, null));
+        assertEquals(1.0, registry.get("airtime.jobs.rejected").counter().count());
+    }
+
+    @Test
+    void timesOutQueuedAndRunningJobsAndFreesTheLane() throws Exception {
+        AnalysisJobService jobs = service(1, 10, Duration.ofMillis(100));
+        JobStatusResponse running = jobs.submit("running", AnalysisJobService.Priority.NORMAL, null);
+        JobStatusResponse queued = jobs.submit("queued", AnalysisJobService.Priority.NORMAL, null);
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (jobs.status(queued.id).status != JobState.TIMED_OUT && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(JobState.TIMED_OUT, jobs.status(running.id).status);
+        assertEquals(JobState.TIMED_OUT, jobs.status(queued.id).status);
+        assertEquals(0, jobs.running());
+    }
+}
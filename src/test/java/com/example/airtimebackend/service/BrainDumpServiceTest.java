@@ -0,0 +1,55 @@
+package com.example.airtimebackend.service;
+
+import com.example.airtimebackend.ai.AIProvider;
+import com.example.airtimebackend.ai.FallbackResponses;
+import com.example.airtimebackend.config.AnalysisBatchProperties;
+import com.example.airtimebackend.model.BrainDumpResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BrainDumpServiceTest {
+
+    @Test
+    void aBatchFinishesWhenItemsFailOrTheirResultCannotBeHandled() throws Exception {
+        AIProvider provider = new AIProvider() {
+            @Override
+            public BrainDumpResponse analyzeBrainDump(String text) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text) {
+                return switch (text) {
+                    case "throws" -> throw new IllegalStateException("sync");
+                    case "fails" -> CompletableFuture.failedFuture(new IllegalStateException("async"));
+                    case "null" -> CompletableFuture.completedFuture(null);
+                    default -> CompletableFuture.completedFuture(FallbackResponses.forText(text));
+                };
+            }
+        };
+        AnalysisBatchProperties properties = new AnalysisBatchProperties();
+        properties.setMaxConcurrency(2);
+        BrainDumpService service = new BrainDumpService(provider, properties, null, null, null, null, null);
+
+        Map<Integer, BrainDumpResponse> results = new ConcurrentHashMap<>();
+        List<String> texts = List.of("throws", "fails", "null", "ok", "unlucky", "ok again");
+        service.analyzeBatch(texts, (index, response) -> {
+            if (texts.get(index).equals("unlucky")) {
+                throw new IllegalStateException("writer");
+            }
+            results.put(index, response);
+        }, () -> false).get(5, TimeUnit.SECONDS);
+
+        assertEquals(5, results.size());
+        assertTrue(results.get(0).fallback);
+        assertTrue(results.get(1).fallback);
+        assertTrue(results.get(2).fallback);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.airtimebackend.service;
+
+import com.example.airtimebackend.ai.AIProvider;
+import com.example.airtimebackend.ai.FallbackResponses;
+import com.example.airtimebackend.ai.PersistentAIProvider;
+import com.example.airtimebackend.config.AnalysisIncrementalProperties;
+import com.example.airtimebackend.model.BrainDumpResponse;
+import com.example.airtimebackend.model.CalendarEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IncrementalAnalysisServiceTest {
+
+    private final List<String> upstream = new ArrayList<>();
+    private BrainDumpResponse next;
+    private boolean unavailable;
+
+    private final AIProvider provider = new AIProvider() {
+        @Override
+        public BrainDumpResponse analyzeBrainDump(String text) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CompletableFuture<BrainDumpResponse> analyzeBrainDumpAsync(String text) {
+            upstream.add(text);
+            return CompletableFuture.completedFuture(unavailable ? FallbackResponses.forText(text) : next);
+        }
+    };
+
+    private final IncrementalAnalysisService service = new IncrementalAnalysisService(provider,
+            new PersistentAIProvider(provider, null, Duration.ZERO, new ObjectMapper()),
+            new AnalysisIncrementalProperties());
+
+    private static final String FIRST = "Soccer practice at 6 PM today.\nPick up Leo at 3.\nEmail Professor Chen.";
+
+    private static BrainDumpResponse response(int urgency, List<String> notes, List<CalendarEvent> events) {
+        return new BrainDumpResponse(urgency, urgency, "advice", "motivation", notes, "quick win", 30, "medium",
+                "celebration", List.of("step"), 3, events, List.of("tip"));
+    }
+
+    private static CalendarEvent event(String title, String time) {
+        return new CalendarEvent(title, "2026-02-10", time, 60, "high", "", "orange");
+    }
+
+    private void analyzeFirst() {
+        next = response(4, List.of("Soccer practice at 6 PM", "Pick up Leo at 3", "Email Professor Chen"),
+                List.of(event("Soccer practice", "18:00"), event("Pick up Leo", "15:00")));
+        service.analyzeAsync("s1", FIRST).join();
+    }
+
+    @Test
+    void sendsOnlyAddedLinesAndKeepsEverythingElse() {
+        analyzeFirst();
+        next = response(2, List.of("Buy groceries"), List.of(event("Buy groceries", "19:00")));
+
+        BrainDumpResponse merged = service.analyzeAsync("s1", FIRST + "\nBuy groceries tonight.").join();
+
+        String delta = upstream.get(1);
+        assertTrue(delta.endsWith("New or changed lines to organize:\nBuy groceries tonight.\n"), delta);
+        assertTrue(delta.contains("- Soccer practice (2026-02-10 18:00)"), delta);
+        assertFalse(delta.contains("Pick up Leo at 3."), delta);
+        assertEquals(List.of("Soccer practice at 6 PM", "Pick up Leo at 3", "Email Professor Chen", "Buy groceries"),
+                merged.organizedNotes);
+        assertEquals(List.of("Soccer practice", "Pick up Leo", "Buy groceries"),
+                merged.calendarEvents.stream().map(CalendarEvent::title).toList());
+        // Kept items still warrant their urgency
+        assertEquals(4, merged.urgency);
+    }
+
+    @Test
+    void dropsItemsFromEditedLinesAndSkipsUpstreamWhenOnlyLinesWereRemoved() {
+        analyzeFirst();
+        next = response(4, List.of("Pick up Leo at 4"), List.of(event("Pick up Leo", "16:00")));
+
+        BrainDumpResponse edited = service.analyzeAsync("s1", FIRST.replace("at 3", "at 4")).join();
+        assertEquals(List.of("Soccer practice", "Pick up Leo"),
+                edited.calendarEvents.stream().map(CalendarEvent::title).toList());
+        assertEquals("16:00", edited.calendarEvents.get(1).time());
+
+        BrainDumpResponse removed = service.analyzeAsync("s1",
+                "Soccer practice at 6 PM today.\nPick up Leo at 4.").join();
+        assertEquals(2, upstream.size());
+        assertEquals(List.of("Soccer practice at 6 PM", "Pick up Leo at 4"), removed.organizedNotes);
+    }
+
+    @Test
+    void identicalResubmitIsFreeAndMostlyRewrittenDumpIsAnalyzedInFull() {
+        analyzeFirst();
+        BrainDumpResponse again = service.analyzeAsync("s1", "  soccer practice at 6 pm today.\n" +
+                "Pick up Leo at 3.\n\nEmail Professor Chen.").join();
+        assertEquals(1, upstream.size());
+        assertEquals(3, again.organizedNotes.size());
+
+        next = response(1, List.of("Taxes"), List.of());
+        service.analyzeAsync("s1", "Taxes.\nLaundry.\nCall the bank.").join();
+        assertEquals("Taxes.\nLaundry.\nCall the bank.", upstream.get(1));
+    }
+
+    @Test
+    void callersGetTheirOwnCopyOfWhatTheSessionKeeps() {
+        next = response(4, List.of("Soccer practice at 6 PM", "Pick up Leo at 3", "Email Professor Chen"),
+                List.of(event("Soccer practice", "18:00"), event("Pick up Leo", "15:00")));
+        BrainDumpResponse first = service.analyzeAsync("s1", FIRST).join();
+        first.id = "first";
+        first.urgency = 1;
+
+        BrainDumpResponse again = service.analyzeAsync("s1", FIRST).join();
+        assertNotSame(first, again);
+        assertNull(again.id);
+        assertEquals(4, again.urgency);
+        again.id = "again";
+
+        String shorter = "Soccer practice at 6 PM today.\nPick up Leo at 3.";
+        BrainDumpResponse removed = service.analyzeAsync("s1", shorter).join();
+        assertNull(removed.id);
+        removed.id = "removed";
+        assertNull(service.analyzeAsync("s1", shorter).join().id);
+        assertEquals(1, upstream.size());
+    }
+
+    @Test
+    void aFallbackForTheDeltaAddsOnlyTheNewLines() {
+        analyzeFirst();
+        unavailable = true;
+
+        BrainDumpResponse merged = service.analyzeAsync("s1", FIRST + "\nBuy groceries tonight.").join();
+
+        assertTrue(merged.fallback);
+        assertEquals(4, merged.organizedNotes.size(), merged.organizedNotes.toString());
+        assertEquals("Buy groceries tonight", merged.organizedNotes.get(3));
+        assertEquals(List.of("Soccer practice", "Pick up Leo", "Buy groceries"),
+                merged.calendarEvents.stream().map(CalendarEvent::title).toList());
+
+        // Not remembered, so the new line goes upstream again
+        unavailable = false;
+        next = response(2, List.of("Buy groceries"), List.of(event("Buy groceries", "19:00")));
+        service.analyzeAsync("s1", FIRST + "\nBuy groceries tonight.").join();
+        assertEquals(3, upstream.size());
+        assertTrue(upstream.get(2).endsWith("Buy groceries tonight.\n"));
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.airtimebackend.store;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.logging.logback.StructuredLogEncoder;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResultStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private Instant now = Instant.parse("2026-02-10T08:30:00Z");
+
+    private ResultStore open(int segmentBytes) {
+        Clock clock = new Clock() {
+            @Override
+            public ZoneOffset getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(java.time.ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now;
+            }
+        };
+        return new ResultStore(dir, segmentBytes, false, Duration.ofDays(1), 0.5, clock);
+    }
+
+    @Test
+    void readsBackByIdAndLatestByTextHash() {
+        ResultStore store = open(4096);
+        UUID first = store.append(42, bytes("{\"quickWin\":\"first\"}"));
+        UUID second = store.append(42, bytes("{\"quickWin\":\"second\"}"));
+
+        assertEquals("{\"quickWin\":\"first\"}", text(store.get(first)));
+        assertEquals(second, store.latest(42).id());
+        assertNull(store.get(UUID.randomUUID()));
+        assertNull(store.latest(7));
+        store.close();
+    }
+
+    @Test
+    void recoversAfterRestartAndDropsATornTail() throws Exception {
+        ResultStore store = open(4096);
+        UUID kept = store.append(1, bytes("kept"));
+        UUID torn = store.append(2, bytes("torn"));
+        store.close();
+
+        // Corrupt the second record's payload, as if the process died mid-write
+        Path segment = dir.resolve("segment-00000001.dat");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int second = ResultStore.HEADER_BYTES + 4;
+            buffer.put(second + ResultStore.HEADER_BYTES, (byte) 'X');
+            buffer.force();
+        }
+
+        ResultStore reopened = open(4096);
+        assertEquals("kept", text(reopened.get(kept)));
+        assertNull(reopened.get(torn));
+        assertEquals(1, reopened.records());
+
+        // New appends go where the torn record was and survive the next restart
+        UUID next = reopened.append(3, bytes("next"));
+        reopened.close();
+        ResultStore again = open(4096);
+        assertEquals("next", text(again.get(next)));
+        assertEquals(2, again.records());
+        again.close();
+    }
+
+    @Test
+    void theTornRecordWarningEncodesAsStructuredJson() throws Exception {
+        ResultStore store = open(4096);
+        store.append(1, bytes("torn"));
+        store.close();
+        Path segment = dir.resolve("segment-00000001.dat");
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            buffer.put(ResultStore.HEADER_BYTES, (byte) 'X');
+            buffer.force();
+        }
+
+        // The same encoder logback-spring.xml puts behind the async appender
+        LoggerContext encoderContext = new LoggerContext();
+        encoderContext.putObject(Environment.class.getName(), new StandardEnvironment());
+        StructuredLogEncoder encoder = new StructuredLogEncoder();
+        encoder.setContext(encoderContext);
+        encoder.setFormat("logstash");
+        encoder.start();
+        List<String> lines = new ArrayList<>();
+        AppenderBase<ILoggingEvent> appender = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                lines.add(new String(encoder.encode(event), StandardCharsets.UTF_8));
+            }
+        };
+        appender.start();
+        Logger logger = (Logger) LoggerFactory.getLogger(ResultStore.class);
+        Level level = logger.getLevel();
+        logger.setLevel(Level.WARN);
+        logger.addAppender(appender);
+        try {
+            open(4096).close();
+        } finally {
+            logger.detachAppender(appender);
+            logger.setLevel(level);
+        }
+
+        assertEquals(1, lines.size());
+        // A Path is Iterable<Path>, so logging one as a value used to recurse until the stack ran out
+        String json = lines.get(0);
+        assertTrue(json.contains("\"segment\":\"" + segment.toString().replace("/", "\\/") + "\""), json);
+    }
+
+    @Test
+    void compactionDropsExpiredRecordsAndKeepsLiveOnes() throws Exception {
+        ResultStore store = open(256);
+        UUID old = store.append(1, new byte[100]);
+        now = now.plus(Duration.ofHours(20));
+        UUID recent = store.append(2, new byte[100]);
+        // Fills the second segment, so the first two are sealed
+        store.append(3, new byte[100]);
+        assertEquals(3, store.stats().get("segments"));
+
+        now = now.plus(Duration.ofHours(5));
+        store.compact();
+
+        assertNull(store.get(old));
+        assertNotNull(store.get(recent));
+        assertFalse(Files.exists(dir.resolve("segment-00000001.dat")));
+        store.close();
+
+        ResultStore reopened = open(256);
+        assertNotNull(reopened.get(recent));
+        assertNull(reopened.get(old));
+        reopened.close();
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(ResultStore.Record record) {
+        return new String(record.payload(), StandardCharsets.UTF_8);
+    }
+}
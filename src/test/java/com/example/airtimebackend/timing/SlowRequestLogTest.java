@@ -0,0 +1,86 @@
+package com.example.airtimebackend.timing;
+
+import com.example.airtimebackend.ai.FallbackResponses;
+import com.example.airtimebackend.model.FallbackCause;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlowRequestLogTest {
+
+    private static SlowRequestLog.Entry entry(long millis) {
+        return new SlowRequestLog.Entry(Instant.EPOCH, "POST", "/api/brain-dump", 200, millis, Map.of(), 0, 0, 0,
+                null);
+    }
+
+    @Test
+    void keepsTheSlowestRecentRequestsAndOnlyBuildsEntriesThatMakeTheCut() {
+        AtomicLong clock = new AtomicLong();
+        SlowRequestLog log = new SlowRequestLog(3, TimeUnit.MINUTES.toNanos(10), clock::get);
+        AtomicInteger built = new AtomicInteger();
+        for (long millis : new long[]{50, 400, 10, 300, 20, 900}) {
+            log.offer(TimeUnit.MILLISECONDS.toNanos(millis), () -> {
+                built.incrementAndGet();
+                return entry(millis);
+            });
+        }
+
+        assertEquals(List.of(900.0, 400.0, 300.0), log.snapshot().stream().map(SlowRequestLog.Entry::totalMillis)
+                .toList());
+        // 50, 400, 10 fill the slots; 300 and 900 displace; 20 is never built
+        assertEquals(5, built.get());
+
+        clock.addAndGet(TimeUnit.MINUTES.toNanos(11));
+        assertTrue(log.snapshot().isEmpty());
+        log.offer(TimeUnit.MILLISECONDS.toNanos(5), () -> entry(5));
+        assertEquals(1, log.snapshot().size());
+    }
+
+    @Test
+    void concurrentOffersKeepExactlyTheSlowest() throws Exception {
+        SlowRequestLog log = new SlowRequestLog(16, TimeUnit.MINUTES.toNanos(10));
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++) {
+            int offset = thread;
+            pool.execute(() -> {
+                for (long millis = offset; millis < 4000; millis += 8) {
+                    long value = millis;
+                    log.offer(TimeUnit.MILLISECONDS.toNanos(value), () -> entry(value));
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<Double> kept = log.snapshot().stream().map(SlowRequestLog.Entry::totalMillis).toList();
+        assertEquals(16, kept.size());
+        assertEquals(3999.0, kept.get(0));
+        assertEquals(3984.0, kept.get(15));
+    }
+
+    @Test
+    void serverTimingListsRecordedStagesCallCountsAndFallback() {
+        RequestTiming timing = new RequestTiming(0);
+        timing.record(RequestTiming.Stage.PROMPT, 400_000);
+        timing.record(RequestTiming.Stage.TTFB, 800_000_000);
+        timing.record(RequestTiming.Stage.TTFB, 400_000_000);
+        timing.outcome(FallbackResponses.forText("laundry", FallbackCause.DEADLINE));
+
+        assertEquals("prompt;dur=0.4, ttfb;dur=1200.0;desc=\"2 calls\", fallback;desc=\"deadline\", total;dur=1500.0",
+                timing.serverTiming(1_500_000_000));
+        timing.bodyWriteStarted(1_500_000_000);
+        SlowRequestLog.Entry entry = timing.toEntry(Instant.EPOCH, "POST", "/api/brain-dump", 200, 42, 1_502_000_000);
+        assertEquals(Map.of("prompt", 0.4, "ttfb", 1200.0, "ser", 2.0), entry.stagesMillis());
+        assertEquals("deadline", entry.fallbackCause());
+        assertSame(RequestTiming.current(), RequestTiming.current());
+    }
+}